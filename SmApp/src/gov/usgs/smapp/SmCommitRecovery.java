@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Name: Java class SmCommitRecovery.java
+ * Project: PRISM Review Tool
+ * Written by: Peter Ng, USGS, png@usgs.gov
+ * 
+ * This software is in the public domain because it contains materials that 
+ * originally came from the United States Geological Survey, an agency of the 
+ * United States Department of Interior. For more information, see the official 
+ * USGS copyright policy at 
+ * http://www.usgs.gov/visual-id/credit_usgs.html#copyright
+ * 
+ * Date: first release date Feb. 2015
+ ******************************************************************************/
+
+package gov.usgs.smapp;
+
+import gov.usgs.smcommon.smclasses.SmCommitJournal;
+import java.util.ArrayList;
+import org.openide.modules.OnStart;
+import org.openide.windows.WindowManager;
+
+/**
+ * This class defines the startup task that recovers trim tool commits that
+ * were interrupted, e.g. by a crash, in the previous session. Committed
+ * journals are rolled forward and all others rolled back, and the recovery
+ * is reported in the status viewer once the main window is shown.
+ * @author png
+ */
+@OnStart
+public class SmCommitRecovery implements Runnable {
+    
+    @Override
+    public void run()
+    {
+        final ArrayList<String> logList = SmCommitJournal.recoverAll();
+        
+        if (logList.isEmpty())
+            return;
+        
+        WindowManager.getDefault().invokeWhenUIReady(new Runnable() {
+            @Override
+            public void run() {
+                for (String msg : logList)
+                    SmCore.addMsgToStatusViewer(msg);
+            }
+        });
+    }
+}
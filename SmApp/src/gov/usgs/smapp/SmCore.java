@@ -26,10 +26,14 @@ import gov.usgs.smapp.smtopcomponents.SmFAS_ViewerTC;
 import gov.usgs.smapp.smtopcomponents.SmPropertiesViewerTC;
 import gov.usgs.smapp.smtopcomponents.SmStatusViewerTC;
 import gov.usgs.smcommon.smclasses.SmFile;
+import gov.usgs.smcommon.smclasses.SmFileCache;
+import gov.usgs.smcommon.smclasses.SmFileHeader;
 import gov.usgs.smcommon.smclasses.SmGlobal;
 import gov.usgs.smcommon.smclasses.SmNode;
 import gov.usgs.smcommon.smclasses.SmPreferences;
-import gov.usgs.smcommon.smclasses.SmRec;
+import gov.usgs.smcommon.smclasses.SmRecHeader;
+import gov.usgs.smcommon.smclasses.SmSampleArena;
+import gov.usgs.smcommon.smclasses.SmSpectralCache;
 import gov.usgs.smcommon.smclasses.SmTemplate;
 import static gov.usgs.smcommon.smutilities.NetBeansUtils.getAction;
 import static gov.usgs.smcommon.smutilities.NetBeansUtils.showMessage;
@@ -44,6 +48,8 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.swing.BoxLayout;
@@ -112,6 +118,23 @@ public class SmCore {
      */
     public static ArrayList<VxChartsBinGroup> getVxChartsBinGroups() {return vXChartsBinGroups;}
     
+    /**
+     * Creates a formatted string of the combined usage of the sample arenas of
+     * the VxChartsBinGroups, for display in the status viewer.
+     * @return formatted string of arena usage.
+     */
+    public static String getSampleArenaStatistics()
+    {
+        ArrayList<SmSampleArena> arenas = new ArrayList<>();
+        
+        for (VxChartsBinGroup vXChartsBinGroup : new ArrayList<>(vXChartsBinGroups)) {
+            if (vXChartsBinGroup.getSampleArena() != null)
+                arenas.add(vXChartsBinGroup.getSampleArena());
+        }
+        
+        return SmSampleArena.getStatistics(arenas);
+    }
+    
     /**
      * Gets the current index position of the list, VxChartsBinGroups.
      * @return the current index position in the VxChartsBinGroups.
@@ -318,12 +341,17 @@ public class SmCore {
     
     /**
      * Resets the vXChartsBinGroups object, clearing the list and resetting the
-     * index to zero.
+     * index to zero. The sample arenas of the cleared groups are freed. Groups
+     * that are still being created, such as by a reload, have arenas of their
+     * own, so they are not affected.
      * @throws Exception if an error is detected.
      */
     public static void resetVxChartsBinGroups() throws Exception
     {
         try {
+            for (VxChartsBinGroup vXChartsBinGroup : vXChartsBinGroups)
+                vXChartsBinGroup.free();
+            
             vXChartsBinGroups.clear();
             vXChartsBinGroupsIndx = 0;
         }
@@ -512,6 +540,9 @@ public class SmCore {
             treeModel.setRoot(nodeRoot);
             treeContents.setRootVisible(false);
             treeContents.expandAll();
+            
+            // Monitor the event folders for changed files.
+            SmFileWatcher.watch(nodeRoot);
 
             // Turn off the tree listeners.
             tcSmNodeExplorer.setTreeListeners(false);
@@ -764,6 +795,25 @@ public class SmCore {
             tcStatusViewer.appendText(msg+"\n");
     }
     
+    /**
+     * Shows the error of a failed background task and adds it to the Status
+     * Viewer. The error shown is the cause of the exception, unwrapping the
+     * ExecutionExceptions of nested tasks. Must be called on the event
+     * dispatch thread, for example from the done method of a SwingWorker.
+     * @param ex ExecutionException thrown by the task.
+     */
+    public static void showErrorMessage(ExecutionException ex) {
+        Throwable cause = ex;
+        while (cause instanceof ExecutionException && cause.getCause() != null)
+            cause = cause.getCause();
+        
+        String msg = (cause.getMessage() != null) ? cause.getMessage() : cause.toString();
+        
+        showMessage("Error",msg,
+            NotifyDescriptor.DEFAULT_OPTION,NotifyDescriptor.ERROR_MESSAGE);
+        addMsgToStatusViewer("Error: " + msg);
+    }
+    
     /**
      * Determines if the specified file has a string pattern that would indicate
      * that it is located in the trouble folder.
@@ -1663,6 +1713,110 @@ public class SmCore {
         return 0;
     }
     
+    /**
+     * Creates a group of two bins for the checked leaf nodes of a station node.
+     * One bin is used to store charts of V1 data, while the other stores charts
+     * of V2 data.
+     * @param chartAPI name of chart API to use.
+     * @param nodeEvent event node of the station.
+     * @param nodeStation station node to process.
+     * @param smTemplate SmTemplate object representing the template to apply.
+     * @param adjustPoints true to adjust the points of the traces.
+     * @param owner
+     * @return VxChartsBinGroup object, or null if the station node has no 
+     * checked leaf nodes.
+     * @throws ExecutionException if the charts of a bin cannot be created.
+     */
+    public static VxChartsBinGroup createVxChartsBinGroup(String chartAPI, 
+        SmNode nodeEvent, SmNode nodeStation, SmTemplate smTemplate, 
+        boolean adjustPoints, Object owner) throws ExecutionException
+    {
+        ArrayList<SmNode> checkedLeafNodes = new ArrayList<>();
+        
+        addLeafSmNode(nodeStation, checkedLeafNodes, SmCore.CheckedState.CHECKED);
+        
+        if (checkedLeafNodes.isEmpty())
+            return null;
+        
+        ArrayList<String> v1FilePaths = new ArrayList<>();
+        ArrayList<String> v2FilePaths = new ArrayList<>();
+        
+        for (SmNode checkedLeafNode : checkedLeafNodes) {
+            String filePath = checkedLeafNode.getFilePath();
+            String fileType = extractCosmosFileType(filePath);
+            
+            if (fileType.equalsIgnoreCase(SmGlobal.CosmosFileType.V1.toString())) {
+                v1FilePaths.add(filePath);
+            }
+            if (fileType.equalsIgnoreCase(SmGlobal.CosmosFileType.V2.toString())) {
+                v2FilePaths.add(filePath);
+            }
+        }
+        
+        // Each group holds its charted samples in an arena of its own, which is
+        // freed when the group is replaced, removed, or reset.
+        SmSampleArena sampleArena = new SmSampleArena();
+        V1ChartsBin v1ChartsBin;
+        V2ChartsBin v2ChartsBin;
+        
+        try {
+            v1ChartsBin = !v1FilePaths.isEmpty() ? 
+                new V1ChartsBin(chartAPI,v1FilePaths,smTemplate,adjustPoints,owner,
+                sampleArena) : null;
+
+            v2ChartsBin = !v2FilePaths.isEmpty() ? 
+                new V2ChartsBin(chartAPI,v2FilePaths,smTemplate,adjustPoints,owner,
+                sampleArena) : null;
+        }
+        catch (ExecutionException ex) {
+            sampleArena.free();
+            throw ex;
+        }
+        
+        String groupName = nodeEvent.toString() + "_" + nodeStation.toString();
+        
+        StringBuilder sbStationDesc = new StringBuilder();
+        StringBuilder sbEventDesc = new StringBuilder();
+        
+        File filePath = null;
+        
+        if (!v1FilePaths.isEmpty())
+            filePath = new File(v1FilePaths.get(0));
+        else if (!v2FilePaths.isEmpty())
+            filePath = new File(v2FilePaths.get(0));
+         
+        // The headers are null if the file could not be read by either reader.
+        ArrayList<SmRecHeader> smRecHeaders = (filePath != null) ?
+            SmFileCache.getSmFileHeader(filePath).getSmRecHeaders() : null;
+         
+        if (smRecHeaders != null && !smRecHeaders.isEmpty()) {
+            SmRecHeader smRec = smRecHeaders.get(0);
+            
+            sbStationDesc.append(smRec.getNetworkCode()).append(".").append(smRec.getStationCode());
+            if (!smRec.getStationName().isEmpty())
+                sbStationDesc.append(" - ").append(smRec.getStationName());
+
+            try {
+                String eventDate = smRec.getEventDateTime();
+                
+                SimpleDateFormat formatOrig = new SimpleDateFormat("E MMM dd, yyyy HH:mm");
+                SimpleDateFormat formatNew = new SimpleDateFormat("MM/dd/yyyy");
+                
+                Date date = formatOrig.parse(eventDate);
+                
+                sbEventDesc.append(formatNew.format(date));
+            }
+            catch (ParseException ex) {
+            }
+            
+            if (!smRec.getEventName().isEmpty())
+                sbEventDesc.append(" ").append(smRec.getEventName());
+        }
+        
+        return new VxChartsBinGroup(groupName,sbStationDesc.toString(),
+            sbEventDesc.toString(),chartAPI,v1ChartsBin,v2ChartsBin,sampleArena);
+    }
+    
     /**
      * Class that extends the SwingWorker class and implements the functions to
      * run graphs as a background task.
@@ -1700,9 +1854,11 @@ public class SmCore {
          * selected. One bin is used to store charts of V1 data, while the other stores
          * charts of V2 data.
          * @return null if process completed successfully.
+         * @throws ExecutionException if the charts of a group cannot be created,
+         * reported by done.
          */
         @Override
-        public Integer doInBackground()
+        public Integer doInBackground() throws ExecutionException
         {
             try
             {  
@@ -1729,80 +1885,24 @@ public class SmCore {
                         SmNode nodeStation = (SmNode)stations.nextElement();
                         handle.progress(++curWorkUnits);
                         
-                        ArrayList<SmNode> checkedLeafNodes = new ArrayList<>();
-                        
-                        SmCore.addLeafSmNode(nodeStation, checkedLeafNodes, SmCore.CheckedState.CHECKED);
-                        
-                        if (checkedLeafNodes.isEmpty())
-                            continue;
-                        
-                        ArrayList<String> v1FilePaths = new ArrayList<>();
-                        ArrayList<String> v2FilePaths = new ArrayList<>();
-                        
-                        for (SmNode checkedLeafNode : checkedLeafNodes) {
-                            String filePath = checkedLeafNode.getFilePath();
-                            String fileType = SmCore.extractCosmosFileType(filePath);
-                            
-                            if (fileType.equalsIgnoreCase(SmGlobal.CosmosFileType.V1.toString())) {
-                                v1FilePaths.add(filePath);
-                            }
-                            if (fileType.equalsIgnoreCase(SmGlobal.CosmosFileType.V2.toString())) {
-                                v2FilePaths.add(filePath);
-                            }
-                        }
-                        
-                        V1ChartsBin v1ChartsBin = !v1FilePaths.isEmpty() ? 
-                            new V1ChartsBin(chartAPI,v1FilePaths,smTemplate,adjustPoints,owner) : null;
-                        
-                        V2ChartsBin v2ChartsBin = !v2FilePaths.isEmpty() ? 
-                            new V2ChartsBin(chartAPI,v2FilePaths,smTemplate,adjustPoints,owner) : null;
+                        VxChartsBinGroup vXChartsBinGroup = SmCore.createVxChartsBinGroup(
+                            chartAPI,nodeEvent,nodeStation,smTemplate,adjustPoints,owner);
                         
-                        String groupName = nodeEvent.toString() + "_" + nodeStation.toString();
-                        
-                        StringBuilder sbStationDesc = new StringBuilder();
-                        StringBuilder sbEventDesc = new StringBuilder();
-                        
-                        File filePath = null;
-                        
-                        if (!v1FilePaths.isEmpty())
-                            filePath = new File(v1FilePaths.get(0));
-                        else if (!v2FilePaths.isEmpty())
-                            filePath = new File(v2FilePaths.get(0));
-                         
-                        if (filePath != null) {
-                            SmFile smFile = new SmFile(filePath);
-                            SmRec smRec = smFile.getSmRecs().get(0);
-                            
-                            sbStationDesc.append(smRec.getNetworkCode()).append(".").append(smRec.getStationCode());
-                            if (!smRec.getStationName().isEmpty())
-                                sbStationDesc.append(" - ").append(smRec.getStationName());
-
-                            try {
-                                String eventDate = smRec.getEventDateTime();
-                                
-                                SimpleDateFormat formatOrig = new SimpleDateFormat("E MMM dd, yyyy HH:mm");
-                                SimpleDateFormat formatNew = new SimpleDateFormat("MM/dd/yyyy");
-                                
-                                Date date = formatOrig.parse(eventDate);
-                                
-                                sbEventDesc.append(formatNew.format(date));
-                            }
-                            catch (ParseException ex) {
-                            }
-                            
-                            if (!smRec.getEventName().isEmpty())
-                                sbEventDesc.append(" ").append(smRec.getEventName());
-                        }
-            
-                        SmCore.getVxChartsBinGroups().add(new VxChartsBinGroup(
-                            groupName,sbStationDesc.toString(),sbEventDesc.toString(),
-                            chartAPI,v1ChartsBin,v2ChartsBin));
+                        if (vXChartsBinGroup != null)
+                            SmCore.getVxChartsBinGroups().add(vXChartsBinGroup);
                     }
                 }
                 
                 SmCore.addMsgToStatusViewer(String.format(
                     "Charting completed (%d group(s) processed).",SmCore.getVxChartsBinGroups().size()));
+                SmCore.addMsgToStatusViewer(SmFileCache.getStatistics());
+                SmCore.addMsgToStatusViewer(SmSpectralCache.getStatistics());
+                SmCore.addMsgToStatusViewer(SmCore.getSampleArenaStatistics());
             } 
+            catch (ExecutionException ex)
+            {
+                throw ex;
+            }
             catch (Exception ex) 
             {
                 showMessage("Error",ex.getMessage(),
@@ -1819,6 +1919,15 @@ public class SmCore {
          */
         @Override
         public void done() {
+            try {
+                get();
+            }
+            catch (ExecutionException ex) {
+                SmCore.showErrorMessage(ex);
+            }
+            catch (InterruptedException | CancellationException ex) {
+            }
+            
             try {
                 SmCore.resetNavigationPanel();
                 SmCore.updateChartViewPanels();
@@ -0,0 +1,463 @@
+/*******************************************************************************
+ * Name: Java class SmFileWatcher.java
+ * Project: PRISM Review Tool
+ * Written by: Peter Ng, USGS, png@usgs.gov
+ * 
+ * This software is in the public domain because it contains materials that 
+ * originally came from the United States Geological Survey, an agency of the 
+ * United States Department of Interior. For more information, see the official 
+ * USGS copyright policy at 
+ * http://www.usgs.gov/visual-id/credit_usgs.html#copyright
+ * 
+ * Date: first release date Feb. 2015
+ ******************************************************************************/
+
+package gov.usgs.smapp;
+
+import gov.usgs.smapp.smtopcomponents.SmNodeExplorerTC;
+import gov.usgs.smcommon.smclasses.SmCommitJournal;
+import gov.usgs.smcommon.smclasses.SmDiskCache;
+import gov.usgs.smcommon.smclasses.SmFileCache;
+import gov.usgs.smcommon.smclasses.SmGlobal;
+import gov.usgs.smcommon.smclasses.SmNode;
+import gov.usgs.smcommon.smclasses.SmTemplate;
+import static gov.usgs.smcommon.smutilities.NetBeansUtils.findTopComponent;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.tree.DefaultTreeModel;
+
+/**
+ * This class defines a monitor of the folders of the files displayed in the
+ * Node Explorer. Changes to the files are collected by a background thread
+ * and, once the folders have been quiet for a short period, handled on the
+ * event dispatch thread: the parsed data of the changed files is removed from
+ * SmFileCache and SmDiskCache, the file nodes in the Node Explorer are added, removed or
+ * refreshed, and only the VxChartsBinGroup objects of the stations that own
+ * the changed files are rebuilt. Files of unchanged stations are not reloaded.
+ * @author png
+ */
+public class SmFileWatcher {
+    
+    private static final long QUIET_PERIOD_MS = 1000;
+    
+    private static SmFileWatcher instance = null;
+    
+    private final WatchService watchService;
+    private final Map<WatchKey,Path> watchedDirs = new HashMap<>();
+    private final Thread watchThread;
+    
+    /**
+     * Constructor
+     * @param dirs folders to monitor
+     * @throws IOException if the folders cannot be monitored
+     */
+    private SmFileWatcher(List<Path> dirs) throws IOException
+    {
+        this.watchService = FileSystems.getDefault().newWatchService();
+        
+        try {
+            for (Path dir : dirs) {
+                WatchKey key = dir.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+                watchedDirs.put(key, dir);
+            }
+        }
+        catch (IOException ex) {
+            watchService.close();
+            throw ex;
+        }
+        
+        this.watchThread = new Thread(new Runnable() {
+            @Override
+            public void run() {processEvents();}
+        }, "SmFileWatcher");
+        this.watchThread.setDaemon(true);
+        this.watchThread.start();
+    }
+    
+    /**
+     * Starts monitoring the folders of the file nodes under the specified root
+     * node, replacing any folders monitored previously.
+     * @param nodeRoot root node of the Node Explorer
+     */
+    public static synchronized void watch(SmNode nodeRoot)
+    {
+        stop();
+        
+        LinkedHashSet<Path> dirs = new LinkedHashSet<>();
+        
+        for (SmNode leafNode : getLeafSmNodes(nodeRoot)) {
+            Path dir = Paths.get(leafNode.getFilePath()).getParent();
+            if (dir != null && Files.isDirectory(dir))
+                dirs.add(dir);
+        }
+        
+        if (dirs.isEmpty())
+            return;
+        
+        try {
+            instance = new SmFileWatcher(new ArrayList<>(dirs));
+        }
+        catch (IOException ex) {
+            SmCore.addMsgToStatusViewer("Error: Unable to monitor event folders: " + 
+                ex.getMessage());
+        }
+    }
+    
+    /**
+     * Stops monitoring folders
+     */
+    public static synchronized void stop()
+    {
+        if (instance == null)
+            return;
+        
+        try {
+            instance.watchService.close();
+        }
+        catch (IOException ex) {
+        }
+        
+        instance.watchThread.interrupt();
+        instance = null;
+    }
+    
+    /**
+     * Collects the paths of changed files and hands them to the event dispatch
+     * thread once no change has been reported for the quiet period.
+     */
+    private void processEvents()
+    {
+        LinkedHashSet<Path> changedPaths = new LinkedHashSet<>();
+        
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = changedPaths.isEmpty() ? watchService.take() :
+                    watchService.poll(QUIET_PERIOD_MS, TimeUnit.MILLISECONDS);
+                
+                if (key == null) {
+                    final ArrayList<Path> paths = new ArrayList<>(changedPaths);
+                    changedPaths.clear();
+                    
+                    SwingUtilities.invokeLater(new Runnable() {
+                        @Override
+                        public void run() {reloadChangedFiles(paths);}
+                    });
+                    continue;
+                }
+                
+                Path dir = watchedDirs.get(key);
+                
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW || dir == null)
+                        continue;
+                    
+                    Path path = dir.resolve((Path)event.context());
+                    
+                    // Temp files of a trim tool commit are not COSMOS files.
+                    if (!SmCommitJournal.isTempFile(path.toFile()))
+                        changedPaths.add(path);
+                }
+                
+                key.reset();
+            }
+        }
+        catch (InterruptedException | ClosedWatchServiceException ex) {
+        }
+    }
+    
+    /**
+     * Handles the changed files on the event dispatch thread. The parsed data
+     * of each file is invalidated and its node updated, then the chart bin
+     * groups of the stations that own the files are rebuilt.
+     * @param paths paths of the changed files
+     */
+    private static void reloadChangedFiles(List<Path> paths)
+    {
+        SmNodeExplorerTC tcSmNodeExplorer = findTopComponent(SmNodeExplorerTC.class);
+        
+        if (tcSmNodeExplorer == null)
+            return;
+        
+        DefaultTreeModel treeModel = 
+            (DefaultTreeModel)tcSmNodeExplorer.getCheckboxTree().getModel();
+        SmNode nodeRoot = (SmNode)treeModel.getRoot();
+        
+        if (nodeRoot == null)
+            return;
+        
+        // Map file paths to file nodes and folder paths to folder nodes.
+        HashMap<String,SmNode> fileNodes = new HashMap<>();
+        HashMap<String,SmNode> folderNodes = new HashMap<>();
+        
+        for (SmNode leafNode : getLeafSmNodes(nodeRoot)) {
+            Path path = Paths.get(leafNode.getFilePath());
+            fileNodes.put(path.toString(), leafNode);
+            if (path.getParent() != null)
+                folderNodes.put(path.getParent().toString(), (SmNode)leafNode.getParent());
+        }
+        
+        LinkedHashSet<SmNode> stationNodes = new LinkedHashSet<>();
+        
+        // Turn tree listeners off while file nodes are updated.
+        tcSmNodeExplorer.setTreeListeners(false);
+        
+        try {
+            for (Path path : paths) {
+                SmFileCache.invalidate(path.toFile());
+                SmDiskCache.remove(path.toFile());
+                
+                SmNode fileNode = fileNodes.get(path.toString());
+                SmNode folderNode = (fileNode != null) ? (SmNode)fileNode.getParent() :
+                    folderNodes.get(String.valueOf(path.getParent()));
+                
+                if (folderNode == null)
+                    continue;
+                
+                boolean exists = Files.isRegularFile(path);
+                
+                if (fileNode != null && exists) {
+                    treeModel.nodeChanged(fileNode);
+                }
+                else if (fileNode != null) {
+                    treeModel.removeNodeFromParent(fileNode);
+                }
+                else if (exists) {
+                    fileNode = new SmNode(path.getFileName().toString(),false,
+                        path.toString(),false);
+                    SmCore.addToSmNode(folderNode, fileNode);
+                    treeModel.nodesWereInserted(folderNode, 
+                        new int[] {folderNode.getIndex(fileNode)});
+                }
+                else {
+                    continue;
+                }
+                
+                stationNodes.add(getStationSmNode(folderNode));
+                
+                SmCore.addMsgToStatusViewer("File changed: " + path.toString());
+            }
+        }
+        finally {
+            tcSmNodeExplorer.setTreeListeners(true);
+        }
+        
+        // Rebuild chart bin groups of charted stations only.
+        ArrayList<SmNode> chartedStationNodes = new ArrayList<>();
+        
+        for (SmNode nodeStation : stationNodes) {
+            if (nodeStation != null && 
+                findVxChartsBinGroup(getGroupName(nodeStation)) >= 0)
+                chartedStationNodes.add(nodeStation);
+        }
+        
+        if (!chartedStationNodes.isEmpty())
+            new ReloadGroupsTask(chartedStationNodes).execute();
+    }
+    
+    /**
+     * Gets the leaf nodes with file paths under the specified node
+     * @param node node to search
+     * @return list of file nodes
+     */
+    private static ArrayList<SmNode> getLeafSmNodes(SmNode node)
+    {
+        ArrayList<SmNode> leafNodes = new ArrayList<>();
+        
+        Enumeration nodes = node.depthFirstEnumeration();
+        while (nodes.hasMoreElements()) {
+            SmNode subNode = (SmNode)nodes.nextElement();
+            if (subNode.isLeaf() && subNode.getFilePath() != null)
+                leafNodes.add(subNode);
+        }
+        
+        return leafNodes;
+    }
+    
+    /**
+     * Gets the station node of a V1 or V2 folder node, which is either the
+     * parent of the folder node or, for Trouble folders, its grandparent.
+     * @param folderNode V1 or V2 folder node
+     * @return station node, or null if it cannot be determined
+     */
+    private static SmNode getStationSmNode(SmNode folderNode)
+    {
+        SmNode node = (SmNode)folderNode.getParent();
+        
+        if (node != null && node.toString().equals(SmGlobal.TROUBLE))
+            node = (SmNode)node.getParent();
+        
+        return (node != null && node.getParent() != null && 
+            node.getParent().getParent() != null) ? node : null;
+    }
+    
+    /**
+     * Gets the name of the chart bin group of a station node
+     * @param nodeStation station node
+     * @return group name
+     */
+    private static String getGroupName(SmNode nodeStation)
+    {
+        return nodeStation.getParent().toString() + "_" + nodeStation.toString();
+    }
+    
+    /**
+     * Gets the index of the chart bin group with the specified name
+     * @param groupName group name
+     * @return index of the group, or -1 if the group does not exist
+     */
+    private static int findVxChartsBinGroup(String groupName)
+    {
+        ArrayList<VxChartsBinGroup> groups = SmCore.getVxChartsBinGroups();
+        
+        for (int i=0; i<groups.size(); i++) {
+            if (groups.get(i).getGroupName().equals(groupName))
+                return i;
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * Class that extends the SwingWorker class and implements the functions to
+     * rebuild the chart bin groups of the specified stations as a background task.
+     * Each rebuilt group holds its samples in a sample arena of its own, so a
+     * reset of the chart bin groups while the task runs does not free them.
+     * The arenas of replaced groups, and of rebuilt groups that are no longer
+     * needed, are freed once the chart viewers have been updated.
+     */
+    private static class ReloadGroupsTask extends SwingWorker<ArrayList<VxChartsBinGroup>, Void>
+    {
+        private final ArrayList<SmNode> stationNodes;
+        private final ArrayList<String> groupNames = new ArrayList<>();
+        private final ArrayList<String> chartAPIs = new ArrayList<>();
+        private final SmTemplate smTemplate;
+        
+        /**
+         * Class constructor.
+         * @param stationNodes list of station nodes to process
+         */
+        public ReloadGroupsTask(ArrayList<SmNode> stationNodes)
+        {
+            this.stationNodes = stationNodes;
+            
+            for (SmNode nodeStation : stationNodes) {
+                String groupName = getGroupName(nodeStation);
+                groupNames.add(groupName);
+                chartAPIs.add(SmCore.getVxChartsBinGroups().get(
+                    findVxChartsBinGroup(groupName)).getChartAPI());
+            }
+            
+            SmTemplate template = null;
+            try {
+                template = SmCore.getSelectedSmTemplate();
+            }
+            catch (Exception ex) {
+                SmCore.addMsgToStatusViewer("Error: " + ex.getMessage());
+            }
+            this.smTemplate = template;
+        }
+        
+        /**
+         * Creates a new chart bin group for each station node. A null entry
+         * means the station no longer has checked file nodes.
+         * @return list of chart bin groups, in the order of the station nodes.
+         * @throws ExecutionException if the charts of a group cannot be created,
+         * reported by done.
+         */
+        @Override
+        public ArrayList<VxChartsBinGroup> doInBackground() throws ExecutionException
+        {
+            ArrayList<VxChartsBinGroup> groups = new ArrayList<>();
+            
+            try {
+                for (int i=0; i<stationNodes.size(); i++) {
+                    SmNode nodeStation = stationNodes.get(i);
+                    groups.add(SmCore.createVxChartsBinGroup(chartAPIs.get(i),
+                        (SmNode)nodeStation.getParent(),nodeStation,smTemplate,true,null));
+                }
+            }
+            catch (ExecutionException ex) {
+                // The groups rebuilt so far are not used.
+                for (VxChartsBinGroup group : groups) {
+                    if (group != null)
+                        group.free();
+                }
+                throw ex;
+            }
+            
+            return groups;
+        }
+        
+        /**
+         * Replaces the chart bin groups of the stations and updates the chart
+         * viewers. A rebuilt group whose station is no longer charted, for
+         * example because the groups were reset meanwhile, is discarded.
+         */
+        @Override
+        public void done()
+        {
+            ArrayList<VxChartsBinGroup> discardedGroups = new ArrayList<>();
+            
+            try {
+                ArrayList<VxChartsBinGroup> groups = get();
+                ArrayList<VxChartsBinGroup> vXChartsBinGroups = SmCore.getVxChartsBinGroups();
+                
+                for (int i=0; i<groups.size(); i++) {
+                    int indx = findVxChartsBinGroup(groupNames.get(i));
+                    
+                    if (indx < 0) {
+                        if (groups.get(i) != null)
+                            discardedGroups.add(groups.get(i));
+                        continue;
+                    }
+                    
+                    discardedGroups.add(vXChartsBinGroups.get(indx));
+                    
+                    if (groups.get(i) != null)
+                        vXChartsBinGroups.set(indx, groups.get(i));
+                    else
+                        vXChartsBinGroups.remove(indx);
+                    
+                    SmCore.addMsgToStatusViewer("Charts reloaded for " + groupNames.get(i) + ".");
+                }
+                
+                if (SmCore.getVxChartsBinGroupsIndx() >= vXChartsBinGroups.size())
+                    SmCore.setVxChartsBinGroupsIndx(Math.max(0,vXChartsBinGroups.size()-1));
+                
+                SmCore.resetNavigationPanel();
+                SmCore.updateChartViewPanels();
+            }
+            catch (ExecutionException ex) {
+                SmCore.showErrorMessage(ex);
+            }
+            catch (Exception ex) {
+                SmCore.addMsgToStatusViewer("Error: " + ex.getMessage());
+            }
+            finally {
+                for (VxChartsBinGroup group : discardedGroups)
+                    group.free();
+            }
+        }
+    }
+}
@@ -14,28 +14,28 @@
 
 package gov.usgs.smapp;
 
-import static SmConstants.VFileConstants.MSEC_TO_SEC;
 import gov.usgs.smapp.smchartingapi.SmCharts_API;
 import gov.usgs.smapp.smchartingapi.SmCharts_API.XYBounds;
 import gov.usgs.smapp.smchartingapi.qcchart2d.QCChart2D_API;
 import gov.usgs.smcommon.smclasses.SmChannel;
 import gov.usgs.smcommon.smclasses.SmEpoch;
 import gov.usgs.smcommon.smclasses.SmFile;
+import gov.usgs.smcommon.smclasses.SmFileLoader;
 import gov.usgs.smcommon.smclasses.SmGlobal;
-import gov.usgs.smcommon.smclasses.SmPoint;
 import gov.usgs.smcommon.smclasses.SmPreferences;
 import gov.usgs.smcommon.smclasses.SmRec;
+import gov.usgs.smcommon.smclasses.SmSampleArena;
 import gov.usgs.smcommon.smclasses.SmSeries;
 import gov.usgs.smcommon.smclasses.SmStation;
 import gov.usgs.smcommon.smclasses.SmTemplate;
+import gov.usgs.smcommon.smclasses.SmTrace;
 import static gov.usgs.smcommon.smutilities.NetBeansUtils.showMessage;
 import gov.usgs.smcommon.smutilities.SmUtils;
 import java.awt.Color;
-import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.concurrent.ExecutionException;
 import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import javax.swing.JPanel;
 import org.joda.time.DateTime;
 import org.openide.NotifyDescriptor;
@@ -49,15 +49,27 @@ public class V1ChartsBin extends VxChartsBin {
     
     public V1ChartsBin(final String chartAPI, final ArrayList<String> filePaths,
         final SmTemplate smTemplate, final boolean adjustPoints, final Object owner)
+        throws ExecutionException
     {
-        super(chartAPI,filePaths,smTemplate,adjustPoints,owner);
+        this(chartAPI,filePaths,smTemplate,adjustPoints,owner,null);
+    }
+    
+    public V1ChartsBin(final String chartAPI, final ArrayList<String> filePaths,
+        final SmTemplate smTemplate, final boolean adjustPoints, final Object owner,
+        final SmSampleArena sampleArena)
+        throws ExecutionException
+    {
+        super(chartAPI,filePaths,smTemplate,adjustPoints,owner,sampleArena);
         padded = false;
+        resampled = true;
+        displayPrecision = SmPreferences.General.getDisplayPrecisionEnabled();
         createCharts();
     }
     
     public V1ChartsBin(final String chartAPI, final ArrayList<String> filePaths,
         DateTime earliestStartTime, DateTime latestStopTime, double minDeltaT,
         final SmTemplate smTemplate, final boolean adjustPoints, final Object owner)
+        throws ExecutionException
     {
         super(chartAPI,filePaths,earliestStartTime,latestStopTime,minDeltaT,
             smTemplate,adjustPoints,owner);
@@ -125,7 +137,7 @@ public class V1ChartsBin extends VxChartsBin {
             // Remove SmSeries objects with null SmPoints from smSeriesSpectralList.
             ArrayList<SmSeries> tempSmSeriesSpectralList = new ArrayList<>();
             for (SmSeries smSeriesSpectral : smSeriesSpectralList) {
-                if (smSeriesSpectral.getSmPoints() != null)
+                if (smSeriesSpectral.getSmTrace() != null)
                     tempSmSeriesSpectralList.add(smSeriesSpectral);
             }
             smSeriesSpectralList = tempSmSeriesSpectralList;
@@ -155,10 +167,19 @@ public class V1ChartsBin extends VxChartsBin {
     
     public void reset() {
         clearArrays();
-        createCharts();
+        
+        // Called on the event dispatch thread, so an error is shown here.
+        try {
+            createCharts();
+        }
+        catch (ExecutionException ex) {
+            SmCore.showErrorMessage(ex);
+        }
     }
     
-    private void createCharts() {
+    // Creates the charts of the bin. An error creating the traces of a record
+    // is thrown, so that it is reported on the event dispatch thread.
+    private void createCharts() throws ExecutionException {
         try 
         {
             SmCharts_API smCharts_API = (chartAPI.equals(SmGlobal.SM_CHARTS_API_QCCHART2D)) ?
@@ -167,83 +188,83 @@ public class V1ChartsBin extends VxChartsBin {
             if (smCharts_API == null || filePaths == null || filePaths.isEmpty())
                 return;
 
-            for (String filePath : filePaths) {
+            // Load the station files in parallel.
+            ArrayList<SmFile> smFiles = SmFileLoader.loadSmFiles(filePaths,displayPrecision);
+
+            // Collect the records of the station files.
+            ArrayList<SmRec> smRecs = new ArrayList<>();
+            ArrayList<String> recFilePaths = new ArrayList<>();
+            
+            for (int i=0; i<filePaths.size(); i++) {
+                for (SmRec smRec : smFiles.get(i).getSmRecs()) {
+                    smRecs.add(smRec);
+                    recFilePaths.add(filePaths.get(i));
+                }
+            }
+            
+            // Create the seismic and spectral traces of the records in parallel.
+            ArrayList<SmTrace[]> smTraces = createSmTraces(smRecs);
+            
+            for (int i=0; i<smRecs.size(); i++)
+            {
+                SmRec smRec = smRecs.get(i);
+                String filePath = recFilePaths.get(i);
+                SmTrace dataSeismic = smTraces.get(i)[0];
+                SmTrace dataSpectral = smTraces.get(i)[1];
                 
-                SmFile smFile = new SmFile(new File(filePath));
+                int dataParmCode = smRec.getDataParmCode();
+                String channel = smRec.getChannel();
+                String sensorLocation = smRec.getSensorLocation();
+                String seed = "";
+                String lCode = "";
+               
+                Matcher m = SmGlobal.CHANNEL_PATTERN.matcher(channel);
                 
-                for (SmRec smRec : smFile.getSmRecs())
-                {
-                    // Create seismic data list.
-                    //ArrayList<SmPoint> dataSeismic = adjustPoints ? 
-                        //smRec.createAdjustedSmPointsPadded(
-                        //earliestStartTime, latestStopTime, minDeltaT) : 
-                        //smRec.getSmPoints();
-                    
-                    ArrayList<SmPoint> dataSeismic = smRec.getSmPoints();
-                    
-                    if (adjustPoints) {
-                        dataSeismic = padded ? smRec.createAdjustedSmPointsPadded(
-                            earliestStartTime, latestStopTime) : 
-                            smRec.createAdjustedSmPointsUnpadded(earliestStartTime, 
-                            latestStopTime);
-                    }
-                   
-                    // Create spectral data list.
-                    ArrayList<SmPoint> smPointsFFT = SmRec.createSmPointsFFT(dataSeismic, 
-                        minDeltaT, MSEC_TO_SEC);
-                    
-                    ArrayList<SmPoint> dataSpectral = new ArrayList<>();
-                    
-                    for (int i=1; i<smPointsFFT.size()/2; i++) //skip 1st point, frequency=0Hz
-                    {
-                        SmPoint smPointFFT = smPointsFFT.get(i);
-                        dataSpectral.add(new SmPoint(smPointFFT.getX(),
-                            smPointFFT.getY()));
-                    }
-
-                    int dataParmCode = smRec.getDataParmCode();
-                    String channel = smRec.getChannel();
-                    String sensorLocation = smRec.getSensorLocation();
-                    String seed = "";
-                    String lCode = "";
-                   
-                    Pattern p = Pattern.compile("^(.{3})(\\.)(.{2})$");
-                    Matcher m = p.matcher(channel);
-                    
-                    if (m.find()) {
-                        seed = m.group(1);
-                        lCode = m.group(3);
-                    }
+                if (m.find()) {
+                    seed = m.group(1);
+                    lCode = m.group(3);
+                }
+                
+                // Set series title and description.
+                String title = sensorLocation.isEmpty() ? channel : 
+                    channel + " (" + sensorLocation + ")";
+                String description = smRec.getEventName() + "_" + 
+                    smRec.getNetworkCode() + "." + smRec.getStationCode() + "." + 
+                    seed + "." + lCode;
+               
+                // Create color for series.
+                Color color;
+                if (smTemplate == null)
+                    color = new Color(SmPreferences.ChartOptions.getColorPlot());
+                else {
+                    SmStation smStation = smTemplate.getSmStation();
+                    SmEpoch smEpoch = (smStation != null) ?
+                        smStation.getSmEpoch(earliestStartTime, latestStopTime) : null;
+                    SmChannel smChannel = (smEpoch != null) ?
+                        smEpoch.getSmChannel(channel) : null;
                     
-                    // Set series title and description.
-                    String title = sensorLocation.isEmpty() ? channel : 
-                        channel + " (" + sensorLocation + ")";
-                    String description = smRec.getEventName() + "_" + 
-                        smRec.getNetworkCode() + "." + smRec.getStationCode() + "." + 
-                        seed + "." + lCode;
-                   
-                    // Create color for series.
-                    Color color;
-                    if (smTemplate == null)
-                        color = new Color(SmPreferences.ChartOptions.getColorPlot());
-                    else {
-                        SmStation smStation = smTemplate.getSmStation();
-                        SmEpoch smEpoch = (smStation != null) ?
-                            smStation.getSmEpoch(earliestStartTime, latestStopTime) : null;
-                        SmChannel smChannel = (smEpoch != null) ?
-                            smEpoch.getSmChannel(channel) : null;
-                        
-                        color = (smChannel != null) ? smChannel.getColor() :
-                            new Color(SmPreferences.ChartOptions.getColorPlot());
-                    }
+                    color = (smChannel != null) ? smChannel.getColor() :
+                        new Color(SmPreferences.ChartOptions.getColorPlot());
+                }
 
-                    // Add seismic and spectral records to corresponding lists.
-                    smSeriesSeismicList.add(new SmSeries(dataSeismic,dataParmCode,
-                        title,description,color,filePath));
-                    if (!dataSpectral.isEmpty())
-                        smSeriesSpectralList.add(new SmSeries(dataSpectral,dataParmCode,
-                        title,description,color,filePath));
+                // Hold charted data in display precision, if enabled.
+                if (displayPrecision) {
+                    dataSeismic = dataSeismic.toDisplayPrecision();
+                    dataSpectral = dataSpectral.toDisplayPrecision();
+                }
+                
+                // Move charted data off the heap, if an arena is given.
+                if (sampleArena != null) {
+                    dataSeismic = sampleArena.allocate(dataSeismic);
+                    dataSpectral = sampleArena.allocate(dataSpectral);
                 }
+                
+                // Add seismic and spectral records to corresponding lists.
+                smSeriesSeismicList.add(new SmSeries(dataSeismic,dataParmCode,
+                    title,description,color,filePath));
+                if (!dataSpectral.isEmpty())
+                    smSeriesSpectralList.add(new SmSeries(dataSpectral,dataParmCode,
+                    title,description,color,filePath));
             }
 
             // Use template, if supplied, to order the series. Otherwise, use
@@ -294,7 +315,7 @@ public class V1ChartsBin extends VxChartsBin {
             // Remove SmSeries objects with null SmPoints from smSeriesSpectralList.
             ArrayList<SmSeries> tempSmSeriesSpectralList = new ArrayList<>();
             for (SmSeries smSeriesSpectral : smSeriesSpectralList) {
-                if (smSeriesSpectral.getSmPoints() != null)
+                if (smSeriesSpectral.getSmTrace() != null)
                     tempSmSeriesSpectralList.add(smSeriesSpectral);
             }
             smSeriesSpectralList = tempSmSeriesSpectralList;
@@ -314,6 +335,15 @@ public class V1ChartsBin extends VxChartsBin {
                     this.chartsSpectral.add(panel);
             }
         } 
+        catch (InterruptedException ex)
+        {
+            // Loading was cancelled; keep the interrupt status for the caller.
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException ex)
+        {
+            throw ex;
+        }
         catch (Exception ex) 
         {
             showMessage("Error",ex.getMessage(),
@@ -14,14 +14,24 @@
 
 package gov.usgs.smapp;
 
+import static SmConstants.VFileConstants.MSEC_TO_SEC;
 import gov.usgs.smapp.smchartingapi.SmCharts_API.XYBounds;
-import gov.usgs.smcommon.smclasses.SmFile;
+import gov.usgs.smcommon.smclasses.SmFileCache;
 import gov.usgs.smcommon.smclasses.SmRec;
+import gov.usgs.smcommon.smclasses.SmRecHeader;
+import gov.usgs.smcommon.smclasses.SmSampleArena;
 import gov.usgs.smcommon.smclasses.SmSeries;
+import gov.usgs.smcommon.smclasses.SmStationExtent;
+import gov.usgs.smcommon.smclasses.SmTaskPool;
 import gov.usgs.smcommon.smclasses.SmTemplate;
-import gov.usgs.smcommon.smutilities.SmUtils;
+import gov.usgs.smcommon.smclasses.SmTimeAlignment;
+import gov.usgs.smcommon.smclasses.SmTrace;
+import gov.usgs.smcommon.smutilities.SmResampler;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import javax.swing.JPanel;
 import org.joda.time.DateTime;
 
@@ -57,7 +67,10 @@ public abstract class VxChartsBin {
     protected SmTemplate smTemplate;
     protected boolean adjustPoints;
     protected boolean padded = false; //false creates unpadded adjusted points array;
+    protected boolean resampled = false; //true resamples records to the minimum delta time
+    protected boolean displayPrecision = false; //true holds charted samples in display precision
     protected Object owner;
+    protected SmSampleArena sampleArena = null;  //null keeps charted samples on the heap
     
     protected String event;
     protected String station;
@@ -76,8 +89,26 @@ public abstract class VxChartsBin {
      */
     public VxChartsBin(final String chartAPI, final ArrayList<String> filePaths, 
         final SmTemplate smTemplate, final boolean adjustPoints, final Object owner)
+    {
+        this(chartAPI,filePaths,smTemplate,adjustPoints,owner,null);
+    }
+    
+    /**
+     * Constructor.
+     * @param chartAPI name of chart API to use for charting.
+     * @param filePaths list of file paths.
+     * @param smTemplate SmTemplate object representing the template to use for charting.
+     * @param adjustPoints
+     * @param owner
+     * @param sampleArena SmSampleArena object in which to hold the charted
+     * samples, or null to hold them on the heap.
+     */
+    public VxChartsBin(final String chartAPI, final ArrayList<String> filePaths, 
+        final SmTemplate smTemplate, final boolean adjustPoints, final Object owner,
+        final SmSampleArena sampleArena)
     {
         this.chartAPI = chartAPI;
+        this.sampleArena = sampleArena;
         this.filePaths = filePaths;
         this.smTemplate = smTemplate;
         this.adjustPoints = adjustPoints;
@@ -86,25 +117,7 @@ public abstract class VxChartsBin {
         // Set member variables.
         if (filePaths != null && filePaths.size() > 0) {
             
-            SmFile smFile = new SmFile(new File(filePaths.get(0)));
-            SmRec smRec = smFile.getSmRecs().get(0);
-            
-            networkCode = smRec.getNetworkCode();
-            stationCode = smRec.getStationCode();
-            stationName = smRec.getStationName();
-            eventName = smRec.getEventName();
-            
-            StringBuilder sbStationTitle = new StringBuilder();
-            sbStationTitle.append(networkCode).append(".").append(stationCode);
-            if (stationName.isEmpty()) {
-                sbStationTitle.append(" - ").append(stationName);
-            }
-            
-            StringBuilder sbEventTitle = new StringBuilder();
-            sbEventTitle.append(smRec.getEventDateTime()).append(" ").append(eventName);
-            
-            this.stationTitle = sbStationTitle.toString();
-            this.eventTitle = sbEventTitle.toString();
+            setHeaderFields(new File(filePaths.get(0)));
             
             // Get earliest start and latest end times and minimum delta time.
             this.event = SmCore.extractEventName(filePaths.get(0));
@@ -114,9 +127,10 @@ public abstract class VxChartsBin {
             //latestStopTime = SmCore.getLatestStopTime(event, station);
             //minDeltaT = SmCore.getMinimumDeltaT(event, station);
             
-            earliestStartTime = SmUtils.getEarliestStartTime(filePaths);
-            latestStopTime = SmUtils.getLatestStopTime(filePaths);
-            minDeltaT = SmUtils.getMinimumDeltaT(filePaths);
+            SmStationExtent extent = SmStationExtent.getSmStationExtent(filePaths);
+            earliestStartTime = extent.getEarliestStartTime();
+            latestStopTime = extent.getLatestStopTime();
+            minDeltaT = extent.getMinDeltaT();
         }
     }
     
@@ -132,25 +146,7 @@ public abstract class VxChartsBin {
         
         // Set member variables.
         if (filePaths != null && filePaths.size() > 0) {
-            SmFile smFile = new SmFile(new File(filePaths.get(0)));
-            SmRec smRec = smFile.getSmRecs().get(0);
-            
-            networkCode = smRec.getNetworkCode();
-            stationCode = smRec.getStationCode();
-            stationName = smRec.getStationName();
-            eventName = smRec.getEventName();
-            
-            StringBuilder sbStationTitle = new StringBuilder();
-            sbStationTitle.append(networkCode).append(".").append(stationCode);
-            if (stationName.isEmpty()) {
-                sbStationTitle.append(" - ").append(stationName);
-            }
-            
-            StringBuilder sbEventTitle = new StringBuilder();
-            sbEventTitle.append(smRec.getEventDateTime()).append(" ").append(eventName);
-            
-            this.stationTitle = sbStationTitle.toString();
-            this.eventTitle = sbEventTitle.toString();
+            setHeaderFields(new File(filePaths.get(0)));
             
             // Get earliest start and latest end times and minimum delta time.
             this.event = SmCore.extractEventName(filePaths.get(0));
@@ -162,6 +158,39 @@ public abstract class VxChartsBin {
         }
     }
 
+    /**
+     * Sets the station and event fields and titles from the first record
+     * header of the specified file, read through SmFileCache. The fields are
+     * left empty if the file cannot be read.
+     * @param file File object of the first file of the bin.
+     */
+    private void setHeaderFields(File file)
+    {
+        ArrayList<SmRecHeader> smRecHeaders = SmFileCache.getSmFileHeader(file).getSmRecHeaders();
+        
+        if (smRecHeaders == null || smRecHeaders.isEmpty())
+            return;
+        
+        SmRecHeader smRecHeader = smRecHeaders.get(0);
+        
+        networkCode = smRecHeader.getNetworkCode();
+        stationCode = smRecHeader.getStationCode();
+        stationName = smRecHeader.getStationName();
+        eventName = smRecHeader.getEventName();
+        
+        StringBuilder sbStationTitle = new StringBuilder();
+        sbStationTitle.append(networkCode).append(".").append(stationCode);
+        if (stationName.isEmpty()) {
+            sbStationTitle.append(" - ").append(stationName);
+        }
+        
+        StringBuilder sbEventTitle = new StringBuilder();
+        sbEventTitle.append(smRecHeader.getEventDateTime()).append(" ").append(eventName);
+        
+        this.stationTitle = sbStationTitle.toString();
+        this.eventTitle = sbEventTitle.toString();
+    }
+
     /**
      * Gets the list of charts of seismic acceleration data.
      * @return list of JPanel objects, each panel containing a chart of seismic 
@@ -250,4 +279,63 @@ public abstract class VxChartsBin {
         smSeriesSpectralList.clear();
     }
     
+    /**
+     * Creates the seismic and spectral traces of the specified records in
+     * parallel, one task per record. If resampled is set, a record whose delta
+     * time differs from the minimum delta time of the bin is first resampled
+     * to it, so that all seismic traces of the bin have the same spacing. The
+     * seismic trace is adjusted to the time range of the bin if adjustPoints 
+     * is set, and the spectral trace excludes the 0 Hz and Nyquist
+     * frequencies. When called from a SwingWorker, cancelling the worker
+     * interrupts the calling thread, which cancels the remaining tasks.
+     * @param smRecs list of SmRec objects
+     * @return list of {seismic, spectral} trace pairs, in the order of the records
+     * @throws InterruptedException if the calling thread is interrupted
+     * @throws ExecutionException if creating the traces of a record fails
+     */
+    protected ArrayList<SmTrace[]> createSmTraces(List<SmRec> smRecs)
+        throws InterruptedException, ExecutionException
+    {
+        ArrayList<Callable<SmTrace[]>> tasks = new ArrayList<>(smRecs.size());
+        
+        final long earliestStartNanos = SmTimeAlignment.toEpochNanos(earliestStartTime);
+        final long latestStopNanos = SmTimeAlignment.toEpochNanos(latestStopTime);
+        
+        for (final SmRec smRec : smRecs) {
+            tasks.add(new Callable<SmTrace[]>() {
+                @Override
+                public SmTrace[] call() {
+                    SmTrace dataSeismic = smRec.getSmTrace();
+                    double deltaT = smRec.getDeltaT();
+                    
+                    // Bring a record of another sample rate to the common delta time.
+                    if (resampled && !SmResampler.isSameInterval(deltaT, minDeltaT)) {
+                        dataSeismic = smRec.getResampledSmTrace(minDeltaT);
+                        deltaT = minDeltaT;
+                    }
+                    
+                    if (adjustPoints) {
+                        long startNanos = smRec.getStartEpochNanos();
+                        
+                        dataSeismic = padded ? SmTimeAlignment.alignPadded(dataSeismic,
+                            startNanos, deltaT, earliestStartNanos, latestStopNanos) : 
+                            SmTimeAlignment.alignUnpadded(dataSeismic, startNanos, deltaT, 
+                            earliestStartNanos, latestStopNanos);
+                    }
+                    
+                    SmTrace smTraceFFT = SmRec.createSmTraceFFT(dataSeismic, 
+                        deltaT, MSEC_TO_SEC);
+                    
+                    // Skip 1st point, frequency=0Hz, and keep points below Nyquist.
+                    SmTrace dataSpectral = new SmTrace(smTraceFFT.subTrace(1,
+                        Math.max(smTraceFFT.size()-2,0)));
+                    
+                    return new SmTrace[] {dataSeismic, dataSpectral};
+                }
+            });
+        }
+        
+        return SmTaskPool.invokeAll(tasks);
+    }
+    
 }
@@ -15,6 +15,7 @@
 package gov.usgs.smapp;
 
 import gov.usgs.smcommon.smclasses.SmPreferences;
+import gov.usgs.smcommon.smclasses.SmSampleArena;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Dimension;
@@ -25,7 +26,9 @@ import javax.swing.JPanel;
 
 /**
  * This class defines a group of two bins, one bin for storing charts of V1 data,
- * the other for storing charts of V2 data.
+ * the other for storing charts of V2 data. The charted samples of both bins may
+ * be held in a sample arena owned by the group, which is freed with free() when
+ * the group is discarded.
  * @author png
  */
 public class VxChartsBinGroup {
@@ -35,6 +38,7 @@ public class VxChartsBinGroup {
     private final String chartAPI;
     private final V1ChartsBin v1ChartsBin;
     private final V2ChartsBin v2ChartsBin;
+    private final SmSampleArena sampleArena;  //null if the samples are on the heap
 
     /**
      * Constructor.
@@ -47,6 +51,24 @@ public class VxChartsBinGroup {
      */
     public VxChartsBinGroup(String groupName, String stationDesc, String eventDesc,
         String chartAPI, V1ChartsBin v1ChartsBin, V2ChartsBin v2ChartsBin)
+    {
+        this(groupName,stationDesc,eventDesc,chartAPI,v1ChartsBin,v2ChartsBin,null);
+    }
+    
+    /**
+     * Constructor.
+     * @param groupName group name.
+     * @param stationDesc station description.
+     * @param eventDesc event description.
+     * @param chartAPI name of chart API to use.
+     * @param v1ChartsBin V1ChartsBin object representing the bin for storing charts of V1 data.
+     * @param v2ChartsBin V2ChartsBin object representing the bin for storing charts of V2 data.
+     * @param sampleArena SmSampleArena object that holds the charted samples of
+     * the bins, or null if they are held on the heap.
+     */
+    public VxChartsBinGroup(String groupName, String stationDesc, String eventDesc,
+        String chartAPI, V1ChartsBin v1ChartsBin, V2ChartsBin v2ChartsBin,
+        SmSampleArena sampleArena)
     {
         this.groupName = groupName;
         this.stationDesc = stationDesc;
@@ -54,6 +76,7 @@ public class VxChartsBinGroup {
         this.chartAPI = chartAPI;
         this.v1ChartsBin = v1ChartsBin;
         this.v2ChartsBin = v2ChartsBin;
+        this.sampleArena = sampleArena;
     }
 
     /**
@@ -110,6 +133,25 @@ public class VxChartsBinGroup {
         return this.v2ChartsBin;
     }
     
+    /**
+     * Gets the sample arena that holds the charted samples of the bins.
+     * @return SmSampleArena object, or null if the samples are on the heap.
+     */
+    public SmSampleArena getSampleArena()
+    {
+        return this.sampleArena;
+    }
+    
+    /**
+     * Frees the sample arena of the group. The charts of the group must not
+     * be displayed afterwards.
+     */
+    public void free()
+    {
+        if (this.sampleArena != null)
+            this.sampleArena.free();
+    }
+    
     /**
      * Creates a header JPanel.
      * @return header JPanel object.
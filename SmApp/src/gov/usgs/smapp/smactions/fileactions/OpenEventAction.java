@@ -15,6 +15,7 @@
 package gov.usgs.smapp.smactions.fileactions;
 
 import gov.usgs.smapp.SmCore;
+import gov.usgs.smapp.SmFileWatcher;
 import gov.usgs.smapp.smdialogs.SmEventDialog;
 import gov.usgs.smapp.smtopcomponents.SmNodeExplorerTC;
 import gov.usgs.smcommon.smclasses.SmGlobal;
@@ -190,6 +191,9 @@ public final class OpenEventAction implements ActionListener {
             treeContents.setRootVisible(false);
             treeContents.expandAll();
 
+            // Monitor the event folders for changed files.
+            SmFileWatcher.watch(nodeRoot);
+
             // Reset the checkboxtree's checking mode to propogate.
             treeContents.getCheckingModel().setCheckingMode(TreeCheckingModel.CheckingMode.PROPAGATE);
 
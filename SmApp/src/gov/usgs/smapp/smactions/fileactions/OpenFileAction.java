@@ -15,6 +15,7 @@
 package gov.usgs.smapp.smactions.fileactions;
 
 import gov.usgs.smapp.SmCore;
+import gov.usgs.smapp.SmFileWatcher;
 import gov.usgs.smapp.smtopcomponents.SmNodeExplorerTC;
 import gov.usgs.smcommon.smclasses.SmGlobal;
 import gov.usgs.smcommon.smclasses.SmNode;
@@ -174,6 +175,9 @@ public final class OpenFileAction implements ActionListener {
             treeContents.setRootVisible(false);
             treeContents.expandAll();
 
+            // Monitor the file folders for changed files.
+            SmFileWatcher.watch(nodeRoot);
+
             // Reset the checkboxtree's checking mode to propogate.
             treeContents.getCheckingModel().setCheckingMode(TreeCheckingModel.CheckingMode.PROPAGATE);
 
@@ -15,6 +15,7 @@
 package gov.usgs.smapp.smchartingapi.qcchart2d;
 
 import static SmConstants.VFileConstants.*;
+import SmProcessing.V2ProcessGUI;
 import com.quinncurtis.chart2djava.Axis;
 import com.quinncurtis.chart2djava.AxisTitle;
 import com.quinncurtis.chart2djava.Background;
@@ -43,6 +44,9 @@ import gov.usgs.smcommon.smclasses.SmPreferences;
 import gov.usgs.smcommon.smclasses.SmRec;
 import gov.usgs.smcommon.smclasses.SmSeries;
 import gov.usgs.smcommon.smclasses.SmTemplate;
+import gov.usgs.smcommon.smclasses.SmTrace;
+import gov.usgs.smcommon.smutilities.SmButterworth;
+import gov.usgs.smcommon.smutilities.SmKonnoOhmachi;
 import java.awt.Color;
 import java.awt.Component;
 import java.awt.Dimension;
@@ -50,7 +54,11 @@ import java.awt.Font;
 import java.awt.event.*;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 import javax.swing.ButtonGroup;
+import javax.swing.JCheckBoxMenuItem;
+import javax.swing.JFormattedTextField;
 import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JPopupMenu;
@@ -69,6 +77,8 @@ public class GroupChartView extends SmChartView
     final private GroupDataset dataset;
     final private ChartAttribute[] lineAttributes;
     final private LegendItem[] legendItems;
+    private MultiLinePlot smoothedPlot;
+    private MultiLinePlot filterPreviewPlot;
 
     public GroupChartView(final ArrayList<SmSeries> smSeriesList,
         GroupDataset dataset, int xScaleType, int yScaleType,
@@ -192,6 +202,16 @@ public class GroupChartView extends SmChartView
         // Create and add plot to the ChartView object.
         MultiLinePlot plot = new MultiLinePlot(pTransform, dataset, lineAttributes);
         chartView.addChartObject(plot);
+        
+        // Overlay smoothed spectra if selected.
+        if (SmGlobal.PLOT_TYPE_SPECTRAL.equals(plotType) &&
+            SmPreferences.ChartOptions.getDisplaySmoothedSpectra())
+        {
+            smoothedPlot = createSmoothedPlot();
+            
+            if (smoothedPlot != null)
+                chartView.addChartObject(smoothedPlot);
+        }
 
         // Create legend and plot labels.
         ChartAttribute legendAttr = new ChartAttribute(foregroundColor,1,
@@ -271,6 +291,180 @@ public class GroupChartView extends SmChartView
     {
         return this.legendItems;
     }
+    
+    public ArrayList<SmSeries> getSmSeriesList()
+    {
+        return this.smSeriesList;
+    }
+    
+    /**
+     * Shows the plotted spectra as they would be after band-pass filtering,
+     * by scaling the plotted amplitudes with the gain of the acausal PRISM
+     * Butterworth filter. No time series is filtered, so the preview can be
+     * redrawn while the filter corners are being moved.
+     * @param fLow low (high-pass) corner in Hz
+     * @param fHigh high (low-pass) corner in Hz
+     * @param filterOrders filter order of each series
+     * @param deltaTs sample interval of each series, in seconds
+     */
+    public void showFilterPreview(double fLow, double fHigh, int[] filterOrders, double[] deltaTs)
+    {
+        double[] x = dataset.getXData();
+        double[][] y = dataset.getYData();
+        double[][] yFiltered = new double[y.length][];
+        
+        // Keep amplitudes removed by the filter on the log scale.
+        double yFloor = pTransform.getScaleMinY();
+        
+        double[] gains = null;
+        
+        for (int i=0; i<y.length; i++)
+        {
+            if (gains == null || deltaTs[i] != deltaTs[i-1] || filterOrders[i] != filterOrders[i-1])
+                gains = SmButterworth.createGains(x, fLow, fHigh, deltaTs[i], filterOrders[i]);
+            
+            yFiltered[i] = new double[y[i].length];
+            
+            for (int j=0; j<y[i].length; j++)
+                yFiltered[i][j] = Math.max(y[i][j]*gains[j], yFloor);
+        }
+        
+        GroupDataset previewDataset = new GroupDataset("Filtered " + plotType, x, yFiltered);
+        
+        if (filterPreviewPlot == null)
+        {
+            ChartAttribute[] attributes = new ChartAttribute[y.length];
+            
+            for (int i=0; i<attributes.length; i++)
+                attributes[i] = new ChartAttribute(lineAttributes[i].getLineColor(),1,
+                    ChartConstants.LS_DASH_4_2);
+            
+            filterPreviewPlot = new MultiLinePlot(pTransform, previewDataset, attributes);
+            chartView.addChartObject(filterPreviewPlot);
+        }
+        else
+        {
+            filterPreviewPlot.setGroupDataset(previewDataset);
+        }
+        
+        chartView.updateDraw();
+    }
+    
+    /**
+     * Shows the filter preview for the specified corners, using the sample
+     * interval and filter order of the V2ProcessGUI object of each series,
+     * or removes it if the corners do not define a band.
+     * @param fLow low (high-pass) corner in Hz
+     * @param fHigh high (low-pass) corner in Hz
+     */
+    public void updateFilterPreview(double fLow, double fHigh)
+    {
+        if (fLow <= 0 || fHigh <= fLow)
+        {
+            hideFilterPreview();
+            return;
+        }
+        
+        double[] deltaTs = new double[smSeriesList.size()];
+        int[] filterOrders = new int[smSeriesList.size()];
+        
+        for (int i=0; i<smSeriesList.size(); i++)
+        {
+            V2ProcessGUI v2ProcessGUI = (V2ProcessGUI)smSeriesList.get(i).getTag();
+            deltaTs[i] = v2ProcessGUI.getDTime();
+            filterOrders[i] = v2ProcessGUI.getFilterOrder();
+        }
+        
+        showFilterPreview(fLow, fHigh, filterOrders, deltaTs);
+    }
+    
+    /**
+     * Removes the filter preview, if shown.
+     */
+    public void hideFilterPreview()
+    {
+        if (filterPreviewPlot != null)
+        {
+            chartView.deleteChartObject(filterPreviewPlot);
+            filterPreviewPlot = null;
+            chartView.updateDraw();
+        }
+    }
+
+    /**
+     * Shows or hides the Konno-Ohmachi smoothed spectra on top of the plotted
+     * spectra. The smoothed spectra are computed the first time they are shown.
+     * @param show true to show the smoothed spectra, false to hide them
+     */
+    public void showSmoothedSpectra(boolean show)
+    {
+        if (show && smoothedPlot == null)
+        {
+            smoothedPlot = createSmoothedPlot();
+            
+            if (smoothedPlot != null)
+                chartView.addChartObject(smoothedPlot);
+        }
+        else if (!show && smoothedPlot != null)
+        {
+            chartView.deleteChartObject(smoothedPlot);
+            smoothedPlot = null;
+        }
+        
+        chartView.updateDraw();
+    }
+    
+    private MultiLinePlot createSmoothedPlot()
+    {
+        // Smooth the full spectra, not the reduced plot data, over the
+        // frequency range common to all spectra.
+        ArrayList<SmTrace> spectra = new ArrayList<>();
+        double fMin = 0;
+        double fMax = Double.MAX_VALUE;
+        
+        for (SmSeries smSeries : smSeriesList)
+        {
+            SmTrace smTrace = smSeries.getSmTrace();
+            int first = (smTrace.size() > 0 && smTrace.getX(0) <= 0) ? 1 : 0;
+            
+            if (first >= smTrace.size())
+                return null;
+            
+            spectra.add(smTrace);
+            fMin = Math.max(fMin, smTrace.getX(first));
+            fMax = Math.min(fMax, smTrace.getX(smTrace.size()-1));
+        }
+        
+        int binsPerDecade = SmPreferences.ChartOptions.getSpectralBinsPerDecade();
+        double[] frequencies = SmKonnoOhmachi.createLogGrid(fMin, fMax,
+            (binsPerDecade > 0) ? binsPerDecade : 100);
+        
+        if (spectra.isEmpty() || frequencies.length == 0)
+            return null;
+        
+        try {
+            ArrayList<double[]> smoothed = SmKonnoOhmachi.smoothAll(spectra,
+                SmPreferences.ChartOptions.getSmoothingBandwidth(), frequencies);
+            
+            double[][] y = smoothed.toArray(new double[smoothed.size()][]);
+            ChartAttribute[] attributes = new ChartAttribute[y.length];
+            
+            for (int i=0; i<attributes.length; i++)
+                attributes[i] = new ChartAttribute(smSeriesList.get(i).getColor().darker(),
+                    2,ChartConstants.LS_SOLID);
+            
+            return new MultiLinePlot(pTransform,
+                new GroupDataset("Smoothed " + plotType,frequencies,y),attributes);
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException ex) {
+            SmCore.addMsgToStatusViewer("Error: " + ex.getMessage());
+        }
+        
+        return null;
+    }
 
     private void createPopupMenu()
     {
@@ -313,6 +507,22 @@ public class GroupChartView extends SmChartView
 //        popupMenu.add(item = new JMenuItem("Remove Markers"));
 //        item.addActionListener(menuListener);
         
+        if (SmGlobal.PLOT_TYPE_SPECTRAL.equals(plotType))
+        {
+            final JCheckBoxMenuItem chkSmoothed = new JCheckBoxMenuItem("Smoothed Spectra",
+                SmPreferences.ChartOptions.getDisplaySmoothedSpectra());
+            chkSmoothed.addItemListener(new ItemListener() {
+                @Override
+                public void itemStateChanged(ItemEvent e) {
+                    SmPreferences.ChartOptions.setDisplaySmoothedSpectra(chkSmoothed.isSelected());
+                    showSmoothedSpectra(chkSmoothed.isSelected());
+                }
+            });
+            
+            popupMenu.addSeparator();
+            popupMenu.add(chkSmoothed);
+        }
+        
         if (!editMode)
         {
             rbtnZoom.setSelected(true);
@@ -489,5 +699,71 @@ public class GroupChartView extends SmChartView
             }
         }
     }  
+    
+    /**
+     * This class previews the filter corners of an editor on the spectra of
+     * its group chart views. The corners are read from the low and high 
+     * filter range fields; while a corner marker is dragged, the corner of 
+     * the selected radio button follows the data cursor.
+     */
+    public static class FilterPreview extends MouseMotionAdapter
+    {
+        private final List<SmChartView> chartViews;
+        private final JFormattedTextField ftxtLow;
+        private final JFormattedTextField ftxtHigh;
+        private final JRadioButton rbtnLow;
+        private final JRadioButton rbtnHigh;
+        
+        public FilterPreview(List<SmChartView> chartViews, 
+            JFormattedTextField ftxtLow, JFormattedTextField ftxtHigh,
+            JRadioButton rbtnLow, JRadioButton rbtnHigh)
+        {
+            this.chartViews = chartViews;
+            this.ftxtLow = ftxtLow;
+            this.ftxtHigh = ftxtHigh;
+            this.rbtnLow = rbtnLow;
+            this.rbtnHigh = rbtnHigh;
+        }
+        
+        /**
+         * Updates the filter preview with the corners of the filter range
+         * fields.
+         */
+        public void update()
+        {
+            update(ftxtLow.getValue(), ftxtHigh.getValue());
+        }
+        
+        @Override
+        public void mouseDragged(MouseEvent e)
+        {
+            if (!(e.getSource() instanceof SmChartView))
+                return;
+            
+            // Preview the filter with the corner being dragged.
+            SmChartView scv = (SmChartView)e.getSource();
+            double x = scv.getSmDataCursor().getLocation().getX();
+            
+            if (rbtnLow.isSelected())
+                update(x, ftxtHigh.getValue());
+            else if (rbtnHigh.isSelected())
+                update(ftxtLow.getValue(), x);
+        }
+        
+        private void update(Object low, Object high)
+        {
+            if (!(low instanceof Number) || !(high instanceof Number))
+                return;
+            
+            // Scale the plotted spectra by the filter response; the time-domain
+            // filter only runs on preview of the traces and on commit.
+            for (SmChartView chartView : chartViews)
+            {
+                if (chartView instanceof GroupChartView)
+                    ((GroupChartView)chartView).updateFilterPreview(
+                        ((Number)low).doubleValue(), ((Number)high).doubleValue());
+            }
+        }
+    }
 }
 
@@ -24,18 +24,27 @@ import gov.usgs.smapp.SmCore;
 import gov.usgs.smapp.smchartingapi.SmCharts_API;
 import gov.usgs.smapp.smchartingapi.SmCharts_API.XYBounds;
 import gov.usgs.smcommon.smclasses.SmGlobal;
-import gov.usgs.smcommon.smclasses.SmPoint;
 import gov.usgs.smcommon.smclasses.SmPreferences;
 import gov.usgs.smcommon.smclasses.SmSeries;
+import gov.usgs.smcommon.smclasses.SmTrace;
 import static gov.usgs.smcommon.smutilities.NetBeansUtils.showMessage;
+import gov.usgs.smcommon.smutilities.SmSpectralReducer;
 import java.awt.Font;
 import java.util.ArrayList;
+import java.util.Arrays;
 import javax.swing.JPanel;
 import org.openide.NotifyDescriptor;
 
 /**
  * This class extends the SmCharts_API class and implements the charting
  * functions utilizing the Quinn-Curtis Chart2d charting library.
+ * <p>
+ * Chart2d datasets keep their values in arrays of their own, which the
+ * library reads directly when drawing, so a dataset cannot be backed by the
+ * slices of a sample arena. The samples of a charted series are therefore read
+ * from the series trace in bulk, one array per series, and the chart holds
+ * that copy on the heap. The arena still holds the series traces themselves,
+ * which would otherwise be a second heap copy of the same samples.
  * @author png
  */
 public class QCChart2D_API extends SmCharts_API {
@@ -59,21 +68,11 @@ public class QCChart2D_API extends SmCharts_API {
         final String yAxisTitle, final boolean editMode, final Object owner)
     {
         SimpleDataset dataset = null;
-        ArrayList<SmPoint> smPoints = smSeries.getSmPoints();
+        SmTrace smTrace = smSeries.getSmTrace();
         
-        if (smPoints != null)
+        if (smTrace != null)
         {
-            double x[] = new double[smPoints.size()];
-            double y[] = new double[smPoints.size()];
-
-            for (int i=0; i<smPoints.size(); i++)
-            {
-                SmPoint smPoint = smPoints.get(i);
-                x[i] = smPoint.getX();
-                y[i] = smPoint.getY();
-            }
-            
-            dataset = new SimpleDataset(plotType, x, y);
+            dataset = new SimpleDataset(plotType, smTrace.getXArray(), smTrace.getYArray());
         }    
         
         ChartAttribute lineAttribute = new ChartAttribute (smSeries.getColor(),1,
@@ -101,21 +100,11 @@ public class QCChart2D_API extends SmCharts_API {
         final String xAxisTitle, final String yAxisTitle, final boolean editMode, final Object owner)
     {
         SimpleDataset dataset = null;
-        ArrayList<SmPoint> smPoints = smSeries.getSmPoints();
+        SmTrace smTrace = smSeries.getSmTrace();
         
-        if (smPoints != null)
+        if (smTrace != null)
         {
-            double x[] = new double[smPoints.size()];
-            double y[] = new double[smPoints.size()];
-
-            for (int i=0; i<smPoints.size(); i++)
-            {
-                SmPoint smPoint = smPoints.get(i);
-                x[i] = smPoint.getX();
-                y[i] = smPoint.getY();
-            }
-            
-            dataset = new SimpleDataset(plotType, x, y);
+            dataset = new SimpleDataset(plotType, smTrace.getXArray(), smTrace.getYArray());
         }    
         
         ChartAttribute lineAttribute = new ChartAttribute (smSeries.getColor(),1,
@@ -143,21 +132,11 @@ public class QCChart2D_API extends SmCharts_API {
         final boolean editMode, final Object owner)
     {
         SimpleDataset dataset = null;
-        ArrayList<SmPoint> smPoints = smSeries.getSmPoints();
+        SmTrace smTrace = smSeries.getSmTrace();
         
-        if (smPoints != null)
+        if (smTrace != null)
         {
-            double x[] = new double[smPoints.size()];
-            double y[] = new double[smPoints.size()];
-
-            for (int i=0; i<smPoints.size(); i++)
-            {
-                SmPoint smPoint = smPoints.get(i);
-                x[i] = smPoint.getX();
-                y[i] = smPoint.getY();
-            }
-            
-            dataset = new SimpleDataset(plotType, x, y);
+            dataset = new SimpleDataset(plotType, smTrace.getXArray(), smTrace.getYArray());
         }    
         
         ChartAttribute lineAttribute = new ChartAttribute (smSeries.getColor(),1,
@@ -185,21 +164,11 @@ public class QCChart2D_API extends SmCharts_API {
         final String xAxisTitle, final String yAxisTitle, final boolean editMode, final Object owner)
     {
         SimpleDataset dataset = null;
-        ArrayList<SmPoint> smPoints = smSeries.getSmPoints();
+        SmTrace smTrace = smSeries.getSmTrace();
         
-        if (smPoints != null)
+        if (smTrace != null)
         {
-            double x[] = new double[smPoints.size()];
-            double y[] = new double[smPoints.size()];
-
-            for (int i=0; i<smPoints.size(); i++)
-            {
-                SmPoint smPoint = smPoints.get(i);
-                x[i] = smPoint.getX();
-                y[i] = smPoint.getY();
-            }
-            
-            dataset = new SimpleDataset(plotType, x, y);
+            dataset = new SimpleDataset(plotType, smTrace.getXArray(), smTrace.getYArray());
         }    
         
         ChartAttribute lineAttribute = new ChartAttribute (smSeries.getColor(),1,
@@ -236,31 +205,8 @@ public class QCChart2D_API extends SmCharts_API {
 
             double[] x = new double[colSize];
             double[][] y = new double[rowSize][colSize];
-
-            for (int row=0; row < rowSize; row++)
-            {
-                ArrayList<SmPoint> smPoints = smSeriesList.get(row).getSmPoints();
-                
-                if (smPoints == null)
-                    continue;
-
-                double lastY = smPoints.get(smPoints.size()-1).getY();
-
-                double deltaX = 0;
-                for (int col=0; col < colSize; col++)
-                {
-                    if (row == 0)
-                    {
-                        if (col == 1)
-                            deltaX = smPoints.get(col).getX()-smPoints.get(0).getX();
-
-                        x[col] = col < smPoints.size() ? smPoints.get(col).getX() : 
-                            smPoints.get(smPoints.size()-1).getX() + (col-smPoints.size()+1)*deltaX;
-                    }
-
-                    y[row][col] = col < smPoints.size() ? smPoints.get(col).getY() : lastY;
-                }
-            }
+            
+            fillGroupData(smSeriesList,x,y);
 
             GroupDataset dataset = new GroupDataset(plotType,x,y);
 
@@ -311,30 +257,18 @@ public class QCChart2D_API extends SmCharts_API {
 
             double[] x = new double[colSize];
             double[][] y = new double[rowSize][colSize];
-
-            for (int row=0; row < rowSize; row++)
+            
+            fillGroupData(smSeriesList,x,y);
+            
+            // Reduce the spectra to log-spaced bins for display, keeping the
+            // envelope. The series list keeps the full spectra.
+            if (SmPreferences.ChartOptions.getDisplaySpectraReduced() &&
+                SmPreferences.ChartOptions.getSpectralBinsPerDecade() > 0)
             {
-                ArrayList<SmPoint> smPoints = smSeriesList.get(row).getSmPoints();
-                
-                if (smPoints == null)
-                    continue;
-                
-                double lastY = smPoints.get(smPoints.size()-1).getY();
-
-                double deltaX = 0;
-                for (int col=0; col < colSize; col++)
-                {
-                    if (row == 0)
-                    {
-                        if (col == 1)
-                            deltaX = smPoints.get(col).getX()-smPoints.get(0).getX(); 
-
-                        x[col] = col < smPoints.size() ? smPoints.get(col).getX() : 
-                                smPoints.get(smPoints.size()-1).getX() + (col-smPoints.size()+1)*deltaX;
-                    }
-
-                    y[row][col] = col < smPoints.size() ? smPoints.get(col).getY() : lastY;
-                }
+                SmSpectralReducer reducer = SmSpectralReducer.reduce(x,y,
+                    SmPreferences.ChartOptions.getSpectralBinsPerDecade());
+                x = reducer.getX();
+                y = reducer.getY();
             }
 
             GroupDataset dataset = new GroupDataset(plotType,x,y);
@@ -385,23 +319,13 @@ public class QCChart2D_API extends SmCharts_API {
         {
             SmSeries smSeries = smSeriesList.get(arrIndx);
             
-            ArrayList<SmPoint> smPoints = smSeries.getSmPoints();
+            SmTrace smTrace = smSeries.getSmTrace();
             
-            if (smPoints == null)
+            if (smTrace == null)
                 continue;
-            
-            double x[] = new double[smPoints.size()];
-            double y[] = new double[smPoints.size()];
-
-            for (int i=0; i<smPoints.size(); i++)
-            {
-                SmPoint smPoint = smPoints.get(i);
-                x[i] = smPoint.getX();
-                y[i] = smPoint.getY();
-            }
 
             simpleDatasetArr[arrIndx] = new SimpleDataset("Series"+
-                String.valueOf(arrIndx+1), x, y);
+                String.valueOf(arrIndx+1), smTrace.getXArray(), smTrace.getYArray());
         }
         
         int xScaleType = plotType.equals(SmGlobal.PLOT_TYPE_SEISMIC) ? 
@@ -439,23 +363,13 @@ public class QCChart2D_API extends SmCharts_API {
         {
             if (smSeries.getDataParmCode() == dataParmCode)
             {
-                ArrayList<SmPoint> smPoints = smSeries.getSmPoints();
+                SmTrace smTrace = smSeries.getSmTrace();
                 
-                if (smPoints == null)
+                if (smTrace == null)
                     continue;
                 
-                double x[] = new double[smPoints.size()];
-                double y[] = new double[smPoints.size()];
-
-                for (int i=0; i<smPoints.size(); i++)
-                {
-                    SmPoint smPoint = smPoints.get(i);
-                    x[i] = smPoint.getX();
-                    y[i] = smPoint.getY();
-                }
-                
                 simpleDatasetList.add(new SimpleDataset("Series"+
-                    String.valueOf(++seriesIndx), x, y));
+                    String.valueOf(++seriesIndx), smTrace.getXArray(), smTrace.getYArray()));
             }
         }
         
@@ -490,15 +404,50 @@ public class QCChart2D_API extends SmCharts_API {
         
         for (int i = 0; i < smSeries.size(); i++)
         {
-            ArrayList<SmPoint> smPoints = smSeries.get(i).getSmPoints();
+            SmTrace smTrace = smSeries.get(i).getSmTrace();
             
-            if (smPoints == null)
+            if (smTrace == null)
                 continue;
             
-            if (colSize < smPoints.size())
-                colSize = smPoints.size();
+            if (colSize < smTrace.size())
+                colSize = smTrace.size();
         }
         
         return colSize;
     }
+    
+    /**
+     * Fills the x and y arrays of a group dataset. The x values are those of
+     * the first series, and each row of y values is read from its series trace
+     * in bulk. Shorter series are padded with their last value and the x values
+     * are extended by the interval of the first two samples.
+     */
+    private void fillGroupData(final ArrayList<SmSeries> smSeriesList, double[] x, 
+        double[][] y)
+    {
+        int colSize = x.length;
+        
+        for (int row=0; row < y.length; row++)
+        {
+            SmTrace smTrace = smSeriesList.get(row).getSmTrace();
+            
+            if (smTrace == null || smTrace.isEmpty())
+                continue;
+            
+            int size = smTrace.size();
+            
+            if (row == 0)
+            {
+                double deltaX = (colSize > 1) ? smTrace.getX(1)-smTrace.getX(0) : 0;
+                
+                System.arraycopy(smTrace.getXArray(), 0, x, 0, size);
+                
+                for (int col=size; col < colSize; col++)
+                    x[col] = x[size-1] + (col-size+1)*deltaX;
+            }
+            
+            System.arraycopy(smTrace.getYArray(), 0, y[row], 0, size);
+            Arrays.fill(y[row], size, colSize, y[row][size-1]);
+        }
+    }
 }
@@ -42,11 +42,11 @@ import gov.usgs.smapp.smchartingapi.SmCharts_API.XYBounds;
 import gov.usgs.smapp.smforms.SmSeismicTraceEditor;
 import gov.usgs.smcommon.smclasses.SmFile;
 import gov.usgs.smcommon.smclasses.SmGlobal;
-import gov.usgs.smcommon.smclasses.SmPoint;
 import gov.usgs.smcommon.smclasses.SmPreferences;
 import gov.usgs.smcommon.smclasses.SmRec;
 import gov.usgs.smcommon.smclasses.SmSeries;
 import gov.usgs.smcommon.smclasses.SmTemplate;
+import gov.usgs.smcommon.smclasses.SmTrace;
 import java.awt.Color;
 import java.awt.Component;
 import java.awt.Dimension;
@@ -273,21 +273,12 @@ public class SingleChartView extends SmChartView
     
     public void addLinePlot(SmSeries smSeries, LinePlotType linePlotType) {
         SimpleDataset simpleDataset = null;
-        ArrayList<SmPoint> smPoints = smSeries.getSmPoints();
+        SmTrace smTrace = smSeries.getSmTrace();
         
-        if (smPoints != null)
+        if (smTrace != null)
         {
-            double x[] = new double[smPoints.size()];
-            double y[] = new double[smPoints.size()];
-
-            for (int i=0; i<smPoints.size(); i++)
-            {
-                SmPoint smPoint = smPoints.get(i);
-                x[i] = smPoint.getX();
-                y[i] = smPoint.getY();
-            }
-            
-            simpleDataset = new SimpleDataset(plotType, x, y);
+            simpleDataset = new SimpleDataset(plotType, smTrace.getXArray(), 
+                smTrace.getYArray());
         }    
         
         ChartAttribute lineAttr = new ChartAttribute (smSeries.getColor(),1,
@@ -301,21 +292,12 @@ public class SingleChartView extends SmChartView
     public void addLinePlot(SmSeries smSeries, LinePlotType linePlotType,
         ChartAttribute lineAttribute) {
         SimpleDataset simpleDataset = null;
-        ArrayList<SmPoint> smPoints = smSeries.getSmPoints();
+        SmTrace smTrace = smSeries.getSmTrace();
         
-        if (smPoints != null)
+        if (smTrace != null)
         {
-            double x[] = new double[smPoints.size()];
-            double y[] = new double[smPoints.size()];
-
-            for (int i=0; i<smPoints.size(); i++)
-            {
-                SmPoint smPoint = smPoints.get(i);
-                x[i] = smPoint.getX();
-                y[i] = smPoint.getY();
-            }
-            
-            simpleDataset = new SimpleDataset(plotType, x, y);
+            simpleDataset = new SimpleDataset(plotType, smTrace.getXArray(), 
+                smTrace.getYArray());
         }    
         
         MySimpleLinePlot plot = new MySimpleLinePlot(pTransform, simpleDataset, 
@@ -18,6 +18,7 @@ import com.quinncurtis.chart2djava.ChartConstants;
 import gov.usgs.smapp.SmCore;
 import gov.usgs.smcommon.smclasses.SmPreferences;
 import gov.usgs.smcommon.smclasses.SmPreferences.MarkerStyle;
+import gov.usgs.smcommon.smutilities.SmFFT;
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.event.MouseAdapter;
@@ -237,6 +238,18 @@ public class SmPreferencesDialog extends javax.swing.JDialog {
         lblFont = new javax.swing.JLabel();
         btnFont = new javax.swing.JButton();
         chkboxDisplayPlotAnnotation = new javax.swing.JCheckBox();
+        pnlPerformance = new javax.swing.JPanel();
+        chkboxDiskCacheEnabled = new javax.swing.JCheckBox();
+        chkboxDisplayPrecisionEnabled = new javax.swing.JCheckBox();
+        lblFFTPaddingPolicy = new javax.swing.JLabel();
+        cboxFFTPaddingPolicy = new javax.swing.JComboBox<>();
+        lblSpectralCacheSize = new javax.swing.JLabel();
+        txtSpectralCacheSize = new javax.swing.JTextField();
+        chkboxDisplaySpectraReduced = new javax.swing.JCheckBox();
+        lblSpectralBinsPerDecade = new javax.swing.JLabel();
+        txtSpectralBinsPerDecade = new javax.swing.JTextField();
+        lblSmoothingBandwidth = new javax.swing.JLabel();
+        txtSmoothingBandwidth = new javax.swing.JTextField();
         btnCancel = new javax.swing.JButton();
         btnOk = new javax.swing.JButton();
 
@@ -1503,6 +1516,80 @@ public class SmPreferencesDialog extends javax.swing.JDialog {
 
         jTabbedPane1.addTab("Chart Options", pnlChartOptions);
 
+        chkboxDiskCacheEnabled.setText("Keep Parsed Files in Disk Cache");
+
+        chkboxDisplayPrecisionEnabled.setText("Hold Chart Samples in Single Precision");
+
+        lblFFTPaddingPolicy.setText("FFT Padding Policy:");
+
+        cboxFFTPaddingPolicy.setModel(new javax.swing.DefaultComboBoxModel<>(new String[] { "POWER_OF_2", "SMOOTH", "EXACT" }));
+
+        lblSpectralCacheSize.setText("Spectral Cache Size (MB):");
+
+        chkboxDisplaySpectraReduced.setText("Display Spectra Reduced to Log-Spaced Bins");
+
+        lblSpectralBinsPerDecade.setText("Spectral Bins Per Decade:");
+
+        lblSmoothingBandwidth.setText("Smoothing Bandwidth:");
+
+        javax.swing.GroupLayout pnlPerformanceLayout = new javax.swing.GroupLayout(pnlPerformance);
+        pnlPerformance.setLayout(pnlPerformanceLayout);
+        pnlPerformanceLayout.setHorizontalGroup(
+            pnlPerformanceLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+            .addGroup(pnlPerformanceLayout.createSequentialGroup()
+                .addGap(30, 30, 30)
+                .addGroup(pnlPerformanceLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+                    .addComponent(chkboxDiskCacheEnabled)
+                    .addComponent(chkboxDisplayPrecisionEnabled)
+                    .addGroup(pnlPerformanceLayout.createSequentialGroup()
+                        .addComponent(lblFFTPaddingPolicy)
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                        .addComponent(cboxFFTPaddingPolicy, javax.swing.GroupLayout.PREFERRED_SIZE, 130, javax.swing.GroupLayout.PREFERRED_SIZE))
+                    .addGroup(pnlPerformanceLayout.createSequentialGroup()
+                        .addComponent(lblSpectralCacheSize)
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                        .addComponent(txtSpectralCacheSize, javax.swing.GroupLayout.PREFERRED_SIZE, 130, javax.swing.GroupLayout.PREFERRED_SIZE))
+                    .addComponent(chkboxDisplaySpectraReduced)
+                    .addGroup(pnlPerformanceLayout.createSequentialGroup()
+                        .addComponent(lblSpectralBinsPerDecade)
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                        .addComponent(txtSpectralBinsPerDecade, javax.swing.GroupLayout.PREFERRED_SIZE, 130, javax.swing.GroupLayout.PREFERRED_SIZE))
+                    .addGroup(pnlPerformanceLayout.createSequentialGroup()
+                        .addComponent(lblSmoothingBandwidth)
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                        .addComponent(txtSmoothingBandwidth, javax.swing.GroupLayout.PREFERRED_SIZE, 130, javax.swing.GroupLayout.PREFERRED_SIZE)))
+                .addContainerGap(javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
+        );
+        pnlPerformanceLayout.setVerticalGroup(
+            pnlPerformanceLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+            .addGroup(pnlPerformanceLayout.createSequentialGroup()
+                .addGap(22, 22, 22)
+                .addComponent(chkboxDiskCacheEnabled)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(chkboxDisplayPrecisionEnabled)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
+                .addGroup(pnlPerformanceLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(lblFFTPaddingPolicy)
+                    .addComponent(cboxFFTPaddingPolicy, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addGroup(pnlPerformanceLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(lblSpectralCacheSize)
+                    .addComponent(txtSpectralCacheSize, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
+                .addComponent(chkboxDisplaySpectraReduced)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addGroup(pnlPerformanceLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(lblSpectralBinsPerDecade)
+                    .addComponent(txtSpectralBinsPerDecade, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addGroup(pnlPerformanceLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(lblSmoothingBandwidth)
+                    .addComponent(txtSmoothingBandwidth, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
+                .addContainerGap(javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
+        );
+
+        jTabbedPane1.addTab("Performance", pnlPerformance);
+
         btnCancel.setText("Cancel");
         btnCancel.addActionListener(new java.awt.event.ActionListener() {
             public void actionPerformed(java.awt.event.ActionEvent evt) {
@@ -1745,6 +1832,15 @@ public class SmPreferencesDialog extends javax.swing.JDialog {
         chkboxDisplayPlotLabels.setSelected(SmPreferences.ChartOptions.getDisplayPlotLabels());
         chkboxDisplayPlotAnnotation.setSelected(SmPreferences.ChartOptions.getDisplayPlotAnnotation());
         
+        // Get performance settings.
+        chkboxDiskCacheEnabled.setSelected(SmPreferences.General.getDiskCacheEnabled());
+        chkboxDisplayPrecisionEnabled.setSelected(SmPreferences.General.getDisplayPrecisionEnabled());
+        cboxFFTPaddingPolicy.setSelectedItem(SmPreferences.General.getFFTPaddingPolicy().name());
+        txtSpectralCacheSize.setText(String.valueOf(SmPreferences.General.getSpectralCacheSize()));
+        chkboxDisplaySpectraReduced.setSelected(SmPreferences.ChartOptions.getDisplaySpectraReduced());
+        txtSpectralBinsPerDecade.setText(String.valueOf(SmPreferences.ChartOptions.getSpectralBinsPerDecade()));
+        txtSmoothingBandwidth.setText(String.valueOf(SmPreferences.ChartOptions.getSmoothingBandwidth()));
+        
         // Set listener for color fields.
         txtColorForeground.addMouseListener(colorListener);
         txtColorBackground.addMouseListener(colorListener);
@@ -1891,6 +1987,25 @@ public class SmPreferencesDialog extends javax.swing.JDialog {
             SmPreferences.ChartOptions.setDisplayLegend(chkboxDisplayLegend.isSelected());
             SmPreferences.ChartOptions.setDisplayPlotLabels(chkboxDisplayPlotLabels.isSelected());
             SmPreferences.ChartOptions.setDisplayPlotAnnotation(chkboxDisplayPlotAnnotation.isSelected());
+            
+            // Set performance settings.
+            int spectralCacheSize = Integer.parseInt(txtSpectralCacheSize.getText());
+            int binsPerDecade = Integer.parseInt(txtSpectralBinsPerDecade.getText());
+            double bandwidth = Double.parseDouble(txtSmoothingBandwidth.getText());
+            if (spectralCacheSize < 0)
+                throw new NumberFormatException("Spectral cache size must not be negative.");
+            if (binsPerDecade < 1)
+                throw new NumberFormatException("Spectral bins per decade must be at least 1.");
+            if (bandwidth <= 0.0)
+                throw new NumberFormatException("Smoothing bandwidth must be greater than 0.");
+            SmPreferences.General.setDiskCacheEnabled(chkboxDiskCacheEnabled.isSelected());
+            SmPreferences.General.setDisplayPrecisionEnabled(chkboxDisplayPrecisionEnabled.isSelected());
+            SmPreferences.General.setFFTPaddingPolicy(
+                SmFFT.PaddingPolicy.valueOf(cboxFFTPaddingPolicy.getSelectedItem().toString()));
+            SmPreferences.General.setSpectralCacheSize(spectralCacheSize);
+            SmPreferences.ChartOptions.setDisplaySpectraReduced(chkboxDisplaySpectraReduced.isSelected());
+            SmPreferences.ChartOptions.setSpectralBinsPerDecade(binsPerDecade);
+            SmPreferences.ChartOptions.setSmoothingBandwidth(bandwidth);
 
             returnVal = true;
             this.setVisible(false);
@@ -2071,15 +2186,19 @@ public class SmPreferencesDialog extends javax.swing.JDialog {
     private javax.swing.JComboBox cboxButterworthFilterOrder;
     private javax.swing.JComboBox<String> cboxDifferentialOrder;
     private javax.swing.JComboBox cboxEventOnsetMarkerStyle;
+    private javax.swing.JComboBox<String> cboxFFTPaddingPolicy;
     private javax.swing.JComboBox cboxFilterRangeHighMarkerStyle;
     private javax.swing.JComboBox cboxFilterRangeLowMarkerStyle;
     private javax.swing.JComboBox cboxFunctionRangeStartMarkerStyle;
     private javax.swing.JComboBox cboxFunctionRangeStopMarkerStyle;
     private javax.swing.JComboBox cboxStartTimeMarkerStyle;
     private javax.swing.JComboBox cboxStopTimeMarkerStyle;
+    private javax.swing.JCheckBox chkboxDiskCacheEnabled;
     private javax.swing.JCheckBox chkboxDisplayLegend;
     private javax.swing.JCheckBox chkboxDisplayPlotAnnotation;
     private javax.swing.JCheckBox chkboxDisplayPlotLabels;
+    private javax.swing.JCheckBox chkboxDisplayPrecisionEnabled;
+    private javax.swing.JCheckBox chkboxDisplaySpectraReduced;
     private javax.swing.JCheckBox chkboxDisplayXAxisLabels;
     private javax.swing.JCheckBox chkboxDisplayXAxisTitle;
     private javax.swing.JCheckBox chkboxDisplayXGrid;
@@ -2130,6 +2249,7 @@ public class SmPreferencesDialog extends javax.swing.JDialog {
     private javax.swing.JLabel lblEventOnsetMarkerStyle;
     private javax.swing.JLabel lblEventOnsetMarkerWidth;
     private javax.swing.JLabel lblEventsRootDir;
+    private javax.swing.JLabel lblFFTPaddingPolicy;
     private javax.swing.JLabel lblFilterRangeHighMarkerColor;
     private javax.swing.JLabel lblFilterRangeHighMarkerStyle;
     private javax.swing.JLabel lblFilterRangeHighMarkerWidth;
@@ -2149,6 +2269,9 @@ public class SmPreferencesDialog extends javax.swing.JDialog {
     private javax.swing.JLabel lblLogsDir;
     private javax.swing.JLabel lblSeismicFilterRangeHigh;
     private javax.swing.JLabel lblSeismicFunctionRangeLow;
+    private javax.swing.JLabel lblSmoothingBandwidth;
+    private javax.swing.JLabel lblSpectralBinsPerDecade;
+    private javax.swing.JLabel lblSpectralCacheSize;
     private javax.swing.JLabel lblSpectralFilterRangeHigh;
     private javax.swing.JLabel lblSpectralFilterRangeLow;
     private javax.swing.JLabel lblStartTime;
@@ -2174,6 +2297,7 @@ public class SmPreferencesDialog extends javax.swing.JDialog {
     private javax.swing.JPanel pnlFont;
     private javax.swing.JPanel pnlFunctionRange;
     private javax.swing.JPanel pnlGeneral;
+    private javax.swing.JPanel pnlPerformance;
     private javax.swing.JPanel pnlPlotAreaPosition;
     private javax.swing.JPanel pnlPrismParams;
     private javax.swing.JPanel pnlSeismicFilterRange;
@@ -2214,6 +2338,9 @@ public class SmPreferencesDialog extends javax.swing.JDialog {
     private javax.swing.JTextField txtPlotAreaPositionLeft;
     private javax.swing.JTextField txtPlotAreaPositionRight;
     private javax.swing.JTextField txtPlotAreaPositionTop;
+    private javax.swing.JTextField txtSmoothingBandwidth;
+    private javax.swing.JTextField txtSpectralBinsPerDecade;
+    private javax.swing.JTextField txtSpectralCacheSize;
     private javax.swing.JTextField txtStartTimeMarkerColor;
     private javax.swing.JTextField txtStationFolderName;
     private javax.swing.JTextField txtStopTimeMarkerColor;
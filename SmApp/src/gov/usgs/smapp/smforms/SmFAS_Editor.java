@@ -47,14 +47,17 @@ import gov.usgs.smapp.smchartingapi.qcchart2d.SmDataCursor;
 import gov.usgs.smcommon.smclasses.SmChannel;
 import gov.usgs.smcommon.smclasses.SmEpoch;
 import gov.usgs.smcommon.smclasses.SmFile;
+import gov.usgs.smcommon.smclasses.SmFileLoader;
 import gov.usgs.smcommon.smclasses.SmGlobal;
-import gov.usgs.smcommon.smclasses.SmPoint;
 import gov.usgs.smcommon.smclasses.SmPreferences;
 import gov.usgs.smcommon.smclasses.SmPreferences.MarkerStyle;
 import gov.usgs.smcommon.smclasses.SmRec;
 import gov.usgs.smcommon.smclasses.SmSeries;
 import gov.usgs.smcommon.smclasses.SmStation;
+import gov.usgs.smcommon.smclasses.SmTaskPool;
 import gov.usgs.smcommon.smclasses.SmTemplate;
+import gov.usgs.smcommon.smclasses.SmTimeAlignment;
+import gov.usgs.smcommon.smclasses.SmTrace;
 import static gov.usgs.smcommon.smutilities.MathUtils.isDouble;
 import static gov.usgs.smcommon.smutilities.NetBeansUtils.showMessage;
 import gov.usgs.smcommon.smutilities.SmGUIUtils;
@@ -80,8 +83,11 @@ import java.nio.file.Paths;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.swing.AbstractCellEditor;
@@ -138,6 +144,8 @@ public class SmFAS_Editor extends javax.swing.JFrame {
    
     private final ArrayList<SmChartView> chartViews = new ArrayList<>();
     
+    private final GroupChartView.FilterPreview filterPreview;
+    
     private boolean status = true;
     
     
@@ -151,14 +159,24 @@ public class SmFAS_Editor extends javax.swing.JFrame {
         
         initComponents();
         
+        // Preview the filter corners on the spectra.
+        this.filterPreview = new GroupChartView.FilterPreview(this.chartViews,
+            this.ftxtFilterRangeLow, this.ftxtFilterRangeHigh,
+            this.rbtnFilterRangeLow, this.rbtnFilterRangeHigh);
+        
         // Set form icon.
         this.setIconImage(Toolkit.getDefaultToolkit().getImage(getClass().
             getResource("/resources/icons/prism_review_tool_16.png")));
             
         // Set member variables.
         this.chartAPI = chartAPI;
-        this.srcSmFiles = srcSmFiles;
         this.smTemplate = smTemplate;
+        
+        // Files viewed in display precision are rehydrated to full precision.
+        this.srcSmFiles = new ArrayList<>();
+        for (SmFile srcSmFile : srcSmFiles)
+            this.srcSmFiles.add(srcSmFile.toFullPrecision());
+        
         this.v1SmFiles = createV1SmFiles(this.srcSmFiles);  
         
         // Set earliest and latest start times and minimum delta time 
@@ -359,6 +377,9 @@ public class SmFAS_Editor extends javax.swing.JFrame {
             }
             */
 
+            // Preview the initial filter corners.
+            filterPreview.update();
+            
             SmCore.addMsgToStatusViewer("FAS editor reset at: " + this.logTime);
         }
         catch (Exception ex) {
@@ -370,6 +391,7 @@ public class SmFAS_Editor extends javax.swing.JFrame {
     
     private ArrayList<SmFile> createV1SmFiles(ArrayList<SmFile> inSmFiles) {
         ArrayList<SmFile> outSmFiles = new ArrayList<>();
+        ArrayList<File> v1Files = new ArrayList<>();
         
         for (SmFile smFile : inSmFiles) {
             if (smFile.getFileDataType().equals(UNCORACC))
@@ -430,11 +452,32 @@ public class SmFAS_Editor extends javax.swing.JFrame {
                 if (!Files.isRegularFile(v1File.toPath()))
                     return null;
 
-                // Create and return V1 SmFile object.
-                outSmFiles.add(new SmFile(v1File));
+                // Reserve place of V1 SmFile object, which is loaded below.
+                outSmFiles.add(null);
+                v1Files.add(v1File);
             }
         }
         
+        try {
+            // Load the V1 files in parallel and fill in their places.
+            ArrayList<SmFile> v1SmFiles = SmFileLoader.createSmFiles(v1Files);
+            
+            for (int i=0, j=0; i<outSmFiles.size(); i++) {
+                if (outSmFiles.get(i) == null)
+                    outSmFiles.set(i, v1SmFiles.get(j++));
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        catch (ExecutionException ex) {
+            showMessage("Error",ex.getMessage(),
+                NotifyDescriptor.DEFAULT_OPTION,NotifyDescriptor.ERROR_MESSAGE);
+            SmCore.addMsgToStatusViewer("Error: " + ex.getMessage());
+            return null;
+        }
+        
         return outSmFiles;
     }
     
@@ -799,9 +842,9 @@ public class SmFAS_Editor extends javax.swing.JFrame {
         
         try {
             for (SmSeries smSeries : smSeriesList) {
-                ArrayList<SmPoint> smPoints = smSeries.getSmPoints();
-                for (SmPoint smPoint : smPoints) {
-                    double xVal = smPoint.getX();
+                SmTrace smTrace = smSeries.getSmTrace();
+                for (int i=0; i<smTrace.size(); i++) {
+                    double xVal = smTrace.getX(i);
                     if (xVal > xMaxVal)
                         xMaxVal = xVal;
                 }
@@ -852,17 +895,12 @@ public class SmFAS_Editor extends javax.swing.JFrame {
             final double deltaT = v2ProcessGUI.getDTime()/MSEC_TO_SEC;
             final double maxVal = rec.getRealHeaderValue(63);
 
-            ArrayList<SmPoint> smPoints = new ArrayList<>();
-
             double[] points = v2ProcessGUI.getAcceleration();
 
-            double xVal = 0;
-            for (int i=0; i<points.length; i++){
-                smPoints.add(new SmPoint(xVal,points[i]));
-                xVal += deltaT*MSEC_TO_SEC;
-            }
+            SmTrace smTrace = new SmTrace(Arrays.copyOf(points, points.length), 
+                0, deltaT*MSEC_TO_SEC);
 
-            SmRec smRec = new SmRec(smPoints, channel, sensorLocation, stationCode, 
+            SmRec smRec = new SmRec(smTrace, channel, sensorLocation, stationCode, 
                 stationName, networkCode, startDateTime, deltaT, MSEC_TO_SEC, maxVal, 
                 eventName, eventDateTime, dataParmCode, dataUnitCode);
             
@@ -896,43 +934,30 @@ public class SmFAS_Editor extends javax.swing.JFrame {
             double minDeltaT = SmUtils.getMinimumDeltaT(filePaths);
             */
             
+            // Create SmRec objects from v2ProcessGUI objects.
+            ArrayList<SmRec> smRecs = new ArrayList<>();
+            for (V2ProcessGUI v2ProcessGUI : v2ProcessGUIs)
+                smRecs.add(createSmRec(v2ProcessGUI));
+            
             // Retrieve network and station codes from the first list item.
-            SmRec smRec1st = createSmRec(v2ProcessGUIs.get(0));
+            SmRec smRec1st = smRecs.get(0);
             String networkCode = smRec1st.getNetworkCode();
             String stationCode = smRec1st.getStationCode();
             
-            for (V2ProcessGUI v2ProcessGUI : v2ProcessGUIs) {
-                // Create SmRec object from v2ProcessGUI object.
-                SmRec smRec = createSmRec(v2ProcessGUI);
-               
-                // Create seismic data list.
-                //ArrayList<SmPoint> dataSeismic = smRec.createAdjustedSmPointsPadded(
-                    //earliestDateTime, latestDateTime);
-                ArrayList<SmPoint> dataSeismic = smRec.createAdjustedSmPointsUnpadded(
-                    earliestDateTime, latestDateTime);
-
-                // Create spectral data list.
-                //ArrayList<SmPoint> adjustedSmPointsFFT = SmRec.createSmPointsFFT(dataSeismic, 
-                    //minDeltaT, MSEC_TO_SEC);
-                ArrayList<SmPoint> adjustedSmPointsFFT = SmRec.createSmPointsFFT(dataSeismic, 
-                    v2ProcessGUI.getDTime()/MSEC_TO_SEC, MSEC_TO_SEC);
-
-                ArrayList<SmPoint> dataSpectral = new ArrayList<>();
-
-                for (int i=1; i<adjustedSmPointsFFT.size()/2; i++) //skip 1st point, frequency=0Hz
-                {
-                    SmPoint smPointFFT = adjustedSmPointsFFT.get(i);
-                    dataSpectral.add(new SmPoint(smPointFFT.getX(),
-                        smPointFFT.getY()));
-                }
+            // Create spectral data lists of the records in parallel.
+            ArrayList<SmTrace> spectralTraces = createSpectralTraces(smRecs, v2ProcessGUIs);
+            
+            for (int i=0; i<smRecs.size(); i++) {
+                SmRec smRec = smRecs.get(i);
+                V2ProcessGUI v2ProcessGUI = v2ProcessGUIs.get(i);
+                SmTrace dataSpectral = spectralTraces.get(i);
 
                 int dataParmCode = smRec.getDataParmCode();
                 String channel = smRec.getChannel();
                 String seed = "";
                 String lCode = "";
 
-                Pattern p = Pattern.compile("^(.{3})(\\.)(.{2})$");
-                Matcher m = p.matcher(channel);
+                Matcher m = SmGlobal.CHANNEL_PATTERN.matcher(channel);
 
                 if (m.find()) {
                     seed = m.group(1);
@@ -997,7 +1022,7 @@ public class SmFAS_Editor extends javax.swing.JFrame {
             // Remove SmSeries objects with null SmPoints from smSeriesSpectralList.
             ArrayList<SmSeries> tempSmSeriesSpectralList = new ArrayList<>();
             for (SmSeries smSeriesSpectral : smSeriesSpectralList) {
-                if (smSeriesSpectral.getSmPoints() != null)
+                if (smSeriesSpectral.getSmTrace() != null)
                     tempSmSeriesSpectralList.add(smSeriesSpectral);
             }
             smSeriesSpectralList = tempSmSeriesSpectralList;
@@ -1009,6 +1034,40 @@ public class SmFAS_Editor extends javax.swing.JFrame {
         }
     }
     
+    private ArrayList<SmTrace> createSpectralTraces(ArrayList<SmRec> smRecs, 
+        ArrayList<V2ProcessGUI> v2ProcessGUIs) throws InterruptedException, ExecutionException {
+        
+        // One task per record; the results keep the order of the records.
+        ArrayList<Callable<SmTrace>> tasks = new ArrayList<>();
+        
+        final long earliestStartNanos = SmTimeAlignment.toEpochNanos(earliestDateTime);
+        final long latestStopNanos = SmTimeAlignment.toEpochNanos(latestDateTime);
+        
+        for (int i=0; i<smRecs.size(); i++) {
+            final SmRec smRec = smRecs.get(i);
+            final double deltaT = v2ProcessGUIs.get(i).getDTime()/MSEC_TO_SEC;
+            
+            tasks.add(new Callable<SmTrace>() {
+                @Override
+                public SmTrace call() {
+                    // Create seismic data list.
+                    SmTrace dataSeismic = smRec.createAdjustedSmTraceUnpadded(
+                        earliestStartNanos, latestStopNanos);
+
+                    // Create spectral data list.
+                    SmTrace adjustedSmTraceFFT = SmRec.createSmTraceFFT(dataSeismic, 
+                        deltaT, MSEC_TO_SEC);
+
+                    // Skip 1st point, frequency=0Hz, and keep points below Nyquist.
+                    return new SmTrace(adjustedSmTraceFFT.subTrace(1,
+                        Math.max(adjustedSmTraceFFT.size()-2,0)));
+                }
+            });
+        }
+        
+        return SmTaskPool.invokeAll(tasks);
+    }
+    
     private ArrayList<SmSeries> getSelectedSmSeriesSpectralList() {
         ArrayList<SmSeries> smSeriesSpectralList = new ArrayList<>();
         
@@ -1039,7 +1098,7 @@ public class SmFAS_Editor extends javax.swing.JFrame {
 //        model.addElement(SmGlobal.NO_SELECTION);
         
         // Define search pattern to parse title (i.e., channel).
-        Pattern p = Pattern.compile("^(.{3})(\\.)(.{2})$");
+        Pattern p = SmGlobal.CHANNEL_PATTERN;
         
         // Create list.
         ArrayList<String> seeds = new ArrayList<>();
@@ -1073,7 +1132,7 @@ public class SmFAS_Editor extends javax.swing.JFrame {
 //        model.addElement(SmGlobal.NO_SELECTION);
         
         // Define search pattern to parse title (i.e., channel).
-        Pattern p = Pattern.compile("^(.{3})(\\.)(.{2})$");
+        Pattern p = SmGlobal.CHANNEL_PATTERN;
         
         // Create list.
         ArrayList<String> lCodes = new ArrayList<>();
@@ -1109,7 +1168,7 @@ public class SmFAS_Editor extends javax.swing.JFrame {
         model.clearData();
 
         // Define search pattern to parse title (i.e., channel).
-        Pattern p = Pattern.compile("^(.{3})(\\.)(.{2})$");
+        Pattern p = SmGlobal.CHANNEL_PATTERN;
         
         // Iterate SmSeries list, creating a row for each series (i.e., channel).
         for (SmSeries smSeries :smSeriesList) {
@@ -1171,12 +1230,16 @@ public class SmFAS_Editor extends javax.swing.JFrame {
                 
                 if (chartView != null) {
                     chartView.addMouseListener(new SmChartViewMouseListener());
+                    chartView.addMouseMotionListener(this.filterPreview);
                     chartViews.add(chartView);
                     pnlViewerAcc.add(chartView);
                 }
                 
                 // Set chart view properties.
                 setChartViewProperties(chartViews);
+                
+                // Preview the current filter corners.
+                filterPreview.update();
             }
         }
         catch (Exception ex) {
@@ -2241,6 +2304,9 @@ public class SmFAS_Editor extends javax.swing.JFrame {
 
                     // Update bounded text field value.
                     scv.setBoundedTextFieldValue(sdc.getLocation().getX());
+                    
+                    // Update filter preview.
+                    filterPreview.update();
                 }
                 finally {
                     // Turn on text field listeners.
@@ -2327,6 +2393,9 @@ public class SmFAS_Editor extends javax.swing.JFrame {
                         chartView.getSmDataCursor().drawMarker(x, y);
                     }
                 }
+                
+                // Update filter preview.
+                filterPreview.update();
             }
         }
     }
@@ -31,12 +31,13 @@ import gov.usgs.smcommon.smclasses.SmChannel;
 import gov.usgs.smcommon.smclasses.SmEpoch;
 import gov.usgs.smcommon.smclasses.SmFile;
 import gov.usgs.smcommon.smclasses.SmGlobal;
-import gov.usgs.smcommon.smclasses.SmPoint;
 import gov.usgs.smcommon.smclasses.SmPreferences;
 import gov.usgs.smcommon.smclasses.SmRec;
 import gov.usgs.smcommon.smclasses.SmSeries;
 import gov.usgs.smcommon.smclasses.SmStation;
 import gov.usgs.smcommon.smclasses.SmTemplate;
+import gov.usgs.smcommon.smclasses.SmTimeAlignment;
+import gov.usgs.smcommon.smclasses.SmTrace;
 import static gov.usgs.smcommon.smutilities.MathUtils.isDouble;
 import static gov.usgs.smcommon.smutilities.NetBeansUtils.showMessage;
 import gov.usgs.smcommon.smutilities.SmGUIUtils;
@@ -59,6 +60,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.text.NumberFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.regex.Matcher;
@@ -111,6 +113,8 @@ public class SmFilterEditor extends javax.swing.JDialog {
    
     private final ArrayList<SmChartView> chartViews = new ArrayList<>();
     
+    private final GroupChartView.FilterPreview filterPreview;
+    
     private boolean filtered = false;
     
     /**
@@ -127,6 +131,11 @@ public class SmFilterEditor extends javax.swing.JDialog {
         super(parent, modal);
         initComponents();
         
+        // Preview the filter corners on the spectra.
+        this.filterPreview = new GroupChartView.FilterPreview(this.chartViews,
+            this.ftxtFilterRangeLow, this.ftxtFilterRangeHigh,
+            this.rbtnFilterRangeLow, this.rbtnFilterRangeHigh);
+        
         // Set form icon.
         this.setIconImage(Toolkit.getDefaultToolkit().getImage(getClass().
             getResource("/resources/icons/prism_review_tool_16.png")));
@@ -323,6 +332,9 @@ public class SmFilterEditor extends javax.swing.JDialog {
             }
             */
             
+            // Preview the initial filter corners.
+            filterPreview.update();
+            
             SmCore.addMsgToStatusViewer("Filter editor reset at: " + this.logTime);
         }
         catch (Exception ex) {
@@ -410,9 +422,9 @@ public class SmFilterEditor extends javax.swing.JDialog {
         
         try {
             for (SmSeries smSeries : smSeriesList) {
-                ArrayList<SmPoint> smPoints = smSeries.getSmPoints();
-                for (SmPoint smPoint : smPoints) {
-                    double xVal = smPoint.getX();
+                SmTrace smTrace = smSeries.getSmTrace();
+                for (int i=0; i<smTrace.size(); i++) {
+                    double xVal = smTrace.getX(i);
                     if (xVal > xMaxVal)
                         xMaxVal = xVal;
                 }
@@ -463,17 +475,12 @@ public class SmFilterEditor extends javax.swing.JDialog {
             final double deltaT = v2ProcessGUI.getDTime()/MSEC_TO_SEC;
             final double maxVal = rec.getRealHeaderValue(63);
 
-            ArrayList<SmPoint> smPoints = new ArrayList<>();
-
             double[] points = v2ProcessGUI.getAcceleration();
 
-            double xVal = 0;
-            for (int i=0; i<points.length; i++){
-                smPoints.add(new SmPoint(xVal,points[i]));
-                xVal += deltaT*MSEC_TO_SEC;
-            }
+            SmTrace smTrace = new SmTrace(Arrays.copyOf(points, points.length), 
+                0, deltaT*MSEC_TO_SEC);
 
-            SmRec smRec = new SmRec(smPoints, channel, sensorLocation, stationCode, 
+            SmRec smRec = new SmRec(smTrace, channel, sensorLocation, stationCode, 
                 stationName, networkCode, startDateTime, deltaT, MSEC_TO_SEC, maxVal, 
                 eventName, eventDateTime, dataParmCode, dataUnitCode);
             
@@ -504,6 +511,8 @@ public class SmFilterEditor extends javax.swing.JDialog {
             DateTime earliestStartTime = SmUtils.getEarliestStartTime(filePaths);
             DateTime latestStopTime = SmUtils.getLatestStopTime(filePaths);
             //double minDeltaT = SmUtils.getMinimumDeltaT(filePaths);
+            long earliestStartNanos = SmTimeAlignment.toEpochNanos(earliestStartTime);
+            long latestStopNanos = SmTimeAlignment.toEpochNanos(latestStopTime);
             
             // Retrieve network and station codes from the first list item.
             SmRec smRec1st = createSmRec(v2ProcessGUIs.get(0));
@@ -517,23 +526,18 @@ public class SmFilterEditor extends javax.swing.JDialog {
                 // Create seismic data list.
                 //ArrayList<SmPoint> dataSeismic = smRec.createAdjustedSmPointsPadded(
                     //earliestStartTime, latestStopTime);
-                ArrayList<SmPoint> dataSeismic = smRec.createAdjustedSmPointsUnpadded(
-                    earliestStartTime, latestStopTime);
+                SmTrace dataSeismic = smRec.createAdjustedSmTraceUnpadded(
+                    earliestStartNanos, latestStopNanos);
                 
                 // Create spectral data list.
                 //ArrayList<SmPoint> adjustedSmPointsFFT = SmRec.createSmPointsFFT(dataSeismic, 
                     //minDeltaT, MSEC_TO_SEC);
-                ArrayList<SmPoint> adjustedSmPointsFFT = SmRec.createSmPointsFFT(dataSeismic, 
+                SmTrace adjustedSmTraceFFT = SmRec.createSmTraceFFT(dataSeismic, 
                     v2ProcessGUI.getDTime()/MSEC_TO_SEC, MSEC_TO_SEC);
                 
-                ArrayList<SmPoint> dataSpectral = new ArrayList<>();
-
-                for (int i=1; i<adjustedSmPointsFFT.size()/2; i++) //skip 1st point, frequency=0Hz
-                {
-                    SmPoint smPointFFT = adjustedSmPointsFFT.get(i);
-                    dataSpectral.add(new SmPoint(smPointFFT.getX(),
-                        smPointFFT.getY()));
-                }
+                // Skip 1st point, frequency=0Hz, and keep points below Nyquist.
+                SmTrace dataSpectral = new SmTrace(adjustedSmTraceFFT.subTrace(1,
+                    Math.max(adjustedSmTraceFFT.size()-2,0)));
                 
                 int dataParmCode = smRec.getDataParmCode();
                 String channel = smRec.getChannel();
@@ -606,7 +610,7 @@ public class SmFilterEditor extends javax.swing.JDialog {
             // Remove SmSeries objects with null SmPoints from smSeriesSpectralList.
             ArrayList<SmSeries> tempSmSeriesSpectralList = new ArrayList<>();
             for (SmSeries smSeriesSpectral : smSeriesSpectralList) {
-                if (smSeriesSpectral.getSmPoints() != null)
+                if (smSeriesSpectral.getSmTrace() != null)
                     tempSmSeriesSpectralList.add(smSeriesSpectral);
             }
             smSeriesSpectralList = tempSmSeriesSpectralList;
@@ -780,12 +784,16 @@ public class SmFilterEditor extends javax.swing.JDialog {
                 
                 if (chartView != null) {
                     chartView.addMouseListener(new SmChartViewMouseListener());
+                    chartView.addMouseMotionListener(this.filterPreview);
                     chartViews.add(chartView);
                     pnlViewerAcc.add(chartView);
                 }
                 
                 // Set chart view properties.
                 setChartViewProperties(chartViews);
+                
+                // Preview the current filter corners.
+                filterPreview.update();
             }
         }
         catch (Exception ex) {
@@ -1438,6 +1446,9 @@ public class SmFilterEditor extends javax.swing.JDialog {
 
                     // Update bounded text field value.
                     scv.setBoundedTextFieldValue(sdc.getLocation().getX());
+                    
+                    // Update filter preview.
+                    filterPreview.update();
                 }
                 finally {
                     // Turn on text field listeners.
@@ -1524,6 +1535,9 @@ public class SmFilterEditor extends javax.swing.JDialog {
                             chartView.getSmDataCursor().drawMarker(x, 0);
                     }
                 }
+                
+                // Update filter preview.
+                filterPreview.update();
             }
         }
     }
@@ -61,6 +61,7 @@ import gov.usgs.smcommon.smclasses.SmRec;
 import gov.usgs.smcommon.smclasses.SmSeries;
 import gov.usgs.smcommon.smclasses.SmStation;
 import gov.usgs.smcommon.smclasses.SmTemplate;
+import gov.usgs.smcommon.smclasses.SmTrace;
 import static gov.usgs.smcommon.smutilities.MathUtils.isDouble;
 import static gov.usgs.smcommon.smutilities.NetBeansUtils.showMessage;
 import gov.usgs.smcommon.smutilities.SmGUIUtils;
@@ -86,6 +87,7 @@ import java.nio.file.Paths;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -234,8 +236,9 @@ public class SmSeismicTraceEditor extends javax.swing.JFrame {
         // Set member variables.
         this.chartAPI = chartAPI;
         
-        this.v1SmFile = (srcSmFile.getFileDataType().equals(UNCORACC)) ? new SmFile(srcSmFile) :
-            createV1SmFile(srcSmFile);
+        // Files viewed in display precision are rehydrated to full precision.
+        this.v1SmFile = (srcSmFile.getFileDataType().equals(UNCORACC)) ? 
+            new SmFile(srcSmFile.toFullPrecision()) : createV1SmFile(srcSmFile);
         this.smTemplate = smTemplate;
         
         // Set earliest and latest start times and minimum delta time 
@@ -623,7 +626,7 @@ public class SmSeismicTraceEditor extends javax.swing.JFrame {
      */
     private SmFile createV1SmFile(SmFile smFile) {
         if (smFile.getFileDataType().equals(UNCORACC))
-            return new SmFile(smFile);
+            return new SmFile(smFile.toFullPrecision());
         else { //V2 SmFile object
             // Check validity of the file's parent path.
             String parent = smFile.getFile().getParent();
@@ -828,15 +831,9 @@ public class SmSeismicTraceEditor extends javax.swing.JFrame {
     
     private void createSeismicChart(V2ProcessGUI v2ProcessGUI, VFileConstants.V2DataType v2DataType) {
         try {
-            ArrayList<SmPoint> smPoints = new ArrayList<>();
             double[] points = v2ProcessGUI.getV2Array(v2DataType);
-            
-            double xVal = 0;
-            for (int i=0; i<points.length; i++){
-                smPoints.add(new SmPoint(xVal,points[i]));
-                //xVal += this.deltaT*MSEC_TO_SEC;
-                xVal += v2ProcessGUI.getDTime();
-            }
+            SmTrace smTrace = new SmTrace(Arrays.copyOf(points, points.length), 
+                0, v2ProcessGUI.getDTime());
                     
             SmCharts_API smCharts_API = (chartAPI.equals(SmGlobal.SM_CHARTS_API_QCCHART2D)) ?
                 new QCChart2D_API() : null;
@@ -886,7 +883,7 @@ public class SmSeismicTraceEditor extends javax.swing.JFrame {
                 dataParmCode = 3;
 
             // Create SmSeries object.
-            SmSeries smSeries = new SmSeries(smPoints,dataParmCode,
+            SmSeries smSeries = new SmSeries(smTrace,dataParmCode,
                 title,description,color,null);
             String plotType = SmGlobal.PLOT_TYPE_SEISMIC;
             SmCharts_API.XYBounds xyBounds = null;
@@ -3238,7 +3235,7 @@ public class SmSeismicTraceEditor extends javax.swing.JFrame {
         private final String chartAPI;
         private final SmRec smRec;
         private final SmTemplate smTemplate;
-        private final ArrayList<SmPoint> smPoints;
+        private final SmTrace smTrace;
         private final int dataParmCode;
         private final String channel;
         
@@ -3248,7 +3245,7 @@ public class SmSeismicTraceEditor extends javax.swing.JFrame {
             this.chartAPI = chartAPI;
             this.smRec = smRec;
             this.smTemplate = smTemplate;
-            this.smPoints = smRec.getSmPoints();
+            this.smTrace = smRec.getSmTrace();
             this.dataParmCode = smRec.getDataParmCode();
             this.channel = smRec.getChannel();
         }
@@ -3303,7 +3300,7 @@ public class SmSeismicTraceEditor extends javax.swing.JFrame {
                 }
 
                 // Create SmSeries object.
-                SmSeries smSeries = new SmSeries(smPoints,dataParmCode,
+                SmSeries smSeries = new SmSeries(smTrace,dataParmCode,
                     title,description,color,null);
                 String plotType = SmGlobal.PLOT_TYPE_SEISMIC;
                 SmCharts_API.XYBounds xyBounds = null;
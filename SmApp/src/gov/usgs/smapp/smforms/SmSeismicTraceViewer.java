@@ -28,11 +28,11 @@ import gov.usgs.smapp.smchartingapi.qcchart2d.SingleChartView;
 import gov.usgs.smcommon.smclasses.SmChannel;
 import gov.usgs.smcommon.smclasses.SmEpoch;
 import gov.usgs.smcommon.smclasses.SmGlobal;
-import gov.usgs.smcommon.smclasses.SmPoint;
 import gov.usgs.smcommon.smclasses.SmPreferences;
 import gov.usgs.smcommon.smclasses.SmSeries;
 import gov.usgs.smcommon.smclasses.SmStation;
 import gov.usgs.smcommon.smclasses.SmTemplate;
+import gov.usgs.smcommon.smclasses.SmTrace;
 import static gov.usgs.smcommon.smutilities.NetBeansUtils.showMessage;
 import gov.usgs.smcommon.smutilities.SmUtils;
 import java.awt.Color;
@@ -41,6 +41,7 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.joda.time.DateTime;
@@ -169,15 +170,9 @@ public class SmSeismicTraceViewer extends javax.swing.JFrame {
                 lCode = m.group(3);
             }
             
-            ArrayList<SmPoint> smPoints = new ArrayList<>();
             double[] points = v2ProcessGUI.getV2Array(v2DataType);
-            
-            double xVal = 0;
-            for (int i=0; i<points.length; i++){
-                smPoints.add(new SmPoint(xVal,points[i]));
-                //xVal += deltaT*MSEC_TO_SEC;
-                xVal += v2ProcessGUI.getDTime();
-            }
+            SmTrace smTrace = new SmTrace(Arrays.copyOf(points, points.length), 
+                0, v2ProcessGUI.getDTime());
                     
             SmCharts_API smCharts_API = (chartAPI.equals(SmGlobal.SM_CHARTS_API_QCCHART2D)) ?
                 new QCChart2D_API() : null;
@@ -217,7 +212,7 @@ public class SmSeismicTraceViewer extends javax.swing.JFrame {
                 dataParmCode = 3;
 
             // Create SmSeries object.
-            SmSeries smSeries = new SmSeries(smPoints,dataParmCode,
+            SmSeries smSeries = new SmSeries(smTrace,dataParmCode,
                 title,description,color,null);
             String plotType = SmGlobal.PLOT_TYPE_SEISMIC;
             SmCharts_API.XYBounds xyBounds = null;
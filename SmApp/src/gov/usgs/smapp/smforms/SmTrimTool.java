@@ -37,20 +37,28 @@ import gov.usgs.smapp.smchartingapi.SmCharts_API.XYBounds;
 import gov.usgs.smapp.smchartingapi.qcchart2d.SingleChartView;
 import gov.usgs.smapp.smchartingapi.qcchart2d.SmChartView;
 import gov.usgs.smapp.smchartingapi.qcchart2d.SmDataCursor;
+import gov.usgs.smcommon.smclasses.SmCommitJournal;
 import gov.usgs.smcommon.smclasses.SmFile;
+import gov.usgs.smcommon.smclasses.SmFileCache;
 import gov.usgs.smcommon.smclasses.SmGlobal;
 import gov.usgs.smcommon.smclasses.SmNode;
-import gov.usgs.smcommon.smclasses.SmPoint;
 import gov.usgs.smcommon.smclasses.SmPreferences;
 import gov.usgs.smcommon.smclasses.SmRec;
+import gov.usgs.smcommon.smclasses.SmRecHeader;
 import gov.usgs.smcommon.smclasses.SmSeries;
+import gov.usgs.smcommon.smclasses.SmStationExtent;
+import gov.usgs.smcommon.smclasses.SmTaskPool;
 import gov.usgs.smcommon.smclasses.SmTemplate;
+import gov.usgs.smcommon.smclasses.SmTimeAlignment;
+import gov.usgs.smcommon.smclasses.SmTrace;
 import static gov.usgs.smcommon.smutilities.MathUtils.isDouble;
 import static gov.usgs.smcommon.smutilities.NetBeansUtils.showMessage;
 import gov.usgs.smcommon.smutilities.SmGUIUtils;
 import gov.usgs.smcommon.smutilities.SmUtils;
+import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Cursor;
+import java.awt.Dimension;
 import java.awt.Toolkit;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -69,19 +77,33 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.swing.BorderFactory;
 import javax.swing.JComponent;
 import javax.swing.JFormattedTextField;
 import javax.swing.JFrame;
+import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JPopupMenu;
 import javax.swing.JRadioButton;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.SwingUtilities;
 import javax.swing.SwingWorker;
+import javax.swing.table.AbstractTableModel;
 import javax.swing.table.DefaultTableModel;
 import org.joda.time.DateTime;
 import org.joda.time.Duration;
@@ -89,6 +111,7 @@ import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
 import org.netbeans.api.progress.ProgressHandle;
 import org.openide.NotifyDescriptor;
+import org.openide.util.Cancellable;
 
 /**
  *
@@ -129,6 +152,9 @@ public class SmTrimTool extends javax.swing.JFrame {
     
     private int traceSetsIndx = 0;
     
+    // Prefix of the log entry of a V1 file that failed to be written.
+    private static final String FILE_FAILED_PREFIX = "Processing of file ";
+    
     /**
      * Creates new form SmTrimTool
      */
@@ -335,35 +361,60 @@ public class SmTrimTool extends javax.swing.JFrame {
     
     private ArrayList<ArrayList<V1Component>> createV1ComponentsArr(ArrayList<String> v1FilePaths) {
         
-        ArrayList<ArrayList<V1Component>> v1ComponentsArr = new ArrayList();
+        ArrayList<Callable<ArrayList<V1Component>>> tasks = new ArrayList<>();
         
         for (String v1FilePath : v1FilePaths) {
-            File v1File = new File(v1FilePath);
+            final File v1File = new File(v1FilePath);
             
             if (!v1File.exists())
                 continue;
             
-            SmFile v1SmFile = new SmFile(v1File);
-            ArrayList<V1Component> v1Components = createV1Components(v1SmFile);
-            v1ComponentsArr.add(v1Components);
+            tasks.add(new Callable<ArrayList<V1Component>>() {
+                @Override
+                public ArrayList<V1Component> call() {
+                    return createV1Components(new SmFile(v1File));
+                }
+            });
+        }
+        
+        try {
+            // Load the V1 files in parallel, keeping the order of the file paths.
+            return SmTaskPool.invokeAll(tasks);
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException ex) {
+            showMessage("Error",ex.getMessage(),
+                NotifyDescriptor.DEFAULT_OPTION,NotifyDescriptor.ERROR_MESSAGE);
+            SmCore.addMsgToStatusViewer("Error: " + ex.getMessage());
         }
         
-        return v1ComponentsArr;
+        return new ArrayList<>();
     }
    
     /**
      * Processes the specified V1 file. If the start and stop trim counts are zero,
-     * the V1 file is kept unchanged. Otherwise, the file is replaced using the 
-     * specified start datetime and acceleration data. 
-     * @param v1FilePath pathname of V1 file
-     * @param startDateTime starting DateTime
-     * @param accArr acceleration data array
+     * the V1 file is kept unchanged. Otherwise, the replacement file is created 
+     * from the start datetime and acceleration data of the V1 file commit and
+     * written to the specified temp file. The files that the temp file is to
+     * replace and to which the V1 file is moved in the trash are set in the 
+     * V1 file commit; the replacement is done when the commit of its group
+     * is committed.
+     * @param v1FileCommit replacement V1 file
+     * @param tempFile temp file for the replacement file
      * @param logList array for storing log entries
      * @param trashDir location of trash directory
      * @return true if V1 file processing was successful or false otherwise.
+     * Errors are added to the log entries only, so that the method can run on
+     * a worker thread.
      */
-    private boolean createV1File(String v1FilePath, DateTime startDateTime, double[] accArr,
+    private boolean createV1File(V1FileCommit v1FileCommit, File tempFile,
         ArrayList<String> logList, String trashDir) {
+        String v1FilePath = v1FileCommit.getV1FilePath();
+        DateTime startDateTime = v1FileCommit.getStartDateTime();
+        double[] accArr = v1FileCommit.getSmTrace().getYArray();
+        
         try {
             // Convert DateTime to ZonedDateTime.
             /*
@@ -409,9 +460,9 @@ public class SmTrimTool extends javax.swing.JFrame {
             
             DateTime origStartDateTime = smRec.getStartDateTime();
             DateTime origStopDateTime = smRec.getEndDateTime();
-            int origNumPts = smRec.getSmPoints().size();
+            int origNumPts = smRec.getSmTrace().size();
             double origDurationMs = smRec.getDurationMs();
-            long origDeltaT = (long)smRec.getDeltaT();
+            double deltaT = smRec.getDeltaT();
             
             // Get new record attributes.
             double newDurationMs = (accArr.length-1)*smRec.getDeltaT();
@@ -421,10 +472,18 @@ public class SmTrimTool extends javax.swing.JFrame {
             Duration durStart = new Duration(origStartDateTime,startDateTime);
             Duration durStop = new Duration(newStopDateTime,origStopDateTime);
             
-            //int startTrimCnt = Math.round(durStart.getMillis() / origDeltaT);
-            //int stopTrimCnt = Math.round(durStop.getMillis() / origDeltaT);
-            int startTrimCnt = (int)(durStart.getMillis() / origDeltaT);
-            int stopTrimCnt = (int)(durStop.getMillis() / origDeltaT);
+            // Count trimmed samples from epoch times and the exact delta time.
+            long origStartNanos = smRec.getStartEpochNanos();
+            long origStopNanos = origStartNanos + 
+                Math.round(origDurationMs * SmTimeAlignment.NANOS_PER_MILLI);
+            long newStartNanos = SmTimeAlignment.toEpochNanos(startDateTime);
+            long newStopNanos = newStartNanos + 
+                Math.round(newDurationMs * SmTimeAlignment.NANOS_PER_MILLI);
+            
+            int startTrimCnt = (int)Math.max(SmTimeAlignment.floorIntervals(
+                origStartNanos, newStartNanos, deltaT), 0);
+            int stopTrimCnt = (int)Math.max(SmTimeAlignment.floorIntervals(
+                newStopNanos, origStopNanos, deltaT), 0);
             int totalTrimCnt = startTrimCnt + stopTrimCnt;
             int remainPtCnt = origNumPts - totalTrimCnt;
             
@@ -439,29 +498,29 @@ public class SmTrimTool extends javax.swing.JFrame {
             }
             
             // Log processing details.
-            addToLogList(logList,"Original Record Attributes:");
-            addToLogList(logList,"  Orig Start DateTime: " + dateTimeFormatter.print(origStartDateTime));
-            addToLogList(logList,"  Orig Stop DateTime: " + dateTimeFormatter.print(origStopDateTime));
-            addToLogList(logList,"  Orig Point Count: " + origNumPts);
-            addToLogList(logList,"  Orig Duration (ms): " + origDurationMs);
-            addToLogList(logList,"New Record Attributes:");
-            addToLogList(logList,"  New Start DateTime: " + dateTimeFormatter.print(startDateTime) +
+            logList.add("Original Record Attributes:");
+            logList.add("  Orig Start DateTime: " + dateTimeFormatter.print(origStartDateTime));
+            logList.add("  Orig Stop DateTime: " + dateTimeFormatter.print(origStopDateTime));
+            logList.add("  Orig Point Count: " + origNumPts);
+            logList.add("  Orig Duration (ms): " + origDurationMs);
+            logList.add("New Record Attributes:");
+            logList.add("  New Start DateTime: " + dateTimeFormatter.print(startDateTime) +
                 " (ZDT: " + zdtStartDateTime.format(zdtDateTimeFormatter) + ")");
-            addToLogList(logList,"  New Stop DateTime: " + dateTimeFormatter.print(newStopDateTime));
-            addToLogList(logList,"  New Point Count: " + accArr.length);
-            addToLogList(logList,"  New Duration (ms): " + newDurationMs);
-            addToLogList(logList,"Processing Details");
-            addToLogList(logList,"  DeltaT (ms): " + smRec.getDeltaT());
-            addToLogList(logList,"  Trimmed Start Time Difference (ms): " + durStart.getMillis());
-            addToLogList(logList,"  Trimmed Stop Time Difference (ms): " + durStop.getMillis());
-            addToLogList(logList,"  Trim Count Adjustment Needed: " + adjustTrimCntNeeded);
-            addToLogList(logList,"  Start DateTime Trim Count: " + startTrimCnt);
-            addToLogList(logList,"  Stop DateTime Trim Count: " + stopTrimCnt);
-            addToLogList(logList,"  Total Trim Count: " + totalTrimCnt);
-            addToLogList(logList,"  Remaining Point Count: " + remainPtCnt);
+            logList.add("  New Stop DateTime: " + dateTimeFormatter.print(newStopDateTime));
+            logList.add("  New Point Count: " + accArr.length);
+            logList.add("  New Duration (ms): " + newDurationMs);
+            logList.add("Processing Details");
+            logList.add("  DeltaT (ms): " + smRec.getDeltaT());
+            logList.add("  Trimmed Start Time Difference (ms): " + durStart.getMillis());
+            logList.add("  Trimmed Stop Time Difference (ms): " + durStop.getMillis());
+            logList.add("  Trim Count Adjustment Needed: " + adjustTrimCntNeeded);
+            logList.add("  Start DateTime Trim Count: " + startTrimCnt);
+            logList.add("  Stop DateTime Trim Count: " + stopTrimCnt);
+            logList.add("  Total Trim Count: " + totalTrimCnt);
+            logList.add("  Remaining Point Count: " + remainPtCnt);
             
             if ((stopTrimCnt == 0 && startTrimCnt == 0)) {
-                addToLogList(logList,"File " + v1FilePath + " unchanged.");
+                logList.add("File " + v1FilePath + " unchanged.");
             }
             else {
                 // Form product output directory.
@@ -483,28 +542,47 @@ public class SmTrimTool extends javax.swing.JFrame {
                 v1Component.loadComponent(0, contents);
                 v1Component.updateArray(accArr, zdtStartDateTime, startTrimCnt, stopTrimCnt);
 
-                // Write out products.
+                // Form the product and trash file paths the same way as
+                // SmProductGUI.writeOutProducts does.
                 SmProductGUI smProductGUI = new SmProductGUI();
                 smProductGUI.updateDirectoriesGUI(outputDir);
                 smProductGUI.addProduct(v1Component, "V1");
-                smProductGUI.writeOutProducts(trashDir);
-
-                /*
-                String[] logItems = smProductGUI.writeOutProducts(trashDir);
-                for (String logItem : logItems) {
-                    addToLogList(logList,logItem);
+                
+                File stationDir = v1Component.getStationDir();
+                String fileName = v1Component.getFileName();
+                String channel = v1Component.getChannel();
+                String fileExt = fileName.substring(fileName.lastIndexOf(".")+1);
+                String v1FileExt = fileExt.length() > 2 ? 
+                    SmGlobal.CosmosFileType.V1.toString() + fileExt.substring(2) : 
+                    SmGlobal.CosmosFileType.V1.toString();
+                
+                File targetFile = smProductGUI.buildFilename(stationDir, "", fileName, 
+                    v1FileExt, channel, "").toFile();
+                File trashFile = trashDir.isEmpty() ? new File("") :
+                    smProductGUI.buildFilename(Paths.get(trashDir, 
+                    stationDir.getParentFile().getName(), stationDir.getName()).toFile(), 
+                    "", fileName, v1FileExt, channel, "").toFile();
+                
+                // The temp file replaces the target file with an atomic rename
+                // only if it is the temp file of the target file, which is
+                // next to it.
+                if (!SmCommitJournal.getTempFile(targetFile).getAbsoluteFile().equals(
+                    tempFile.getAbsoluteFile())) {
+                    logList.add("Error: Product file " + targetFile.getPath() + 
+                        " differs from the file being replaced, " + v1FilePath + ".");
+                    return false;
                 }
-                addToLogList(logList,"");
-                */
                 
-                addToLogList(logList,"File " + v1FilePath + " replaced.");
+                // Write out the product to its temp file, forced to disk.
+                SmCommitJournal.writeFile(tempFile, Arrays.asList(v1Component.VrecToText()));
+                v1FileCommit.setReplacedFiles(targetFile, trashFile);
+                
+                logList.add("File " + v1FilePath + " written to " + tempFile.getName() + ".");
             }
         }
         catch (IOException | FormatException | SmException ex ) {
         //catch(Exception ex) {
-            showMessage("Error",ex.getMessage(),
-                NotifyDescriptor.DEFAULT_OPTION,NotifyDescriptor.ERROR_MESSAGE);
-            SmCore.addMsgToStatusViewer("Error: " + ex.getMessage());
+            logList.add("Error: " + ex.getMessage());
             
             return false;
         }
@@ -798,10 +876,11 @@ public class SmTrimTool extends javax.swing.JFrame {
             if (v2ChartsBin != null)
                 filePaths.addAll(v2ChartsBin.getFilePaths());
             
-            earliestStartTime = SmUtils.getEarliestStartTime(filePaths);
-            latestStartTime = SmUtils.getLatestStartTime(filePaths);
-            earliestStopTime = SmUtils.getEarliestStopTime(filePaths);
-            latestStopTime = SmUtils.getLatestStopTime(filePaths);
+            SmStationExtent extent = SmStationExtent.getSmStationExtent(filePaths);
+            earliestStartTime = extent.getEarliestStartTime();
+            latestStartTime = extent.getLatestStartTime();
+            earliestStopTime = extent.getEarliestStopTime();
+            latestStopTime = extent.getLatestStopTime();
             
             if (earliestStartTime.isEqual(latestStartTime)) {
                 lblEarliestStartTime.setForeground(colorEqual);
@@ -852,8 +931,8 @@ public class SmTrimTool extends javax.swing.JFrame {
                 else {
                     if (scv instanceof SingleChartView) {
                         SmSeries smSeries = ((SingleChartView)scv).getSmSeries();
-                        ArrayList<SmPoint> smPoints = smSeries.getSmPoints();
-                        ftxtStartTime.setValue(smPoints.get(0).getX());
+                        SmTrace smTrace = smSeries.getSmTrace();
+                        ftxtStartTime.setValue(smTrace.getX(0));
                     }
                     else
                         ftxtStartTime.setValue(null);
@@ -864,8 +943,8 @@ public class SmTrimTool extends javax.swing.JFrame {
                 else {
                     if (scv instanceof SingleChartView) {
                         SmSeries smSeries = ((SingleChartView)scv).getSmSeries();
-                        ArrayList<SmPoint> smPoints = smSeries.getSmPoints();
-                        ftxtStopTime.setValue(smPoints.get(smPoints.size()-1).getX());
+                        SmTrace smTrace = smSeries.getSmTrace();
+                        ftxtStopTime.setValue(smTrace.getX(smTrace.size()-1));
                     }
                     else
                         ftxtStopTime.setValue(null);
@@ -880,8 +959,8 @@ public class SmTrimTool extends javax.swing.JFrame {
                 else {
                     if (scv instanceof SingleChartView) {
                         SmSeries smSeries = ((SingleChartView)scv).getSmSeries();
-                        ArrayList<SmPoint> smPoints = smSeries.getSmPoints();
-                        ftxtStartTime.setValue(smPoints.get(0).getX());
+                        SmTrace smTrace = smSeries.getSmTrace();
+                        ftxtStartTime.setValue(smTrace.getX(0));
                     }
                     else
                         ftxtStartTime.setValue(null);
@@ -895,8 +974,8 @@ public class SmTrimTool extends javax.swing.JFrame {
                 else {
                     if (scv instanceof SingleChartView) {
                         SmSeries smSeries = ((SingleChartView)scv).getSmSeries();
-                        ArrayList<SmPoint> smPoints = smSeries.getSmPoints();
-                        ftxtStopTime.setValue(smPoints.get(smPoints.size()-1).getX());
+                        SmTrace smTrace = smSeries.getSmTrace();
+                        ftxtStopTime.setValue(smTrace.getX(smTrace.size()-1));
                     }
                     else
                         ftxtStopTime.setValue(null);
@@ -969,7 +1048,7 @@ public class SmTrimTool extends javax.swing.JFrame {
                     "." + SmGlobal.CosmosV2DataType.DIS.toString();
             
             String channel = smRec.getChannel();
-            int numPts = smRec.getSmPoints().size();
+            int numPts = smRec.getSmTrace().size();
             double deltaT_Sec = smRec.getDeltaT()*MSEC_TO_SEC;
             double durationSec = smRec.getDurationMs()*MSEC_TO_SEC;
             DateTime startDateTime = smRec.getStartDateTime();
@@ -1076,8 +1155,9 @@ public class SmTrimTool extends javax.swing.JFrame {
             
             for (SmSeries smSeries : v1SmSeriesSeismicList) {
                 
-                double firstPoint = smSeries.getSmPoints().get(0).getX();
-                double lastPoint = smSeries.getSmPoints().get(smSeries.getSmPoints().size()-1).getX();
+                SmTrace smTrace = smSeries.getSmTrace();
+                double firstPoint = smTrace.getX(0);
+                double lastPoint = smTrace.getX(smTrace.size()-1);
 
                 if (startTime < firstPoint && Math.abs(firstPoint-startTime) > minDeltaT_Sec) {
                     msg.append("  -Start Time cannot be set earlier than currently set start time\n");
@@ -1105,8 +1185,9 @@ public class SmTrimTool extends javax.swing.JFrame {
             
             for (SmSeries smSeries : v2SmSeriesSeismicList) {
                 
-                double firstPoint = smSeries.getSmPoints().get(0).getX();
-                double lastPoint = smSeries.getSmPoints().get(smSeries.getSmPoints().size()-1).getX();
+                SmTrace smTrace = smSeries.getSmTrace();
+                double firstPoint = smTrace.getX(0);
+                double lastPoint = smTrace.getX(smTrace.size()-1);
 
                 if (startTime < firstPoint && Math.abs(firstPoint-startTime) > minDeltaT_Sec) {
                     SmCore.addMsgToStatusViewer("Start time: " + startTime + " : " + firstPoint);
@@ -1206,6 +1287,176 @@ public class SmTrimTool extends javax.swing.JFrame {
         }
     }
     
+    private void autoTrimAll() {
+        if (traceSets.isEmpty())
+            return;
+        
+        // Create the trim proposals in the background; the proposals are then
+        // reviewed and committed by the task.
+        this.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        
+        TrimProposalsTask task = new TrimProposalsTask();
+        task.execute();
+    }
+    
+    /**
+     * Commits the accepted trim proposals of auto trim all.
+     * @param trimProposals list of reviewed TrimProposal objects
+     */
+    private void commitTrimProposals(ArrayList<TrimProposal> trimProposals) {
+        if (!showTrimProposals(trimProposals) || !confirmCommit())
+            return;
+        
+        // Collect the replacement V1 files of the accepted trace sets.
+        ArrayList<V1FileCommit> v1FileCommits = new ArrayList<>();
+        ArrayList<String> groupLogList = new ArrayList<>();
+        
+        for (TrimProposal trimProposal : trimProposals) {
+            if (trimProposal.isAccepted()) {
+                v1FileCommits.addAll(trimProposal.getV1FileCommits());
+                groupLogList.addAll(trimProposal.getLogList());
+            }
+        }
+        
+        runCommit("Trim tool auto-trim all commit", v1FileCommits, groupLogList);
+    }
+    
+    /**
+     * Creates a trim proposal for every TraceSet in parallel, one task per
+     * TraceSet.
+     * @return list of TrimProposal objects, in the order of the trace sets
+     * @throws InterruptedException if the calling thread is interrupted
+     * @throws ExecutionException if creating a proposal fails
+     */
+    private ArrayList<TrimProposal> createTrimProposals() 
+        throws InterruptedException, ExecutionException {
+        
+        ArrayList<Callable<TrimProposal>> tasks = new ArrayList<>(traceSets.size());
+        
+        for (final TraceSet traceSet : traceSets) {
+            tasks.add(new Callable<TrimProposal>() {
+                @Override
+                public TrimProposal call() {
+                    return createTrimProposal(traceSet);
+                }
+            });
+        }
+        
+        return SmTaskPool.invokeAll(tasks);
+    }
+    
+    /**
+     * Creates the trim proposal of a TraceSet. The proposed window is the
+     * window of auto trim, i.e., from the latest start time to the earliest
+     * stop time of the trace set, and the trimmed series are views of the
+     * untrimmed series of the trace set.
+     * @param traceSet TraceSet object
+     * @return TrimProposal object
+     */
+    private TrimProposal createTrimProposal(TraceSet traceSet) {
+        VxChartsBinGroup vXChartsBinGroup = traceSet.getVxChartsBinGroup();
+        String groupName = vXChartsBinGroup.getGroupName();
+        
+        V1ChartsBin v1ChartsBin = vXChartsBinGroup.getV1ChartsBin();
+        V2ChartsBin v2ChartsBin = vXChartsBinGroup.getV2ChartsBin();
+        
+        ArrayList<String> filePaths = new ArrayList<>();
+        if (v1ChartsBin != null)
+            filePaths.addAll(v1ChartsBin.getFilePaths());
+        if (v2ChartsBin != null)
+            filePaths.addAll(v2ChartsBin.getFilePaths());
+        
+        SmStationExtent extent = SmStationExtent.getSmStationExtent(filePaths);
+        
+        if (!extent.getLatestStartTime().isBefore(extent.getEarliestStopTime())) {
+            return new TrimProposal(groupName, -1, -1, new ArrayList<V1FileCommit>(), 
+                0, new ArrayList<String>(), "No common time window");
+        }
+        
+        double startTimeMs = new Duration(extent.getEarliestStartTime(),
+            extent.getLatestStartTime()).getMillis();
+        double stopTimeMs = new Duration(extent.getEarliestStartTime(),
+            extent.getEarliestStopTime()).getMillis();
+        double startTimeSec = startTimeMs*MSEC_TO_SEC;
+        double stopTimeSec = stopTimeMs*MSEC_TO_SEC;
+        double timeRangeMs = stopTimeMs - startTimeMs;
+        
+        DateTime startDateTime = traceSet.getOrigStartDateTime().plus(
+            Duration.millis((long)(startTimeMs)));
+        
+        // Record the untrimmed point count of each series by file path.
+        HashMap<String,Integer> origNumPts = new HashMap<>();
+        List<SmSeries> v1SmSeriesList = null;
+        List<SmSeries> v2SmSeriesList = null;
+        
+        if (v1ChartsBin != null) {
+            for (SmSeries smSeries : traceSet.getV1SmSeriesSeismicList())
+                origNumPts.put(smSeries.getTag().toString(), smSeries.getSmTrace().size());
+            
+            v1SmSeriesList = createTrimmedSmSeriesList(traceSet.getV1SmSeriesSeismicList(),
+                startTimeSec,stopTimeSec,timeRangeMs);
+        }
+        
+        if (v2ChartsBin != null) {
+            for (SmSeries smSeries : traceSet.getV2SmSeriesSeismicList())
+                origNumPts.put(smSeries.getTag().toString(), smSeries.getSmTrace().size());
+            
+            v2SmSeriesList = createTrimmedSmSeriesList(traceSet.getV2SmSeriesSeismicList(),
+                startTimeSec,stopTimeSec,timeRangeMs);
+        }
+        
+        ArrayList<String> logList = new ArrayList<>();
+        ArrayList<V1FileCommit> v1FileCommits = createV1FileCommits(groupName,
+            v1SmSeriesList, v2SmSeriesList, startDateTime, logList);
+        
+        // Count the samples removed from the V1 files.
+        long samplesLost = 0;
+        
+        for (V1FileCommit v1FileCommit : v1FileCommits) {
+            Integer numPts = origNumPts.get(v1FileCommit.getSourceFilePath());
+            
+            if (numPts != null)
+                samplesLost += Math.max(numPts - v1FileCommit.getSmTrace().size(), 0);
+        }
+        
+        String note = !logList.isEmpty() ? logList.get(logList.size()-1) :
+            v1FileCommits.isEmpty() ? "No V1 files" :
+            (samplesLost == 0) ? "No samples trimmed" : "";
+        
+        return new TrimProposal(groupName, startTimeSec, stopTimeSec, v1FileCommits, 
+            samplesLost, logList, note);
+    }
+    
+    /**
+     * Shows the trim proposals in a table, where the user selects the trace
+     * sets to commit.
+     * @param trimProposals list of TrimProposal objects
+     * @return true if the user accepted at least one proposal, false otherwise.
+     */
+    private boolean showTrimProposals(ArrayList<TrimProposal> trimProposals) {
+        TrimProposalsTableModel model = new TrimProposalsTableModel(trimProposals);
+        
+        JTable table = new JTable(model);
+        table.setAutoCreateRowSorter(true);
+        table.getColumnModel().getColumn(0).setMaxWidth(60);
+        
+        JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.setPreferredSize(new Dimension(800,400));
+        
+        JPanel panel = new JPanel(new BorderLayout(0,5));
+        panel.add(new JLabel("Proposed trims for " + trimProposals.size() + 
+            " trace sets. Select the trace sets to commit."), BorderLayout.NORTH);
+        panel.add(scrollPane, BorderLayout.CENTER);
+        
+        int response = JOptionPane.showConfirmDialog(this, panel, "Auto-Trim All",
+            JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        
+        if (table.isEditing())
+            table.getCellEditor().stopCellEditing();
+        
+        return (response == JOptionPane.OK_OPTION) && (model.getAcceptedCount() > 0);
+    }
+    
     private void trim() {
         try {
             this.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
@@ -1227,106 +1478,9 @@ public class SmTrimTool extends javax.swing.JFrame {
             double timeRangeMs = stopTimeMs - startTimeMs;
             
             if (v1ChartsBin != null) {
-                ArrayList<SmSeries> v1SmSeriesSeismicList = v1ChartsBin.getSmSeriesSeismicList();
-                
-                ArrayList<SmSeries> v1SmSeriesSeismicListAdj = new ArrayList<>();
-                //ArrayList<SmSeries> v1SmSeriesSpectralListAdj = new ArrayList<>();
-                //double minDeltaT = v1ChartsBin.getMinDeltaT();
-                
-                for (SmSeries smSeries : v1SmSeriesSeismicList) {
-                    String filePath = smSeries.getTag().toString();
-                    SmFile smFile = new SmFile(new File(filePath));
-                    ArrayList<SmRec> smRecs = smFile.getSmRecs();
-                    double deltaT = smRecs.get(0).getDeltaT();
-                    //long expectedNumPoints = Math.round(timeRangeMs / deltaT) + 1;
-                    long expectedNumPoints = (long)((timeRangeMs / deltaT) + 1);
-                    long actualNumPoints = 0;
-                    
-                    ArrayList<SmPoint> smPoints = new ArrayList<>();
-
-                    //double firstPoint = smSeries.getSmPoints().get(0).getX();
-                    //double lastPoint = smSeries.getSmPoints().get(smSeries.getSmPoints().size()-1).getX();
-
-                    /*
-                    // Add points to pad time before the first point.
-                    if (startTime < firstPoint) {
-                        double curStartTime = startTime;
-
-                        while (curStartTime < firstPoint) {
-                            smPoints.add(new SmPoint(curStartTime,0));
-                            curStartTime += minDeltaT*MSEC_TO_SEC;
-                        }
-                    }
-                    */
-                    
-                    for (SmPoint smPoint : smSeries.getSmPoints()) {
-                        double x = smPoint.getX();
-                        double y = smPoint.getY();
-
-                        if (actualNumPoints >= expectedNumPoints)
-                            break;
-                        
-                        if (x >= startTimeSec && x <= stopTimeSec) {
-                            smPoints.add(new SmPoint(x,y));
-                            actualNumPoints++;
-                        }
-                    }
-                    
-                    // Add points to array, if needed, to ensure array has the
-                    // expected number of points.
-                    SmPoint lastPoint = smPoints.get(smPoints.size()-1);
-                    double xVal = lastPoint.getX();
-                    
-                    while (actualNumPoints < expectedNumPoints)
-                    {
-                        xVal += deltaT * MSEC_TO_SEC;
-                        smPoints.add(new SmPoint(xVal,lastPoint.getY()));
-                        actualNumPoints++;
-                    }
-                    
-                    /*
-                    // Add points to pad time after the last point.
-                    if (stopTime > lastPoint) {
-                        double curStopTime = stopTime;
-
-                        while (curStopTime > lastPoint) {
-                            smPoints.add(new SmPoint(curStopTime,0));
-                            curStopTime -= minDeltaT*MSEC_TO_SEC;
-                        }
-                    }
-                    */
-                    
-                    /*
-                    // Create spectral points data.
-                    ArrayList<SmPoint> smPointsFFT = SmRec.createSmPointsFFT(
-                        smPoints, minDeltaT, MSEC_TO_SEC);
-
-                    ArrayList<SmPoint> smPointsFFT_Adj = new ArrayList<>();
-
-                    for (int i=1; i<smPointsFFT.size()/2; i++) //skip 1st point, frequency=0Hz
-                    {
-                        SmPoint smPointFFT = smPointsFFT.get(i);
-                        smPointsFFT_Adj.add(new SmPoint(smPointFFT.getX(),
-                            smPointFFT.getY()));
-                    }
-                    */
-
-                    v1SmSeriesSeismicListAdj.add(new SmSeries(smPoints,smSeries.getDataParmCode(),
-                        smSeries.getTitle(),smSeries.getDecription(),smSeries.getColor(),
-                        smSeries.getTag()));
-
-                    /*
-                    if (!smPointsFFT_Adj.isEmpty()) {
-                        v1SmSeriesSpectralListAdj.add(new SmSeries(smPointsFFT_Adj,smSeries.getDataParmCode(),
-                        smSeries.getTitle(),smSeries.getDecription(),smSeries.getColor(),
-                        smSeries.getTag()));
-                    }
-                    */
-                }
-                
-                // Update charts bin with new lists.
-                v1ChartsBin.setSmSeriesSeismicList(v1SmSeriesSeismicListAdj);
-                //v1ChartsBin.setSmSeriesSpectralList(v1SmSeriesSpectralListAdj);
+                // Trim views over the untrimmed series of the TraceSet.
+                v1ChartsBin.setSmSeriesSeismicList(createTrimmedSmSeriesList(
+                    traceSet.getV1SmSeriesSeismicList(),startTimeSec,stopTimeSec,timeRangeMs));
                 
                 // Retrieve xy bounds for acceleration data type.
                 XYBounds v1BndsSeismicAcc = v1ChartsBin.getXYBoundsSeismicAcc();
@@ -1336,106 +1490,9 @@ public class SmTrimTool extends javax.swing.JFrame {
             }
            
             if (v2ChartsBin != null) {
-                ArrayList<SmSeries> v2SmSeriesSeismicList = v2ChartsBin.getSmSeriesSeismicList();
-                
-                ArrayList<SmSeries> v2SmSeriesSeismicListAdj = new ArrayList<>();
-                //ArrayList<SmSeries> v2SmSeriesSpectralListAdj = new ArrayList<>();
-                
-                //double minDeltaT = v2ChartsBin.getMinDeltaT();
-                
-                for (SmSeries smSeries : v2SmSeriesSeismicList) {
-                    String filePath = smSeries.getTag().toString();
-                    SmFile smFile = new SmFile(new File(filePath));
-                    ArrayList<SmRec> smRecs = smFile.getSmRecs();
-                    double deltaT = smRecs.get(0).getDeltaT();
-                    //long expectedNumPoints = Math.round(timeRangeMs / deltaT) + 1;
-                    long expectedNumPoints = (long)((timeRangeMs / deltaT) + 1);
-                    long actualNumPoints = 0;
-                    
-                    ArrayList<SmPoint> smPoints = new ArrayList<>();
-
-                    /*
-                    double firstPoint = smSeries.getSmPoints().get(0).getX();
-                    double lastPoint = smSeries.getSmPoints().get(smSeries.getSmPoints().size()-1).getX();
-
-                    // Add points to pad time before the first point.
-                    if (startTime < firstPoint) {
-                        double curStartTime = startTime;
-
-                        while (curStartTime < firstPoint) {
-                            smPoints.add(new SmPoint(curStartTime,0));
-                            curStartTime += minDeltaT*MSEC_TO_SEC;
-                        }
-                    }
-                    */
-
-                    for (SmPoint smPoint : smSeries.getSmPoints()) {
-                        double x = smPoint.getX();
-                        double y = smPoint.getY();
-
-                        if (actualNumPoints >= expectedNumPoints)
-                            break;
-                        
-                        if (x >= startTimeSec && x <= stopTimeSec) {
-                            smPoints.add(new SmPoint(x,y));
-                        }
-                    }
-                    
-                    // Add points to array, if needed, to ensure array has the
-                    // expected number of points.
-                    SmPoint lastPoint = smPoints.get(smPoints.size()-1);
-                    double xVal = lastPoint.getX();
-                    
-                    while (actualNumPoints < expectedNumPoints)
-                    {
-                        xVal += deltaT * MSEC_TO_SEC;
-                        smPoints.add(new SmPoint(xVal,lastPoint.getY()));
-                        actualNumPoints++;
-                    }
-
-                    /*
-                    // Add points to pad time after the last point.
-                    if (stopTime > lastPoint) {
-                        double curStopTime = stopTime;
-
-                        while (curStopTime > lastPoint) {
-                            smPoints.add(new SmPoint(curStopTime,0));
-                            curStopTime -= minDeltaT*MSEC_TO_SEC;
-                        }
-                    }
-                    */
-                    
-                    /*
-                    // Create spectral points data.
-                    ArrayList<SmPoint> smPointsFFT = SmRec.createSmPointsFFT(
-                        smPoints, minDeltaT, MSEC_TO_SEC);
-
-                    ArrayList<SmPoint> smPointsFFT_Adj = new ArrayList<>();
-
-                    for (int i=1; i<smPointsFFT.size()/2; i++) //skip 1st point, frequency=0Hz
-                    {
-                        SmPoint smPointFFT = smPointsFFT.get(i);
-                        smPointsFFT_Adj.add(new SmPoint(smPointFFT.getX(),
-                            smPointFFT.getY()));
-                    }
-                    */
-
-                    v2SmSeriesSeismicListAdj.add(new SmSeries(smPoints,smSeries.getDataParmCode(),
-                        smSeries.getTitle(),smSeries.getDecription(),smSeries.getColor(),
-                        smSeries.getTag()));
-
-                    /*
-                    if (!smPointsFFT_Adj.isEmpty() && smSeries.getDataParmCode() == 1) {
-                        v2SmSeriesSpectralListAdj.add(new SmSeries(smPointsFFT_Adj,smSeries.getDataParmCode(),
-                        smSeries.getTitle(),smSeries.getDecription(),smSeries.getColor(),
-                        smSeries.getTag()));
-                    }
-                    */
-                }
-                
-                // Update charts bin with new lists.
-                v2ChartsBin.setSmSeriesSeismicList(v2SmSeriesSeismicListAdj);
-                //v2ChartsBin.setSmSeriesSpectralList(v2SmSeriesSpectralListAdj);
+                // Trim views over the untrimmed series of the TraceSet.
+                v2ChartsBin.setSmSeriesSeismicList(createTrimmedSmSeriesList(
+                    traceSet.getV2SmSeriesSeismicList(),startTimeSec,stopTimeSec,timeRangeMs));
                 
                 // Retrieve xy bounds for each data type.
                 XYBounds v2BndsSeismicAcc = v2ChartsBin.getXYBoundsSeismicAcc();
@@ -1479,6 +1536,38 @@ public class SmTrimTool extends javax.swing.JFrame {
         }
     }
     
+    /**
+     * Creates a list of series trimmed to the specified times. The trace of
+     * each trimmed series is a view of the samples of the untrimmed series
+     * and holds the expected number of points for the time range, so data is
+     * copied only if the trace must be padded to that number of points.
+     * @param smSeriesList list of untrimmed SmSeries objects
+     * @param startTimeSec trimmed start time in seconds
+     * @param stopTimeSec trimmed stop time in seconds
+     * @param timeRangeMs trimmed time range in milli-seconds
+     * @return list of trimmed SmSeries objects
+     */
+    private ArrayList<SmSeries> createTrimmedSmSeriesList(List<SmSeries> smSeriesList,
+        double startTimeSec, double stopTimeSec, double timeRangeMs) {
+        
+        ArrayList<SmSeries> smSeriesListAdj = new ArrayList<>(smSeriesList.size());
+        
+        for (SmSeries smSeries : smSeriesList) {
+            SmTrace smTrace = smSeries.getSmTrace();
+            double deltaT = smTrace.getDeltaX() / MSEC_TO_SEC;
+            int expectedNumPoints = (int)((timeRangeMs / deltaT) + 1);
+            
+            SmTrace smTraceAdj = SmTimeAlignment.alignWindow(smTrace, startTimeSec, 
+                stopTimeSec, expectedNumPoints);
+            
+            smSeriesListAdj.add(new SmSeries(smTraceAdj,smSeries.getDataParmCode(),
+                smSeries.getTitle(),smSeries.getDecription(),smSeries.getColor(),
+                smSeries.getTag()));
+        }
+        
+        return smSeriesListAdj;
+    }
+    
     private void reset() {
         try {
             this.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
@@ -1538,13 +1627,66 @@ public class SmTrimTool extends javax.swing.JFrame {
     }
     
     private void commit() {
+        if (!confirmCommit())
+            return;
+        
+        try {
+            // Collect the replacement V1 files of all groups.
+            ArrayList<V1FileCommit> v1FileCommits = new ArrayList<>();
+            ArrayList<String> groupLogList = new ArrayList<>();
+            
+            for (TraceSet traceSet : traceSets) {
+                VxChartsBinGroup vXChartsBinGroup = traceSet.getVxChartsBinGroup();
+                V1ChartsBin v1ChartsBin = vXChartsBinGroup.getV1ChartsBin();
+                V2ChartsBin v2ChartsBin = vXChartsBinGroup.getV2ChartsBin();
+                
+                v1FileCommits.addAll(createV1FileCommits(vXChartsBinGroup.getGroupName(),
+                    (v1ChartsBin != null) ? v1ChartsBin.getSmSeriesSeismicList() : null,
+                    (v2ChartsBin != null) ? v2ChartsBin.getSmSeriesSeismicList() : null,
+                    traceSet.getCurStartDateTime(), groupLogList));
+            }
+            
+            runCommit("Trim tool commit", v1FileCommits, groupLogList);
+        }
+        catch (Exception ex) {
+            showMessage("Error",ex.getMessage(),
+                NotifyDescriptor.DEFAULT_OPTION,NotifyDescriptor.ERROR_MESSAGE);
+            SmCore.addMsgToStatusViewer("Error: " + ex.getMessage());
+        } 
+    }
+    
+    /**
+     * Writes out the specified replacement V1 files in the background, writes
+     * the combined log of the commit to the logs directory, and then updates
+     * the plots.
+     * @param processName name of the commit process used in the log
+     * @param v1FileCommits list of replacement V1 files
+     * @param groupLogList log entries from collecting the replacement files
+     */
+    private void runCommit(String processName, List<V1FileCommit> v1FileCommits, 
+        List<String> groupLogList) {
+        
+        SmCore.clearStatusViewer();
+        
+        this.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        
+        CommitTask task = new CommitTask(processName, v1FileCommits, groupLogList);
+        task.execute();
+    }
+    
+    /**
+     * Asks the user to confirm a commit, warning about a logs or trash directory
+     * that is not set.
+     * @return true if the user confirmed the commit, false otherwise.
+     */
+    private boolean confirmCommit() {
         int response = JOptionPane.showOptionDialog(this, 
             "A commit will replace V1 files. Do you wish to proceed?",
             "Confirmation",
             JOptionPane.YES_NO_OPTION,JOptionPane.QUESTION_MESSAGE, null,null,null);
         
         if (response == JOptionPane.NO_OPTION) 
-            return;
+            return false;
         
         String logsDir = SmPreferences.General.getLogsDir();
         String trashDir = SmPreferences.General.getTrashDir();
@@ -1558,7 +1700,7 @@ public class SmTrimTool extends javax.swing.JFrame {
                 null,null,null);
 
             if (response == JOptionPane.NO_OPTION) 
-                return;
+                return false;
         }
     
         if (trashDir.isEmpty()) {
@@ -1570,214 +1712,357 @@ public class SmTrimTool extends javax.swing.JFrame {
                 null,null,null);
 
             if (response == JOptionPane.NO_OPTION) 
-                return;
+                return false;
         }
         
-        try {
-            SmCore.clearStatusViewer();
+        return true;
+    }
+    
+    /**
+     * Creates the list of replacement V1 files for a group. V1 series are
+     * written to their own file and V2 series to the V1 file from which the V2
+     * file was derived. Each V1 file is included only once.
+     * @param groupName name of the group
+     * @param v1SmSeriesList trimmed V1 series, or null if the group has no V1 files
+     * @param v2SmSeriesList trimmed V2 series, or null if the group has no V2 files
+     * @param startDateTime start DateTime of the trimmed series
+     * @param logList array for storing log entries
+     * @return list of V1FileCommit objects
+     */
+    private ArrayList<V1FileCommit> createV1FileCommits(String groupName, 
+        List<SmSeries> v1SmSeriesList, List<SmSeries> v2SmSeriesList, 
+        DateTime startDateTime, List<String> logList) {
+        
+        ArrayList<V1FileCommit> v1FileCommits = new ArrayList<>();
+        ArrayList<String> processedV1FilePaths = new ArrayList<>();
+        
+        if (v1SmSeriesList != null) {
+            for (SmSeries smSeries : v1SmSeriesList) {
+                String v1FilePath = smSeries.getTag().toString();
+                String fileType = SmCore.extractCosmosFileType(v1FilePath);
+
+                if (fileType.equalsIgnoreCase(SmGlobal.CosmosFileType.V1.toString()) &&
+                    !processedV1FilePaths.contains(v1FilePath)) {
+                    
+                    v1FileCommits.add(new V1FileCommit(groupName, v1FilePath, 
+                        v1FilePath, startDateTime, smSeries.getSmTrace()));
+                    processedV1FilePaths.add(v1FilePath);
+                }
+            }
+        }
+
+        if (v2SmSeriesList != null) {
+            for (SmSeries smSeries : v2SmSeriesList) {
+                String filePath = smSeries.getTag().toString();
+                String fileType = SmCore.extractCosmosFileType(filePath);
+
+                if (fileType.equalsIgnoreCase(SmGlobal.CosmosFileType.V2.toString())) {
+                    File v2File = new File(filePath);
+                    String v2Dir = v2File.getParent();
+
+                    String[] parts = v2Dir.split(Pattern.quote(File.separator));
+                    if (parts.length < 4 || !parts[parts.length-1].matches("V[1,2]")) {
+                        String msg = "File " + SmCore.extractFileName(filePath) +
+                            " is in folder that does not comply with expected folder structure.";
+                        logList.add("Invalid Folder Structure: " + msg);
+                        return new ArrayList<>();
+                    }
+
+                    // Form V1 directory path name.
+                    Path pathV2FilePath = v2File.toPath();
+                    Path v1Dir = Paths.get(pathV2FilePath.getParent().getParent().toString(),
+                        SmGlobal.CosmosFileType.V1.toString());
+
+                    if (!Files.isDirectory(v1Dir))
+                    {
+                        logList.add("No matching V1 directory found for V2 file " + 
+                            pathV2FilePath.toString());
+                        return new ArrayList<>();
+                    }
+
+                    // Build V1 filename string based on V2 file.
+                    String input = SmCore.extractFileName(filePath);
+                    String regExCosmosFileType = String.format("(?i)(^.+)([\\.](%s|%s|%s))([\\.](V[\\d][cC]?)$)",
+                        SmGlobal.CosmosV2DataType.ACC.toString(),
+                        SmGlobal.CosmosV2DataType.VEL.toString(),
+                        SmGlobal.CosmosV2DataType.DIS.toString());
+                    Pattern p = Pattern.compile(regExCosmosFileType);
+                    Matcher m = p.matcher(input);
+
+                    StringBuffer result = new StringBuffer();
+                    while (m.find()) {
+
+                        String fileName = m.group(1);
+                        String fileExt = m.group(5);
+
+                        String v1FileExt = fileExt.length() > 2 ? 
+                            SmGlobal.CosmosFileType.V1.toString() + fileExt.substring(2) : 
+                            SmGlobal.CosmosFileType.V1.toString();
+
+                        m.appendReplacement(result, fileName + "." + v1FileExt);
+                    }
+                    String v1FileName = result.toString();
+
+                    // Create V1 File object.
+                    Path pathV1FilePath = Paths.get(v1Dir.toString(),v1FileName);
+                    String v1FilePath = pathV1FilePath.toString();
+                    
+                    if (Files.exists(pathV1FilePath) && Files.isRegularFile(pathV1FilePath) &&
+                        !processedV1FilePaths.contains(v1FilePath)) {
+                        
+                        v1FileCommits.add(new V1FileCommit(groupName, v1FilePath, 
+                            filePath, startDateTime, smSeries.getSmTrace()));
+                        processedV1FilePaths.add(v1FilePath);
+                    }
+                }
+            }
+        }
+        
+        return v1FileCommits;
+    }
+    
+    /**
+     * Writes out the specified replacement V1 files. The files of each group 
+     * are committed as a whole: a commit journal listing their temp files is
+     * created, the replacement files are written to the temp files in 
+     * parallel and forced to disk, and the journal is then committed, moving
+     * the original files to the trash and renaming the temp files to the V1
+     * files. If any file of a group fails, the journal is rolled back and no
+     * file of the group is replaced. The number of files written at the same
+     * time is limited by the MaxConcurrentWrites trim tool preference. Each 
+     * file is logged separately and the file logs are added to the log list 
+     * in the order of the files, grouped by group. If writing the files fails
+     * unexpectedly, the journals that have been neither committed nor rolled
+     * back are rolled back. Once the commit is cancelled, files that have not
+     * been started are not written and fail, so that their groups are rolled
+     * back.
+     * @param v1FileCommits list of replacement V1 files
+     * @param logList array for storing log entries
+     * @param trashDir location of trash directory
+     * @param cancelled flag set when the commit is cancelled
+     * @return number of files that failed to be written
+     * @throws InterruptedException if the calling thread is interrupted
+     * @throws ExecutionException if writing a file fails unexpectedly
+     */
+    private int writeV1Files(List<V1FileCommit> v1FileCommits, ArrayList<String> logList,
+        final String trashDir, final AtomicBoolean cancelled) 
+        throws InterruptedException, ExecutionException {
+        
+        // Group the files by group, keeping their order.
+        LinkedHashMap<String,ArrayList<V1FileCommit>> groupV1FileCommits = new LinkedHashMap<>();
+        
+        for (V1FileCommit v1FileCommit : v1FileCommits) {
+            String groupName = v1FileCommit.getGroupName();
             
-            //DecimalFormat formatter = new DecimalFormat("###,###.####");
+            if (!groupV1FileCommits.containsKey(groupName))
+                groupV1FileCommits.put(groupName, new ArrayList<V1FileCommit>());
             
-            //double startTime = ((Number)this.ftxtStartTime.getValue()).doubleValue();
-            //double stopTime = ((Number)this.ftxtStopTime.getValue()).doubleValue();
+            groupV1FileCommits.get(groupName).add(v1FileCommit);
+        }
+        
+        // Create the commit journal of each group before any temp file is written.
+        HashMap<String,SmCommitJournal> journals = new HashMap<>();
+        HashMap<String,String> journalErrors = new HashMap<>();
+        
+        for (String groupName : groupV1FileCommits.keySet()) {
+            ArrayList<File> tempFiles = new ArrayList<>();
             
-            SmTimeFormatter timer = new SmTimeFormatter();
-            String timerStart = timer.getGMTdateTime();
+            for (V1FileCommit v1FileCommit : groupV1FileCommits.get(groupName))
+                tempFiles.add(SmCommitJournal.getTempFile(new File(v1FileCommit.getV1FilePath())));
             
-            ArrayList<String> logList = new ArrayList<>();
+            try {
+                journals.put(groupName, SmCommitJournal.begin(groupName, tempFiles));
+            }
+            catch (IOException ex) {
+                journalErrors.put(groupName, "Error: Unable to create commit journal: " + 
+                    ex.getMessage());
+            }
+        }
+        
+        // Journals are removed from the list once committed or rolled back.
+        ArrayList<SmCommitJournal> openJournals = new ArrayList<>(journals.values());
+        int failedCnt = 0;
+        
+        try {
+            // Write the temp files of all groups in parallel.
+            final Semaphore writePermits = new Semaphore(
+                Math.max(SmPreferences.SmTrimTool.getMaxConcurrentWrites(),1));
             
-            addToLogList(logList,"Trim tool commit processing started at " + timerStart);
-            addToLogList(logList,"");
-            //addToLogList(logList,"Inputs:");
-            //addToLogList(logList,"Start Time (sec): " + decimalFormatter.format(startTime));
-            //addToLogList(logList,"Stop Time (sec): " + decimalFormatter.format(stopTime));
-            //addToLogList(logList,"");
+            ArrayList<Callable<ArrayList<String>>> tasks = new ArrayList<>(v1FileCommits.size());
             
-            // Write out replacement V1 files.
-            for (TraceSet traceSet : traceSets) {
-                DateTime startDateTime = traceSet.getCurStartDateTime();
-                VxChartsBinGroup vXChartsBinGroup = traceSet.getVxChartsBinGroup();
+            for (final V1FileCommit v1FileCommit : v1FileCommits) {
+                final boolean journaled = journals.containsKey(v1FileCommit.getGroupName());
                 
-                addToLogList(logList,"Processing group " + vXChartsBinGroup.getGroupName() + " ...");
-                addToLogList(logList,"");
+                tasks.add(new Callable<ArrayList<String>>() {
+                    @Override
+                    public ArrayList<String> call() throws InterruptedException {
+                        ArrayList<String> fileLogList = new ArrayList<>();
+                        String v1FilePath = v1FileCommit.getV1FilePath();
+                        
+                        fileLogList.add("Processing file " + v1FilePath + " ...");
+                        
+                        if (!journaled) {
+                            fileLogList.add(FILE_FAILED_PREFIX + v1FilePath + " failed.");
+                            return fileLogList;
+                        }
+                        
+                        writePermits.acquire();
+                        
+                        try {
+                            if (cancelled.get()) {
+                                fileLogList.add("Commit cancelled. File " + v1FilePath + 
+                                    " not written.");
+                                fileLogList.add(FILE_FAILED_PREFIX + v1FilePath + " failed.");
+                            }
+                            else if (!createV1File(v1FileCommit, 
+                                SmCommitJournal.getTempFile(new File(v1FilePath)), 
+                                fileLogList, trashDir)) {
+                                fileLogList.add(FILE_FAILED_PREFIX + v1FilePath + " failed.");
+                            }
+                        }
+                        finally {
+                            writePermits.release();
+                        }
+                        
+                        return fileLogList;
+                    }
+                });
+            }
+            
+            ArrayList<ArrayList<String>> fileLogLists = SmTaskPool.invokeAll(tasks);
+            
+            // Commit or roll back each group and combine the file logs into a single log.
+            int fileIndx = 0;
+            
+            for (String groupName : groupV1FileCommits.keySet()) {
+                ArrayList<V1FileCommit> groupFileCommits = groupV1FileCommits.get(groupName);
+                SmCommitJournal journal = journals.get(groupName);
+                boolean groupFailed = (journal == null);
                 
-                ArrayList<String> processedV1FilePaths = new ArrayList();
+                addToLogList(logList,"Processing group " + groupName + " ...");
+                addToLogList(logList,"");
                 
-                V1ChartsBin v1ChartsBin = vXChartsBinGroup.getV1ChartsBin();
-                V2ChartsBin v2ChartsBin = vXChartsBinGroup.getV2ChartsBin();
+                if (journalErrors.containsKey(groupName))
+                    addToLogList(logList,journalErrors.get(groupName));
                 
-                if (v1ChartsBin != null) {
-                    ArrayList<SmSeries> v1SmSeriesSeismicList = v1ChartsBin.getSmSeriesSeismicList();
-                    for (SmSeries smSeries : v1SmSeriesSeismicList) {
-                        String v1FilePath = smSeries.getTag().toString();
-                        String fileType = SmCore.extractCosmosFileType(v1FilePath);
-                        
-                        if (fileType.equalsIgnoreCase(SmGlobal.CosmosFileType.V1.toString())) {
-                            
-                            // Check whether file has already been processed.
-                            boolean processed = false;
-                                
-                            for (String processedV1FilePath : processedV1FilePaths) {
-                                if (processedV1FilePath.equals(v1FilePath)) {
-                                    processed = true;
-                                    break;
-                                }
-                            }
-
-                            if (!processed) {
-                                ArrayList<SmPoint> smPoints = smSeries.getSmPoints();
-                                double accArr[] = new double[smPoints.size()];
-                                
-                                for (int i=0; i < smPoints.size(); i++) {
-                                    accArr[i] = smPoints.get(i).getY();
-                                }
+                for (V1FileCommit v1FileCommit : groupFileCommits) {
+                    for (String msg : fileLogLists.get(fileIndx)) {
+                        addToLogList(logList,msg);
                         
-                                addToLogList(logList,"Processing file " + v1FilePath + " ...");
-                                
-                                if (createV1File(v1FilePath, startDateTime, accArr, logList, trashDir)) {
-                                    processedV1FilePaths.add(v1FilePath);
-                                }
-                                else {
-                                    addToLogList(logList,"Processing of file " + v1FilePath + " failed.");
-                                }
-                                
-                                addToLogList(logList,"");
-                            }
+                        if (msg.startsWith(FILE_FAILED_PREFIX)) {
+                            failedCnt++;
+                            groupFailed = true;
                         }
                     }
+                    
+                    addToLogList(logList,"");
+                    fileIndx++;
                 }
                 
-                if (v2ChartsBin != null) {
-                    ArrayList<SmSeries> v2SmSeriesSeismicList = v2ChartsBin.getSmSeriesSeismicList();
-                    for (SmSeries smSeries : v2SmSeriesSeismicList) {
-                        String filePath = smSeries.getTag().toString();
-                        String fileType = SmCore.extractCosmosFileType(filePath);
-                    
-                        if (fileType.equalsIgnoreCase(SmGlobal.CosmosFileType.V2.toString())) {
-                            File v2File = new File(filePath);
-                            String v2Dir = v2File.getParent();
-                            
-                            String[] parts = v2Dir.split(Pattern.quote(File.separator));
-                            if (parts.length < 4 || !parts[parts.length-1].matches("V[1,2]")) {
-                                String msg = "File " + SmCore.extractFileName(filePath) +
-                                    " is in folder that does not comply with expected folder structure.";
-                                addToLogList(logList,"Invalid Folder Structure: " + msg);
-                                return;
-                            }
-
-                            // Form V1 directory path name.
-                            Path pathV2FilePath = v2File.toPath();
-                            Path v1Dir = Paths.get(pathV2FilePath.getParent().getParent().toString(),
-                                SmGlobal.CosmosFileType.V1.toString());
-
-                            if (!Files.isDirectory(v1Dir))
-                            {
-                                addToLogList(logList,"No matching V1 directory found for V2 file " + 
-                                    pathV2FilePath.toString());
-                                return;
-                            }
-
-                            // Build V1 filename string based on V2 file.
-                            String input = SmCore.extractFileName(filePath);
-                            String regExCosmosFileType = String.format("(?i)(^.+)([\\.](%s|%s|%s))([\\.](V[\\d][cC]?)$)",
-                                SmGlobal.CosmosV2DataType.ACC.toString(),
-                                SmGlobal.CosmosV2DataType.VEL.toString(),
-                                SmGlobal.CosmosV2DataType.DIS.toString());
-                            Pattern p = Pattern.compile(regExCosmosFileType);
-                            Matcher m = p.matcher(input);
-
-                            StringBuffer result = new StringBuffer();
-                            while (m.find()) {
-
-                                String fileName = m.group(1);
-                                String fileExt = m.group(5);
-
-                                String v1FileExt = fileExt.length() > 2 ? 
-                                    SmGlobal.CosmosFileType.V1.toString() + fileExt.substring(2) : 
-                                    SmGlobal.CosmosFileType.V1.toString();
-
-                                m.appendReplacement(result, fileName + "." + v1FileExt);
+                if (journal != null) {
+                    if (groupFailed) {
+                        journal.rollBack();
+                        openJournals.remove(journal);
+                        
+                        // The files that were written are not replaced either.
+                        for (V1FileCommit v1FileCommit : groupFileCommits) {
+                            if (v1FileCommit.getTargetFile() != null) {
+                                addToLogList(logList,FILE_FAILED_PREFIX + 
+                                    v1FileCommit.getV1FilePath() + " rolled back.");
+                                failedCnt++;
                             }
-                            String v1FileName = result.toString();
-
-                            // Create V1 File object.
-                            Path pathV1FilePath = Paths.get(v1Dir.toString(),v1FileName);
-                            if (Files.exists(pathV1FilePath) && Files.isRegularFile(pathV1FilePath)) {
-                                boolean processed = false;
-                                
-                                String v1FilePath = pathV1FilePath.toString();
-                                
-                                for (String processedV1FilePath : processedV1FilePaths) {
-                                    if (processedV1FilePath.equals(v1FilePath)) {
-                                        processed = true;
-                                        break;
-                                    }
-                                }
-                                
-                                if (!processed) {
-                                    
-                                    ArrayList<SmPoint> smPoints = smSeries.getSmPoints();
-                                    double accArr[] = new double[smPoints.size()];
-
-                                    for (int i=0; i < smPoints.size(); i++) {
-                                        accArr[i] = smPoints.get(i).getY();
-                                    }
-                                    
-                                    addToLogList(logList,"Processing file " + v1FilePath + " ...");
-                                
-                                    if (createV1File(v1FilePath, startDateTime, accArr, logList, trashDir)) {
-                                        processedV1FilePaths.add(v1FilePath);
-                                    }
-                                    else {
-                                        addToLogList(logList,"Processing of file " + v1FilePath + " failed.");
-                                    }
-                                    
-                                    addToLogList(logList,"");
-                                }
+                        }
+                        
+                        addToLogList(logList,"Commit of group " + groupName + 
+                            " rolled back. No files were replaced.");
+                    }
+                    else {
+                        ArrayList<String> commitLogList = new ArrayList<>();
+                        int writtenCnt = 0;
+                        
+                        for (V1FileCommit v1FileCommit : groupFileCommits) {
+                            if (v1FileCommit.getTargetFile() != null) {
+                                writtenCnt++;
+                                journal.addMove(SmCommitJournal.getTempFile(
+                                    new File(v1FileCommit.getV1FilePath())),
+                                    v1FileCommit.getTargetFile(), v1FileCommit.getTrashFile());
                             }
                         }
+                        
+                        // A journal whose commit is interrupted is kept, so that
+                        // the commit is completed by the next recovery.
+                        openJournals.remove(journal);
+                        
+                        try {
+                            journal.commit(commitLogList);
+                        }
+                        catch (IOException ex) {
+                            commitLogList.add("Error: Commit of group " + groupName + 
+                                " interrupted: " + ex.getMessage() + 
+                                ". It will be completed by the next commit or restart.");
+                            failedCnt += writtenCnt;
+                        }
+                        
+                        for (String msg : commitLogList)
+                            addToLogList(logList,msg);
                     }
+                    
+                    addToLogList(logList,"");
                 }
                 
-                addToLogList(logList,"Processing for group " + vXChartsBinGroup.getGroupName() + " completed.");
+                addToLogList(logList,"Processing for group " + groupName + " completed.");
                 addToLogList(logList,"");
             }
-            
-            // Update plots in the main interface.
-            SmCore.updateSmGraphingTool();
-            
-            // Update plots in trim tool.
-            runGraphs();
-
-            addToLogList(logList,"Trim tool commit processing ended at " + timer.getGMTdateTime());
-            logList.add("");
-            
-            // Write to log file.
-            if (!logsDir.isEmpty()) {
-                StringBuilder fileName = new StringBuilder();
-                String[] segments = SmGlobal.TRIM_LOG_FILE.split("\\.");
-                String fileTime = timerStart.replace("-","_").replace(" ", "_").replace(":","_");
-                fileName.append(segments[0]).append("_").append(fileTime).
-                    append(".").append(segments[1]);
-                File logFile = Paths.get(logsDir,eventNodes.get(0).toString(),
-                    fileName.toString()).toFile();
-                
-                SmUtils.writeToFile(logList,logFile);
-            }
-            
+        }
+        finally {
+            for (SmCommitJournal journal : openJournals)
+                journal.rollBack();
+        }
+        
+        return failedCnt;
+    }
+    
+    private void writeLogFile(ArrayList<String> logList, String logsDir, String timerStart) 
+        throws IOException {
+        StringBuilder fileName = new StringBuilder();
+        String[] segments = SmGlobal.TRIM_LOG_FILE.split("\\.");
+        String fileTime = timerStart.replace("-","_").replace(" ", "_").replace(":","_");
+        fileName.append(segments[0]).append("_").append(fileTime).
+            append(".").append(segments[1]);
+        File logFile = Paths.get(logsDir,eventNodes.get(0).toString(),
+            fileName.toString()).toFile();
+
+        SmUtils.writeToFile(logList,logFile);
+    }
+    
+    private void showCommitCompleted(int fileCnt, int failedCnt) {
+        if (failedCnt == 0) {
             JOptionPane.showMessageDialog(this, "Processing completed.",
                 "Done", JOptionPane.PLAIN_MESSAGE);
         }
-        catch (Exception ex) {
-            showMessage("Error",ex.getMessage(),
+        else {
+            showMessage("Error", "Processing completed. " + failedCnt + " of " + 
+                fileCnt + " files failed; see the status viewer for details.",
                 NotifyDescriptor.DEFAULT_OPTION,NotifyDescriptor.ERROR_MESSAGE);
-            SmCore.addMsgToStatusViewer("Error: " + ex.getMessage());
-        } 
+        }
     }
     
-    private void addToLogList(ArrayList<String> logList, String msg) {
+    private void addToLogList(ArrayList<String> logList, final String msg) {
         logList.add(msg);
-        SmCore.addMsgToStatusViewer(msg);
+        
+        // Commits are logged from a background task; the status viewer is
+        // updated on the event dispatch thread.
+        if (SwingUtilities.isEventDispatchThread()) {
+            SmCore.addMsgToStatusViewer(msg);
+        }
+        else {
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    SmCore.addMsgToStatusViewer(msg);
+                }
+            });
+        }
     }
     
     private void addSmChartMouseListeners() {
@@ -2130,9 +2415,11 @@ public class SmTrimTool extends javax.swing.JFrame {
          * selected. One bin is used to store charts of V1 data, while the other stores
          * charts of V2 data.
          * @return null if process completed successfully.
+         * @throws ExecutionException if the charts of a group cannot be created,
+         * reported by done.
          */
         @Override
-        public Integer doInBackground()
+        public Integer doInBackground() throws ExecutionException
         {
             try
             {  
@@ -2192,9 +2479,10 @@ public class SmTrimTool extends javax.swing.JFrame {
                         filePaths.addAll(v1FilePaths);
                         filePaths.addAll(v2FilePaths);
                         
-                        DateTime earliestStartTime = SmUtils.getEarliestStartTime(filePaths);
-                        DateTime latestStopTime = SmUtils.getLatestStopTime(filePaths);
-                        double minDeltaT = SmUtils.getMinimumDeltaT(filePaths);
+                        SmStationExtent extent = SmStationExtent.getSmStationExtent(filePaths);
+                        DateTime earliestStartTime = extent.getEarliestStartTime();
+                        DateTime latestStopTime = extent.getLatestStopTime();
+                        double minDeltaT = extent.getMinDeltaT();
                         
                         V1ChartsBin v1ChartsBin = !v1FilePaths.isEmpty() ? 
                             new V1ChartsBin(chartAPI,v1FilePaths,earliestStartTime,
@@ -2216,9 +2504,12 @@ public class SmTrimTool extends javax.swing.JFrame {
                         else if (!v2FilePaths.isEmpty())
                             filePath = new File(v2FilePaths.get(0));
                          
-                        if (filePath != null) {
-                            SmFile smFile = new SmFile(filePath);
-                            SmRec smRec = smFile.getSmRecs().get(0);
+                        // The headers are null if the file could not be read by either reader.
+                        ArrayList<SmRecHeader> smRecHeaders = (filePath != null) ?
+                            SmFileCache.getSmFileHeader(filePath).getSmRecHeaders() : null;
+                         
+                        if (smRecHeaders != null && !smRecHeaders.isEmpty()) {
+                            SmRecHeader smRec = smRecHeaders.get(0);
                             
                             sbStationDesc.append(smRec.getNetworkCode()).append(".").append(smRec.getStationCode());
                             if (!smRec.getStationName().isEmpty())
@@ -2247,6 +2538,10 @@ public class SmTrimTool extends javax.swing.JFrame {
                     }
                 }
             } 
+            catch (ExecutionException ex)
+            {
+                throw ex;
+            }
             catch (Exception ex) 
             {
                 showMessage("Error",ex.getMessage(),
@@ -2269,6 +2564,15 @@ public class SmTrimTool extends javax.swing.JFrame {
          */
         @Override
         public void done() {
+            try {
+                get();
+            }
+            catch (ExecutionException ex) {
+                SmCore.showErrorMessage(ex);
+            }
+            catch (InterruptedException | CancellationException ex) {
+            }
+            
             try {
                 // Add SmChartMouseListener to each chart.
                 addSmChartMouseListeners();
@@ -2289,6 +2593,189 @@ public class SmTrimTool extends javax.swing.JFrame {
         }
     }
     
+    /**
+     * Class that extends the SwingWorker class to create the trim proposals of
+     * auto trim all as a background task. Cancelling the progress handle
+     * cancels the task, which cancels the remaining proposals.
+     */
+    private class TrimProposalsTask extends SwingWorker<ArrayList<TrimProposal>, Integer> 
+        implements Cancellable {
+        
+        private final ProgressHandle handle = 
+            ProgressHandle.createHandle("Creating Trim Proposals ...", this);
+        
+        /**
+         * Creates a trim proposal for every TraceSet.
+         * @return list of TrimProposal objects, in the order of the trace sets
+         * @throws InterruptedException if the task is cancelled
+         * @throws ExecutionException if creating a proposal fails, reported by
+         * done.
+         */
+        @Override
+        public ArrayList<TrimProposal> doInBackground() 
+            throws InterruptedException, ExecutionException {
+            
+            handle.start();
+            
+            return createTrimProposals();
+        }
+        
+        /**
+         * Shows the trim proposals for review and commits the accepted ones.
+         */
+        @Override
+        public void done() {
+            ArrayList<TrimProposal> trimProposals;
+            
+            try {
+                trimProposals = get();
+            }
+            catch (ExecutionException ex) {
+                SmCore.showErrorMessage(ex);
+                return;
+            }
+            catch (InterruptedException | CancellationException ex) {
+                SmCore.addMsgToStatusViewer("Auto trim all cancelled.");
+                return;
+            }
+            finally {
+                handle.finish();
+                setCursor(Cursor.getPredefinedCursor(Cursor.DEFAULT_CURSOR));
+            }
+            
+            commitTrimProposals(trimProposals);
+        }
+        
+        @Override
+        public boolean cancel() {
+            return cancel(true);
+        }
+    }
+    
+    /**
+     * Class that extends the SwingWorker class to write out replacement V1 
+     * files as a background task. Cancelling the progress handle stops the
+     * files that have not been started from being written, so that their
+     * groups are rolled back. The task is not interrupted, so that files
+     * being written and groups being committed are completed, and the plots 
+     * are updated once the task has finished.
+     */
+    private class CommitTask extends SwingWorker<Integer, Integer> implements Cancellable {
+        private final String processName;
+        private final List<V1FileCommit> v1FileCommits;
+        private final List<String> groupLogList;
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private final ProgressHandle handle;
+        
+        /**
+         * Class constructor.
+         * @param processName name of the commit process used in the log
+         * @param v1FileCommits list of replacement V1 files
+         * @param groupLogList log entries from collecting the replacement files
+         */
+        public CommitTask(final String processName, final List<V1FileCommit> v1FileCommits,
+            final List<String> groupLogList) {
+            
+            this.processName = processName;
+            this.v1FileCommits = v1FileCommits;
+            this.groupLogList = groupLogList;
+            this.handle = ProgressHandle.createHandle("Committing V1 Files ...", this);
+        }
+        
+        /**
+         * Writes out the replacement V1 files and the log file of the commit.
+         * @return number of files that failed to be written
+         * @throws InterruptedException if the calling thread is interrupted
+         * @throws ExecutionException if writing a file fails unexpectedly, 
+         * reported by done.
+         * @throws IOException if the log file cannot be written, reported by
+         * done.
+         */
+        @Override
+        public Integer doInBackground() 
+            throws InterruptedException, ExecutionException, IOException {
+            
+            handle.start();
+            
+            String logsDir = SmPreferences.General.getLogsDir();
+            String trashDir = SmPreferences.General.getTrashDir();
+            
+            SmTimeFormatter timer = new SmTimeFormatter();
+            String timerStart = timer.getGMTdateTime();
+
+            ArrayList<String> logList = new ArrayList<>();
+
+            addToLogList(logList,processName + " processing started at " + timerStart);
+            addToLogList(logList,"");
+            
+            // Complete or roll back any earlier commit that was interrupted.
+            for (String msg : SmCommitJournal.recoverAll())
+                addToLogList(logList,msg);
+            
+            for (String msg : groupLogList)
+                addToLogList(logList,msg);
+            
+            // Write out replacement V1 files.
+            int failedCnt = writeV1Files(v1FileCommits, logList, trashDir, cancelled);
+            
+            if (cancelled.get()) {
+                addToLogList(logList,processName + " cancelled.");
+                addToLogList(logList,"");
+            }
+            
+            addToLogList(logList,processName + " processing ended at " + timer.getGMTdateTime());
+            logList.add("");
+
+            // Write to log file.
+            if (!logsDir.isEmpty())
+                writeLogFile(logList, logsDir, timerStart);
+            
+            return failedCnt;
+        }
+        
+        /**
+         * Updates the plots in the main interface and in the trim tool, and
+         * reports the outcome of the commit.
+         */
+        @Override
+        public void done() {
+            Integer failedCnt = null;
+            
+            try {
+                failedCnt = get();
+            }
+            catch (ExecutionException ex) {
+                SmCore.showErrorMessage(ex);
+            }
+            catch (InterruptedException | CancellationException ex) {
+            }
+            finally {
+                handle.finish();
+                setCursor(Cursor.getPredefinedCursor(Cursor.DEFAULT_CURSOR));
+            }
+            
+            try {
+                // Update plots in the main interface.
+                SmCore.updateSmGraphingTool();
+
+                // Update plots in trim tool.
+                runGraphs();
+            }
+            catch (Exception ex) {
+                SmCore.addMsgToStatusViewer("Error: " + ex.getMessage());
+            }
+            
+            if (failedCnt != null)
+                showCommitCompleted(v1FileCommits.size(), failedCnt);
+        }
+        
+        @Override
+        public boolean cancel() {
+            cancelled.set(true);
+            return true;
+        }
+    }
+    
     private class TraceSet {
         
         private VxChartsBinGroup vXChartsBinGroup;
@@ -2299,6 +2786,11 @@ public class SmTrimTool extends javax.swing.JFrame {
         private double curTrimmedStartTime = -1;
         private double curTrimmedStopTime = -1;
         private int curTraceIndx = -1;
+        
+        // Untrimmed series of the charts bins, from which trimmed views are
+        // created. Set on the first trim and cleared on reset.
+        private ArrayList<SmSeries> v1SmSeriesSeismicList;
+        private ArrayList<SmSeries> v2SmSeriesSeismicList;
     
         private TraceSet(VxChartsBinGroup vXChartsBinGroup, DateTime startDateTime,
             DateTime stopDateTime) {
@@ -2318,7 +2810,23 @@ public class SmTrimTool extends javax.swing.JFrame {
         private double getCurTrimmedStopTime() {return this.curTrimmedStopTime;}
         private int getCurTraceIndx() {return this.curTraceIndx;}
         
-        private void setVxChartsBinGroup(VxChartsBinGroup vXChartsBinGroup) {this.vXChartsBinGroup = vXChartsBinGroup;}
+        private ArrayList<SmSeries> getV1SmSeriesSeismicList() {
+            if (v1SmSeriesSeismicList == null)
+                v1SmSeriesSeismicList = new ArrayList<>(vXChartsBinGroup.getV1ChartsBin().getSmSeriesSeismicList());
+            return this.v1SmSeriesSeismicList;
+        }
+        
+        private ArrayList<SmSeries> getV2SmSeriesSeismicList() {
+            if (v2SmSeriesSeismicList == null)
+                v2SmSeriesSeismicList = new ArrayList<>(vXChartsBinGroup.getV2ChartsBin().getSmSeriesSeismicList());
+            return this.v2SmSeriesSeismicList;
+        }
+        
+        private void setVxChartsBinGroup(VxChartsBinGroup vXChartsBinGroup) {
+            this.vXChartsBinGroup = vXChartsBinGroup;
+            this.v1SmSeriesSeismicList = null;
+            this.v2SmSeriesSeismicList = null;
+        }
         private void setCurStartDateTime(DateTime startDateTime) {this.curStartDateTime = startDateTime;}
         private void setCurStopDateTime(DateTime stopDateTime) {this.curStopDateTime = stopDateTime;}
         private void setCurTrimmedStartTime(double trimmedStartTime) {this.curTrimmedStartTime = trimmedStartTime;}
@@ -2379,6 +2887,10 @@ public class SmTrimTool extends javax.swing.JFrame {
             curTrimmedStartTime = -1;
             curTrimmedStopTime = -1;
             
+            // Clear the untrimmed series, which the charts bins recreate.
+            v1SmSeriesSeismicList = null;
+            v2SmSeriesSeismicList = null;
+            
             // Reset the V1 and V2 charts bin objects.
             V1ChartsBin v1ChartsBin = vXChartsBinGroup.getV1ChartsBin();
             V2ChartsBin v2ChartsBin = vXChartsBinGroup.getV2ChartsBin();
@@ -2391,6 +2903,162 @@ public class SmTrimTool extends javax.swing.JFrame {
         }
     }
     
+    /**
+     * A replacement V1 file, created from a trimmed series.
+     */
+    private static class V1FileCommit {
+        
+        private final String groupName;
+        private final String v1FilePath;
+        private final String sourceFilePath;    //file of the trimmed series
+        private final DateTime startDateTime;
+        private final SmTrace smTrace;
+        private File targetFile = null;     //set once the replacement file is written
+        private File trashFile = null;
+        
+        private V1FileCommit(String groupName, String v1FilePath, String sourceFilePath,
+            DateTime startDateTime, SmTrace smTrace) {
+            this.groupName = groupName;
+            this.v1FilePath = v1FilePath;
+            this.sourceFilePath = sourceFilePath;
+            this.startDateTime = startDateTime;
+            this.smTrace = smTrace;
+        }
+        
+        private String getGroupName() {return this.groupName;}
+        private String getV1FilePath() {return this.v1FilePath;}
+        private String getSourceFilePath() {return this.sourceFilePath;}
+        private DateTime getStartDateTime() {return this.startDateTime;}
+        private SmTrace getSmTrace() {return this.smTrace;}
+        private File getTargetFile() {return this.targetFile;}
+        private File getTrashFile() {return this.trashFile;}
+        
+        private void setReplacedFiles(File targetFile, File trashFile) {
+            this.targetFile = targetFile;
+            this.trashFile = trashFile;
+        }
+    }
+    
+    /**
+     * The proposed auto trim of a TraceSet.
+     */
+    private static class TrimProposal {
+        
+        private final String groupName;
+        private final double startTimeSec;
+        private final double stopTimeSec;
+        private final ArrayList<V1FileCommit> v1FileCommits;
+        private final long samplesLost;
+        private final ArrayList<String> logList;
+        private final String note;
+        private boolean accepted;
+        
+        private TrimProposal(String groupName, double startTimeSec, double stopTimeSec,
+            ArrayList<V1FileCommit> v1FileCommits, long samplesLost, 
+            ArrayList<String> logList, String note) {
+            this.groupName = groupName;
+            this.startTimeSec = startTimeSec;
+            this.stopTimeSec = stopTimeSec;
+            this.v1FileCommits = v1FileCommits;
+            this.samplesLost = samplesLost;
+            this.logList = logList;
+            this.note = note;
+            this.accepted = !v1FileCommits.isEmpty() && samplesLost > 0;
+        }
+        
+        private String getGroupName() {return this.groupName;}
+        private double getStartTimeSec() {return this.startTimeSec;}
+        private double getStopTimeSec() {return this.stopTimeSec;}
+        private ArrayList<V1FileCommit> getV1FileCommits() {return this.v1FileCommits;}
+        private long getSamplesLost() {return this.samplesLost;}
+        private ArrayList<String> getLogList() {return this.logList;}
+        private String getNote() {return this.note;}
+        private boolean isAccepted() {return this.accepted;}
+        
+        private void setAccepted(boolean accepted) {this.accepted = accepted;}
+    }
+    
+    private static class TrimProposalsTableModel extends AbstractTableModel {
+        private final String[] columnNames = {"Commit","Trace Set","Start Time (sec)",
+            "Stop Time (sec)","V1 Files","Samples Lost","Note"};
+        private final Class[] columnClasses = {Boolean.class,String.class,Double.class,
+            Double.class,Integer.class,Long.class,String.class};
+        private final ArrayList<TrimProposal> data;
+        
+        private TrimProposalsTableModel(ArrayList<TrimProposal> data) {
+            this.data = data;
+        }
+        
+        @Override
+        public int getColumnCount() {
+            return columnNames.length;
+        }
+        
+        @Override
+        public int getRowCount() {
+            return data.size();
+        }
+        
+        @Override
+        public String getColumnName(int col) {
+            return columnNames[col];
+        }
+        
+        @Override
+        public Object getValueAt(int row, int col) {
+            TrimProposal trimProposal = data.get(row);
+            
+            switch (col) {
+                case 0:
+                    return trimProposal.isAccepted();
+                case 1:
+                    return trimProposal.getGroupName();
+                case 2:
+                    return trimProposal.getStartTimeSec();
+                case 3:
+                    return trimProposal.getStopTimeSec();
+                case 4:
+                    return trimProposal.getV1FileCommits().size();
+                case 5:
+                    return trimProposal.getSamplesLost();
+                case 6:
+                    return trimProposal.getNote();
+                default:
+                    return null;
+            }
+        }
+        
+        @Override
+        public Class getColumnClass(int c) {
+            return columnClasses[c];
+        }
+        
+        @Override
+        public boolean isCellEditable(int row, int col) {
+            // Commit column is editable for trace sets with files to replace.
+            return (col == 0) && !data.get(row).getV1FileCommits().isEmpty();
+        }
+        
+        @Override
+        public void setValueAt(Object value, int row, int col) {
+            if (col == 0)
+                data.get(row).setAccepted((Boolean)value);
+        
+            fireTableCellUpdated(row,col);
+        }
+        
+        private int getAcceptedCount() {
+            int count = 0;
+            
+            for (TrimProposal trimProposal : data) {
+                if (trimProposal.isAccepted())
+                    count++;
+            }
+            
+            return count;
+        }
+    }
+    
     /**
      * This method is called from within the constructor to initialize the form.
      * WARNING: Do NOT modify this code. The content of this method is always
@@ -2412,6 +3080,7 @@ public class SmTrimTool extends javax.swing.JFrame {
         btnStartTime = new javax.swing.JButton();
         btnStopTime = new javax.swing.JButton();
         btnAutoSync = new javax.swing.JButton();
+        btnAutoSyncAll = new javax.swing.JButton();
         btnTrim = new javax.swing.JButton();
         btnReset = new javax.swing.JButton();
         btnResetAll = new javax.swing.JButton();
@@ -2538,6 +3207,17 @@ public class SmTrimTool extends javax.swing.JFrame {
         });
         jToolBar1.add(btnAutoSync);
 
+        btnAutoSyncAll.setIcon(new javax.swing.ImageIcon(getClass().getResource("/resources/icons/trim_auto_16.png"))); // NOI18N
+        org.openide.awt.Mnemonics.setLocalizedText(btnAutoSyncAll, org.openide.util.NbBundle.getMessage(SmTrimTool.class, "SmTrimTool.btnAutoSyncAll.text")); // NOI18N
+        btnAutoSyncAll.setToolTipText(org.openide.util.NbBundle.getMessage(SmTrimTool.class, "SmTrimTool.btnAutoSyncAll.toolTipText")); // NOI18N
+        btnAutoSyncAll.setFocusable(false);
+        btnAutoSyncAll.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                btnAutoSyncAllActionPerformed(evt);
+            }
+        });
+        jToolBar1.add(btnAutoSyncAll);
+
         btnTrim.setIcon(new javax.swing.ImageIcon(getClass().getResource("/resources/icons/trim_manual_16.png"))); // NOI18N
         org.openide.awt.Mnemonics.setLocalizedText(btnTrim, org.openide.util.NbBundle.getMessage(SmTrimTool.class, "SmTrimTool.btnTrim.text")); // NOI18N
         btnTrim.setToolTipText(org.openide.util.NbBundle.getMessage(SmTrimTool.class, "SmTrimTool.btnTrim.toolTipText")); // NOI18N
@@ -2884,6 +3564,10 @@ public class SmTrimTool extends javax.swing.JFrame {
         autoTrim();
     }//GEN-LAST:event_btnAutoSyncActionPerformed
 
+    private void btnAutoSyncAllActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnAutoSyncAllActionPerformed
+        autoTrimAll();
+    }//GEN-LAST:event_btnAutoSyncAllActionPerformed
+
     private void btnResetActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnResetActionPerformed
         reset();
     }//GEN-LAST:event_btnResetActionPerformed
@@ -2913,6 +3597,7 @@ public class SmTrimTool extends javax.swing.JFrame {
     private javax.swing.JButton btnAcceleration;
     private javax.swing.JButton btnAll;
     private javax.swing.JButton btnAutoSync;
+    private javax.swing.JButton btnAutoSyncAll;
     private javax.swing.JButton btnAutoSync2;
     private javax.swing.JButton btnCommit;
     private javax.swing.JButton btnCommit2;
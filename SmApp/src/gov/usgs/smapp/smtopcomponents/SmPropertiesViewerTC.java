@@ -14,9 +14,6 @@
 
 package gov.usgs.smapp.smtopcomponents;
 
-import COSMOSformat.COSMOScontentFormat;
-import COSMOSformat.V1Component;
-import COSMOSformat.V2Component;
 import static SmConstants.VFileConstants.AVG_VAL;
 import static SmConstants.VFileConstants.CORACC;
 import static SmConstants.VFileConstants.DATA_PHYSICAL_PARAM_CODE;
@@ -27,12 +24,11 @@ import static SmConstants.VFileConstants.MSEC_TO_SEC;
 import static SmConstants.VFileConstants.UNCORACC;
 import static SmConstants.VFileConstants.VELOCITY;
 import static SmConstants.VFileConstants.V_UNITS_INDEX;
-import SmControl.SmQueue;
-import SmUtilities.SmTimeFormatter;
 import gov.usgs.smapp.SmCore;
+import gov.usgs.smcommon.smclasses.SmFileHeader;
 import gov.usgs.smcommon.smclasses.SmGlobal;
-import gov.usgs.smcommon.smclasses.SmPreferences;
 import gov.usgs.smcommon.smclasses.SmProperty;
+import gov.usgs.smcommon.smclasses.SmRecHeader;
 import static gov.usgs.smcommon.smutilities.NetBeansUtils.showMessage;
 import java.awt.Color;
 import java.awt.Component;
@@ -132,45 +128,41 @@ public final class SmPropertiesViewerTC extends TopComponent
     {
         try 
         {
-            SmTimeFormatter timer = new SmTimeFormatter();
-            String logTime = timer.getGMTdateTime();
-            String logDir = SmPreferences.General.getLogsDir();
-
-            SmQueue queue = new SmQueue(file,logTime,new File(logDir));
-            queue.readInFile(file);
-            
             String fileName = file.getName();
             String fileType = SmCore.extractCosmosFileType(fileName);
-            
-            int recCnt = 0;
+            String fileDataType = null;
             
             if (fileType.equalsIgnoreCase(SmGlobal.CosmosFileType.V1.toString())) {
-                recCnt = queue.parseVFile(UNCORACC);
+                fileDataType = UNCORACC;
             }
             else if (fileType.equalsIgnoreCase(SmGlobal.CosmosFileType.V2.toString()))
             {
                 String v2DataType = SmCore.extractCosmosV2DataType(fileName);
                 
                 if (v2DataType.equalsIgnoreCase(SmGlobal.CosmosV2DataType.ACC.toString()))
-                    recCnt = queue.parseVFile(CORACC);
+                    fileDataType = CORACC;
                 else if (v2DataType.equalsIgnoreCase(SmGlobal.CosmosV2DataType.VEL.toString()))
-                    recCnt = queue.parseVFile(VELOCITY);
+                    fileDataType = VELOCITY;
                 else if (v2DataType.equalsIgnoreCase(SmGlobal.CosmosV2DataType.DIS.toString()))
-                    recCnt = queue.parseVFile(DISPLACE);
+                    fileDataType = DISPLACE;
             }
             else {
                 SmCore.addMsgToStatusViewer("Error - could not determine COSMOS file type.");
                 return;
             }
             
-            ArrayList<COSMOScontentFormat> smlist = queue.getSmList();
+            // Only header values are displayed, so skip reading the data.
+            ArrayList<SmRecHeader> smlist = (fileDataType != null) ?
+                SmFileHeader.readSmRecHeaders(file,fileDataType,Integer.MAX_VALUE) :
+                new ArrayList<SmRecHeader>();
+            int recCnt = smlist.size();
             
             ArrayList<SmProperty> properties = new ArrayList<>();
             properties.add(new SmProperty("File Name", fileName));
             properties.add(new SmProperty("Record Count", String.valueOf(recCnt)));
 
             int recNum = 0;
-            for (COSMOScontentFormat rec : smlist) {
+            for (SmRecHeader rec : smlist) {
 
                 String[] textHeaders = rec.getTextHeader();
                 String eventName = textHeaders[1].substring(0, 40).
@@ -220,18 +212,7 @@ public final class SmPropertiesViewerTC extends TopComponent
                 double maxValTime = rec.getRealHeaderValue(64);
                 double avgVal = rec.getRealHeaderValue(AVG_VAL);
                 
-                int pointCnt = 0;
-                
-                if (fileType.equalsIgnoreCase(SmGlobal.CosmosFileType.V1.toString()))
-                {
-                    V1Component v1Rec = (V1Component) rec;
-                    pointCnt = v1Rec.getDataLength();
-                }
-                else if (fileType.equalsIgnoreCase(SmGlobal.CosmosFileType.V2.toString()))
-                {
-                    V2Component v2Rec = (V2Component) rec;
-                    pointCnt = v2Rec.getDataLength();
-                }
+                int pointCnt = rec.getDataLength();
                 
                 properties.add(new SmProperty(String.format("Record Number"), String.valueOf(++recNum)));
                 properties.add(new SmProperty("    Event Name", String.valueOf(eventName)));
@@ -0,0 +1,352 @@
+/*******************************************************************************
+ * Name: Java class SmCommitJournal.java
+ * Project: PRISM Review Tool
+ * Written by: Peter Ng, USGS, png@usgs.gov
+ * 
+ * This software is in the public domain because it contains materials that 
+ * originally came from the United States Geological Survey, an agency of the 
+ * United States Department of Interior. For more information, see the official 
+ * USGS copyright policy at 
+ * http://www.usgs.gov/visual-id/credit_usgs.html#copyright
+ * 
+ * Date: first release date Feb. 2015
+ ******************************************************************************/
+
+package gov.usgs.smcommon.smclasses;
+
+import gov.usgs.smcommon.smutilities.SmUtils;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class defines a journal that makes the replacement of a set of files
+ * crash-safe. The new contents of the files are first written to temp files,
+ * next to the files they replace, and forced to disk. The journal lists the
+ * temp files before any of them is written and, once all of them are on disk,
+ * the renames that replace the files, followed by a commit marker. The files
+ * are then moved to the trash and replaced by their temp files with atomic
+ * renames, and the journal is deleted.
+ * <p>
+ * A journal left behind by an interrupted commit is recovered by recoverAll:
+ * a committed journal is rolled forward by completing its renames, and any
+ * other journal is rolled back by deleting its temp files, so that either
+ * all or none of the files of a set are replaced. Journals are kept in a
+ * directory next to the logs directory.
+ * @author png
+ */
+public class SmCommitJournal {
+
+    private static final String JOURNAL_DIR_NAME = "journal";
+    private static final String JOURNAL_FILE_EXT = ".jnl";
+    private static final String TEMP_FILE_EXT = ".commit.tmp";
+    private static final String HEADER = "PRISM commit journal 1";
+    private static final String TEMP = "TEMP";
+    private static final String MOVE = "MOVE";
+    private static final String COMMITTED = "COMMITTED";
+    private static final String SEPARATOR = "\t";
+    private static final Charset CHARSET = StandardCharsets.UTF_8;
+
+    private final File journalFile;
+    private final ArrayList<File> tempFiles;
+    private final ArrayList<Move> moves = new ArrayList<>();
+
+    private SmCommitJournal(File journalFile, List<File> tempFiles)
+    {
+        this.journalFile = journalFile;
+        this.tempFiles = new ArrayList<>(tempFiles);
+    }
+
+    /**
+     * Creates a journal for a set of file replacements and writes the list of
+     * its temp files to disk. The temp files may be written once the journal
+     * has been created.
+     * @param name name of the set of files, used in log entries
+     * @param tempFiles temp files of the set, as returned by getTempFile
+     * @return SmCommitJournal object
+     * @throws IOException if the journal cannot be written
+     */
+    public static SmCommitJournal begin(String name, List<File> tempFiles) throws IOException
+    {
+        File journalDir = getJournalDir();
+
+        if (!journalDir.isDirectory() && !journalDir.mkdirs())
+            throw new IOException("Unable to create journal directory " + journalDir.getPath());
+
+        File journalFile = File.createTempFile("commit", JOURNAL_FILE_EXT, journalDir);
+
+        ArrayList<String> lines = new ArrayList<>();
+        lines.add(HEADER);
+        lines.add(name);
+        for (File tempFile : tempFiles)
+            lines.add(TEMP + SEPARATOR + tempFile.getPath());
+
+        writeFile(journalFile, lines, false);
+        forceDirectory(journalDir);
+
+        return new SmCommitJournal(journalFile, tempFiles);
+    }
+
+    /**
+     * Gets the temp file to which the new contents of a file are written. The
+     * temp file is in the same directory as the file, so that it can replace
+     * the file with an atomic rename.
+     * @param file file to be replaced
+     * @return File object of the temp file
+     */
+    public static File getTempFile(File file)
+    {
+        return new File(file.getPath() + TEMP_FILE_EXT);
+    }
+
+    /**
+     * Checks whether a file is a temp file of a commit
+     * @param file File object
+     * @return true if the file is a commit temp file
+     */
+    public static boolean isTempFile(File file)
+    {
+        return file.getName().endsWith(TEMP_FILE_EXT);
+    }
+
+    /**
+     * Writes lines of text to a file in UTF-8 and forces the file to disk.
+     * The file is created or truncated.
+     * @param file file to write
+     * @param lines lines of text
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeFile(File file, List<String> lines) throws IOException
+    {
+        writeFile(file, lines, false);
+    }
+
+    /**
+     * Adds a rename to the journal. The target file, if it exists, is moved
+     * to the trash file and the temp file is then renamed to the target file.
+     * @param tempFile temp file with the new contents, listed in begin
+     * @param targetFile file to be replaced
+     * @param trashFile trash location of the replaced file, or an empty path
+     * if the replaced file is not kept
+     */
+    public void addMove(File tempFile, File targetFile, File trashFile)
+    {
+        moves.add(new Move(tempFile, targetFile, trashFile));
+    }
+
+    /**
+     * Commits the journal. The renames are written to the journal along with
+     * the commit marker, then carried out, and the journal is deleted. If a
+     * rename fails, the journal is kept, so that the commit is completed by
+     * the next recovery.
+     * @param logList array for storing log entries
+     * @throws IOException if the journal cannot be written or a rename fails
+     */
+    public void commit(List<String> logList) throws IOException
+    {
+        ArrayList<String> lines = new ArrayList<>();
+        for (Move move : moves) {
+            lines.add(MOVE + SEPARATOR + move.getTempFile().getPath() + SEPARATOR +
+                move.getTargetFile().getPath() + SEPARATOR + move.getTrashFile().getPath());
+        }
+        lines.add(COMMITTED);
+
+        writeFile(journalFile, lines, true);
+
+        rollForward(moves, logList);
+
+        deleteJournal();
+    }
+
+    /**
+     * Rolls back the journal by deleting its temp files and the journal.
+     * None of the files of the set is replaced.
+     */
+    public void rollBack()
+    {
+        for (File tempFile : tempFiles)
+            tempFile.delete();
+
+        deleteJournal();
+    }
+
+    /**
+     * Recovers the journals left behind by interrupted commits. Committed
+     * journals are rolled forward and all others are rolled back.
+     * @return log entries describing the recovered journals
+     */
+    public static ArrayList<String> recoverAll()
+    {
+        ArrayList<String> logList = new ArrayList<>();
+        File[] journalFiles = getJournalDir().listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                return file.isFile() && file.getName().endsWith(JOURNAL_FILE_EXT);
+            }
+        });
+
+        if (journalFiles == null)
+            return logList;
+
+        Arrays.sort(journalFiles);
+
+        for (File journalFile : journalFiles) {
+            try {
+                recover(journalFile, logList);
+            }
+            catch (IOException ex) {
+                logList.add("Error: Recovery of commit journal " + journalFile.getPath() +
+                    " failed: " + ex.getMessage());
+            }
+        }
+
+        return logList;
+    }
+
+    /**
+     * Gets the journal directory, which is next to the logs directory or, if
+     * the logs directory is not set, in the temp directory.
+     * @return journal directory
+     */
+    public static File getJournalDir()
+    {
+        String logsDir = SmPreferences.General.getLogsDir();
+        File parentDir = logsDir.isEmpty() ? null :
+            new File(logsDir).getAbsoluteFile().getParentFile();
+
+        return (parentDir != null) ? new File(parentDir, JOURNAL_DIR_NAME) :
+            new File(System.getProperty("java.io.tmpdir"), "prism_" + JOURNAL_DIR_NAME);
+    }
+
+    private static void recover(File journalFile, List<String> logList) throws IOException
+    {
+        List<String> lines = Files.readAllLines(journalFile.toPath(), CHARSET);
+
+        String name = (lines.size() > 1 && lines.get(0).equals(HEADER)) ?
+            lines.get(1) : journalFile.getName();
+        boolean committed = !lines.isEmpty() && lines.get(lines.size()-1).equals(COMMITTED);
+
+        ArrayList<File> tempFiles = new ArrayList<>();
+        ArrayList<Move> moves = new ArrayList<>();
+
+        for (String line : lines) {
+            String[] fields = line.split(SEPARATOR, -1);
+
+            if (fields[0].equals(TEMP) && fields.length == 2)
+                tempFiles.add(new File(fields[1]));
+            else if (fields[0].equals(MOVE) && fields.length == 4)
+                moves.add(new Move(new File(fields[1]), new File(fields[2]), new File(fields[3])));
+        }
+
+        if (committed) {
+            logList.add("Rolling forward interrupted commit " + name + " ...");
+            rollForward(moves, logList);
+        }
+        else {
+            logList.add("Rolling back interrupted commit " + name + " ...");
+            for (File tempFile : tempFiles) {
+                if (tempFile.delete())
+                    logList.add("Temp file " + tempFile.getPath() + " deleted.");
+            }
+        }
+
+        Files.deleteIfExists(journalFile.toPath());
+    }
+
+    // Carries out the renames of a committed journal. A rename whose temp file
+    // no longer exists has already been carried out, so rolling forward may be
+    // repeated after a crash.
+    private static void rollForward(List<Move> moves, List<String> logList) throws IOException
+    {
+        ArrayList<File> targetDirs = new ArrayList<>();
+
+        for (Move move : moves) {
+            File tempFile = move.getTempFile();
+            File targetFile = move.getTargetFile();
+
+            if (!tempFile.exists())
+                continue;
+
+            if (targetFile.exists() && SmUtils.moveFileToTrash(targetFile, move.getTrashFile()))
+                logList.add("File " + targetFile.getPath() + " moved to trash.");
+
+            try {
+                Files.move(tempFile.toPath(), targetFile.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tempFile.toPath(), targetFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            logList.add("File " + targetFile.getPath() + " replaced.");
+
+            if (!targetDirs.contains(targetFile.getParentFile()))
+                targetDirs.add(targetFile.getParentFile());
+        }
+
+        for (File targetDir : targetDirs)
+            forceDirectory(targetDir);
+    }
+
+    private void deleteJournal()
+    {
+        journalFile.delete();
+    }
+
+    private static void writeFile(File file, List<String> lines, boolean append)
+        throws IOException
+    {
+        try (FileOutputStream stream = new FileOutputStream(file, append);
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(stream, CHARSET))) {
+
+            for (String line : lines) {
+                writer.write(line);
+                writer.newLine();
+            }
+
+            writer.flush();
+            stream.getChannel().force(true);
+        }
+    }
+
+    // Forces a directory entry change, such as a rename, to disk. Not all
+    // platforms allow a directory to be opened, so errors are ignored.
+    private static void forceDirectory(File dir)
+    {
+        try (FileChannel channel = FileChannel.open(dir.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+        catch (IOException ex) {
+        }
+    }
+
+    private static class Move {
+        private final File tempFile;
+        private final File targetFile;
+        private final File trashFile;
+
+        private Move(File tempFile, File targetFile, File trashFile) {
+            this.tempFile = tempFile;
+            this.targetFile = targetFile;
+            this.trashFile = trashFile;
+        }
+
+        private File getTempFile() {return this.tempFile;}
+        private File getTargetFile() {return this.targetFile;}
+        private File getTrashFile() {return this.trashFile;}
+    }
+}
@@ -0,0 +1,647 @@
+/*******************************************************************************
+ * Name: Java class SmCosmosReader.java
+ * Project: PRISM Review Tool
+ * Written by: Peter Ng, USGS, png@usgs.gov
+ * 
+ * This software is in the public domain because it contains materials that 
+ * originally came from the United States Geological Survey, an agency of the 
+ * United States Department of Interior. For more information, see the official 
+ * USGS copyright policy at 
+ * http://www.usgs.gov/visual-id/credit_usgs.html#copyright
+ * 
+ * Date: first release date Feb. 2015
+ ******************************************************************************/
+
+package gov.usgs.smcommon.smclasses;
+
+import static SmConstants.VFileConstants.CORACC;
+import static SmConstants.VFileConstants.DISPLACE;
+import static SmConstants.VFileConstants.MSEC_TO_SEC;
+import static SmConstants.VFileConstants.RAWACC;
+import static SmConstants.VFileConstants.VELOCITY;
+import SmException.FormatException;
+import static gov.usgs.smcommon.smutilities.SmUtils.unmap;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * This class defines a fast reader for COSMOS formatted files (i.e. V0, V1,
+ * or V2). The file is memory-mapped, the header and data sections of each
+ * record are located by their byte offsets, and the fixed-width numeric
+ * columns are decoded directly from the mapped bytes into primitive arrays,
+ * without creating a String for each value. Only the text header and comment
+ * lines are decoded to strings.
+ * <p>
+ * The reader follows the layout rules of the COSMOS parser in SmQueue and
+ * throws a FormatException for any file it cannot read, in which case callers
+ * fall back to SmQueue.
+ * @author png
+ */
+public class SmCosmosReader {
+    
+    private static final Pattern TEXT_LINES_PATTERN = 
+        Pattern.compile("(?i)(with (\\d\\d) text lines)");
+    private static final Pattern NUM_VALS_PATTERN = Pattern.compile("^((\\s*)(\\d+))");
+    private static final Pattern NUM_FORMAT_PATTERN = 
+        Pattern.compile("\\((\\d+)([A-Za-z]+)(\\d+)(\\.*)(\\d*)\\)");
+    
+    // Powers of ten that are exactly representable as doubles.
+    private static final double[] POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+    private static final int MAX_EXACT_DIGITS = 15;
+    private static final int MAX_INT_DIGITS = 9;
+    
+    private SmCosmosReader() {}
+    
+    /**
+     * Reads the records of a COSMOS file, including their data.
+     * @param file File object that references a particular COSMOS file
+     * @param fileDataType COSMOS file data type of referenced COSMOS file
+     * @return array list of SmRec objects
+     * @throws IOException if the file cannot be read
+     * @throws FormatException if the file is not in a format this reader supports
+     */
+    public static ArrayList<SmRec> readSmRecs(File file, String fileDataType)
+        throws IOException, FormatException
+    {
+        ArrayList<SmRec> smRecs = new ArrayList<>();
+        
+        for (CosmosRec rec : read(file,fileDataType,Integer.MAX_VALUE,true))
+            smRecs.add(toSmRec(rec));
+        
+        return smRecs;
+    }
+    
+    /**
+     * Reads the record headers of a COSMOS file. The data lines of each record
+     * are skipped without being decoded.
+     * @param file File object that references a particular COSMOS file
+     * @param fileDataType COSMOS file data type of referenced COSMOS file
+     * @param maxRecs maximum number of record headers to read
+     * @return array list of SmRecHeader objects
+     * @throws IOException if the file cannot be read
+     * @throws FormatException if a record header is not in COSMOS format
+     */
+    public static ArrayList<SmRecHeader> readSmRecHeaders(File file, String fileDataType,
+        int maxRecs) throws IOException, FormatException
+    {
+        ArrayList<SmRecHeader> headers = new ArrayList<>();
+        
+        for (CosmosRec rec : read(file,fileDataType,maxRecs,false))
+            headers.add(rec.header);
+        
+        return headers;
+    }
+    
+    private static ArrayList<CosmosRec> read(File file, String fileDataType, int maxRecs,
+        boolean readData) throws IOException, FormatException
+    {
+        MappedByteBuffer buffer = map(file,fileDataType);
+        
+        try {
+            return parse(new LineScanner(buffer),fileDataType,maxRecs,readData);
+        }
+        catch (NumberFormatException | IndexOutOfBoundsException ex) {
+            throw new FormatException("Unable to parse " + file.getName() +
+                ": " + ex.getMessage());
+        }
+        finally {
+            unmap(buffer);
+        }
+    }
+    
+    private static MappedByteBuffer map(File file, String fileDataType)
+        throws IOException, FormatException
+    {
+        if (fileDataType == null)
+            throw new FormatException("Invalid file data type for " + file.getName());
+        
+        try (RandomAccessFile raf = new RandomAccessFile(file,"r");
+            FileChannel channel = raf.getChannel()) {
+            
+            if (channel.size() == 0 || channel.size() > Integer.MAX_VALUE)
+                throw new FormatException("Invalid file size for " + file.getName());
+            
+            return channel.map(FileChannel.MapMode.READ_ONLY,0,channel.size());
+        }
+    }
+    
+    private static ArrayList<CosmosRec> parse(LineScanner lines, String fileDataType,
+        int maxRecs, boolean readData) throws FormatException
+    {
+        ArrayList<CosmosRec> recs = new ArrayList<>();
+        CosmosRec rec;
+        
+        while (recs.size() < maxRecs && (rec = parseRec(lines,fileDataType,readData)) != null)
+            recs.add(rec);
+        
+        return recs;
+    }
+    
+    /**
+     * Parses the next record, skipping any blank lines before it.
+     * @return record, or null if there are no more records
+     */
+    private static CosmosRec parseRec(LineScanner lines, String fileDataType,
+        boolean readData) throws FormatException
+    {
+        do {
+            if (!lines.next())
+                return null;
+        } while (lines.isBlank());
+        
+        // Text header
+        String firstLine = lines.getText();
+        Matcher m = TEXT_LINES_PATTERN.matcher(firstLine);
+        if (!m.find())
+            throw new FormatException("Unable to find number of text header lines at line " + 
+                lines.getLineNum());
+
+        String[] textHeader = new String[Integer.parseInt(m.group(2))];
+        textHeader[0] = firstLine;
+        for (int i=1; i<textHeader.length; i++) {
+            lines.nextRequired();
+            textHeader[i] = lines.getText();
+        }
+
+        // Integer and real headers
+        lines.nextRequired();
+        int[] intHeader = new int[parseNumVals(lines)];
+        readIntArray(lines, parseFieldWidth(lines), intHeader);
+
+        lines.nextRequired();
+        double[] realHeader = new double[parseNumVals(lines)];
+        readRealArray(lines, parseFieldWidth(lines), realHeader);
+
+        // Comments
+        lines.nextRequired();
+        String commentLine = lines.getText();
+        if (!commentLine.matches("(?i).*comment.*"))
+            throw new FormatException("Unable to find comments at line " + 
+                lines.getLineNum());
+
+        String[] comments = new String[parseNumVals(lines)];
+        for (int i=0; i<comments.length; i++) {
+            lines.nextRequired();
+            comments[i] = lines.getText();
+        }
+
+        // Data section
+        lines.nextRequired();
+        int dataLength = parseNumVals(lines);
+        int fieldWidth = parseFieldWidth(lines);
+        double[] data = null;
+
+        if (!readData)
+            skipArray(lines, fieldWidth, dataLength);
+        else if (fileDataType.equals(RAWACC)) {
+            int[] counts = new int[dataLength];
+            readIntArray(lines, fieldWidth, counts);
+            
+            data = new double[dataLength];
+            for (int i=0; i<dataLength; i++)
+                data[i] = counts[i];
+        }
+        else {
+            data = new double[dataLength];
+            readRealArray(lines, fieldWidth, data);
+        }
+
+        // End-of-data line
+        lines.nextRequired();
+        if (!lines.getText().trim().toLowerCase().startsWith("end-of-data"))
+            throw new FormatException("Could not find End-of-data at line " + 
+                lines.getLineNum());
+
+        return new CosmosRec(new SmRecHeader(calcProcType(fileDataType, firstLine),
+            textHeader, intHeader, realHeader, comments, dataLength), data);
+    }
+    
+    private static SmRec toSmRec(CosmosRec rec)
+    {
+        SmRecHeader header = rec.header;
+        SmTrace smTrace = new SmTrace(rec.data,0,header.getDeltaT()*MSEC_TO_SEC);
+        
+        return new SmRec(smTrace, header.getChannel(), header.getSensorLocation(),
+            header.getStationCode(), header.getStationName(), header.getNetworkCode(),
+            header.getStartDateTime(), header.getDeltaT(), MSEC_TO_SEC, 
+            header.getRealHeaderValue(63), header.getEventName(), 
+            header.getEventDateTime(), header.getDataParmCode(), 
+            header.getDataUnitCode());
+    }
+    
+    private static int parseNumVals(LineScanner lines) throws FormatException
+    {
+        Matcher m = NUM_VALS_PATTERN.matcher(lines.getText());
+        
+        if (!m.find())
+            throw new FormatException("Could not find number of values in line " + 
+                lines.getLineNum());
+        
+        return Integer.parseInt(m.group().trim());
+    }
+    
+    /**
+     * Parses the field width of a Fortran number format, such as (10I8) or
+     * (8F10.5), in the current line.
+     * @param lines line scanner positioned on the format line
+     * @return field width
+     * @throws FormatException if no valid number format is found
+     */
+    private static int parseFieldWidth(LineScanner lines) throws FormatException
+    {
+        Matcher m = NUM_FORMAT_PATTERN.matcher(lines.getText());
+        
+        if (!m.find())
+            throw new FormatException("Could not find number format in line " + 
+                lines.getLineNum());
+        
+        int fieldWidth = Integer.parseInt(m.group(3));
+        
+        if (fieldWidth <= 0)
+            throw new FormatException("Invalid number format in line " + lines.getLineNum());
+        
+        return fieldWidth;
+    }
+    
+    private static void readIntArray(LineScanner lines, int fieldWidth, int[] vals) 
+        throws FormatException
+    {
+        int cnt = 0;
+        
+        while (cnt < vals.length) {
+            lines.nextRequired();
+            
+            for (int pos=lines.getStart(); pos+fieldWidth<=lines.getEnd() && cnt<vals.length; 
+                pos+=fieldWidth)
+                vals[cnt++] = decodeInt(lines.getBuffer(), pos, pos+fieldWidth, lines);
+        }
+    }
+    
+    private static void readRealArray(LineScanner lines, int fieldWidth, double[] vals) 
+        throws FormatException
+    {
+        int cnt = 0;
+        
+        while (cnt < vals.length) {
+            lines.nextRequired();
+            
+            for (int pos=lines.getStart(); pos+fieldWidth<=lines.getEnd() && cnt<vals.length; 
+                pos+=fieldWidth)
+                vals[cnt++] = decodeDouble(lines.getBuffer(), pos, pos+fieldWidth, lines);
+        }
+    }
+    
+    private static void skipArray(LineScanner lines, int fieldWidth, int numVals) 
+        throws FormatException
+    {
+        int cnt = 0;
+        
+        while (cnt < numVals) {
+            lines.nextRequired();
+            cnt += (lines.getEnd() - lines.getStart()) / fieldWidth;
+        }
+    }
+    
+    /**
+     * Decodes a fixed-width integer field. Fields that are not plain decimal
+     * integers are decoded with Integer.parseInt.
+     * @param buf buffer that holds the field
+     * @param start index of first byte of field
+     * @param end index after last byte of field
+     * @param lines line scanner, used for error messages
+     * @return decoded value
+     * @throws FormatException if the field is empty or not a number
+     */
+    private static int decodeInt(ByteBuffer buf, int start, int end, LineScanner lines)
+        throws FormatException
+    {
+        while (start < end && buf.get(start) == ' ')
+            start++;
+        while (end > start && buf.get(end-1) == ' ')
+            end--;
+        
+        if (start == end)
+            throw new FormatException("Missing value in line " + lines.getLineNum());
+        
+        int i = start;
+        boolean neg = false;
+        byte b = buf.get(i);
+        if (b == '-' || b == '+') {
+            neg = (b == '-');
+            i++;
+        }
+        
+        int val = 0;
+        int digits = 0;
+        for (; i<end; i++) {
+            b = buf.get(i);
+            if (b < '0' || b > '9' || ++digits > MAX_INT_DIGITS)
+                return parseIntField(buf, start, end, lines);
+            val = val*10 + (b - '0');
+        }
+        
+        if (digits == 0)
+            return parseIntField(buf, start, end, lines);
+        
+        return neg ? -val : val;
+    }
+    
+    /**
+     * Decodes a fixed-width real field in F or E notation. The decimal
+     * mantissa and exponent are accumulated as integers and combined with one
+     * exact power of ten, which gives the correctly rounded value for up to 15
+     * significant digits. Other fields are decoded with Double.parseDouble, so
+     * the result always equals that of the COSMOS parser.
+     * @param buf buffer that holds the field
+     * @param start index of first byte of field
+     * @param end index after last byte of field
+     * @param lines line scanner, used for error messages
+     * @return decoded value
+     * @throws FormatException if the field is empty or not a number
+     */
+    private static double decodeDouble(ByteBuffer buf, int start, int end, LineScanner lines)
+        throws FormatException
+    {
+        while (start < end && buf.get(start) == ' ')
+            start++;
+        while (end > start && buf.get(end-1) == ' ')
+            end--;
+        
+        if (start == end)
+            throw new FormatException("Missing value in line " + lines.getLineNum());
+        
+        int i = start;
+        boolean neg = false;
+        byte b = buf.get(i);
+        if (b == '-' || b == '+') {
+            neg = (b == '-');
+            i++;
+        }
+        
+        long mantissa = 0;
+        int sigDigits = 0;
+        int numDigits = 0;
+        int scale = 0;
+        
+        // Integer part
+        for (; i<end && (b = buf.get(i)) >= '0' && b <= '9'; i++, numDigits++) {
+            if (mantissa == 0 && b == '0')
+                continue;
+            if (++sigDigits > MAX_EXACT_DIGITS)
+                return parseDoubleField(buf, start, end, lines);
+            mantissa = mantissa*10 + (b - '0');
+        }
+        
+        // Fraction part
+        if (i < end && buf.get(i) == '.') {
+            for (i++; i<end && (b = buf.get(i)) >= '0' && b <= '9'; i++, numDigits++) {
+                scale--;
+                if (mantissa == 0 && b == '0')
+                    continue;
+                if (++sigDigits > MAX_EXACT_DIGITS)
+                    return parseDoubleField(buf, start, end, lines);
+                mantissa = mantissa*10 + (b - '0');
+            }
+        }
+        
+        if (numDigits == 0)
+            return parseDoubleField(buf, start, end, lines);
+        
+        // Exponent
+        if (i < end && ((b = buf.get(i)) == 'E' || b == 'e')) {
+            i++;
+            boolean expNeg = false;
+            if (i < end && ((b = buf.get(i)) == '-' || b == '+')) {
+                expNeg = (b == '-');
+                i++;
+            }
+            
+            int exp = 0;
+            int expDigits = 0;
+            for (; i<end && (b = buf.get(i)) >= '0' && b <= '9'; i++, expDigits++) {
+                if (expDigits >= 4)
+                    return parseDoubleField(buf, start, end, lines);
+                exp = exp*10 + (b - '0');
+            }
+            
+            if (expDigits == 0)
+                return parseDoubleField(buf, start, end, lines);
+            
+            scale += expNeg ? -exp : exp;
+        }
+        
+        if (i != end)
+            return parseDoubleField(buf, start, end, lines);
+        
+        double val;
+        if (mantissa == 0)
+            val = 0.0;
+        else if (scale >= 0 && scale < POW10.length)
+            val = mantissa * POW10[scale];
+        else if (scale < 0 && -scale < POW10.length)
+            val = mantissa / POW10[-scale];
+        else
+            return parseDoubleField(buf, start, end, lines);
+        
+        return neg ? -val : val;
+    }
+    
+    private static int parseIntField(ByteBuffer buf, int start, int end, LineScanner lines)
+        throws FormatException
+    {
+        try {
+            return Integer.parseInt(LineScanner.decode(buf, start, end).trim());
+        }
+        catch (NumberFormatException ex) {
+            throw new FormatException("Unable to convert text to numeric at line " + 
+                lines.getLineNum());
+        }
+    }
+    
+    private static double parseDoubleField(ByteBuffer buf, int start, int end, LineScanner lines)
+        throws FormatException
+    {
+        try {
+            return Double.parseDouble(LineScanner.decode(buf, start, end).trim());
+        }
+        catch (NumberFormatException ex) {
+            throw new FormatException("Unable to convert text to numeric at line " + 
+                lines.getLineNum());
+        }
+    }
+    
+    /**
+     * Determines the processing type of a record. V2 files store corrected
+     * acceleration, velocity, or displacement records, which are told apart by
+     * the first text header line, as in SmQueue.
+     */
+    private static String calcProcType(String fileDataType, String firstLine)
+    {
+        if (!(fileDataType.equals(CORACC) || fileDataType.equals(VELOCITY) || 
+            fileDataType.equals(DISPLACE)))
+            return fileDataType;
+        
+        if (firstLine.matches("(?s).*(?i)Velocity.*"))
+            return VELOCITY;
+        else if (firstLine.matches("(?s).*(?i)Displace.*"))
+            return DISPLACE;
+        else
+            return CORACC;
+    }
+    
+    /**
+     * This class reads the records of a COSMOS file one at a time, so that
+     * only the current record is held in memory. The stream must be closed
+     * to release the mapped file.
+     */
+    static class RecordStream implements Closeable {
+        private final File file;
+        private final String fileDataType;
+        private final MappedByteBuffer buffer;
+        private final LineScanner lines;
+        private boolean closed = false;
+        
+        public RecordStream(File file, String fileDataType) throws IOException, FormatException
+        {
+            this.file = file;
+            this.fileDataType = fileDataType;
+            this.buffer = map(file,fileDataType);
+            this.lines = new LineScanner(buffer);
+        }
+        
+        /**
+         * Reads the next record, including its data.
+         * @return SmRec object, or null if there are no more records or the
+         * stream is closed
+         * @throws FormatException if the record is not in COSMOS format
+         */
+        public SmRec next() throws FormatException
+        {
+            if (closed)
+                return null;
+            
+            try {
+                CosmosRec rec = parseRec(lines,fileDataType,true);
+                return (rec != null) ? toSmRec(rec) : null;
+            }
+            catch (NumberFormatException | IndexOutOfBoundsException ex) {
+                throw new FormatException("Unable to parse " + file.getName() +
+                    ": " + ex.getMessage());
+            }
+        }
+        
+        @Override
+        public void close()
+        {
+            if (!closed) {
+                closed = true;
+                unmap(buffer);
+            }
+        }
+    }
+    
+    /**
+     * This class defines a record read from a file, consisting of its header
+     * and, if requested, its data.
+     */
+    private static class CosmosRec {
+        private final SmRecHeader header;
+        private final double[] data;
+        
+        public CosmosRec(SmRecHeader header, double[] data)
+        {
+            this.header = header;
+            this.data = data;
+        }
+    }
+    
+    /**
+     * This class iterates over the lines of a buffer, keeping the byte range
+     * of the current line. Lines end with LF, CR, or CR LF, as with
+     * BufferedReader.readLine.
+     */
+    private static class LineScanner {
+        private static final Charset CHARSET = Charset.defaultCharset();
+        
+        private final ByteBuffer buf;
+        private final int limit;
+        private int pos = 0;
+        private int start = 0;
+        private int end = 0;
+        private int lineNum = 0;
+        
+        public LineScanner(ByteBuffer buf)
+        {
+            this.buf = buf;
+            this.limit = buf.limit();
+        }
+        
+        public ByteBuffer getBuffer() {return this.buf;}
+        
+        public int getStart() {return this.start;}
+        
+        public int getEnd() {return this.end;}
+        
+        public int getLineNum() {return this.lineNum;}
+        
+        public boolean next()
+        {
+            if (pos >= limit)
+                return false;
+            
+            start = pos;
+            end = pos;
+            while (end < limit) {
+                byte b = buf.get(end);
+                if (b == '\n' || b == '\r')
+                    break;
+                end++;
+            }
+            
+            pos = end;
+            if (pos < limit && buf.get(pos) == '\r')
+                pos++;
+            if (pos < limit && buf.get(pos) == '\n' && (pos == end || buf.get(pos-1) == '\r'))
+                pos++;
+            
+            lineNum++;
+            return true;
+        }
+        
+        public void nextRequired() throws FormatException
+        {
+            if (!next())
+                throw new FormatException("Unexpected end-of-file at line " + lineNum);
+        }
+        
+        public boolean isBlank()
+        {
+            for (int i=start; i<end; i++) {
+                if (buf.get(i) > ' ')
+                    return false;
+            }
+            return true;
+        }
+        
+        public String getText() {return decode(buf,start,end);}
+        
+        public static String decode(ByteBuffer buf, int start, int end)
+        {
+            byte[] bytes = new byte[end-start];
+            for (int i=0; i<bytes.length; i++)
+                bytes[i] = buf.get(start+i);
+            return new String(bytes,CHARSET);
+        }
+    }
+}
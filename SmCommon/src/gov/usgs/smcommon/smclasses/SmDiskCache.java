@@ -0,0 +1,496 @@
+/*******************************************************************************
+ * Name: Java class SmDiskCache.java
+ * Project: PRISM Review Tool
+ * Written by: Peter Ng, USGS, png@usgs.gov
+ * 
+ * This software is in the public domain because it contains materials that 
+ * originally came from the United States Geological Survey, an agency of the 
+ * United States Department of Interior. For more information, see the official 
+ * USGS copyright policy at 
+ * http://www.usgs.gov/visual-id/credit_usgs.html#copyright
+ * 
+ * Date: first release date Feb. 2015
+ ******************************************************************************/
+
+package gov.usgs.smcommon.smclasses;
+
+import static SmConstants.VFileConstants.MSEC_TO_SEC;
+import static gov.usgs.smcommon.smutilities.SmUtils.unmap;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+/**
+ * This class defines an on-disk cache of parsed COSMOS files, so that files
+ * reopened in a later session need not be parsed again. Each cached file is
+ * stored as a compact binary file consisting of a header block, with the
+ * source path, size, last-modified time and record header fields, followed
+ * by one little-endian float64 sample column per record. Start times are
+ * stored as an instant along with the ID of their time zone. A cached file is
+ * used only if the format version and the source path, size and last-modified
+ * time match, and if its start times are in the current default time zone,
+ * in which the COSMOS readers create them from the header fields. The cache
+ * directory, size limit, and whether the cache is used at all are set in
+ * SmPreferences.General; the cache is off by default. Cache files are not
+ * forced to disk, since a damaged or missing cache file is simply rebuilt
+ * from its source file. A running size of the cache is kept as files are
+ * stored and, only when it exceeds the size limit, the cache directory is
+ * listed and the least recently used files are deleted.
+ * @author png
+ */
+public class SmDiskCache {
+    
+    private static final int MAGIC = 0x534D4346;   //"SMCF"
+    private static final int VERSION = 2;
+    private static final String CACHE_DIR_NAME = "cache";
+    private static final String CACHE_FILE_EXT = ".smc";
+    private static final String TEMP_FILE_EXT = ".tmp";
+    private static final long BYTES_PER_MB = 1024L*1024L;
+    private static final Charset CHARSET = StandardCharsets.UTF_8;
+    
+    private static final Object sizeLock = new Object();
+    private static File sizeCacheDir = null;    //cache directory of cacheSize
+    private static long cacheSize = 0;          //running size of the cache in bytes
+    
+    private SmDiskCache() {}
+    
+    /**
+     * Gets the cached records of the specified file.
+     * @param file File object that references a particular COSMOS file
+     * @param fileDataType COSMOS file data type of referenced COSMOS file
+     * @return array list of SmRec objects, or null if the file is not cached,
+     * the cached copy is out of date, or the cache is disabled
+     */
+    public static ArrayList<SmRec> load(File file, String fileDataType)
+    {
+        File cacheFile = getCacheFile(file);
+        
+        if (cacheFile == null || !cacheFile.isFile())
+            return null;
+        
+        ArrayList<SmRec> smRecs = null;
+        
+        try (RandomAccessFile raf = new RandomAccessFile(cacheFile,"r");
+            FileChannel channel = raf.getChannel()) {
+            
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,0,channel.size());
+            
+            try {
+                smRecs = readSmRecs(buffer, file, fileDataType);
+            }
+            finally {
+                unmap(buffer);
+            }
+        }
+        catch (IOException | RuntimeException ex) {
+            smRecs = null;
+        }
+        
+        if (smRecs == null)
+            cacheFile.delete();
+        else
+            cacheFile.setLastModified(System.currentTimeMillis());
+        
+        return smRecs;
+    }
+    
+    /**
+     * Stores the records of the specified file in the cache, then deletes the
+     * least recently used cache files if the cache exceeds its size limit.
+     * Errors are ignored, since the cache only speeds up reopening files.
+     * @param file File object that references a particular COSMOS file
+     * @param fileDataType COSMOS file data type of referenced COSMOS file
+     * @param smRecs records parsed from the file
+     */
+    public static void store(File file, String fileDataType, ArrayList<SmRec> smRecs)
+    {
+        File cacheFile = getCacheFile(file);
+        
+        if (cacheFile == null || fileDataType == null || smRecs == null)
+            return;
+        
+        File cacheDir = cacheFile.getParentFile();
+        File tempFile = null;
+        
+        try {
+            if (!cacheDir.isDirectory() && !cacheDir.mkdirs())
+                return;
+            
+            tempFile = File.createTempFile("smc", TEMP_FILE_EXT, cacheDir);
+            
+            try (RandomAccessFile raf = new RandomAccessFile(tempFile,"rw");
+                FileChannel channel = raf.getChannel()) {
+                writeSmRecs(channel, file, fileDataType, smRecs);
+            }
+            
+            long addedSize = tempFile.length() - cacheFile.length();
+            
+            try {
+                Files.move(tempFile.toPath(), cacheFile.toPath(), 
+                    StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tempFile.toPath(), cacheFile.toPath(), 
+                    StandardCopyOption.REPLACE_EXISTING);
+            }
+            
+            addToSize(cacheDir, addedSize);
+        }
+        catch (IOException | RuntimeException ex) {
+            if (tempFile != null)
+                tempFile.delete();
+        }
+    }
+    
+    /**
+     * Deletes the cached copy of the specified file, if any. The cached copy
+     * is validated by the size and last-modified time of the file, which may
+     * not change when a file is rewritten within the resolution of the
+     * last-modified time, so a changed file must be removed explicitly.
+     * @param file File object that references a particular COSMOS file
+     */
+    public static void remove(File file)
+    {
+        File cacheFile = getCacheFile(file);
+        
+        if (cacheFile == null)
+            return;
+        
+        synchronized (sizeLock) {
+            long length = cacheFile.length();
+            
+            if (cacheFile.delete() && cacheFile.getParentFile().equals(sizeCacheDir))
+                cacheSize -= length;
+        }
+    }
+    
+    /**
+     * Deletes all files in the cache directory
+     */
+    public static void clear()
+    {
+        File cacheDir = getCacheDir();
+        
+        if (cacheDir == null || !cacheDir.isDirectory())
+            return;
+        
+        synchronized (sizeLock) {
+            for (File cacheFile : listCacheFiles(cacheDir))
+                cacheFile.delete();
+            
+            sizeCacheDir = null;
+        }
+    }
+    
+    /**
+     * Gets the cache directory, which is set in the preferences or, by
+     * default, is a directory next to the logs directory.
+     * @return cache directory, or null if it cannot be determined
+     */
+    public static File getCacheDir()
+    {
+        String cacheDir = SmPreferences.General.getDiskCacheDir();
+        
+        if (!cacheDir.isEmpty())
+            return new File(cacheDir);
+        
+        String logsDir = SmPreferences.General.getLogsDir();
+        
+        if (logsDir.isEmpty())
+            return null;
+        
+        File parentDir = new File(logsDir).getAbsoluteFile().getParentFile();
+        
+        return (parentDir != null) ? new File(parentDir, CACHE_DIR_NAME) : null;
+    }
+    
+    private static File getCacheFile(File file)
+    {
+        if (!SmPreferences.General.getDiskCacheEnabled())
+            return null;
+        
+        File cacheDir = getCacheDir();
+        
+        if (cacheDir == null)
+            return null;
+        
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(file.getCanonicalPath().getBytes(CHARSET));
+            
+            StringBuilder sbName = new StringBuilder();
+            for (byte b : hash)
+                sbName.append(String.format("%02x", b));
+            sbName.append(CACHE_FILE_EXT);
+            
+            return new File(cacheDir, sbName.toString());
+        }
+        catch (IOException | NoSuchAlgorithmException ex) {
+            return null;
+        }
+    }
+    
+    /**
+     * Reads the records from a mapped cache file. The sample columns are
+     * bulk-copied from the mapped buffer into the sample arrays.
+     * @return array list of SmRec objects, or null if the cache file is of a
+     * different version, out of date, or in another time zone
+     */
+    private static ArrayList<SmRec> readSmRecs(ByteBuffer buffer, File file, 
+        String fileDataType) throws IOException
+    {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+            return null;
+        
+        String path = getString(buffer);
+        long length = buffer.getLong();
+        long lastModified = buffer.getLong();
+        String dataType = getString(buffer);
+        
+        if (!path.equals(file.getCanonicalPath()) || length != file.length() ||
+            lastModified != file.lastModified() || !dataType.equals(fileDataType))
+            return null;
+        
+        int recCnt = buffer.getInt();
+        ArrayList<SmRec> smRecs = new ArrayList<>(recCnt);
+        
+        for (int i=0; i<recCnt; i++) {
+            String channel = getString(buffer);
+            String sensorLocation = getString(buffer);
+            String stationCode = getString(buffer);
+            String stationName = getString(buffer);
+            String networkCode = getString(buffer);
+            String eventName = getString(buffer);
+            String eventDateTime = getString(buffer);
+            String zoneId = getString(buffer);
+            
+            // The header fields give the start time in the default time zone,
+            // so a start time in any other zone would be shifted.
+            if (!DateTimeZone.getDefault().getID().equals(zoneId))
+                return null;
+            
+            DateTime startDateTime = new DateTime(buffer.getLong(),
+                DateTimeZone.forID(zoneId));
+            double deltaT = buffer.getDouble();
+            double maxVal = buffer.getDouble();
+            int dataParmCode = buffer.getInt();
+            int dataUnitCode = buffer.getInt();
+            int sampleCnt = buffer.getInt();
+            int dataOffset = (int)buffer.getLong();
+            
+            double[] samples = new double[sampleCnt];
+            ByteBuffer column = buffer.duplicate();
+            column.position(dataOffset);
+            column.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(samples);
+            
+            SmTrace smTrace = new SmTrace(samples,0,deltaT*MSEC_TO_SEC);
+            
+            smRecs.add(new SmRec(smTrace, channel, sensorLocation, stationCode, 
+                stationName, networkCode, startDateTime, deltaT, MSEC_TO_SEC, maxVal, 
+                eventName, eventDateTime, dataParmCode, dataUnitCode));
+        }
+        
+        return smRecs;
+    }
+    
+    /**
+     * Writes the header block followed by the sample columns, which start at
+     * an 8-byte aligned offset.
+     */
+    private static void writeSmRecs(FileChannel channel, File file, String fileDataType,
+        ArrayList<SmRec> smRecs) throws IOException
+    {
+        ArrayList<byte[]> strings = new ArrayList<>();
+        strings.add(toBytes(file.getCanonicalPath()));
+        strings.add(toBytes(fileDataType));
+        
+        for (SmRec smRec : smRecs) {
+            strings.add(toBytes(smRec.getChannel()));
+            strings.add(toBytes(smRec.getSensorLocation()));
+            strings.add(toBytes(smRec.getStationCode()));
+            strings.add(toBytes(smRec.getStationName()));
+            strings.add(toBytes(smRec.getNetworkCode()));
+            strings.add(toBytes(smRec.getEventName()));
+            strings.add(toBytes(smRec.getEventDateTime()));
+            strings.add(toBytes(smRec.getStartDateTime().getZone().getID()));
+        }
+        
+        // Header size: magic, version, length, last-modified, record count,
+        // fixed-size record fields, and length-prefixed strings.
+        int headerSize = 4 + 4 + 8 + 8 + 4 + smRecs.size()*(8 + 8 + 8 + 4 + 4 + 4 + 8);
+        for (byte[] string : strings)
+            headerSize += 4 + ((string != null) ? string.length : 0);
+        headerSize = (headerSize + 7) & ~7;
+        
+        ByteBuffer header = ByteBuffer.allocate(headerSize).order(ByteOrder.LITTLE_ENDIAN);
+        int stringIdx = 0;
+        
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        putString(header, strings.get(stringIdx++));
+        header.putLong(file.length());
+        header.putLong(file.lastModified());
+        putString(header, strings.get(stringIdx++));
+        header.putInt(smRecs.size());
+        
+        long dataOffset = headerSize;
+        
+        for (SmRec smRec : smRecs) {
+            for (int i=0; i<8; i++)
+                putString(header, strings.get(stringIdx++));
+            
+            header.putLong(smRec.getStartDateTime().getMillis());
+            header.putDouble(smRec.getDeltaT());
+            header.putDouble(smRec.getMaxVal());
+            header.putInt(smRec.getDataParmCode());
+            header.putInt(smRec.getDataUnitCode());
+            header.putInt(smRec.getSmTrace().size());
+            header.putLong(dataOffset);
+            
+            dataOffset += smRec.getSmTrace().size()*8L;
+        }
+        
+        header.rewind();
+        writeFully(channel, header);
+        
+        for (SmRec smRec : smRecs) {
+            SmTrace smTrace = smRec.getSmTrace();
+            ByteBuffer column = ByteBuffer.allocate(smTrace.size()*8).order(ByteOrder.LITTLE_ENDIAN);
+            column.asDoubleBuffer().put(smTrace.getSamples(), smTrace.getOffset(), smTrace.size());
+            writeFully(channel, column);
+        }
+    }
+    
+    /**
+     * Adds the size of a stored file to the running size of the cache, and
+     * trims the cache if the running size exceeds the size limit. The running
+     * size is taken from the cache directory on first use, or when the cache
+     * directory changes. Cache files deleted on load are not subtracted, so
+     * the running size may overestimate the cache, which only trims it sooner.
+     */
+    private static void addToSize(File cacheDir, long addedSize)
+    {
+        long maxSize = Math.max(SmPreferences.General.getDiskCacheSize(),0)*BYTES_PER_MB;
+        
+        synchronized (sizeLock) {
+            if (!cacheDir.equals(sizeCacheDir)) {
+                sizeCacheDir = cacheDir;
+                cacheSize = getSize(listCacheFiles(cacheDir));
+            }
+            else
+                cacheSize += addedSize;
+            
+            if (cacheSize > maxSize)
+                cacheSize = trimToSize(cacheDir, maxSize);
+        }
+    }
+    
+    /**
+     * Deletes the least recently used cache files, and any temporary files
+     * left behind, until the cache is within its size limit.
+     * @return size of the cache after trimming, in bytes
+     */
+    private static long trimToSize(File cacheDir, long maxSize)
+    {
+        File[] cacheFiles = listCacheFiles(cacheDir);
+        long size = getSize(cacheFiles);
+        
+        if (size <= maxSize)
+            return size;
+        
+        Arrays.sort(cacheFiles, new Comparator<File>() {
+            @Override
+            public int compare(File f1, File f2) {
+                return Long.compare(f1.lastModified(), f2.lastModified());
+            }
+        });
+        
+        for (File cacheFile : cacheFiles) {
+            if (size <= maxSize)
+                break;
+            
+            long length = cacheFile.length();
+            if (cacheFile.delete())
+                size -= length;
+        }
+        
+        return size;
+    }
+    
+    private static long getSize(File[] cacheFiles)
+    {
+        long size = 0;
+        
+        for (File cacheFile : cacheFiles)
+            size += cacheFile.length();
+        
+        return size;
+    }
+    
+    private static File[] listCacheFiles(File cacheDir)
+    {
+        File[] cacheFiles = cacheDir.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File f) {
+                return f.isFile() && (f.getName().endsWith(CACHE_FILE_EXT) ||
+                    f.getName().endsWith(TEMP_FILE_EXT));
+            }
+        });
+        
+        return (cacheFiles != null) ? cacheFiles : new File[0];
+    }
+    
+    // Strings are stored with a length prefix; a length of -1 denotes null.
+    private static byte[] toBytes(String string)
+    {
+        return (string != null) ? string.getBytes(CHARSET) : null;
+    }
+    
+    private static String getString(ByteBuffer buffer)
+    {
+        int length = buffer.getInt();
+        
+        if (length < 0)
+            return null;
+        
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, CHARSET);
+    }
+    
+    private static void putString(ByteBuffer buffer, byte[] bytes)
+    {
+        if (bytes == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+    
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException
+    {
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+}
@@ -111,6 +111,49 @@ public class SmFile {
     {
         return this.smRecs;
     }
+    
+    /**
+     * Checks whether the sample data of any record is held in display
+     * precision (see SmTrace.toDisplayPrecision)
+     * @return true if any record is in display precision
+     */
+    public boolean hasDisplayPrecision()
+    {
+        if (this.smRecs == null)
+            return false;
+        
+        for (SmRec smRec : this.smRecs) {
+            if (smRec.getSmTrace().hasDisplayPrecision())
+                return true;
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Converts the sample data of each record to display precision, which
+     * halves its memory use. Used for files that are only viewed.
+     */
+    public void convertToDisplayPrecision()
+    {
+        if (this.smRecs == null)
+            return;
+        
+        for (SmRec smRec : this.smRecs)
+            smRec.setSmTrace(smRec.getSmTrace().toDisplayPrecision());
+    }
+    
+    /**
+     * Gets a full precision instance of this file. Since the precision lost
+     * by display precision records cannot be recovered from them, the file
+     * is read again in that case.
+     * @return this object if all records are in full precision, or a new 
+     * SmFile object otherwise
+     */
+    public SmFile toFullPrecision()
+    {
+        return hasDisplayPrecision() ? new SmFile(this.file) : this;
+    }
 
     /**
      * Sets the File object for the referenced COSMOS file
@@ -128,25 +171,34 @@ public class SmFile {
      * Sets the COSMOS file data type of referenced COSMOS file
      * @param file COSMOS file data type of referenced COSMOS file
      */
-    private void setFileDataType(File file)
+    private void setFileDataType(File file) {this.fileDataType = calcFileDataType(file);}
+    
+    /**
+     * Determines the COSMOS file data type of a COSMOS file from its file name
+     * @param file File object of referenced COSMOS file
+     * @return COSMOS file data type, or null if it cannot be determined
+     */
+    static String calcFileDataType(File file)
     {
         String ext = getFileExtension(file).toUpperCase();
         
         if (ext.startsWith(SmGlobal.CosmosFileType.V0.toString()))
-            this.fileDataType = RAWACC;
+            return RAWACC;
         else if (ext.startsWith(SmGlobal.CosmosFileType.V1.toString()))
-            this.fileDataType = UNCORACC;
+            return UNCORACC;
         else if (ext.startsWith(SmGlobal.CosmosFileType.V2.toString()))
         {
             String fName = file.getName().toUpperCase();
             
             if (fName.contains(SmGlobal.CosmosV2DataType.ACC.toString()))
-                this.fileDataType = CORACC;
+                return CORACC;
             else if (fName.contains(SmGlobal.CosmosV2DataType.VEL.toString()))
-                this.fileDataType = VELOCITY;
+                return VELOCITY;
             else if (fName.contains(SmGlobal.CosmosV2DataType.DIS.toString()))
-                this.fileDataType = DISPLACE;
+                return DISPLACE;
         }
+        
+        return null;
     }
 
     /**
@@ -156,17 +208,24 @@ public class SmFile {
      */
     private void setSmRecs(File file, String fileDataType)
     {
+        this.smRecs = SmDiskCache.load(file,fileDataType);
+        
+        if (this.smRecs != null)
+            return;
+        
+        try
+        {
+            this.smRecs = SmCosmosReader.readSmRecs(file,fileDataType);
+            SmDiskCache.store(file,fileDataType,this.smRecs);
+            return;
+        }
+        catch (IOException | FormatException ex) {
+            // Fall back to the COSMOS parser for files the fast reader rejects.
+        }
+        
         try 
         {
-            SmTimeFormatter timer = new SmTimeFormatter();
-            String logTime = timer.getGMTdateTime();
-            String logDir = SmPreferences.General.getLogsDir();
-            
-            SmQueue queue = new SmQueue(file,logTime,new File(logDir));
-            queue.readInFile(file);
-            queue.parseVFile(fileDataType);
-
-            ArrayList<COSMOScontentFormat> smlist = queue.getSmList();
+            ArrayList<COSMOScontentFormat> smlist = parseWithQueue(file,fileDataType);
 
             smRecs = new ArrayList<>();
 
@@ -206,47 +265,39 @@ public class SmFile {
 //                final double maxVal = rec.getRealHeaderValue(MAX_VAL);
                 final double maxVal = rec.getRealHeaderValue(63);
                 
-                ArrayList<SmPoint> smPoints = new ArrayList<>();
+                double[] points = null;
                 
                 if (fileDataType.equals(RAWACC)) {
                     V0Component v0Rec = (V0Component) rec;
-                    int[] points = v0Rec.getDataArray();
+                    int[] counts = v0Rec.getDataArray();
                     
-                    double xVal = 0;
-                    for (int i=0; i<points.length; i++){
-                        smPoints.add(new SmPoint(xVal,points[i]));
-                        xVal += deltaT*MSEC_TO_SEC;
+                    points = new double[counts.length];
+                    for (int i=0; i<counts.length; i++){
+                        points[i] = counts[i];
                     }
                 }
                 else if (fileDataType.equals(UNCORACC))
                 {
                     V1Component v1Rec = (V1Component) rec;
-                    double[] points = v1Rec.getDataArray();
-                    
-                    double xVal = 0;
-                    for (int i=0; i<points.length; i++){
-                        smPoints.add(new SmPoint(xVal,points[i]));
-                        xVal += deltaT*MSEC_TO_SEC;
-                    }
+                    points = v1Rec.getDataArray();
                 }
                 else if (fileDataType.equals(CORACC) ||
                     fileDataType.equals(VELOCITY) || 
                     fileDataType.equals(DISPLACE))
                 {
                     V2Component v2Rec = (V2Component) rec;
-                    double[] points = v2Rec.getDataArray();
-                    
-                    double xVal = 0;
-                    for (int i=0; i<points.length; i++){
-                        smPoints.add(new SmPoint(xVal,points[i]));
-                        xVal += deltaT*MSEC_TO_SEC;
-                    }
+                    points = v2Rec.getDataArray();
                 }
                 
-                smRecs.add(new SmRec(smPoints, channel, sensorLocation, stationCode, 
+                SmTrace smTrace = new SmTrace((points != null) ? points : new double[0],
+                    0, deltaT*MSEC_TO_SEC);
+                
+                smRecs.add(new SmRec(smTrace, channel, sensorLocation, stationCode, 
                     stationName, networkCode, startDateTime, deltaT, MSEC_TO_SEC, maxVal, 
                     eventName, eventDateTime, dataParmCode, dataUnitCode));
             }
+            
+            SmDiskCache.store(file,fileDataType,smRecs);
         } 
         catch (IOException | FormatException | SmException ex ) {
             System.out.format("Unable to read or parse file: %s - %s%n",
@@ -254,6 +305,30 @@ public class SmFile {
         }
     }
     
+    /**
+     * Parses a COSMOS file with the COSMOS parser in SmQueue, which is used for
+     * files that SmCosmosReader rejects.
+     * @param file File object for referenced COSMOS file
+     * @param fileDataType COSMOS file data type for referenced COSMOS file
+     * @return array list of COSMOScontentFormat objects, one for each record
+     * @throws IOException if the file cannot be read
+     * @throws FormatException if the file is not in COSMOS format
+     * @throws SmException if the file cannot be parsed
+     */
+    static ArrayList<COSMOScontentFormat> parseWithQueue(File file, String fileDataType)
+        throws IOException, FormatException, SmException
+    {
+        SmTimeFormatter timer = new SmTimeFormatter();
+        String logTime = timer.getGMTdateTime();
+        String logDir = SmPreferences.General.getLogsDir();
+
+        SmQueue queue = new SmQueue(file,logTime,new File(logDir));
+        queue.readInFile(file);
+        queue.parseVFile(fileDataType);
+
+        return queue.getSmList();
+    }
+    
     /**
      * Creates a formatted string consisting of the file name of the referenced
      * COSMOS file
@@ -0,0 +1,341 @@
+/*******************************************************************************
+ * Name: Java class SmFileCache.java
+ * Project: PRISM Review Tool
+ * Written by: Peter Ng, USGS, png@usgs.gov
+ * 
+ * This software is in the public domain because it contains materials that 
+ * originally came from the United States Geological Survey, an agency of the 
+ * United States Department of Interior. For more information, see the official 
+ * USGS copyright policy at 
+ * http://www.usgs.gov/visual-id/credit_usgs.html#copyright
+ * 
+ * Date: first release date Feb. 2015
+ ******************************************************************************/
+
+package gov.usgs.smcommon.smclasses;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class defines a process-wide cache of parsed COSMOS files and of their
+ * record headers (see SmFileHeader), which are cached separately. Entries are
+ * keyed by the canonical path of the file and are valid only while the file
+ * length and last-modified time are unchanged, so a file is parsed once per
+ * session unless it changes on disk. The cache is bounded by a memory budget
+ * (see SmPreferences.General.getFileCacheSize) and evicts the least recently
+ * used entries first. Entries are held through soft references so that the
+ * garbage collector can also reclaim them when memory runs low. A file may be
+ * cached in full precision and in display precision (see
+ * SmTrace.toDisplayPrecision), as separate entries, so a file requested in
+ * full precision never has display precision samples.
+ * <p>
+ * SmFile objects returned by the cache are shared and must not be modified.
+ * Use the SmFile copy constructor, or SmFile.toFullPrecision for files in
+ * display precision, to get an instance that can be changed.
+ * @author png
+ */
+public class SmFileCache {
+    
+    private static final long BYTES_PER_MB = 1024L*1024L;
+    private static final long BYTES_PER_SAMPLE = 8L;
+    private static final long BYTES_PER_FLOAT_SAMPLE = 4L;
+    private static final long REC_OVERHEAD_BYTES = 1024L;
+    private static final long REC_HEADER_BYTES = 4096L;
+    private static final String HEADER_KEY_PREFIX = "header:";
+    private static final String DISPLAY_KEY_PREFIX = "display:";
+    
+    private static final LinkedHashMap<String,CacheEntry> entries = 
+        new LinkedHashMap<>(64,0.75f,true);
+    
+    private static long maxSizeBytes = 
+        Math.max(SmPreferences.General.getFileCacheSize(),0)*BYTES_PER_MB;
+    private static long sizeBytes = 0;
+    private static long hitCount = 0;
+    private static long missCount = 0;
+    private static long evictionCount = 0;
+    
+    private SmFileCache() {}
+    
+    /**
+     * Gets the parsed SmFile object for the specified file, in display
+     * precision if it is enabled in the preferences (see
+     * SmPreferences.General.getDisplayPrecisionEnabled). The file is parsed
+     * only if it is not in the cache or has changed on disk since it was cached.
+     * @param file File object that references a particular COSMOS file
+     * @return shared SmFile object for the file
+     */
+    public static SmFile getSmFile(File file)
+    {
+        return getSmFile(file,SmPreferences.General.getDisplayPrecisionEnabled());
+    }
+    
+    /**
+     * Gets the parsed SmFile object for the specified file. The file is parsed
+     * only if it is not in the cache in the requested precision or has changed
+     * on disk since it was cached.
+     * @param file File object that references a particular COSMOS file
+     * @param displayPrecision true to get the file in display precision, false
+     * to get it in full precision
+     * @return shared SmFile object for the file
+     */
+    public static SmFile getSmFile(File file, boolean displayPrecision)
+    {
+        String key = displayPrecision ? DISPLAY_KEY_PREFIX + getKey(file) : getKey(file);
+        long length = file.length();
+        long lastModified = file.lastModified();
+        
+        SmFile smFile = (SmFile)lookup(key,length,lastModified);
+        if (smFile != null)
+            return smFile;
+        
+        // Parse outside of the lock so that other files can be read meanwhile.
+        smFile = new SmFile(file);
+        
+        if (displayPrecision)
+            smFile.convertToDisplayPrecision();
+        
+        // Files that failed to parse are not cached.
+        if (smFile.getSmRecs() != null)
+            store(key,smFile,length,lastModified,estimateSize(smFile));
+        
+        return smFile;
+    }
+    
+    /**
+     * Gets the record headers of the specified file. The headers are read
+     * only if they are not in the cache or the file has changed on disk since
+     * they were cached.
+     * @param file File object that references a particular COSMOS file
+     * @return shared SmFileHeader object for the file
+     */
+    public static SmFileHeader getSmFileHeader(File file)
+    {
+        String key = HEADER_KEY_PREFIX + getKey(file);
+        long length = file.length();
+        long lastModified = file.lastModified();
+        
+        SmFileHeader smFileHeader = (SmFileHeader)lookup(key,length,lastModified);
+        if (smFileHeader != null)
+            return smFileHeader;
+        
+        smFileHeader = new SmFileHeader(file);
+        
+        // Files that failed to parse are not cached.
+        if (smFileHeader.getSmRecHeaders() != null)
+            store(key,smFileHeader,length,lastModified,
+                smFileHeader.getSmRecHeaders().size()*REC_HEADER_BYTES);
+        
+        return smFileHeader;
+    }
+    
+    /**
+     * Gets the parsed SmFile object for the specified file path.
+     * @param filePath path of a particular COSMOS file
+     * @return shared SmFile object for the file
+     */
+    public static SmFile getSmFile(String filePath)
+    {
+        return getSmFile(new File(filePath));
+    }
+    
+    /**
+     * Removes the specified file from the cache
+     * @param file File object that references a particular COSMOS file
+     */
+    public static synchronized void invalidate(File file)
+    {
+        String key = getKey(file);
+        removeEntry(key);
+        removeEntry(DISPLAY_KEY_PREFIX + key);
+        removeEntry(HEADER_KEY_PREFIX + key);
+    }
+    
+    /**
+     * Removes all files from the cache and resets the statistics
+     */
+    public static synchronized void clear()
+    {
+        entries.clear();
+        sizeBytes = 0;
+        hitCount = 0;
+        missCount = 0;
+        evictionCount = 0;
+    }
+    
+    /**
+     * Gets the memory budget of the cache
+     * @return memory budget in bytes
+     */
+    public static synchronized long getMaxSize() {return maxSizeBytes;}
+    
+    /**
+     * Sets the memory budget of the cache, evicting entries as needed
+     * @param maxSizeMB memory budget in megabytes
+     */
+    public static synchronized void setMaxSize(int maxSizeMB)
+    {
+        maxSizeBytes = Math.max(maxSizeMB,0)*BYTES_PER_MB;
+        trimToSize();
+    }
+    
+    /**
+     * Gets the estimated memory used by the cached files
+     * @return estimated memory used in bytes
+     */
+    public static synchronized long getSize() {return sizeBytes;}
+    
+    /**
+     * Gets the number of cached files
+     * @return number of cached files
+     */
+    public static synchronized int getFileCount() {return entries.size();}
+    
+    /**
+     * Gets the number of requests served from the cache
+     * @return number of cache hits
+     */
+    public static synchronized long getHitCount() {return hitCount;}
+    
+    /**
+     * Gets the number of requests that required parsing a file
+     * @return number of cache misses
+     */
+    public static synchronized long getMissCount() {return missCount;}
+    
+    /**
+     * Gets the number of files removed from the cache to stay within the
+     * memory budget or reclaimed by the garbage collector
+     * @return number of evictions
+     */
+    public static synchronized long getEvictionCount() {return evictionCount;}
+    
+    /**
+     * Creates a formatted string with the cache statistics
+     * @return cache statistics string
+     */
+    public static synchronized String getStatistics()
+    {
+        return String.format("File cache: %d hit(s), %d miss(es), %d eviction(s), " +
+            "%d file(s), %.1f of %d MB used.", hitCount, missCount, evictionCount,
+            entries.size(), (double)sizeBytes/BYTES_PER_MB, maxSizeBytes/BYTES_PER_MB);
+    }
+    
+    private static String getKey(File file)
+    {
+        try {
+            return file.getCanonicalPath();
+        }
+        catch (IOException ex) {
+            return file.getAbsolutePath();
+        }
+    }
+    
+    /**
+     * Gets a cached value, provided it is still valid for the file length and
+     * last-modified time, and updates the statistics
+     * @return cached value, or null if none is cached
+     */
+    private static synchronized Object lookup(String key, long length, long lastModified)
+    {
+        CacheEntry entry = entries.get(key);
+        
+        if (entry != null) {
+            Object value = entry.valueRef.get();
+            
+            if (value != null && entry.length == length && 
+                entry.lastModified == lastModified) {
+                hitCount++;
+                return value;
+            }
+            
+            removeEntry(key);
+        }
+        
+        missCount++;
+        return null;
+    }
+    
+    private static synchronized void store(String key, Object value, long length,
+        long lastModified, long size)
+    {
+        if (size > maxSizeBytes)
+            return;
+        
+        removeEntry(key);
+        entries.put(key, new CacheEntry(value,length,lastModified,size));
+        sizeBytes += size;
+        trimToSize();
+    }
+    
+    private static void removeEntry(String key)
+    {
+        CacheEntry entry = entries.remove(key);
+        
+        if (entry != null)
+            sizeBytes -= entry.size;
+    }
+    
+    private static void trimToSize()
+    {
+        // Drop entries already reclaimed by the garbage collector.
+        Iterator<Map.Entry<String,CacheEntry>> iter = entries.entrySet().iterator();
+        while (iter.hasNext()) {
+            CacheEntry entry = iter.next().getValue();
+            
+            if (entry.valueRef.get() == null) {
+                sizeBytes -= entry.size;
+                evictionCount++;
+                iter.remove();
+            }
+        }
+        
+        // Drop least recently used entries until within the memory budget.
+        iter = entries.entrySet().iterator();
+        while (sizeBytes > maxSizeBytes && iter.hasNext()) {
+            sizeBytes -= iter.next().getValue().size;
+            evictionCount++;
+            iter.remove();
+        }
+    }
+    
+    private static long estimateSize(SmFile smFile)
+    {
+        long size = 0;
+        
+        for (SmRec smRec : smFile.getSmRecs()) {
+            SmTrace smTrace = smRec.getSmTrace();
+            
+            size += REC_OVERHEAD_BYTES;
+            if (smTrace != null && smTrace.hasDisplayPrecision())
+                size += smTrace.size()*BYTES_PER_FLOAT_SAMPLE;
+            else if (smTrace != null)
+                size += smTrace.getSamples().length*BYTES_PER_SAMPLE;
+        }
+        
+        return size;
+    }
+    
+    /**
+     * This class defines a cache entry, which holds the parsed file or headers
+     * along with the file length and last-modified time at the time it was read.
+     */
+    private static class CacheEntry {
+        private final SoftReference<Object> valueRef;
+        private final long length;
+        private final long lastModified;
+        private final long size;
+        
+        public CacheEntry(Object value, long length, long lastModified, long size)
+        {
+            this.valueRef = new SoftReference<>(value);
+            this.length = length;
+            this.lastModified = lastModified;
+            this.size = size;
+        }
+    }
+}
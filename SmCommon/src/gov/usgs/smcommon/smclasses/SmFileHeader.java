@@ -0,0 +1,218 @@
+/*******************************************************************************
+ * Name: Java class SmFileHeader.java
+ * Project: PRISM Review Tool
+ * Written by: Peter Ng, USGS, png@usgs.gov
+ * 
+ * This software is in the public domain because it contains materials that 
+ * originally came from the United States Geological Survey, an agency of the 
+ * United States Department of Interior. For more information, see the official 
+ * USGS copyright policy at 
+ * http://www.usgs.gov/visual-id/credit_usgs.html#copyright
+ * 
+ * Date: first release date Feb. 2015
+ ******************************************************************************/
+
+package gov.usgs.smcommon.smclasses;
+
+import COSMOSformat.COSMOScontentFormat;
+import COSMOSformat.V0Component;
+import COSMOSformat.V1Component;
+import COSMOSformat.V2Component;
+import SmException.FormatException;
+import SmException.SmException;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * This class defines a structure for storing the record headers of a COSMOS
+ * formatted file (i.e. V0, V1, V2, or V3) without reading its data. The data
+ * lines of each record are skipped using the sample count in the data format
+ * line, so no data values are converted (see SmCosmosReader). Files that
+ * SmCosmosReader rejects are parsed with SmQueue instead, as in SmFile. Use
+ * this class instead of SmFile when only header fields, such as the start
+ * time, delta time, channel, station, or event name, are needed.
+ * @author png
+ */
+public class SmFileHeader {
+    
+    private final File file;
+    private final String fileName;
+    private final String fileDataType; //V0, V1, V2, or V3
+    private ArrayList<SmRecHeader> smRecHeaders;
+    
+    /**
+     * Constructor
+     * @param file File object that references a particular COSMOS file
+     */
+    public SmFileHeader(File file)
+    {
+        this(file,Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Constructor
+     * @param file File object that references a particular COSMOS file
+     * @param maxRecs maximum number of record headers to read. Reading stops
+     * after the last requested header, so the rest of the file is not read.
+     */
+    public SmFileHeader(File file, int maxRecs)
+    {
+        this.file = file;
+        this.fileName = file.getName();
+        this.fileDataType = SmFile.calcFileDataType(file);
+        
+        try {
+            this.smRecHeaders = readSmRecHeaders(file,this.fileDataType,maxRecs);
+        }
+        catch (IOException | FormatException ex) {
+            System.out.format("Unable to read or parse file header: %s - %s%n",
+                    file.getName(), ex.getMessage());
+        }
+    }
+    
+    /**
+     * Gets the File object for the referenced COSMOS file
+     * @return File object for the referenced COSMOS file
+     */
+    public File getFile() {return this.file;}
+    
+    /**
+     * Gets the file name of the COSMOS file
+     * @return file name of COSMOS file
+     */
+    public String getFileName() {return this.fileName;}
+    
+    /**
+     * Gets the COSMOS file data type (i.e. V0, V1, V2, or V3) of referenced
+     * COSMOS file
+     * @return COSMOS file data type of referenced COSMOS file
+     */
+    public String getFileDataType() {return this.fileDataType;}
+    
+    /**
+     * Gets the array list of SmRecHeader objects, one for each record component
+     * read from the referenced COSMOS file
+     * @return array list of SmRecHeader objects, or null if the file could not
+     * be read
+     */
+    public ArrayList<SmRecHeader> getSmRecHeaders() {return this.smRecHeaders;}
+    
+    /**
+     * Reads the record headers of a COSMOS file, skipping the data section of
+     * each record. If SmCosmosReader rejects the file, the whole file is
+     * parsed with SmQueue and the headers are taken from its records.
+     * @param file File object that references a particular COSMOS file
+     * @param fileDataType COSMOS file data type of referenced COSMOS file
+     * @param maxRecs maximum number of record headers to read
+     * @return array list of SmRecHeader objects
+     * @throws IOException if the file cannot be read
+     * @throws FormatException if a record header is not in COSMOS format
+     */
+    public static ArrayList<SmRecHeader> readSmRecHeaders(File file, 
+        String fileDataType, int maxRecs) throws IOException, FormatException
+    {
+        try {
+            return SmCosmosReader.readSmRecHeaders(file,fileDataType,maxRecs);
+        }
+        catch (FormatException ex) {
+            // Fall back to the COSMOS parser for files the fast reader rejects.
+            return readSmRecHeadersWithQueue(file,fileDataType,maxRecs);
+        }
+    }
+    
+    /**
+     * Reads the record headers of a COSMOS file with the COSMOS parser in
+     * SmQueue, which parses the whole file.
+     * @param file File object that references a particular COSMOS file
+     * @param fileDataType COSMOS file data type of referenced COSMOS file
+     * @param maxRecs maximum number of record headers to read
+     * @return array list of SmRecHeader objects
+     * @throws IOException if the file cannot be read
+     * @throws FormatException if the file is not in COSMOS format
+     */
+    static ArrayList<SmRecHeader> readSmRecHeadersWithQueue(File file, 
+        String fileDataType, int maxRecs) throws IOException, FormatException
+    {
+        try {
+            ArrayList<SmRecHeader> headers = new ArrayList<>();
+            
+            for (COSMOScontentFormat rec : SmFile.parseWithQueue(file,fileDataType)) {
+                if (headers.size() >= maxRecs)
+                    break;
+                
+                headers.add(new SmRecHeader(rec.getProcType(), rec.getTextHeader(),
+                    getIntHeader(rec), getRealHeader(rec), getComments(rec),
+                    getDataLength(rec)));
+            }
+            
+            return headers;
+        }
+        catch (SmException ex) {
+            throw new FormatException(ex.getMessage());
+        }
+    }
+    
+    // SmQueue records do not expose the size of their headers, so the values
+    // are copied up to the first index that is out of range.
+    private static int[] getIntHeader(COSMOScontentFormat rec)
+    {
+        ArrayList<Integer> vals = new ArrayList<>();
+        
+        try {
+            while (true)
+                vals.add(rec.getIntHeaderValue(vals.size()));
+        }
+        catch (SmException | IndexOutOfBoundsException ex) {
+        }
+        
+        int[] intHeader = new int[vals.size()];
+        for (int i=0; i<intHeader.length; i++)
+            intHeader[i] = vals.get(i);
+        
+        return intHeader;
+    }
+    
+    private static double[] getRealHeader(COSMOScontentFormat rec)
+    {
+        ArrayList<Double> vals = new ArrayList<>();
+        
+        try {
+            while (true)
+                vals.add(rec.getRealHeaderValue(vals.size()));
+        }
+        catch (SmException | IndexOutOfBoundsException ex) {
+        }
+        
+        double[] realHeader = new double[vals.size()];
+        for (int i=0; i<realHeader.length; i++)
+            realHeader[i] = vals.get(i);
+        
+        return realHeader;
+    }
+    
+    // SmQueue records keep the comment count line as their first comment line,
+    // which SmCosmosReader does not.
+    private static String[] getComments(COSMOScontentFormat rec)
+    {
+        String[] comments = rec.getComments();
+        
+        if (comments.length > 0 && !comments[0].startsWith("|"))
+            return Arrays.copyOfRange(comments, 1, comments.length);
+        
+        return comments;
+    }
+    
+    private static int getDataLength(COSMOScontentFormat rec)
+    {
+        if (rec instanceof V0Component)
+            return ((V0Component)rec).getDataLength();
+        else if (rec instanceof V1Component)
+            return ((V1Component)rec).getDataLength();
+        else if (rec instanceof V2Component)
+            return ((V2Component)rec).getDataLength();
+        
+        return 0;
+    }
+}
@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Name: Java class SmFileLoader.java
+ * Project: PRISM Review Tool
+ * Written by: Peter Ng, USGS, png@usgs.gov
+ * 
+ * This software is in the public domain because it contains materials that 
+ * originally came from the United States Geological Survey, an agency of the 
+ * United States Department of Interior. For more information, see the official 
+ * USGS copyright policy at 
+ * http://www.usgs.gov/visual-id/credit_usgs.html#copyright
+ * 
+ * Date: first release date Feb. 2015
+ ******************************************************************************/
+
+package gov.usgs.smcommon.smclasses;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * This class defines a service for loading COSMOS files in parallel. The
+ * files are loaded on the shared SmTaskPool, and the results are returned in
+ * the order of the files.
+ * @author png
+ */
+public class SmFileLoader {
+    
+    private SmFileLoader() {}
+    
+    /**
+     * Loads the specified files through SmFileCache in parallel, in display
+     * precision if it is enabled in the preferences.
+     * @param filePaths list of file path names
+     * @return list of SmFile objects, in the same order as the file paths
+     * @throws InterruptedException if the calling thread is interrupted
+     * @throws ExecutionException if loading a file fails
+     */
+    public static ArrayList<SmFile> loadSmFiles(List<String> filePaths) 
+        throws InterruptedException, ExecutionException
+    {
+        return loadSmFiles(filePaths,SmPreferences.General.getDisplayPrecisionEnabled());
+    }
+    
+    /**
+     * Loads the specified files through SmFileCache in parallel.
+     * @param filePaths list of file path names
+     * @param displayPrecision true to load the files in display precision,
+     * false to load them in full precision
+     * @return list of SmFile objects, in the same order as the file paths
+     * @throws InterruptedException if the calling thread is interrupted
+     * @throws ExecutionException if loading a file fails
+     */
+    public static ArrayList<SmFile> loadSmFiles(List<String> filePaths,
+        final boolean displayPrecision) throws InterruptedException, ExecutionException
+    {
+        ArrayList<Callable<SmFile>> tasks = new ArrayList<>(filePaths.size());
+        
+        for (final String filePath : filePaths) {
+            tasks.add(new Callable<SmFile>() {
+                @Override
+                public SmFile call() {
+                    return SmFileCache.getSmFile(new File(filePath),displayPrecision);
+                }
+            });
+        }
+        
+        return SmTaskPool.invokeAll(tasks);
+    }
+    
+    /**
+     * Creates new SmFile objects for the specified files in parallel,
+     * bypassing SmFileCache.
+     * @param files list of File objects
+     * @return list of SmFile objects, in the same order as the files
+     * @throws InterruptedException if the calling thread is interrupted
+     * @throws ExecutionException if loading a file fails
+     */
+    public static ArrayList<SmFile> createSmFiles(List<File> files) 
+        throws InterruptedException, ExecutionException
+    {
+        ArrayList<Callable<SmFile>> tasks = new ArrayList<>(files.size());
+        
+        for (final File file : files) {
+            tasks.add(new Callable<SmFile>() {
+                @Override
+                public SmFile call() {
+                    return new SmFile(file);
+                }
+            });
+        }
+        
+        return SmTaskPool.invokeAll(tasks);
+    }
+}
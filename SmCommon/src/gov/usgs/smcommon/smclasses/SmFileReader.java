@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Name: Java class SmFileReader.java
+ * Project: PRISM Review Tool
+ * Written by: Peter Ng, USGS, png@usgs.gov
+ * 
+ * This software is in the public domain because it contains materials that 
+ * originally came from the United States Geological Survey, an agency of the 
+ * United States Department of Interior. For more information, see the official 
+ * USGS copyright policy at 
+ * http://www.usgs.gov/visual-id/credit_usgs.html#copyright
+ * 
+ * Date: first release date Feb. 2015
+ ******************************************************************************/
+
+package gov.usgs.smcommon.smclasses;
+
+import SmException.FormatException;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * This class defines a reader that streams the records of a COSMOS file one
+ * at a time, rather than materializing all records as SmFile does. Records
+ * are parsed only as the iterator advances, so a caller that needs only the
+ * first record stops after it, and only the current record is held in memory.
+ * If the file cannot be read by SmCosmosReader, the iterator falls back to
+ * the records of the SmFile object from SmFileCache.
+ * <p>
+ * Each call to iterator() starts a new pass over the file. An iterator
+ * releases the file when it is exhausted; the reader should be closed to
+ * release iterators that are abandoned early.
+ * @author png
+ */
+public class SmFileReader implements Iterable<SmRec>, Closeable {
+    
+    private final File file;
+    private final String fileDataType;
+    private final ArrayList<RecIterator> iterators = new ArrayList<>();
+    
+    /**
+     * Constructor
+     * @param file File object that references a particular COSMOS file
+     */
+    public SmFileReader(File file)
+    {
+        this(file, SmFile.calcFileDataType(file));
+    }
+    
+    /**
+     * Constructor
+     * @param file File object that references a particular COSMOS file
+     * @param fileDataType COSMOS file data type of referenced COSMOS file
+     */
+    public SmFileReader(File file, String fileDataType)
+    {
+        this.file = file;
+        this.fileDataType = fileDataType;
+    }
+    
+    /**
+     * Gets the referenced file
+     * @return File object
+     */
+    public File getFile() {return this.file;}
+    
+    /**
+     * Gets the COSMOS file data type of the referenced file
+     * @return COSMOS file data type
+     */
+    public String getFileDataType() {return this.fileDataType;}
+    
+    /**
+     * Creates an iterator that parses the records of the file one at a time
+     * @return iterator of SmRec objects
+     */
+    @Override
+    public synchronized Iterator<SmRec> iterator()
+    {
+        RecIterator iter = new RecIterator();
+        iterators.add(iter);
+        return iter;
+    }
+    
+    /**
+     * Creates an ordered spliterator over the records of the file. Records
+     * are parsed as the spliterator advances.
+     * @return spliterator of SmRec objects
+     */
+    @Override
+    public Spliterator<SmRec> spliterator()
+    {
+        return Spliterators.spliteratorUnknownSize(iterator(), 
+            Spliterator.ORDERED | Spliterator.NONNULL);
+    }
+    
+    /**
+     * Closes all iterators of this reader and releases the file.
+     */
+    @Override
+    public synchronized void close()
+    {
+        for (RecIterator iter : new ArrayList<>(iterators))
+            iter.close();
+    }
+    
+    private synchronized void removeIterator(RecIterator iter)
+    {
+        iterators.remove(iter);
+    }
+    
+    /**
+     * This class iterates over the records of the file. The file is opened on
+     * the first call to hasNext or next.
+     */
+    private class RecIterator implements Iterator<SmRec> {
+        private SmCosmosReader.RecordStream stream = null;
+        private ArrayList<SmRec> fallbackSmRecs = null;
+        private SmRec nextSmRec = null;
+        private int recCnt = 0;
+        private boolean done = false;
+        
+        @Override
+        public boolean hasNext()
+        {
+            if (nextSmRec == null && !done)
+                nextSmRec = readNext();
+            
+            return (nextSmRec != null);
+        }
+        
+        @Override
+        public SmRec next()
+        {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            
+            SmRec smRec = nextSmRec;
+            nextSmRec = null;
+            recCnt++;
+            
+            return smRec;
+        }
+        
+        private SmRec readNext()
+        {
+            SmRec smRec = null;
+            
+            if (fallbackSmRecs == null) {
+                try {
+                    if (stream == null)
+                        stream = new SmCosmosReader.RecordStream(file,fileDataType);
+                    
+                    smRec = stream.next();
+                }
+                catch (IOException | FormatException ex) {
+                    // Fall back to the records of the fully parsed file,
+                    // skipping those already returned.
+                    closeStream();
+                    SmFile smFile = SmFileCache.getSmFile(file,false);
+                    fallbackSmRecs = (smFile.getSmRecs() != null) ? 
+                        smFile.getSmRecs() : new ArrayList<SmRec>();
+                }
+            }
+            
+            if (fallbackSmRecs != null && recCnt < fallbackSmRecs.size())
+                smRec = fallbackSmRecs.get(recCnt);
+            
+            if (smRec == null)
+                close();
+            
+            return smRec;
+        }
+        
+        private void closeStream()
+        {
+            if (stream != null) {
+                stream.close();
+                stream = null;
+            }
+        }
+        
+        private void close()
+        {
+            done = true;
+            closeStream();
+            removeIterator(this);
+        }
+    }
+}
@@ -14,6 +14,8 @@
 
 package gov.usgs.smcommon.smclasses;
 
+import java.util.regex.Pattern;
+
 /**
  * This class defines constants that are referenced throughout the project
  * @author png
@@ -29,6 +31,8 @@ public class SmGlobal {
     public static final String NO_SELECTION = "--No Selection--";
     public static final String PLOT_TYPE_SEISMIC = "Seismic";
     public static final String PLOT_TYPE_SPECTRAL = "Spectral";
+    public static final Pattern CHANNEL_PATTERN = 
+        Pattern.compile("^(.{3})(\\.)(.{2})$");   //seed and location code of a channel
     
     public static final String SM_CHARTS_API_QCCHART2D = "QCChart2D";
     
@@ -15,6 +15,8 @@
 package gov.usgs.smcommon.smclasses;
 
 import com.quinncurtis.chart2djava.ChartConstants;
+import gov.usgs.smcommon.smutilities.SmFFT;
+import gov.usgs.smcommon.smutilities.SmKonnoOhmachi;
 import java.awt.Color;
 import java.util.prefs.Preferences;
 
@@ -50,6 +52,13 @@ public class SmPreferences {
         private static final String LOGS_DIR = "LogsDir";
         private static final String TRASH_DIR = "TrashDir";
         private static final String LAST_VX_DIR = "LastVxDir";
+        private static final String FILE_CACHE_SIZE = "FileCacheSize";
+        private static final String DISK_CACHE_ENABLED = "DiskCacheEnabled";
+        private static final String DISK_CACHE_DIR = "DiskCacheDir";
+        private static final String DISK_CACHE_SIZE = "DiskCacheSize";
+        private static final String DISPLAY_PRECISION_ENABLED = "DisplayPrecisionEnabled";
+        private static final String FFT_PADDING_POLICY = "FFTPaddingPolicy";
+        private static final String SPECTRAL_CACHE_SIZE = "SpectralCacheSize";
         
         /**
          * Gets the events root directory pathname
@@ -116,6 +125,81 @@ public class SmPreferences {
             return prefGeneral.get(LAST_VX_DIR, "");
         }
         
+        /**
+         * Gets the memory budget, in megabytes, of the cache of parsed COSMOS
+         * files
+         * @return memory budget of the file cache in megabytes
+         */
+        public static int getFileCacheSize()
+        {
+            return prefGeneral.getInt(FILE_CACHE_SIZE, 256);
+        }
+        
+        /**
+         * Gets the memory budget, in megabytes, of the cache of Fourier
+         * amplitude spectra
+         * @return memory budget of the spectral cache in megabytes
+         */
+        public static int getSpectralCacheSize()
+        {
+            return prefGeneral.getInt(SPECTRAL_CACHE_SIZE, 64);
+        }
+        
+        /**
+         * Gets the flag indicating whether parsed COSMOS files are stored in
+         * the disk cache for faster reopening
+         * @return true if the disk cache is enabled, false if not set
+         */
+        public static boolean getDiskCacheEnabled()
+        {
+            return prefGeneral.getBoolean(DISK_CACHE_ENABLED, false);
+        }
+        
+        /**
+         * Gets the flag indicating whether the sample data of files loaded
+         * for chart viewing is held in single (float) precision, which halves
+         * its memory use
+         * @return true if display precision is enabled
+         */
+        public static boolean getDisplayPrecisionEnabled()
+        {
+            return prefGeneral.getBoolean(DISPLAY_PRECISION_ENABLED, false);
+        }
+        
+        /**
+         * Gets the disk cache directory pathname. If not set, a directory
+         * named cache next to the logs directory is used.
+         * @return disk cache directory pathname
+         */
+        public static String getDiskCacheDir()
+        {
+            return prefGeneral.get(DISK_CACHE_DIR, "");
+        }
+        
+        /**
+         * Gets the size limit, in megabytes, of the disk cache
+         * @return size limit of the disk cache in megabytes
+         */
+        public static int getDiskCacheSize()
+        {
+            return prefGeneral.getInt(DISK_CACHE_SIZE, 1024);
+        }
+        
+        /**
+         * Gets the padding policy that sets the FFT length of spectral data
+         * @return FFT padding policy, power of 2 if not set
+         */
+        public static SmFFT.PaddingPolicy getFFTPaddingPolicy()
+        {
+            try {
+                return SmFFT.PaddingPolicy.valueOf(prefGeneral.get(FFT_PADDING_POLICY,
+                    SmFFT.PaddingPolicy.POWER_OF_2.name()));
+            }
+            catch (IllegalArgumentException ex) {
+                return SmFFT.PaddingPolicy.POWER_OF_2;
+            }
+        }
+        
         /**
          * Sets the events root directory pathname
          * @param eventsRootDir events root directory pathname
@@ -178,6 +262,73 @@ public class SmPreferences {
         {
             prefGeneral.put(LAST_VX_DIR, lastVxDir);
         }
+        
+        /**
+         * Sets the memory budget, in megabytes, of the cache of parsed COSMOS
+         * files
+         * @param fileCacheSize memory budget of the file cache in megabytes
+         */
+        public static void setFileCacheSize(int fileCacheSize)
+        {
+            prefGeneral.putInt(FILE_CACHE_SIZE, fileCacheSize);
+        }
+        
+        /**
+         * Sets the memory budget, in megabytes, of the cache of Fourier
+         * amplitude spectra
+         * @param spectralCacheSize memory budget of the spectral cache in megabytes
+         */
+        public static void setSpectralCacheSize(int spectralCacheSize)
+        {
+            prefGeneral.putInt(SPECTRAL_CACHE_SIZE, spectralCacheSize);
+        }
+        
+        /**
+         * Sets the flag indicating whether parsed COSMOS files are stored in
+         * the disk cache for faster reopening
+         * @param diskCacheEnabled true to enable the disk cache
+         */
+        public static void setDiskCacheEnabled(boolean diskCacheEnabled)
+        {
+            prefGeneral.putBoolean(DISK_CACHE_ENABLED, diskCacheEnabled);
+        }
+        
+        /**
+         * Sets the flag indicating whether the sample data of files loaded
+         * for chart viewing is held in single (float) precision
+         * @param displayPrecisionEnabled true to enable display precision
+         */
+        public static void setDisplayPrecisionEnabled(boolean displayPrecisionEnabled)
+        {
+            prefGeneral.putBoolean(DISPLAY_PRECISION_ENABLED, displayPrecisionEnabled);
+        }
+        
+        /**
+         * Sets the disk cache directory pathname
+         * @param diskCacheDir disk cache directory pathname
+         */
+        public static void setDiskCacheDir(String diskCacheDir)
+        {
+            prefGeneral.put(DISK_CACHE_DIR, diskCacheDir);
+        }
+        
+        /**
+         * Sets the size limit, in megabytes, of the disk cache
+         * @param diskCacheSize size limit of the disk cache in megabytes
+         */
+        public static void setDiskCacheSize(int diskCacheSize)
+        {
+            prefGeneral.putInt(DISK_CACHE_SIZE, diskCacheSize);
+        }
+        
+        /**
+         * Sets the padding policy that sets the FFT length of spectral data
+         * @param fftPaddingPolicy FFT padding policy
+         */
+        public static void setFFTPaddingPolicy(SmFFT.PaddingPolicy fftPaddingPolicy)
+        {
+            prefGeneral.put(FFT_PADDING_POLICY, fftPaddingPolicy.name());
+        }
     }
     
     /**
@@ -1185,6 +1336,10 @@ public class SmPreferences {
         private static final String DISPLAY_LEGEND = "DisplayLegend";
         private static final String DISPLAY_PLOT_LABELS = "DisplayPlotLabels";
         private static final String DISPLAY_PLOT_ANNOTATION = "DisplayPlotAnnotation";
+        private static final String DISPLAY_SPECTRA_REDUCED = "DisplaySpectraReduced";
+        private static final String SPECTRAL_BINS_PER_DECADE = "SpectralBinsPerDecade";
+        private static final String DISPLAY_SMOOTHED_SPECTRA = "DisplaySmoothedSpectra";
+        private static final String SMOOTHING_BANDWIDTH = "SmoothingBandwidth";
         
         public static int getChartSizeSingleWidth()
         {
@@ -1311,6 +1466,27 @@ public class SmPreferences {
             return PREF_CHART_OPTIONS.getBoolean(DISPLAY_PLOT_ANNOTATION, false);
         }
         
+        public static boolean getDisplaySpectraReduced()
+        {
+            return PREF_CHART_OPTIONS.getBoolean(DISPLAY_SPECTRA_REDUCED, true);
+        }
+        
+        public static int getSpectralBinsPerDecade()
+        {
+            return PREF_CHART_OPTIONS.getInt(SPECTRAL_BINS_PER_DECADE, 100);
+        }
+        
+        public static boolean getDisplaySmoothedSpectra()
+        {
+            return PREF_CHART_OPTIONS.getBoolean(DISPLAY_SMOOTHED_SPECTRA, false);
+        }
+        
+        public static double getSmoothingBandwidth()
+        {
+            return PREF_CHART_OPTIONS.getDouble(SMOOTHING_BANDWIDTH, 
+                SmKonnoOhmachi.DEFAULT_BANDWIDTH);
+        }
+        
         public static void setChartSizeSingleWidth(int chartSizeSingleWidth)
         {
             PREF_CHART_OPTIONS.putInt(CHART_SIZE_SINGLE_WIDTH, chartSizeSingleWidth);
@@ -1435,6 +1611,26 @@ public class SmPreferences {
         {
             PREF_CHART_OPTIONS.putBoolean(DISPLAY_PLOT_ANNOTATION, displayPlotAnnotation);
         }
+        
+        public static void setDisplaySpectraReduced(boolean displaySpectraReduced)
+        {
+            PREF_CHART_OPTIONS.putBoolean(DISPLAY_SPECTRA_REDUCED, displaySpectraReduced);
+        }
+        
+        public static void setSpectralBinsPerDecade(int spectralBinsPerDecade)
+        {
+            PREF_CHART_OPTIONS.putInt(SPECTRAL_BINS_PER_DECADE, spectralBinsPerDecade);
+        }
+        
+        public static void setDisplaySmoothedSpectra(boolean displaySmoothedSpectra)
+        {
+            PREF_CHART_OPTIONS.putBoolean(DISPLAY_SMOOTHED_SPECTRA, displaySmoothedSpectra);
+        }
+        
+        public static void setSmoothingBandwidth(double smoothingBandwidth)
+        {
+            PREF_CHART_OPTIONS.putDouble(SMOOTHING_BANDWIDTH, smoothingBandwidth);
+        }
     }
     
     /**
@@ -1535,6 +1731,8 @@ public class SmPreferences {
         private static final String START_TIME_MARKER_WIDTH = "StartTimeMarkerWidth";
         private static final String STOP_TIME_MARKER_WIDTH = "StopTimeMarkerWidth";
         
+        private static final String MAX_CONCURRENT_WRITES = "MaxConcurrentWrites";
+        
         public static double getStartTime() {
             return PREF_SM_TRIM_TOOL.getDouble(START_TIME, 0.0);
         }
@@ -1593,6 +1791,10 @@ public class SmPreferences {
             return PREF_SM_TRIM_TOOL.getDouble(STOP_TIME_MARKER_WIDTH, 1.0);
         }
         
+        public static int getMaxConcurrentWrites() {
+            return PREF_SM_TRIM_TOOL.getInt(MAX_CONCURRENT_WRITES, 4);
+        }
+        
         public static void setStartTime(double start) {
             PREF_SM_TRIM_TOOL.putDouble(START_TIME, start);
         }
@@ -1652,5 +1854,9 @@ public class SmPreferences {
         public static void setStopTimeMarkerWidth(double width) {
             PREF_SM_TRIM_TOOL.putDouble(STOP_TIME_MARKER_WIDTH, width);
         }
+        
+        public static void setMaxConcurrentWrites(int maxWrites) {
+            PREF_SM_TRIM_TOOL.putInt(MAX_CONCURRENT_WRITES, maxWrites);
+        }
     }
 }
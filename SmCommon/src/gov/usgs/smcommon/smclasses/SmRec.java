@@ -15,15 +15,9 @@
 package gov.usgs.smcommon.smclasses;
 
 
-import static SmConstants.VFileConstants.MSEC_TO_SEC;
-import static gov.usgs.smcommon.smutilities.MathUtils.isPowerOf2_V2;
-import static gov.usgs.smcommon.smutilities.MathUtils.nextPowerOf2;
+import gov.usgs.smcommon.smutilities.SmFFT;
+import gov.usgs.smcommon.smutilities.SmResampler;
 import java.util.ArrayList;
-import javax.swing.JOptionPane;
-import org.apache.commons.math3.complex.Complex;
-import org.apache.commons.math3.transform.DftNormalization;
-import org.apache.commons.math3.transform.FastFourierTransformer;
-import org.apache.commons.math3.transform.TransformType;
 import org.joda.time.DateTime;
 import org.joda.time.Duration;
 
@@ -32,8 +26,10 @@ import org.joda.time.Duration;
  * @author png
  */
 public class SmRec {
-    private ArrayList<SmPoint> smPoints;
-    private ArrayList<SmPoint> smPointsFFT;
+    private SmTrace smTrace;
+    private SmTrace smTraceFFT;     //created on first request, see getSmTraceFFT
+    private SmTrace smTraceResampled;   //created on first request, see getResampledSmTrace
+    private double resampledDeltaT;
     
     private String stationCode;
     private String stationName;
@@ -45,6 +41,7 @@ public class SmRec {
     private DateTime endDateTime;
     
     private double deltaT;          //Time interval in milli-seconds
+    private double unitConversionFactor;
     private double durationMs;      //Time series duration in milli-seconds
     private double maxVal;
     private String eventName;
@@ -58,7 +55,17 @@ public class SmRec {
         double deltaT, double unitConversionFactor, double maxVal, String eventName, 
         String eventDateTime, int dataParmCode, int dataUnitCode )
     {
-        this.smPoints = smPoints;
+        this(SmTrace.fromSmPoints(smPoints), channel, sensorLocation, stationCode,
+            stationName, networkCode, startDateTime, deltaT, unitConversionFactor, maxVal,
+            eventName, eventDateTime, dataParmCode, dataUnitCode);
+    }
+    
+    public SmRec(SmTrace smTrace, String channel, String sensorLocation,
+        String stationCode, String stationName, String networkCode, DateTime startDateTime, 
+        double deltaT, double unitConversionFactor, double maxVal, String eventName, 
+        String eventDateTime, int dataParmCode, int dataUnitCode )
+    {
+        this.smTrace = smTrace;
         
         this.channel = channel;
         this.sensorLocation = sensorLocation;
@@ -67,7 +74,8 @@ public class SmRec {
         this.networkCode = networkCode;
        
         this.deltaT = deltaT;
-        this.durationMs = (smPoints.size()-1)*this.deltaT;
+        this.unitConversionFactor = unitConversionFactor;
+        this.durationMs = (smTrace.size()-1)*this.deltaT;
         this.maxVal = maxVal;
         this.eventName = eventName;
         this.eventDateTime = eventDateTime;
@@ -75,8 +83,6 @@ public class SmRec {
         this.dataParmCode = dataParmCode;
         this.dataUnitCode = dataUnitCode;
 
-        this.smPointsFFT = createSmPointsFFT(this.smPoints, this.deltaT, unitConversionFactor);
-
         this.startDateTime = startDateTime;
         this.endDateTime = calcEndDateTime(this.startDateTime,this.durationMs);
     }
@@ -84,15 +90,15 @@ public class SmRec {
     // Copy Constructor
     public SmRec(SmRec smRec)
     {
-        this.smPoints = new ArrayList<>();
-        for (SmPoint smPoint : smRec.getSmPoints()) {
-            this.smPoints.add(new SmPoint(smPoint));
-        }
+        // Traces are immutable, so the copy shares the sample arrays of the
+        // source record until one of them sets a new trace.
+        this.smTrace = new SmTrace(smRec.getSmTrace());
         
-        this.smPointsFFT = new ArrayList<>();
-        for (SmPoint smPointFFT : smRec.getSmPointsFFT()) {
-            this.smPointsFFT.add(new SmPoint(smPointFFT));
-        }
+        // Share the spectrum only if the source record has already created it
+        // from full precision data.
+        SmTrace srcSmTraceFFT = smRec.peekSmTraceFFT();
+        this.smTraceFFT = (srcSmTraceFFT != null && !smRec.getSmTrace().hasDisplayPrecision()) ? 
+            srcSmTraceFFT : null;
         
         this.channel = smRec.getChannel();
         this.sensorLocation = smRec.getSensorLocation();
@@ -104,6 +110,7 @@ public class SmRec {
         this.endDateTime = smRec.getEndDateTime();
         
         this.deltaT = smRec.getDeltaT();
+        this.unitConversionFactor = smRec.getUnitConversionFactor();
         this.durationMs = smRec.getDurationMs();
         this.maxVal = smRec.getMaxVal();
         this.eventName = smRec.getEventName();
@@ -113,9 +120,18 @@ public class SmRec {
         this.dataUnitCode = smRec.getDataUnitCode();
     }
 
-    public ArrayList<SmPoint> getSmPoints() {return this.smPoints;}
+    public SmTrace getSmTrace() {return this.smTrace;}
+    
+    public synchronized void setSmTrace(SmTrace smTrace) {
+        this.smTrace = smTrace;
+        this.smTraceFFT = null;
+        this.smTraceResampled = null;
+    }
+    
+    // Adapter for code that still expects a list of SmPoint objects.
+    public ArrayList<SmPoint> getSmPoints() {return this.smTrace.toSmPoints();}
 
-    public void setSmPoints(ArrayList<SmPoint> smPoints) {this.smPoints = smPoints;}
+    public void setSmPoints(ArrayList<SmPoint> smPoints) {setSmTrace(SmTrace.fromSmPoints(smPoints));}
     
     public String getChannel() {return this.channel;}
     
@@ -139,6 +155,8 @@ public class SmRec {
     
     public DateTime getStartDateTime() {return this.startDateTime;}
     
+    public long getStartEpochNanos() {return SmTimeAlignment.toEpochNanos(this.startDateTime);}
+    
     public void setStartDateTime(DateTime startDateTime) {this.startDateTime = startDateTime;}
     
     public DateTime getEndDateTime() {return this.endDateTime;}
@@ -147,7 +165,13 @@ public class SmRec {
 
     public double getDeltaT() {return this.deltaT;}
 
-    public void setDeltaT(double deltaT) {this.deltaT = deltaT;}
+    public synchronized void setDeltaT(double deltaT) {
+        this.deltaT = deltaT;
+        this.smTraceFFT = null;
+        this.smTraceResampled = null;
+    }
+    
+    public double getUnitConversionFactor() {return this.unitConversionFactor;}
     
     public double getDurationMs() {return this.durationMs;}
     
@@ -169,103 +193,104 @@ public class SmRec {
 
     public void setDataParmCode(int dataParmCode) {this.dataParmCode = dataParmCode;}
 
-    public ArrayList<SmPoint> getSmPointsFFT() {return this.smPointsFFT;}
+    /**
+     * Gets the Fourier amplitude spectrum of the record samples. The spectrum
+     * is created on the first call and cached until the samples or delta time
+     * change.
+     * @return SmTrace object, where x is the frequency and y the amplitude.
+     */
+    public synchronized SmTrace getSmTraceFFT() {
+        if (this.smTraceFFT == null)
+            this.smTraceFFT = createSmTraceFFT(this.smTrace, this.deltaT, this.unitConversionFactor);
+        
+        return this.smTraceFFT;
+    }
+    
+    /**
+     * Gets the record samples resampled to the specified delta time, see
+     * SmResampler. The resampled trace is created on the first call and cached
+     * until the samples or delta time change or another delta time is requested.
+     * @param targetDeltaT delta time of the resampled trace, in milli-seconds
+     * @return SmTrace object, or the record trace if its delta time equals
+     * targetDeltaT
+     */
+    public synchronized SmTrace getResampledSmTrace(double targetDeltaT) {
+        if (SmResampler.isSameInterval(this.deltaT, targetDeltaT))
+            return this.smTrace;
+        
+        if (this.smTraceResampled == null || this.resampledDeltaT != targetDeltaT) {
+            this.smTraceResampled = SmResampler.resample(this.smTrace, this.deltaT, targetDeltaT);
+            this.resampledDeltaT = targetDeltaT;
+        }
+        
+        return this.smTraceResampled;
+    }
+    
+    // Adapter for code that still expects a list of SmPoint objects.
+    public ArrayList<SmPoint> getSmPointsFFT() {
+        SmTrace fft = getSmTraceFFT();
+        return (fft != null) ? fft.toSmPoints() : null;
+    }
+    
+    // Returns the cached spectrum, if any, without creating it.
+    private synchronized SmTrace peekSmTraceFFT() {return this.smTraceFFT;}
 
     public int getDataUnitCode() {return this.dataUnitCode;}
 
     public void setDataUnitCode(int dataUnitCode) {this.dataUnitCode = dataUnitCode;}
     
     /**
-     * Returns an adjusted, padded array of SmPoint objects, where for each 
-     * SmPoint, the x value represents the time (in seconds) relative to the
-     * earliest start date time and the y value the recorded COSMOS data value.
-     * SmPoint objects are added to the array as necessary to pad the time between
-     * the earliest start date time and the record start date time and between the
-     * the record stop date time and the latest stop date time.
-     * date time difference.
+     * Returns an adjusted, padded array of SmPoint objects. See
+     * createAdjustedSmTracePadded.
      * @param earliestStartDateTime
      * @param latestStopDateTime
-     * @param minDeltaT
      * @return ArrayList of SmPoints objects.
      */
     public ArrayList<SmPoint> createAdjustedSmPointsPadded(DateTime earliestStartDateTime,
         DateTime latestStopDateTime)
     {
-        if (startDateTime.isAfter(endDateTime))
-            return null;
+        SmTrace adjustedSmTrace = createAdjustedSmTracePadded(earliestStartDateTime,
+            latestStopDateTime);
         
-        if (earliestStartDateTime.isAfter(latestStopDateTime))
+        return (adjustedSmTrace != null) ? adjustedSmTrace.toSmPoints() : null;
+    }
+    
+    /**
+     * Returns an adjusted, padded trace, where for each sample, the x value 
+     * represents the time (in seconds) relative to the earliest start date time 
+     * and the y value the recorded COSMOS data value. Samples are added to the 
+     * trace as necessary to pad the time between the earliest start date time 
+     * and the record start date time and between the record stop date time and 
+     * the latest stop date time.
+     * @param earliestStartDateTime
+     * @param latestStopDateTime
+     * @return SmTrace object.
+     */
+    public SmTrace createAdjustedSmTracePadded(DateTime earliestStartDateTime,
+        DateTime latestStopDateTime)
+    {
+        if (startDateTime.isAfter(endDateTime))
             return null;
         
-        double firstY = this.getSmPoints().get(0).getY();
-        double lastY = this.getSmPoints().get(this.getSmPoints().size()-1).getY();
-        
-        ArrayList<SmPoint> adjustedSmPoints = new ArrayList<>();
-        
-        Duration durTimeRange = new Duration(earliestStartDateTime,latestStopDateTime);
-        double timeRangeMs = durTimeRange.getMillis();
-        //long expectedNumPts = Math.round(timeRangeMs/deltaT)+1;
-        long expectedNumPts = ((long)(timeRangeMs/deltaT))+1;
-        
-        long actualNumPts = 0;
-        double xVal = 0;
-        DateTime curDateTime;
-            
-        // Add points for period between earliest and record start DateTimes.
-        if (startDateTime.isAfter(earliestStartDateTime))
-        {
-            curDateTime = earliestStartDateTime;
-            
-            // Create points before record start DateTime.
-            while (curDateTime.isBefore(startDateTime))
-            {
-                adjustedSmPoints.add(new SmPoint(xVal*MSEC_TO_SEC,firstY));
-                xVal += deltaT;
-                //curDateTime = curDateTime.plusMillis((int) Math.round(deltaT));
-                curDateTime = curDateTime.plusMillis((int)deltaT);
-                actualNumPts++;
-            }
-        }
-        
-        // Create points for period between record start and end DateTimes.
-        curDateTime = startDateTime;
-        for (SmPoint smPoint : this.getSmPoints())
-        {
-            adjustedSmPoints.add(new SmPoint(xVal*MSEC_TO_SEC,smPoint.getY()));
-            xVal += deltaT;
-            //curDateTime = curDateTime.plusMillis((int) Math.round(deltaT));
-            curDateTime = curDateTime.plusMillis((int)deltaT);
-            actualNumPts++;
-        }
-        
-        // Create points for period between record end and latest DateTimes.
-        if (curDateTime.isBefore(latestStopDateTime))
-        {
-            while (!curDateTime.isAfter(latestStopDateTime))
-            {
-                adjustedSmPoints.add(new SmPoint(xVal*MSEC_TO_SEC,lastY));
-                xVal += deltaT;
-                //curDateTime = curDateTime.plusMillis((int) Math.round(deltaT));
-                curDateTime = curDateTime.plusMillis((int)deltaT);
-                actualNumPts++;
-            }
-        }
-        
-        // Add additional points to equal adjusted number of points.
-        while (actualNumPts < expectedNumPts)
-        {
-            adjustedSmPoints.add(new SmPoint(xVal*MSEC_TO_SEC,lastY));
-            xVal += deltaT;
-            actualNumPts++;
-        }
-            
-        return adjustedSmPoints;
+        return createAdjustedSmTracePadded(SmTimeAlignment.toEpochNanos(earliestStartDateTime),
+            SmTimeAlignment.toEpochNanos(latestStopDateTime));
     }
     
     /**
-     * Returns an adjusted, unpadded array of SmPoint objects, where for each 
-     * SmPoint, the x value represents the time (in seconds) relative to the
-     * earliest start date time and the y value the recorded COSMOS data value.
+     * Returns an adjusted, padded trace. See SmTimeAlignment.alignPadded.
+     * @param earliestStartNanos earliest start time, in epoch nanoseconds
+     * @param latestStopNanos latest stop time, in epoch nanoseconds
+     * @return SmTrace object.
+     */
+    public SmTrace createAdjustedSmTracePadded(long earliestStartNanos, long latestStopNanos)
+    {
+        return SmTimeAlignment.alignPadded(smTrace, getStartEpochNanos(), deltaT,
+            earliestStartNanos, latestStopNanos);
+    }
+    
+    /**
+     * Returns an adjusted, unpadded array of SmPoint objects. See
+     * createAdjustedSmTraceUnpadded.
      * @param earliestStartDateTime
      * @param latestStopDateTime
      * @return ArrayList of SmPoints objects.
@@ -273,137 +298,105 @@ public class SmRec {
     public ArrayList<SmPoint> createAdjustedSmPointsUnpadded(DateTime earliestStartDateTime,
         DateTime latestStopDateTime)
     {
-        if (earliestStartDateTime.isAfter(latestStopDateTime))
-            return null;
+        SmTrace adjustedSmTrace = createAdjustedSmTraceUnpadded(earliestStartDateTime,
+            latestStopDateTime);
         
-        ArrayList<SmPoint> adjustedSmPoints = new ArrayList<>();
-        
-        if (startDateTime.isAfter(earliestStartDateTime))
-        {
-            Duration durStartDateTimeDiff = new Duration(earliestStartDateTime,startDateTime);
-        
-            // Initialize x to the start duration difference relative to earliest start 
-            // time, which, in this case, is at time zero.
-            double xVal = durStartDateTimeDiff.getMillis();
-            
-            for (SmPoint smPoint : smPoints) {
-                adjustedSmPoints.add(new SmPoint(xVal*MSEC_TO_SEC,smPoint.getY()));
-                xVal += deltaT;
-            }
-        }
-        else if (startDateTime.isBefore(earliestStartDateTime)) {
-            Duration durStartDateTimeDiff = new Duration(startDateTime,earliestStartDateTime);
-        
-            // Initialize x to time zero.
-            double xVal = 0;
-            
-            for (SmPoint smPoint : smPoints) {
-                // Include the point only if current x is at or after the
-                // start date time duration difference.
-                if (xVal >= durStartDateTimeDiff.getMillis()) {
-                    adjustedSmPoints.add(new SmPoint(smPoint.getX(),smPoint.getY()));
-                }
-                
-                xVal += deltaT;
-            }
-        }
-        else if (startDateTime.isEqual(earliestStartDateTime)) {
-            for (SmPoint smPoint : smPoints) {
-                adjustedSmPoints.add(new SmPoint(smPoint.getX(),smPoint.getY()));
-            }
-        }
-        
-        // Remove points from the adjusted points array that occur after the 
-        // latest stop date time.
-        if (endDateTime.isBefore(latestStopDateTime)) {
-            // do nothing
-        }
-        else if (endDateTime.isAfter(latestStopDateTime)) {
-            Duration durStopDateTimeDiff = new Duration(earliestStartDateTime,latestStopDateTime);
-            
-            ArrayList<SmPoint> adjustedSmPoints2 = new ArrayList<>();
-            
-            // Initialize x to the time of first point in adjusted points array,
-            // converting the time to milli-seconds.
-            double xVal = adjustedSmPoints.get(0).getX() / MSEC_TO_SEC;
-            
-            for (SmPoint smPoint : adjustedSmPoints) {
-                // Add point to array only if x is less than the stop
-                // date time duration difference.
-                if (xVal < durStopDateTimeDiff.getMillis()) {
-                    adjustedSmPoints2.add(new SmPoint(smPoint.getX(),smPoint.getY()));
-                    xVal += deltaT;
-                }
-            }
-            
-            adjustedSmPoints = adjustedSmPoints2;
-        }
-        else if (endDateTime.isEqual(latestStopDateTime)) {
-            // do nothing
-        }
-        
-        return adjustedSmPoints;
+        return (adjustedSmTrace != null) ? adjustedSmTrace.toSmPoints() : null;
+    }
+    
+    /**
+     * Returns an adjusted, unpadded trace, where for each sample, the x value 
+     * represents the time (in seconds) relative to the earliest start date time 
+     * and the y value the recorded COSMOS data value. The returned trace is a 
+     * view that shares the record sample array.
+     * @param earliestStartDateTime
+     * @param latestStopDateTime
+     * @return SmTrace object.
+     */
+    public SmTrace createAdjustedSmTraceUnpadded(DateTime earliestStartDateTime,
+        DateTime latestStopDateTime)
+    {
+        return createAdjustedSmTraceUnpadded(SmTimeAlignment.toEpochNanos(earliestStartDateTime),
+            SmTimeAlignment.toEpochNanos(latestStopDateTime));
+    }
+    
+    /**
+     * Returns an adjusted, unpadded trace. See SmTimeAlignment.alignUnpadded.
+     * @param earliestStartNanos earliest start time, in epoch nanoseconds
+     * @param latestStopNanos latest stop time, in epoch nanoseconds
+     * @return SmTrace object.
+     */
+    public SmTrace createAdjustedSmTraceUnpadded(long earliestStartNanos, long latestStopNanos)
+    {
+        return SmTimeAlignment.alignUnpadded(smTrace, getStartEpochNanos(), deltaT,
+            earliestStartNanos, latestStopNanos);
     }
     
     public static ArrayList<SmPoint> createSmPointsFFT(ArrayList<SmPoint> smPoints, double deltaT,
         double unitConversionFactor)
     {
-        try {
-            int pointsFFTLen = (isPowerOf2_V2(smPoints.size())) ?
-                smPoints.size() : nextPowerOf2(smPoints.size());
-            double[] pointsFFT = new double[pointsFFTLen];
-
-    //        double lastY = smPoints.get(smPoints.size()-1).getY();
-
-            for (int i=0; i<pointsFFTLen; i++)
-            {
-    //            pointsFFT[i] = (i < smPoints.size()) ? smPoints.get(i).getY() : lastY;
-                pointsFFT[i] = (i < smPoints.size()) ? smPoints.get(i).getY() : 0;
-            }
-
-            FastFourierTransformer fft = new FastFourierTransformer(DftNormalization.STANDARD);
-            Complex[] pointsComplexFFT = fft.transform(pointsFFT, TransformType.FORWARD);
-
-            double totalTime = (deltaT * unitConversionFactor)*(pointsFFT.length-1);
-            double deltaF = 1 / totalTime;
-
-            // Create SmPoints object list, skipping over the first point because
-            // frequency = 0 for the first point.
-            ArrayList<SmPoint> smPointsFFT = new ArrayList<>();
-
-            double frequency = 0;
-            double magnitude = 0;
-
-            for (int i=0; i<pointsFFT.length; i++)
-            {
-                magnitude = Math.sqrt((pointsComplexFFT[i].getReal()*pointsComplexFFT[i].getReal()) +
-                    (pointsComplexFFT[i].getImaginary()*pointsComplexFFT[i].getImaginary()));
+        SmTrace smTraceFFT = createSmTraceFFT(SmTrace.fromSmPoints(smPoints), deltaT, 
+            unitConversionFactor);
+        
+        return smTraceFFT.toSmPoints();
+    }
+    
+    public static SmTrace createSmTraceFFT(SmTrace smTrace, double deltaT,
+        double unitConversionFactor)
+    {
+        return createSmTraceFFT(smTrace, deltaT, unitConversionFactor,
+            SmPreferences.General.getFFTPaddingPolicy());
+    }
+    
+    /**
+     * Creates the one-sided Fourier amplitude spectrum of a trace, zero padded
+     * to the FFT length of the padding policy. This method may be called from
+     * any thread; errors are thrown to the caller rather than shown.
+     * @param smTrace trace of the samples
+     * @param deltaT sample interval
+     * @param unitConversionFactor factor converting deltaT to seconds
+     * @param paddingPolicy padding policy of the FFT length
+     * @return SmTrace object, where x is the frequency and y the amplitude
+     * @throws IllegalArgumentException if the spectrum cannot be computed
+     */
+    public static SmTrace createSmTraceFFT(SmTrace smTrace, double deltaT,
+        double unitConversionFactor, SmFFT.PaddingPolicy paddingPolicy)
+    {
+        // Reuse the spectrum of identical samples, if cached.
+        SmSpectralCache.Key key = SmSpectralCache.createKey(smTrace,
+            deltaT * unitConversionFactor, paddingPolicy);
+        SmTrace cachedSmTraceFFT = SmSpectralCache.get(key);
+        
+        if (cachedSmTraceFFT != null)
+            return cachedSmTraceFFT;
+        
+        int pointsFFTLen = SmFFT.getFFTLength(smTrace.size(), paddingPolicy);
 
-                smPointsFFT.add(new SmPoint(frequency,magnitude));
+        double totalTime = (deltaT * unitConversionFactor)*pointsFFTLen;
+        double deltaF = 1 / totalTime;
 
-                frequency += deltaF;
-            }
-            
-            return smPointsFFT;
-        }
-        catch (Exception ex) {
-            JOptionPane.showMessageDialog(null,ex.getMessage(),"Error",JOptionPane.ERROR_MESSAGE);
-        }
+        // Create one-sided magnitude array, zero padding the samples to the 
+        // FFT length, where the frequency of sample i is i*deltaF (bin k of
+        // an N point FFT is at k/(N*dt)) and, for even N, the last sample is
+        // at the Nyquist frequency.
+        double[] magnitudes = SmFFT.amplitudeSpectrum(smTrace.getSamples(),
+            smTrace.getOffset(), smTrace.size(), pointsFFTLen);
+        
+        SmTrace smTraceFFT = new SmTrace(magnitudes, 0, deltaF);
+        SmSpectralCache.put(key, smTraceFFT);
         
-        return null;
+        return smTraceFFT;
     }
     
-    private double calcMinFrequency(ArrayList<SmPoint> smPointsFFT)
+    private double calcMinFrequency(SmTrace smTraceFFT)
     {
-        SmPoint smPoint = smPointsFFT.get(1); // 2nd point frequency = DeltaF
-        return smPoint.getX();
+        return smTraceFFT.getX(1); // 2nd point frequency = DeltaF
     }
 
-    private double calcMaxFrequency(ArrayList<SmPoint> smPointsFFT)
+    private double calcMaxFrequency(SmTrace smTraceFFT)
     {
-        int nyquistIndx = smPointsFFT.size()/2;
-        SmPoint smPoint = smPointsFFT.get(nyquistIndx);
-        return smPoint.getX();
+        int nyquistIndx = smTraceFFT.size()-1;
+        return smTraceFFT.getX(nyquistIndx);
     }
 
     private double calcMinFrequencyBoundary(double minFrequency)
@@ -416,17 +409,16 @@ public class SmRec {
         return Math.ceil(Math.log10(maxFrequency));
     }
 
-    private double calcMinMagnitude(ArrayList<SmPoint> smPointsFFT)
+    private double calcMinMagnitude(SmTrace smTraceFFT)
     {
         // Initialize return variable.
-        double minMagnitude = smPointsFFT.get(1).getY();
+        double minMagnitude = smTraceFFT.getY(1);
         
-        int nyquistIndx = smPointsFFT.size()/2;
+        int nyquistIndx = smTraceFFT.size()-1;
         
         for (int i=1; i<nyquistIndx; i++)
         {
-            SmPoint smPointFFT = smPointsFFT.get(i);
-            double yVal = smPointFFT.getY();
+            double yVal = smTraceFFT.getY(i);
 
             if (minMagnitude > yVal)
                 minMagnitude = yVal;
@@ -435,17 +427,16 @@ public class SmRec {
         return minMagnitude;
     }
 
-    private double calcMaxMagnitude(ArrayList<SmPoint> smPointsFFT)
+    private double calcMaxMagnitude(SmTrace smTraceFFT)
     {
         // Initialize return variable.
-        double maxMagnitude = smPointsFFT.get(1).getY();
+        double maxMagnitude = smTraceFFT.getY(1);
         
-        int nyquistIndx = smPointsFFT.size()/2;
+        int nyquistIndx = smTraceFFT.size()-1;
         
         for (int i=1; i<nyquistIndx; i++)
         {
-            SmPoint smPointFFT = smPointsFFT.get(i);
-            double yVal = smPointFFT.getY();
+            double yVal = smTraceFFT.getY(i);
 
             if (maxMagnitude < yVal)
                 maxMagnitude = yVal;
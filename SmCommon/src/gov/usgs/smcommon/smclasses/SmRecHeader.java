@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Name: Java class SmRecHeader.java
+ * Project: PRISM Review Tool
+ * Written by: Peter Ng, USGS, png@usgs.gov
+ * 
+ * This software is in the public domain because it contains materials that 
+ * originally came from the United States Geological Survey, an agency of the 
+ * United States Department of Interior. For more information, see the official 
+ * USGS copyright policy at 
+ * http://www.usgs.gov/visual-id/credit_usgs.html#copyright
+ * 
+ * Date: first release date Feb. 2015
+ ******************************************************************************/
+
+package gov.usgs.smcommon.smclasses;
+
+import static SmConstants.VFileConstants.DATA_PHYSICAL_PARAM_CODE;
+import static SmConstants.VFileConstants.DELTA_T;
+import static SmConstants.VFileConstants.MSEC_TO_SEC;
+import static SmConstants.VFileConstants.V_UNITS_INDEX;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.joda.time.DateTime;
+import org.joda.time.Duration;
+
+/**
+ * This class defines a lightweight structure for storing the header of a
+ * record component from a COSMOS file, without its data. Header records are
+ * created by SmFileHeader, which skips the data section of each record.
+ * @author png
+ */
+public class SmRecHeader {
+    
+    private static final Pattern SCNL_PATTERN = Pattern.compile("(<SCNL>)(\\S+)");
+    
+    private final String procType;
+    private final String[] textHeader;
+    private final int[] intHeader;
+    private final double[] realHeader;
+    private final String[] comments;
+    private final int dataLength;
+    
+    private final String channel;
+    private final String sensorLocation;
+    private final String stationCode;
+    private final String stationName;
+    private final String networkCode;
+    private final String eventName;
+    private final String eventDateTime;
+    private final DateTime startDateTime;
+    private final DateTime endDateTime;
+    private final double deltaT;    //Time interval in milli-seconds
+    
+    /**
+     * Constructor
+     * @param procType COSMOS processing type of the record (e.g. UNCORACC)
+     * @param textHeader text header lines
+     * @param intHeader integer header values
+     * @param realHeader real header values
+     * @param comments comment lines
+     * @param dataLength number of data values in the record
+     */
+    public SmRecHeader(String procType, String[] textHeader, int[] intHeader,
+        double[] realHeader, String[] comments, int dataLength)
+    {
+        this.procType = procType;
+        this.textHeader = textHeader;
+        this.intHeader = intHeader;
+        this.realHeader = realHeader;
+        this.comments = comments;
+        this.dataLength = dataLength;
+        
+        this.eventName = textHeader[1].substring(0, 40).
+            replaceAll("(?i)record", "").replaceAll("(?i)of","").trim();
+        this.eventDateTime = textHeader[1].substring(40).trim();
+        this.networkCode = textHeader[4].substring(25, 27).trim();
+        this.stationCode = textHeader[4].substring(28, 34).trim();
+        this.stationName = textHeader[4].substring(40).trim();
+        this.sensorLocation = (textHeader[8].length() < 46) ? "" : 
+            textHeader[8].substring(46);
+        this.channel = extractChannel(comments);
+        
+        double startTimeSec = realHeader[29];
+        int startSec = (int)Math.floor(startTimeSec);
+        int startMs = (int)((startTimeSec-startSec) / MSEC_TO_SEC);
+
+        if (startMs >= 1000) {
+            startSec += 1;
+            startMs = 0;
+        }
+        
+        this.startDateTime = new DateTime(intHeader[39],intHeader[41],
+            intHeader[42],intHeader[43],intHeader[44],startSec,startMs);
+        this.deltaT = realHeader[DELTA_T];
+        
+        double durationMs = (dataLength-1)*this.deltaT;
+        this.endDateTime = this.startDateTime.plus(new Duration((long)durationMs));
+    }
+    
+    public String getProcType() {return this.procType;}
+    
+    public String[] getTextHeader() {return this.textHeader;}
+    
+    public String[] getComments() {return this.comments;}
+    
+    public int getIntHeaderValue(int idx) {return this.intHeader[idx];}
+    
+    public double getRealHeaderValue(int idx) {return this.realHeader[idx];}
+    
+    public int getDataLength() {return this.dataLength;}
+    
+    public String getChannel() {return this.channel;}
+    
+    public String getSensorLocation() {return this.sensorLocation;}
+    
+    public String getStationCode() {return this.stationCode;}
+    
+    public String getStationName() {return this.stationName;}
+    
+    public String getNetworkCode() {return this.networkCode;}
+    
+    public String getEventName() {return this.eventName;}
+    
+    public String getEventDateTime() {return this.eventDateTime;}
+    
+    public DateTime getStartDateTime() {return this.startDateTime;}
+    
+    public DateTime getEndDateTime() {return this.endDateTime;}
+    
+    public double getDeltaT() {return this.deltaT;}
+    
+    public int getDataParmCode() {return this.intHeader[DATA_PHYSICAL_PARAM_CODE];}
+    
+    public int getDataUnitCode() {return this.intHeader[V_UNITS_INDEX];}
+    
+    /**
+     * Extracts the channel from the SCNL code in the comment lines, the same
+     * way as the COSMOS parser does.
+     * @param comments comment lines
+     * @return channel, or empty string if no SCNL code is found
+     */
+    private static String extractChannel(String[] comments)
+    {
+        for (String comment : comments) {
+            if (!comment.contains("<AUTH>"))
+                continue;
+            
+            Matcher m = SCNL_PATTERN.matcher(comment.substring(1));
+            
+            if (m.find()) {
+                String[] scnl = m.group(2).trim().split("\\.");
+                
+                if (scnl.length > 3)
+                    return scnl[1] + "." + scnl[3];
+            }
+            
+            break;
+        }
+        
+        return "";
+    }
+}
@@ -0,0 +1,265 @@
+/*******************************************************************************
+ * Name: Java class SmSampleArena.java
+ * Project: PRISM Review Tool
+ * Written by: Peter Ng, USGS, png@usgs.gov
+ * 
+ * This software is in the public domain because it contains materials that 
+ * originally came from the United States Geological Survey, an agency of the 
+ * United States Department of Interior. For more information, see the official 
+ * USGS copyright policy at 
+ * http://www.usgs.gov/visual-id/credit_usgs.html#copyright
+ * 
+ * Date: first release date Feb. 2015
+ ******************************************************************************/
+
+package gov.usgs.smcommon.smclasses;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class defines an arena that holds the sample data of traces outside
+ * of the Java heap, in direct byte buffers. Traces allocated in the arena are
+ * copied into slices of large chunks, so that charting a whole event does not
+ * leave many large arrays for the garbage collector to trace and move. The
+ * first chunk is small and each further chunk doubles in size, up to
+ * CHUNK_SIZE, so that an arena can be created for each small set of traces,
+ * such as a chart bin group, without reserving much unused memory. The arena
+ * is freed all at once when the traces are no longer needed; reading a trace
+ * of a freed arena throws an IllegalStateException. The direct memory of a
+ * freed arena is reclaimed by the garbage collector, see free.
+ * <p>
+ * Traces in display precision are stored as floats and all others as doubles.
+ * Only the y values are stored in the arena; x values, if not implicit, stay
+ * on the heap.
+ * @author png
+ */
+public class SmSampleArena {
+    
+    private static final int MIN_CHUNK_SIZE = 1024*1024;
+    private static final int CHUNK_SIZE = 16*1024*1024;
+    private static final double BYTES_PER_MB = 1024.0*1024.0;
+    
+    private final ArrayList<ByteBuffer> chunks = new ArrayList<>();
+    private ByteBuffer curChunk = null;
+    private long usedBytes = 0;
+    private long reservedBytes = 0;
+    private int traceCount = 0;
+    private volatile boolean freed = false;
+    
+    /**
+     * Copies the samples of the specified trace into the arena.
+     * @param smTrace trace to copy
+     * @return SmTrace object backed by the arena, or the specified trace if
+     * the arena has been freed or direct memory is exhausted
+     */
+    public synchronized SmTrace allocate(SmTrace smTrace)
+    {
+        if (smTrace == null || freed)
+            return smTrace;
+        
+        boolean isFloat = smTrace.hasDisplayPrecision();
+        int length = smTrace.size();
+        int bytes = length*(isFloat ? 4 : 8);
+        
+        // Keep slices 8-byte aligned.
+        int alignedBytes = (bytes + 7) & ~7;
+        
+        ByteBuffer bb;
+        
+        try {
+            bb = reserve(alignedBytes);
+        }
+        catch (OutOfMemoryError err) {
+            return smTrace;
+        }
+        
+        bb.limit(bb.position() + bytes);
+        bb = bb.slice().order(ByteOrder.nativeOrder());
+        
+        Slice slice;
+        
+        if (isFloat) {
+            FloatBuffer fb = bb.asFloatBuffer();
+            for (int i=0; i<length; i++)
+                fb.put(i, (float)smTrace.getY(i));
+            slice = new Slice(this, null, fb);
+        }
+        else {
+            DoubleBuffer db = bb.asDoubleBuffer();
+            db.put(smTrace.getSamples(), smTrace.getOffset(), length);
+            slice = new Slice(this, db, null);
+        }
+        
+        usedBytes += alignedBytes;
+        traceCount++;
+        
+        return new SmTrace(slice, smTrace.hasImplicitX() ? null : smTrace.getXArray(), 
+            length, smTrace.getStartX(), smTrace.getDeltaX());
+    }
+    
+    /**
+     * Frees the arena. Its chunks are dropped, rather than released right
+     * away, so that a trace being read on another thread while the arena is
+     * freed never reads released memory; the garbage collector reclaims each
+     * chunk once no trace of the arena refers to it. Traces allocated in the
+     * arena throw an IllegalStateException when read afterwards.
+     */
+    public synchronized void free()
+    {
+        if (freed)
+            return;
+        
+        freed = true;
+        chunks.clear();
+        curChunk = null;
+        usedBytes = 0;
+        reservedBytes = 0;
+        traceCount = 0;
+    }
+    
+    /**
+     * Checks whether the arena has been freed
+     * @return true if the arena has been freed
+     */
+    public boolean isFreed() {return this.freed;}
+    
+    /**
+     * Gets the number of bytes used by allocated traces
+     * @return number of bytes used
+     */
+    public synchronized long getUsedBytes() {return this.usedBytes;}
+    
+    /**
+     * Gets the number of bytes of direct memory reserved by the arena
+     * @return number of bytes reserved
+     */
+    public synchronized long getReservedBytes() {return this.reservedBytes;}
+    
+    /**
+     * Gets the number of traces allocated in the arena
+     * @return number of traces
+     */
+    public synchronized int getTraceCount() {return this.traceCount;}
+    
+    /**
+     * Creates a formatted string of the arena usage, for display in the
+     * status viewer.
+     * @return formatted string of arena usage
+     */
+    public synchronized String getStatistics()
+    {
+        return String.format("Sample arena: %d trace(s), %.1f of %.1f MB used off-heap.",
+            traceCount, usedBytes/BYTES_PER_MB, reservedBytes/BYTES_PER_MB);
+    }
+    
+    /**
+     * Creates a formatted string of the combined usage of several arenas, for
+     * display in the status viewer.
+     * @param arenas list of arenas
+     * @return formatted string of arena usage
+     */
+    public static String getStatistics(List<SmSampleArena> arenas)
+    {
+        int traceCount = 0;
+        long usedBytes = 0;
+        long reservedBytes = 0;
+        
+        for (SmSampleArena arena : arenas) {
+            synchronized (arena) {
+                traceCount += arena.traceCount;
+                usedBytes += arena.usedBytes;
+                reservedBytes += arena.reservedBytes;
+            }
+        }
+        
+        return String.format("Sample arenas: %d arena(s), %d trace(s), " +
+            "%.1f of %.1f MB used off-heap.", arenas.size(), traceCount, 
+            usedBytes/BYTES_PER_MB, reservedBytes/BYTES_PER_MB);
+    }
+    
+    /**
+     * Reserves the specified number of bytes, starting a new chunk if the
+     * current chunk is full. Requests larger than the next chunk get their
+     * own buffer.
+     * @return buffer positioned at the start of the reserved bytes
+     */
+    private ByteBuffer reserve(int bytes)
+    {
+        // Chunks double in size, starting at MIN_CHUNK_SIZE.
+        int chunkSize = (int)Math.min(CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE, reservedBytes));
+        
+        if (bytes > chunkSize) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(bytes);
+            chunks.add(buffer);
+            reservedBytes += bytes;
+            return buffer.duplicate();
+        }
+        
+        if (curChunk == null || curChunk.remaining() < bytes) {
+            curChunk = ByteBuffer.allocateDirect(chunkSize);
+            chunks.add(curChunk);
+            reservedBytes += chunkSize;
+        }
+        
+        ByteBuffer bb = curChunk.duplicate();
+        curChunk.position(curChunk.position() + bytes);
+        
+        return bb;
+    }
+    
+    /**
+     * This class defines the slice of the arena that holds the y values of a
+     * trace, either as doubles or as floats.
+     */
+    static class Slice {
+        private final SmSampleArena arena;
+        private final DoubleBuffer doubles;
+        private final FloatBuffer floats;
+        
+        public Slice(SmSampleArena arena, DoubleBuffer doubles, FloatBuffer floats)
+        {
+            this.arena = arena;
+            this.doubles = doubles;
+            this.floats = floats;
+        }
+        
+        public boolean isFloat() {return this.floats != null;}
+        
+        public int capacity() {return (doubles != null) ? doubles.capacity() : floats.capacity();}
+        
+        public double get(int i)
+        {
+            checkNotFreed();
+            return (doubles != null) ? doubles.get(i) : floats.get(i);
+        }
+        
+        /**
+         * Copies a range of values into the specified array.
+         */
+        public void get(int from, double[] dst, int dstOffset, int count)
+        {
+            checkNotFreed();
+            
+            if (doubles != null) {
+                DoubleBuffer db = doubles.duplicate();
+                db.position(from);
+                db.get(dst, dstOffset, count);
+            }
+            else {
+                for (int i=0; i<count; i++)
+                    dst[dstOffset + i] = floats.get(from + i);
+            }
+        }
+        
+        private void checkNotFreed()
+        {
+            if (arena.freed)
+                throw new IllegalStateException("Sample arena has been freed");
+        }
+    }
+}
@@ -23,7 +23,7 @@ import java.util.Comparator;
  * @author png
  */
 public class SmSeries {
-    private final ArrayList<SmPoint> smPoints;
+    private final SmTrace smTrace;
     private final int dataParmCode;
     private final String title;
     private final String description;
@@ -34,7 +34,13 @@ public class SmSeries {
     public SmSeries(ArrayList<SmPoint> smPoints, int dataParmCode, 
         String title, String description, Color color, Object tag)
     {
-        this.smPoints = smPoints;
+        this(SmTrace.fromSmPoints(smPoints),dataParmCode,title,description,color,tag);
+    }
+    
+    public SmSeries(SmTrace smTrace, int dataParmCode, 
+        String title, String description, Color color, Object tag)
+    {
+        this.smTrace = smTrace;
         this.dataParmCode = dataParmCode;
         this.title = title;
         this.description = description;
@@ -45,10 +51,8 @@ public class SmSeries {
     // Copy constructor
     public SmSeries(SmSeries smSeries)
     {
-        this.smPoints = new ArrayList<>();
-        for (SmPoint smPoint : smSeries.getSmPoints()) {
-            this.smPoints.add(new SmPoint(smPoint));
-        }
+        // Traces are immutable, so the copy shares the trace of the source.
+        this.smTrace = smSeries.getSmTrace();
         
         this.dataParmCode = smSeries.getDataParmCode();
         this.title = smSeries.getTitle();
@@ -57,7 +61,13 @@ public class SmSeries {
         this.tag = smSeries.getTag();
     }
 
-    public ArrayList<SmPoint> getSmPoints() {return this.smPoints;}
+    public SmTrace getSmTrace() {return this.smTrace;}
+    
+    // Adapter for code that still expects a list of SmPoint objects.
+    public ArrayList<SmPoint> getSmPoints() {
+        return (this.smTrace != null) ? this.smTrace.toSmPoints() : null;
+    }
+
     public int getDataParmCode() {return this.dataParmCode;}
     public String getTitle() {return this.title;}
     public String getDecription() {return this.description;}
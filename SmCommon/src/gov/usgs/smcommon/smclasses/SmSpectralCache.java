@@ -0,0 +1,282 @@
+/*******************************************************************************
+ * Name: Java class SmSpectralCache.java
+ * Project: PRISM Review Tool
+ * Written by: Peter Ng, USGS, png@usgs.gov
+ * 
+ * This software is in the public domain because it contains materials that 
+ * originally came from the United States Geological Survey, an agency of the 
+ * United States Department of Interior. For more information, see the official 
+ * USGS copyright policy at 
+ * http://www.usgs.gov/visual-id/credit_usgs.html#copyright
+ * 
+ * Date: first release date Feb. 2015
+ ******************************************************************************/
+
+package gov.usgs.smcommon.smclasses;
+
+import gov.usgs.smcommon.smutilities.SmFFT;
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class defines a process-wide cache of Fourier amplitude spectra (see
+ * SmRec.createSmTraceFFT). Spectra are keyed by a content hash of the trace
+ * samples, the start and end indexes of the trace in its sample array, the
+ * sample interval and the FFT padding policy, so a spectrum is computed once
+ * for identical samples and window, whichever chart bin or editor asks for
+ * it. The cache is bounded by a memory budget (see
+ * SmPreferences.General.getSpectralCacheSize) and evicts the least recently
+ * used entries first. Entries are held through soft references so that the
+ * garbage collector can also reclaim them when memory runs low.
+ * <p>
+ * SmTrace objects are immutable, so cached spectra are shared.
+ * @author png
+ */
+public class SmSpectralCache {
+    
+    private static final long BYTES_PER_MB = 1024L*1024L;
+    private static final long BYTES_PER_SAMPLE = 8L;
+    private static final long ENTRY_OVERHEAD_BYTES = 128L;
+    
+    private static final LinkedHashMap<Key,CacheEntry> entries = 
+        new LinkedHashMap<>(64,0.75f,true);
+    
+    private static long maxSizeBytes = 
+        Math.max(SmPreferences.General.getSpectralCacheSize(),0)*BYTES_PER_MB;
+    private static long sizeBytes = 0;
+    private static long hitCount = 0;
+    private static long missCount = 0;
+    private static long evictionCount = 0;
+    
+    private SmSpectralCache() {}
+    
+    /**
+     * Creates the cache key of the spectrum of a trace
+     * @param smTrace trace whose spectrum is cached
+     * @param sampleInterval sample interval, in seconds
+     * @param paddingPolicy FFT padding policy
+     * @return Key object for the spectrum
+     */
+    public static Key createKey(SmTrace smTrace, double sampleInterval, 
+        SmFFT.PaddingPolicy paddingPolicy)
+    {
+        return new Key(hashSamples(smTrace), smTrace.getOffset(), 
+            smTrace.getOffset() + smTrace.size(), sampleInterval, paddingPolicy);
+    }
+    
+    /**
+     * Gets the cached spectrum for the specified key
+     * @param key Key object created by createKey
+     * @return shared SmTrace object, or null if the spectrum is not cached
+     */
+    public static synchronized SmTrace get(Key key)
+    {
+        CacheEntry entry = entries.get(key);
+        
+        if (entry != null) {
+            SmTrace smTrace = entry.valueRef.get();
+            
+            if (smTrace != null) {
+                hitCount++;
+                return smTrace;
+            }
+            
+            removeEntry(key);
+            evictionCount++;
+        }
+        
+        missCount++;
+        return null;
+    }
+    
+    /**
+     * Adds a spectrum to the cache, evicting entries as needed
+     * @param key Key object created by createKey
+     * @param smTraceFFT spectrum to cache
+     */
+    public static synchronized void put(Key key, SmTrace smTraceFFT)
+    {
+        long size = ENTRY_OVERHEAD_BYTES + smTraceFFT.size()*BYTES_PER_SAMPLE;
+        
+        if (size > maxSizeBytes)
+            return;
+        
+        removeEntry(key);
+        entries.put(key, new CacheEntry(smTraceFFT,size));
+        sizeBytes += size;
+        trimToSize();
+    }
+    
+    /**
+     * Removes all spectra from the cache and resets the statistics
+     */
+    public static synchronized void clear()
+    {
+        entries.clear();
+        sizeBytes = 0;
+        hitCount = 0;
+        missCount = 0;
+        evictionCount = 0;
+    }
+    
+    /**
+     * Gets the memory budget of the cache
+     * @return memory budget in bytes
+     */
+    public static synchronized long getMaxSize() {return maxSizeBytes;}
+    
+    /**
+     * Sets the memory budget of the cache, evicting entries as needed
+     * @param maxSizeMB memory budget in megabytes
+     */
+    public static synchronized void setMaxSize(int maxSizeMB)
+    {
+        maxSizeBytes = Math.max(maxSizeMB,0)*BYTES_PER_MB;
+        trimToSize();
+    }
+    
+    /**
+     * Gets the estimated memory used by the cached spectra
+     * @return estimated memory used in bytes
+     */
+    public static synchronized long getSize() {return sizeBytes;}
+    
+    /**
+     * Gets the number of cached spectra
+     * @return number of cached spectra
+     */
+    public static synchronized int getSpectrumCount() {return entries.size();}
+    
+    /**
+     * Gets the number of requests served from the cache
+     * @return number of cache hits
+     */
+    public static synchronized long getHitCount() {return hitCount;}
+    
+    /**
+     * Gets the number of requests that required computing a spectrum
+     * @return number of cache misses
+     */
+    public static synchronized long getMissCount() {return missCount;}
+    
+    /**
+     * Creates a formatted string with the cache statistics
+     * @return cache statistics string
+     */
+    public static synchronized String getStatistics()
+    {
+        return String.format("Spectral cache: %d hit(s), %d miss(es), %d eviction(s), " +
+            "%d spectra, %.1f of %d MB used.", hitCount, missCount, evictionCount,
+            entries.size(), (double)sizeBytes/BYTES_PER_MB, maxSizeBytes/BYTES_PER_MB);
+    }
+    
+    // Computes a 64-bit hash of the trace samples.
+    private static long hashSamples(SmTrace smTrace)
+    {
+        double[] samples = smTrace.getSamples();
+        int offset = smTrace.getOffset();
+        
+        long hash = 0x9E3779B97F4A7C15L ^ smTrace.size();
+        
+        for (int i=0; i<smTrace.size(); i++) {
+            long bits = Double.doubleToLongBits(samples[offset+i]);
+            hash = Long.rotateLeft(hash ^ (bits*0xBF58476D1CE4E5B9L), 27)*0x94D049BB133111EBL;
+        }
+        
+        hash ^= hash >>> 31;
+        return hash;
+    }
+    
+    private static void removeEntry(Key key)
+    {
+        CacheEntry entry = entries.remove(key);
+        
+        if (entry != null)
+            sizeBytes -= entry.size;
+    }
+    
+    private static void trimToSize()
+    {
+        // Drop entries already reclaimed by the garbage collector.
+        Iterator<Map.Entry<Key,CacheEntry>> iter = entries.entrySet().iterator();
+        while (iter.hasNext()) {
+            CacheEntry entry = iter.next().getValue();
+            
+            if (entry.valueRef.get() == null) {
+                sizeBytes -= entry.size;
+                evictionCount++;
+                iter.remove();
+            }
+        }
+        
+        // Drop least recently used entries until within the memory budget.
+        iter = entries.entrySet().iterator();
+        while (sizeBytes > maxSizeBytes && iter.hasNext()) {
+            sizeBytes -= iter.next().getValue().size;
+            evictionCount++;
+            iter.remove();
+        }
+    }
+    
+    /**
+     * This class defines the key of a cached spectrum.
+     */
+    public static final class Key {
+        private final long hash;
+        private final int startIndx;
+        private final int endIndx;
+        private final long sampleIntervalBits;
+        private final SmFFT.PaddingPolicy paddingPolicy;
+        
+        private Key(long hash, int startIndx, int endIndx, double sampleInterval,
+            SmFFT.PaddingPolicy paddingPolicy)
+        {
+            this.hash = hash;
+            this.startIndx = startIndx;
+            this.endIndx = endIndx;
+            this.sampleIntervalBits = Double.doubleToLongBits(sampleInterval);
+            this.paddingPolicy = paddingPolicy;
+        }
+        
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (!(obj instanceof Key))
+                return false;
+            
+            Key key = (Key)obj;
+            
+            return hash == key.hash && startIndx == key.startIndx && 
+                endIndx == key.endIndx && sampleIntervalBits == key.sampleIntervalBits &&
+                paddingPolicy == key.paddingPolicy;
+        }
+        
+        @Override
+        public int hashCode()
+        {
+            int result = (int)(hash ^ (hash >>> 32));
+            result = 31*result + startIndx;
+            result = 31*result + endIndx;
+            result = 31*result + (int)(sampleIntervalBits ^ (sampleIntervalBits >>> 32));
+            result = 31*result + paddingPolicy.hashCode();
+            return result;
+        }
+    }
+    
+    /**
+     * This class defines a cache entry, which holds the spectrum along with
+     * its estimated size.
+     */
+    private static class CacheEntry {
+        private final SoftReference<SmTrace> valueRef;
+        private final long size;
+        
+        public CacheEntry(SmTrace value, long size)
+        {
+            this.valueRef = new SoftReference<>(value);
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*******************************************************************************
+ * Name: Java class SmStationExtent.java
+ * Project: PRISM Review Tool
+ * Written by: Peter Ng, USGS, png@usgs.gov
+ * 
+ * This software is in the public domain because it contains materials that 
+ * originally came from the United States Geological Survey, an agency of the 
+ * United States Department of Interior. For more information, see the official 
+ * USGS copyright policy at 
+ * http://www.usgs.gov/visual-id/credit_usgs.html#copyright
+ * 
+ * Date: first release date Feb. 2015
+ ******************************************************************************/
+
+package gov.usgs.smcommon.smclasses;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.joda.time.DateTime;
+
+/**
+ * This class defines the time extent of a set of COSMOS files, typically the
+ * files of a station: the earliest and latest record start times, the
+ * earliest and latest record stop times, and the minimum and maximum delta
+ * times. All values are computed in a single pass over the record headers of
+ * the files. Extents are memoized per file set and recomputed only when one
+ * of the files changes on disk.
+ * @author png
+ */
+public class SmStationExtent {
+    
+    private static final int MAX_CACHED_EXTENTS = 256;
+    
+    private static final LinkedHashMap<String,CacheEntry> extents = 
+        new LinkedHashMap<String,CacheEntry>(64,0.75f,true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String,CacheEntry> eldest) {
+                return size() > MAX_CACHED_EXTENTS;
+            }
+        };
+    
+    private DateTime earliestStartTime;
+    private DateTime latestStartTime;
+    private DateTime earliestStopTime;
+    private DateTime latestStopTime;
+    private double minDeltaT;       //Time interval in milli-seconds
+    private double maxDeltaT;       //Time interval in milli-seconds
+    
+    /**
+     * Constructor. Reads the record headers of the specified files.
+     * @param filePaths COSMOS file paths. Paths of files that do not exist
+     * are skipped.
+     */
+    public SmStationExtent(List<String> filePaths)
+    {
+        boolean first = true;
+        
+        for (String filePath : filePaths) {
+            File file = new File(filePath);
+            
+            if (!file.exists())
+                continue;
+            
+            SmFileHeader smFileHeader = SmFileCache.getSmFileHeader(file);
+            
+            if (smFileHeader.getSmRecHeaders() == null)
+                continue;
+            
+            for (SmRecHeader smRecHeader : smFileHeader.getSmRecHeaders()) {
+                DateTime startDateTime = smRecHeader.getStartDateTime();
+                DateTime stopDateTime = smRecHeader.getEndDateTime();
+                double deltaT = smRecHeader.getDeltaT();
+                
+                if (first) {
+                    earliestStartTime = startDateTime;
+                    latestStartTime = startDateTime;
+                    earliestStopTime = stopDateTime;
+                    latestStopTime = stopDateTime;
+                    minDeltaT = deltaT;
+                    maxDeltaT = deltaT;
+                    first = false;
+                }
+                else {
+                    if (startDateTime.isBefore(earliestStartTime))
+                        earliestStartTime = startDateTime;
+                    if (startDateTime.isAfter(latestStartTime))
+                        latestStartTime = startDateTime;
+                    if (stopDateTime.isBefore(earliestStopTime))
+                        earliestStopTime = stopDateTime;
+                    if (stopDateTime.isAfter(latestStopTime))
+                        latestStopTime = stopDateTime;
+                    minDeltaT = Math.min(minDeltaT, deltaT);
+                    maxDeltaT = Math.max(maxDeltaT, deltaT);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Gets the time extent of the specified files. The extent is computed only
+     * if it is not memoized for the same file set or one of the files has
+     * changed on disk since it was computed.
+     * @param filePaths COSMOS file paths
+     * @return SmStationExtent object for the files
+     */
+    public static SmStationExtent getSmStationExtent(List<String> filePaths)
+    {
+        ArrayList<String> sortedPaths = new ArrayList<>(filePaths);
+        Collections.sort(sortedPaths);
+        
+        StringBuilder sbKey = new StringBuilder();
+        for (String filePath : sortedPaths)
+            sbKey.append(filePath).append(File.pathSeparator);
+        String key = sbKey.toString();
+        
+        long[] stamps = calcFileStamps(sortedPaths);
+        
+        synchronized (extents) {
+            CacheEntry entry = extents.get(key);
+            
+            if (entry != null && Arrays.equals(entry.stamps, stamps))
+                return entry.extent;
+        }
+        
+        SmStationExtent extent = new SmStationExtent(sortedPaths);
+        
+        synchronized (extents) {
+            extents.put(key, new CacheEntry(extent,stamps));
+        }
+        
+        return extent;
+    }
+    
+    /**
+     * Removes all memoized extents
+     */
+    public static void clearCache()
+    {
+        synchronized (extents) {
+            extents.clear();
+        }
+    }
+    
+    /**
+     * Gets the earliest record start time
+     * @return earliest start time, or null if there are no records
+     */
+    public DateTime getEarliestStartTime() {return this.earliestStartTime;}
+    
+    /**
+     * Gets the latest record start time
+     * @return latest start time, or null if there are no records
+     */
+    public DateTime getLatestStartTime() {return this.latestStartTime;}
+    
+    /**
+     * Gets the earliest record stop time
+     * @return earliest stop time, or null if there are no records
+     */
+    public DateTime getEarliestStopTime() {return this.earliestStopTime;}
+    
+    /**
+     * Gets the latest record stop time
+     * @return latest stop time, or null if there are no records
+     */
+    public DateTime getLatestStopTime() {return this.latestStopTime;}
+    
+    /**
+     * Gets the minimum delta time
+     * @return minimum delta time in milli-seconds, or 0 if there are no records
+     */
+    public double getMinDeltaT() {return this.minDeltaT;}
+    
+    /**
+     * Gets the maximum delta time
+     * @return maximum delta time in milli-seconds, or 0 if there are no records
+     */
+    public double getMaxDeltaT() {return this.maxDeltaT;}
+    
+    /**
+     * Creates an array with the length and last-modified time of each file,
+     * used to detect changes on disk. Both are 0 for files that do not exist.
+     */
+    private static long[] calcFileStamps(List<String> filePaths)
+    {
+        long[] stamps = new long[filePaths.size()*2];
+        
+        for (int i=0; i<filePaths.size(); i++) {
+            File file = new File(filePaths.get(i));
+            stamps[2*i] = file.length();
+            stamps[2*i+1] = file.lastModified();
+        }
+        
+        return stamps;
+    }
+    
+    /**
+     * This class defines a memoized extent along with the file stamps at the
+     * time it was computed.
+     */
+    private static class CacheEntry {
+        private final SmStationExtent extent;
+        private final long[] stamps;
+        
+        public CacheEntry(SmStationExtent extent, long[] stamps)
+        {
+            this.extent = extent;
+            this.stamps = stamps;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * Name: Java class SmTaskPool.java
+ * Project: PRISM Review Tool
+ * Written by: Peter Ng, USGS, png@usgs.gov
+ * 
+ * This software is in the public domain because it contains materials that 
+ * originally came from the United States Geological Survey, an agency of the 
+ * United States Department of Interior. For more information, see the official 
+ * USGS copyright policy at 
+ * http://www.usgs.gov/visual-id/credit_usgs.html#copyright
+ * 
+ * Date: first release date Feb. 2015
+ ******************************************************************************/
+
+package gov.usgs.smcommon.smclasses;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class defines the shared pool on which the application runs batches
+ * of parallel tasks, such as loading files, computing spectra, and writing
+ * trimmed files. Tasks are run on a fixed-size pool with one thread per
+ * available processor, and the results are returned in the order in which
+ * the tasks were submitted. If the calling thread is interrupted while
+ * waiting, for example when its SwingWorker is cancelled, the remaining
+ * tasks of the batch are cancelled, and the calling thread waits until the
+ * tasks that had already started have returned.
+ * @author png
+ */
+public class SmTaskPool {
+    
+    private static final String THREAD_NAME_PREFIX = "SmTaskPool-";
+    private static final int POOL_SIZE = 
+        Math.max(Runtime.getRuntime().availableProcessors(),1);
+    
+    private static final ExecutorService executor = 
+        Executors.newFixedThreadPool(POOL_SIZE, new PoolThreadFactory());
+    
+    private SmTaskPool() {}
+    
+    /**
+     * Gets the number of threads in the pool
+     * @return number of threads
+     */
+    public static int getPoolSize() {return POOL_SIZE;}
+    
+    /**
+     * Runs the specified tasks on the pool and waits for all of them to
+     * complete. A single task, or tasks submitted from a pool thread, are run
+     * on the calling thread, so that nested batches cannot exhaust the pool.
+     * If a task fails or the calling thread is interrupted, the remaining
+     * tasks are cancelled. In that case this method returns only after every
+     * started task has returned, so that the caller can clean up after the
+     * batch (for example, roll back written files) without racing with it.
+     * @param <T> result type of the tasks
+     * @param tasks list of tasks
+     * @return list of task results, in the same order as the tasks
+     * @throws InterruptedException if the calling thread is interrupted
+     * @throws ExecutionException if a task throws an exception
+     */
+    public static <T> ArrayList<T> invokeAll(List<? extends Callable<T>> tasks) 
+        throws InterruptedException, ExecutionException
+    {
+        ArrayList<T> results = new ArrayList<>(tasks.size());
+        
+        if (tasks.size() <= 1 || isPoolThread()) {
+            for (Callable<T> task : tasks) {
+                if (Thread.interrupted())
+                    throw new InterruptedException();
+                
+                try {
+                    results.add(task.call());
+                }
+                catch (Exception ex) {
+                    throw new ExecutionException(ex);
+                }
+            }
+            
+            return results;
+        }
+        
+        Batch batch = new Batch();
+        ArrayList<Future<T>> futures = new ArrayList<>(tasks.size());
+        boolean done = false;
+        
+        try {
+            for (Callable<T> task : tasks)
+                futures.add(executor.submit(new BatchTask<>(batch,task)));
+            
+            for (Future<T> future : futures)
+                results.add(future.get());
+            
+            done = true;
+        }
+        catch (CancellationException ex) {
+            throw new InterruptedException();
+        }
+        finally {
+            if (!done) {
+                batch.cancel();
+                
+                for (Future<T> future : futures)
+                    future.cancel(true);
+                
+                batch.awaitRunningTasks();
+            }
+        }
+        
+        return results;
+    }
+    
+    /**
+     * Checks whether the calling thread is a pool thread
+     * @return true if the calling thread belongs to the pool
+     */
+    public static boolean isPoolThread()
+    {
+        return Thread.currentThread().getName().startsWith(THREAD_NAME_PREFIX);
+    }
+    
+    /**
+     * Tracks the tasks of a batch that are running, so that a cancelled batch
+     * can wait for them. A cancelled future does not wait for its task, and a
+     * task may still start after its future is cancelled, so tasks check the
+     * cancelled flag before they start.
+     */
+    private static class Batch {
+        private int runningCount = 0;
+        private boolean cancelled = false;
+        
+        synchronized void start() {
+            if (cancelled)
+                throw new CancellationException();
+            
+            runningCount++;
+        }
+        
+        synchronized void finish() {
+            runningCount--;
+            notifyAll();
+        }
+        
+        synchronized void cancel() {
+            cancelled = true;
+        }
+        
+        synchronized void awaitRunningTasks() {
+            boolean interrupted = false;
+            
+            while (runningCount > 0) {
+                try {
+                    wait();
+                }
+                catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+            
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Runs a task of a batch, registering it as running while it executes.
+     * @param <T> result type of the task
+     */
+    private static class BatchTask<T> implements Callable<T> {
+        private final Batch batch;
+        private final Callable<T> task;
+        
+        BatchTask(Batch batch, Callable<T> task) {
+            this.batch = batch;
+            this.task = task;
+        }
+        
+        @Override
+        public T call() throws Exception {
+            batch.start();
+            
+            try {
+                return task.call();
+            }
+            finally {
+                batch.finish();
+            }
+        }
+    }
+    
+    /**
+     * Creates daemon threads, so that the pool does not keep the application
+     * from exiting.
+     */
+    private static class PoolThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadCount = new AtomicInteger();
+        
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, THREAD_NAME_PREFIX + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
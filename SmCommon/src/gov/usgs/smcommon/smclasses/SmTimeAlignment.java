@@ -0,0 +1,220 @@
+/*******************************************************************************
+ * Name: Java class SmTimeAlignment.java
+ * Project: PRISM Review Tool
+ * Written by: Peter Ng, USGS, png@usgs.gov
+ * 
+ * This software is in the public domain because it contains materials that 
+ * originally came from the United States Geological Survey, an agency of the 
+ * United States Department of Interior. For more information, see the official 
+ * USGS copyright policy at 
+ * http://www.usgs.gov/visual-id/credit_usgs.html#copyright
+ * 
+ * Date: first release date Feb. 2015
+ ******************************************************************************/
+
+package gov.usgs.smcommon.smclasses;
+
+import static SmConstants.VFileConstants.MSEC_TO_SEC;
+import java.util.Arrays;
+import org.joda.time.DateTime;
+
+/**
+ * This class defines methods for aligning the traces of a station or event to
+ * a common time range. Times are epoch times in nanoseconds and the sample
+ * interval is used as is, so pad counts and cut indexes are computed in
+ * closed form instead of by stepping through the samples. Cutting a trace
+ * returns a view that shares the trace sample array; only padding creates a
+ * new array.
+ * @author png
+ */
+public class SmTimeAlignment {
+    
+    public static final long NANOS_PER_MILLI = 1000000L;
+    
+    // Fraction of a sample within which a time is taken to fall on a sample,
+    // so that rounding errors do not add or drop a sample.
+    private static final double SAMPLE_TOLERANCE = 1.0e-6;
+    
+    private SmTimeAlignment() {}
+    
+    /**
+     * Converts a DateTime to an epoch time in nanoseconds.
+     * @param dateTime DateTime object
+     * @return epoch time in nanoseconds
+     */
+    public static long toEpochNanos(DateTime dateTime)
+    {
+        return dateTime.getMillis() * NANOS_PER_MILLI;
+    }
+    
+    /**
+     * Gets the number of whole sample intervals from one time to another, 
+     * i.e., the index of the last sample at or before toNanos for a trace 
+     * whose first sample is at fromNanos.
+     * @param fromNanos start time in nanoseconds
+     * @param toNanos end time in nanoseconds
+     * @param deltaT sample interval in milli-seconds
+     * @return number of intervals, negative if toNanos is before fromNanos
+     */
+    public static long floorIntervals(long fromNanos, long toNanos, double deltaT)
+    {
+        return (long)Math.floor(intervals(fromNanos, toNanos, deltaT) + SAMPLE_TOLERANCE);
+    }
+    
+    /**
+     * Gets the number of sample intervals from one time to another, rounded 
+     * up, i.e., the index of the first sample at or after toNanos for a trace 
+     * whose first sample is at fromNanos.
+     * @param fromNanos start time in nanoseconds
+     * @param toNanos end time in nanoseconds
+     * @param deltaT sample interval in milli-seconds
+     * @return number of intervals, negative if toNanos is before fromNanos
+     */
+    public static long ceilIntervals(long fromNanos, long toNanos, double deltaT)
+    {
+        return (long)Math.ceil(intervals(fromNanos, toNanos, deltaT) - SAMPLE_TOLERANCE);
+    }
+    
+    /**
+     * Aligns a trace to a time range by padding it. For each sample of the 
+     * returned trace, the x value represents the time (in seconds) relative 
+     * to the earliest start time. Samples with the first sample value are 
+     * added for the time between the earliest start time and the trace 
+     * start time, and samples with the last sample value for the time between 
+     * the trace stop time and the latest stop time. If no samples are added, 
+     * the returned trace is a view of the trace samples.
+     * @param smTrace trace to align
+     * @param startNanos epoch time of the first trace sample, in nanoseconds
+     * @param deltaT sample interval in milli-seconds
+     * @param earliestStartNanos epoch start time of the range, in nanoseconds
+     * @param latestStopNanos epoch stop time of the range, in nanoseconds
+     * @return SmTrace object, or null if the trace or range is empty
+     */
+    public static SmTrace alignPadded(SmTrace smTrace, long startNanos, double deltaT,
+        long earliestStartNanos, long latestStopNanos)
+    {
+        if (smTrace.isEmpty() || earliestStartNanos > latestStopNanos)
+            return null;
+        
+        int size = smTrace.size();
+        long expectedNumPts = floorIntervals(earliestStartNanos, latestStopNanos, deltaT) + 1;
+        
+        // Samples for period between earliest and trace start times.
+        long numPtsBefore = (startNanos > earliestStartNanos) ?
+            ceilIntervals(earliestStartNanos, startNanos, deltaT) : 0;
+        
+        // Samples from the time one interval after the last trace sample up to
+        // and including the latest stop time, if that time is before the 
+        // latest stop time.
+        long numPtsAfter = (ceilIntervals(startNanos, latestStopNanos, deltaT) > size) ?
+            floorIntervals(startNanos, latestStopNanos, deltaT) - size + 1 : 0;
+        
+        // Add additional samples to equal expected number of samples.
+        long actualNumPts = numPtsBefore + size + numPtsAfter;
+        if (actualNumPts < expectedNumPts)
+            numPtsAfter += expectedNumPts - actualNumPts;
+        
+        double deltaX = deltaT*MSEC_TO_SEC;
+        
+        if (numPtsBefore == 0 && numPtsAfter == 0)
+            return new SmTrace(smTrace.getSamples(), smTrace.getOffset(), size, 0, deltaX);
+        
+        double[] adjustedVals = new double[(int)(numPtsBefore + size + numPtsAfter)];
+        int before = (int)numPtsBefore;
+        
+        Arrays.fill(adjustedVals, 0, before, smTrace.getY(0));
+        System.arraycopy(smTrace.getSamples(), smTrace.getOffset(), adjustedVals, 
+            before, size);
+        Arrays.fill(adjustedVals, before + size, adjustedVals.length, smTrace.getY(size-1));
+        
+        return new SmTrace(adjustedVals, 0, deltaX);
+    }
+    
+    /**
+     * Aligns a trace to a time range by cutting it. For each sample of the 
+     * returned trace, the x value represents the time (in seconds) relative 
+     * to the earliest start time. Samples before the earliest start time 
+     * and at or after the latest stop time are left out. The returned trace 
+     * is a view of the trace samples.
+     * @param smTrace trace to align
+     * @param startNanos epoch time of the first trace sample, in nanoseconds
+     * @param deltaT sample interval in milli-seconds
+     * @param earliestStartNanos epoch start time of the range, in nanoseconds
+     * @param latestStopNanos epoch stop time of the range, in nanoseconds
+     * @return SmTrace object, or null if the range is empty
+     */
+    public static SmTrace alignUnpadded(SmTrace smTrace, long startNanos, double deltaT,
+        long earliestStartNanos, long latestStopNanos)
+    {
+        if (earliestStartNanos > latestStopNanos)
+            return null;
+        
+        int size = smTrace.size();
+        
+        // Index of the first sample at or after the earliest start time.
+        int firstIndx = (startNanos < earliestStartNanos) ? (int)Math.min(
+            ceilIntervals(startNanos, earliestStartNanos, deltaT), size) : 0;
+        
+        // Index of the first sample at or after the latest stop time, which is
+        // the end of the view if the trace stops after the latest stop time.
+        int lastIndx = size;
+        
+        if (floorIntervals(startNanos, latestStopNanos, deltaT) < size - 1) {
+            long stopIndx = ceilIntervals(startNanos, latestStopNanos, deltaT);
+            lastIndx = (int)Math.max(Math.min(stopIndx, size), firstIndx);
+        }
+        
+        double startX = (startNanos - earliestStartNanos + firstIndx*deltaT*NANOS_PER_MILLI) * 
+            MSEC_TO_SEC / NANOS_PER_MILLI;
+        
+        return new SmTrace(smTrace.getSamples(), smTrace.getOffset() + firstIndx, 
+            lastIndx - firstIndx, startX, deltaT*MSEC_TO_SEC);
+    }
+    
+    /**
+     * Creates a view of the samples of an evenly spaced trace whose x values 
+     * are within a window, keeping at most numPts samples. If the window 
+     * holds fewer than numPts samples, samples with the last sample value 
+     * are added, which is the only case where a new array is created.
+     * @param smTrace trace to window
+     * @param startX x value of the start of the window
+     * @param stopX x value of the end of the window
+     * @param numPts number of samples of the returned trace
+     * @return SmTrace object
+     */
+    public static SmTrace alignWindow(SmTrace smTrace, double startX, double stopX, 
+        int numPts)
+    {
+        int size = smTrace.size();
+        double deltaX = smTrace.getDeltaX();
+        
+        // Index of the first sample at or after the start of the window and
+        // of the last sample at or before the end of the window.
+        long firstIndx = (long)Math.ceil((startX - smTrace.getStartX()) / deltaX - 
+            SAMPLE_TOLERANCE);
+        long lastIndx = (long)Math.floor((stopX - smTrace.getStartX()) / deltaX + 
+            SAMPLE_TOLERANCE);
+        
+        int from = (int)Math.min(Math.max(firstIndx, 0), size);
+        int count = (int)Math.min(Math.max(Math.min(lastIndx, size-1) - from + 1, 0), numPts);
+        
+        SmTrace windowTrace = smTrace.subTrace(from, count);
+        
+        if (count == numPts || size == 0)
+            return windowTrace;
+        
+        double[] windowVals = new double[numPts];
+        double lastY = smTrace.getY(Math.max(from + count - 1, 0));
+        
+        System.arraycopy(windowTrace.getSamples(), windowTrace.getOffset(), windowVals, 
+            0, count);
+        Arrays.fill(windowVals, count, numPts, lastY);
+        
+        return new SmTrace(windowVals, windowTrace.getStartX(), deltaX);
+    }
+    
+    private static double intervals(long fromNanos, long toNanos, double deltaT)
+    {
+        return (toNanos - fromNanos) / (deltaT*NANOS_PER_MILLI);
+    }
+}
@@ -0,0 +1,352 @@
+/*******************************************************************************
+ * Name: Java class SmTrace.java
+ * Project: PRISM Review Tool
+ * Written by: Peter Ng, USGS, png@usgs.gov
+ * 
+ * This software is in the public domain because it contains materials that 
+ * originally came from the United States Geological Survey, an agency of the 
+ * United States Department of Interior. For more information, see the official 
+ * USGS copyright policy at 
+ * http://www.usgs.gov/visual-id/credit_usgs.html#copyright
+ * 
+ * Date: first release date Feb. 2015
+ ******************************************************************************/
+
+package gov.usgs.smcommon.smclasses;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class defines a primitive-backed structure for storing the sample data
+ * of a COSMOS record. The y values are held in a double array and, for evenly
+ * spaced data, the x values are not stored but computed as startX + i*deltaX.
+ * A trace may be a view (offset and length) into a larger sample array. The
+ * toSmPoints method serves as an adapter for code that still expects a list
+ * of SmPoint objects.
+ * <p>
+ * For traces that are only viewed, the y values may be held in display
+ * precision, i.e. as a float array, which halves their memory use. Such
+ * traces are read as doubles and toFullPrecision converts them back to a
+ * double-backed trace for processing.
+ * <p>
+ * SmTrace objects are immutable and their sample arrays are never written
+ * to, so copies of a trace, and of the records and series that hold it,
+ * share the same sample arrays. Changing the data of a record or series
+ * means setting a new SmTrace with its own arrays (copy-on-write).
+ * <p>
+ * The y values may also be held outside of the Java heap, in a slice of an
+ * SmSampleArena. Such traces can be read only until the arena is freed.
+ * @author png
+ */
+public class SmTrace {
+
+    private final double[] yVals;   //null when y values are in display precision
+    private final float[] yValsFloat;   //null unless y values are in display precision
+    private final SmSampleArena.Slice ySlice;   //null unless y values are in a sample arena
+    private final double[] xVals;   //null when x values are implicit
+    private final int offset;
+    private final int length;
+    private final double startX;
+    private final double deltaX;
+
+    /**
+     * Constructor
+     * @param yVals sample values
+     * @param startX x value of the first sample
+     * @param deltaX x interval between samples
+     */
+    public SmTrace(double[] yVals, double startX, double deltaX)
+    {
+        this(yVals,null,null,null,0,yVals.length,startX,deltaX);
+    }
+
+    /**
+     * Constructor
+     * @param yVals sample array
+     * @param offset index of the first sample of the trace in the sample array
+     * @param length number of samples in the trace
+     * @param startX x value of the first sample
+     * @param deltaX x interval between samples
+     */
+    public SmTrace(double[] yVals, int offset, int length, double startX, double deltaX)
+    {
+        this(yVals,null,null,null,offset,length,startX,deltaX);
+    }
+
+    /**
+     * Constructor for a trace whose samples are held in display precision
+     * @param yVals sample array
+     * @param offset index of the first sample of the trace in the sample array
+     * @param length number of samples in the trace
+     * @param startX x value of the first sample
+     * @param deltaX x interval between samples
+     */
+    public SmTrace(float[] yVals, int offset, int length, double startX, double deltaX)
+    {
+        this(null,yVals,null,null,offset,length,startX,deltaX);
+    }
+
+    /**
+     * Constructor for unevenly spaced data, where each x value is stored.
+     * @param xVals x values
+     * @param yVals y values
+     */
+    public SmTrace(double[] xVals, double[] yVals)
+    {
+        this(yVals,null,null,xVals,0,yVals.length,0,0);
+    }
+
+    /**
+     * Constructor for a trace whose y values are held in a sample arena
+     * @param ySlice arena slice that holds the y values
+     * @param xVals x values, or null if x values are implicit
+     * @param length number of samples in the trace
+     * @param startX x value of the first sample
+     * @param deltaX x interval between samples
+     */
+    SmTrace(SmSampleArena.Slice ySlice, double[] xVals, int length, double startX, 
+        double deltaX)
+    {
+        this(null,null,ySlice,xVals,0,length,startX,deltaX);
+    }
+
+    private SmTrace(double[] yVals, float[] yValsFloat, SmSampleArena.Slice ySlice, 
+        double[] xVals, int offset, int length, double startX, double deltaX)
+    {
+        int capacity = (yVals != null) ? yVals.length : 
+            (yValsFloat != null) ? yValsFloat.length : ySlice.capacity();
+        
+        if (offset < 0 || length < 0 || offset + length > capacity)
+            throw new IndexOutOfBoundsException("offset: " + offset + ", length: " + length);
+
+        this.yVals = yVals;
+        this.yValsFloat = yValsFloat;
+        this.ySlice = ySlice;
+        this.xVals = xVals;
+        this.offset = offset;
+        this.length = length;
+        this.startX = startX;
+        this.deltaX = deltaX;
+    }
+
+    // Copy constructor. The copy shares the sample arrays of a full precision
+    // trace and copies the samples of other traces to the heap, in full
+    // precision.
+    public SmTrace(SmTrace smTrace)
+    {
+        boolean shared = (smTrace.yVals != null);
+        
+        this.yVals = shared ? smTrace.yVals : smTrace.getYArray();
+        this.yValsFloat = null;
+        this.ySlice = null;
+        this.xVals = (shared || smTrace.hasImplicitX()) ? smTrace.xVals : smTrace.getXArray();
+        this.offset = shared ? smTrace.offset : 0;
+        this.length = smTrace.size();
+        this.startX = shared ? smTrace.startX : smTrace.getStartX();
+        this.deltaX = smTrace.getDeltaX();
+    }
+
+    /**
+     * Creates a trace from a list of SmPoint objects.
+     * @param smPoints list of SmPoint objects
+     * @return SmTrace object, or null if the list is null
+     */
+    public static SmTrace fromSmPoints(List<SmPoint> smPoints)
+    {
+        if (smPoints == null)
+            return null;
+
+        double[] x = new double[smPoints.size()];
+        double[] y = new double[smPoints.size()];
+
+        for (int i=0; i<smPoints.size(); i++) {
+            SmPoint smPoint = smPoints.get(i);
+            x[i] = smPoint.getX();
+            y[i] = smPoint.getY();
+        }
+
+        return new SmTrace(x,y);
+    }
+
+    /**
+     * Gets the number of samples in the trace
+     * @return number of samples
+     */
+    public int size() {return this.length;}
+
+    /**
+     * Checks whether the trace has no samples
+     * @return true if the trace is empty
+     */
+    public boolean isEmpty() {return this.length == 0;}
+
+    /**
+     * Gets the x value of the specified sample
+     * @param i sample index
+     * @return x value
+     */
+    public double getX(int i)
+    {
+        return (xVals == null) ? startX + i*deltaX : xVals[offset + i];
+    }
+
+    /**
+     * Gets the y value of the specified sample
+     * @param i sample index
+     * @return y value
+     */
+    public double getY(int i)
+    {
+        if (yVals != null)
+            return yVals[offset + i];
+        
+        return (yValsFloat != null) ? yValsFloat[offset + i] : ySlice.get(offset + i);
+    }
+
+    /**
+     * Gets the x value of the first sample
+     * @return x value of the first sample
+     */
+    public double getStartX() {return (xVals == null || length == 0) ? startX : xVals[offset];}
+
+    /**
+     * Gets the x interval between samples. Applies only when x values are implicit.
+     * @return x interval between samples
+     */
+    public double getDeltaX() {return this.deltaX;}
+
+    /**
+     * Checks whether the x values are computed rather than stored
+     * @return true if x values are computed from the start x and interval
+     */
+    public boolean hasImplicitX() {return this.xVals == null;}
+
+    /**
+     * Checks whether the y values are held in display precision
+     * @return true if the y values are held in a float array
+     */
+    public boolean hasDisplayPrecision()
+    {
+        return (yValsFloat != null) || (ySlice != null && ySlice.isFloat());
+    }
+
+    /**
+     * Checks whether the y values are held in a sample arena
+     * @return true if the y values are held outside of the Java heap
+     */
+    public boolean isArenaBacked() {return this.ySlice != null;}
+
+    /**
+     * Gets the backing sample array, without copying it, for the classes of
+     * this package that read the samples in bulk. The trace samples start at
+     * getOffset(). For a trace in display precision, a double copy of the
+     * trace samples is returned. The array must not be modified, since it may
+     * be shared with other traces; use getYArray to get a copy that can be
+     * changed.
+     * @return backing sample array
+     */
+    double[] getSamples() {return (yVals != null) ? yVals : getYArray();}
+
+    /**
+     * Gets the index of the first trace sample in the array returned by
+     * getSamples()
+     * @return offset into backing sample array
+     */
+    int getOffset() {return (yVals != null) ? this.offset : 0;}
+
+    /**
+     * Creates a copy of the trace with its y values in display precision.
+     * @return SmTrace object in display precision, or this trace if it
+     * already is in display precision
+     */
+    public SmTrace toDisplayPrecision()
+    {
+        if (hasDisplayPrecision())
+            return this;
+
+        float[] y = new float[length];
+
+        for (int i=0; i<length; i++)
+            y[i] = (float)getY(i);
+
+        return new SmTrace(null,y,null,(xVals != null) ? getXArray() : null,0,length,
+            getStartX(),deltaX);
+    }
+
+    /**
+     * Creates a copy of the trace with its y values in full precision, on
+     * the heap.
+     * @return SmTrace object in full precision, or this trace if it already
+     * is in full precision on the heap
+     */
+    public SmTrace toFullPrecision()
+    {
+        return (yVals != null) ? this : new SmTrace(this);
+    }
+
+    /**
+     * Creates a new array with the x values of the trace
+     * @return array of x values
+     */
+    public double[] getXArray()
+    {
+        double[] x = new double[length];
+
+        for (int i=0; i<length; i++)
+            x[i] = getX(i);
+
+        return x;
+    }
+
+    /**
+     * Creates a new array with the y values of the trace
+     * @return array of y values
+     */
+    public double[] getYArray()
+    {
+        double[] y = new double[length];
+
+        if (yVals != null)
+            System.arraycopy(yVals, offset, y, 0, length);
+        else if (yValsFloat != null) {
+            for (int i=0; i<length; i++)
+                y[i] = yValsFloat[offset + i];
+        }
+        else
+            ySlice.get(offset, y, 0, length);
+
+        return y;
+    }
+
+    /**
+     * Creates a view of a range of the trace samples. The view shares the
+     * sample array with this trace and keeps the x values of the samples.
+     * @param from index of the first sample of the view
+     * @param count number of samples in the view
+     * @return SmTrace object
+     */
+    public SmTrace subTrace(int from, int count)
+    {
+        if (from < 0 || count < 0 || from + count > length)
+            throw new IndexOutOfBoundsException("from: " + from + ", count: " + count);
+
+        return new SmTrace(yVals,yValsFloat,ySlice,xVals,offset+from,count,
+            startX+from*deltaX,deltaX);
+    }
+
+    /**
+     * Creates a list of SmPoint objects from the trace samples, for code that
+     * still expects SmPoint lists.
+     * @return list of SmPoint objects
+     */
+    public ArrayList<SmPoint> toSmPoints()
+    {
+        ArrayList<SmPoint> smPoints = new ArrayList<>(length);
+
+        for (int i=0; i<length; i++)
+            smPoints.add(new SmPoint(getX(i),getY(i)));
+
+        return smPoints;
+    }
+}
@@ -25,6 +25,9 @@ import org.apache.commons.math3.transform.TransformType;
  */
 public class MathUtils {
     
+    private static final FastFourierTransformer fft = 
+        new FastFourierTransformer(DftNormalization.STANDARD);
+    
     public static double round(double Rval, int Rpl) {
         double p = Math.pow(10, Rpl);
         Rval = Rval * p;
@@ -68,8 +71,6 @@ public class MathUtils {
     
     public static Complex[] applyFFT(double[] points)
     {
-        FastFourierTransformer fft = new FastFourierTransformer(DftNormalization.STANDARD);
-        
         return fft.transform(points, TransformType.FORWARD);
     }
     
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Name: Java class SmButterworth.java
+ * Project: PRISM Review Tool
+ * Written by: Peter Ng, USGS, png@usgs.gov
+ * 
+ * This software is in the public domain because it contains materials that 
+ * originally came from the United States Geological Survey, an agency of the 
+ * United States Department of Interior. For more information, see the official 
+ * USGS copyright policy at 
+ * http://www.usgs.gov/visual-id/credit_usgs.html#copyright
+ * 
+ * Date: first release date Feb. 2015
+ ******************************************************************************/
+
+package gov.usgs.smcommon.smutilities;
+
+/**
+ * This class defines the magnitude response of the band-pass Butterworth
+ * filter used by PRISM V2 processing, for previewing the effect of filter
+ * corners on an amplitude spectrum without filtering the time series.
+ * <p>
+ * PRISM designs the filter by the bilinear transform as a cascade of
+ * high-pass and low-pass sections with filterOrder/2 rolls of two poles
+ * each, and applies it acausally, i.e. forward and backward, which squares
+ * the magnitude response. The response at frequency f is therefore
+ * [1/(1+(wl/w)^(2n))] * [1/(1+(w/wh)^(2n))], where w = tan(pi*f*dt), wl and
+ * wh are the prewarped corners and n is the number of poles. Tapering and
+ * padding of the time series are not modeled.
+ * @author png
+ */
+public class SmButterworth {
+    
+    private SmButterworth() {}
+    
+    /**
+     * Gets the number of poles of the filter for a PRISM filter order
+     * @param filterOrder filter order
+     * @return number of poles of each of the high-pass and low-pass filters
+     */
+    public static int getPoleCount(int filterOrder)
+    {
+        return 2*Math.max(filterOrder/2, 1);
+    }
+    
+    /**
+     * Creates the gains of the acausal band-pass filter at the specified
+     * frequencies.
+     * @param frequencies frequencies in Hz
+     * @param fLow low (high-pass) corner in Hz
+     * @param fHigh high (low-pass) corner in Hz
+     * @param deltaT sample interval in seconds
+     * @param filterOrder filter order
+     * @return array of gains, one per frequency
+     */
+    public static double[] createGains(double[] frequencies, double fLow, double fHigh,
+        double deltaT, int filterOrder)
+    {
+        double[] gains = new double[frequencies.length];
+        
+        double nyquist = 0.5/deltaT;
+        int twoN = 2*getPoleCount(filterOrder);
+        
+        // Prewarped corners; a corner at or beyond 0 Hz or Nyquist is ignored.
+        double wLow = (fLow > 0 && fLow < nyquist) ? Math.tan(Math.PI*fLow*deltaT) : 0;
+        double wHigh = (fHigh > 0 && fHigh < nyquist) ? Math.tan(Math.PI*fHigh*deltaT) : 0;
+        
+        for (int i=0; i<frequencies.length; i++) {
+            double f = frequencies[i];
+            
+            if (f <= 0) {
+                gains[i] = (wLow > 0) ? 0.0 : 1.0;
+                continue;
+            }
+            
+            if (f >= nyquist) {
+                gains[i] = (wHigh > 0) ? 0.0 : 1.0;
+                continue;
+            }
+            
+            double w = Math.tan(Math.PI*f*deltaT);
+            double gain = 1.0;
+            
+            if (wLow > 0)
+                gain /= 1 + Math.pow(wLow/w, twoN);
+            if (wHigh > 0)
+                gain /= 1 + Math.pow(w/wHigh, twoN);
+            
+            gains[i] = gain;
+        }
+        
+        return gains;
+    }
+}
@@ -0,0 +1,645 @@
+/*******************************************************************************
+ * Name: Java class SmFFT.java
+ * Project: PRISM Review Tool
+ * Written by: Peter Ng, USGS, png@usgs.gov
+ * 
+ * This software is in the public domain because it contains materials that 
+ * originally came from the United States Geological Survey, an agency of the 
+ * United States Department of Interior. For more information, see the official 
+ * USGS copyright policy at 
+ * http://www.usgs.gov/visual-id/credit_usgs.html#copyright
+ * 
+ * Date: first release date Feb. 2015
+ ******************************************************************************/
+
+package gov.usgs.smcommon.smutilities;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class defines an FFT engine for real sample data. A real transform of
+ * even length N is computed as a complex transform of length N/2, holding the
+ * even samples in the real parts and the odd samples in the imaginary parts,
+ * followed by a pass that separates the two half-length spectra. Only the
+ * one-sided spectrum, from 0Hz to the Nyquist frequency, is computed.
+ * <p>
+ * Complex transforms whose length factors into 2, 3 and 5 are computed with
+ * a mixed-radix algorithm. Other lengths are computed with Bluestein's
+ * algorithm, as a convolution of power of 2 length. The padding policy
+ * selects the FFT length used for a number of samples.
+ * <p>
+ * The factors and twiddle factors of each transform length are computed once
+ * and cached, and the working buffers are kept per thread, so repeated
+ * transforms allocate only the returned amplitude array. With the SMOOTH and
+ * EXACT policies nearly every record length has its own plan, so each cache
+ * is cleared once it holds MAX_PLANS plans.
+ * @author png
+ */
+public class SmFFT {
+    
+    /**
+     * This enumeration defines how samples are zero padded to the FFT length.
+     * POWER_OF_2 pads to the next power of 2, SMOOTH pads to the next even
+     * length that factors into 2, 3 and 5, and EXACT does not pad.
+     */
+    public static enum PaddingPolicy {POWER_OF_2, SMOOTH, EXACT}
+    
+    private static final int[] RADICES = {4, 2, 3, 5};
+    private static final int MAX_PLANS = 64;
+    
+    private static final ConcurrentHashMap<Integer,ComplexPlan> complexPlans = 
+        new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Integer,RealPlan> realPlans = 
+        new ConcurrentHashMap<>();
+    
+    private static final ThreadLocal<Scratch> scratch = new ThreadLocal<Scratch>() {
+        @Override
+        protected Scratch initialValue() {return new Scratch();}
+    };
+    
+    /**
+     * Gets the FFT length used for the specified number of samples
+     * @param length number of samples
+     * @param policy padding policy
+     * @return FFT length, not less than the number of samples
+     */
+    public static int getFFTLength(int length, PaddingPolicy policy)
+    {
+        if (length <= 1)
+            return 1;
+        
+        switch (policy) {
+            case SMOOTH:
+                return nextSmoothEven(length);
+            case EXACT:
+                return length;
+            default:
+                return MathUtils.nextPowerOf2(length);
+        }
+    }
+    
+    /**
+     * Checks whether a number factors into 2, 3 and 5
+     * @param n number to check
+     * @return true if n is a product of powers of 2, 3 and 5
+     */
+    public static boolean isSmooth(int n)
+    {
+        if (n < 1)
+            return false;
+        
+        for (int radix : new int[] {2, 3, 5}) {
+            while (n % radix == 0)
+                n /= radix;
+        }
+        
+        return n == 1;
+    }
+    
+    /**
+     * Computes the one-sided amplitude spectrum of real samples, zero padded
+     * to the FFT length. Element k of the returned array is the amplitude of
+     * frequency k/(fftLen*dt), where dt is the sample interval.
+     * @param samples sample array
+     * @param offset index of the first sample in the sample array
+     * @param length number of samples
+     * @param fftLen FFT length, not less than the number of samples
+     * @return array of fftLen/2+1 amplitudes, from 0Hz to the Nyquist frequency
+     */
+    public static double[] amplitudeSpectrum(double[] samples, int offset, int length,
+        int fftLen)
+    {
+        if (fftLen < 1 || length > fftLen)
+            throw new IllegalArgumentException("FFT length: " + fftLen + ", length: " + length);
+        
+        Scratch s = scratch.get();
+        
+        if (fftLen % 2 != 0)
+            return oddAmplitudeSpectrum(samples, offset, length, fftLen, s);
+        
+        int m = fftLen/2;
+        RealPlan plan = getRealPlan(fftLen);
+        
+        s.ensureCapacity(m);
+        double[] re = s.re;
+        double[] im = s.im;
+        
+        // Pack even samples into real parts and odd samples into imaginary parts.
+        for (int j=0; j<m; j++) {
+            int i = 2*j;
+            re[j] = (i < length) ? samples[offset+i] : 0;
+            im[j] = (i+1 < length) ? samples[offset+i+1] : 0;
+        }
+        
+        plan.half.transform(re, im, s);
+        
+        // Separate the spectra of the even and odd samples, E and O, using
+        // E[k] = (Z[k] + conj(Z[m-k]))/2 and O[k] = (Z[k] - conj(Z[m-k]))/2i,
+        // then combine them as X[k] = E[k] + exp(-2*PI*i*k/N)*O[k].
+        double[] amplitudes = new double[m+1];
+        
+        for (int k=0; k<=m; k++) {
+            int j = k % m;
+            int jc = (m-k) % m;
+            
+            double sumRe = re[j] + re[jc];
+            double sumIm = im[j] - im[jc];
+            double difRe = re[j] - re[jc];
+            double difIm = im[j] + im[jc];
+            
+            double evenRe = 0.5*sumRe;
+            double evenIm = 0.5*sumIm;
+            double oddRe = 0.5*difIm;
+            double oddIm = -0.5*difRe;
+            
+            double wRe = plan.postCos[k];
+            double wIm = plan.postSin[k];
+            
+            double xRe = evenRe + wRe*oddRe - wIm*oddIm;
+            double xIm = evenIm + wRe*oddIm + wIm*oddRe;
+            
+            amplitudes[k] = Math.sqrt(xRe*xRe + xIm*xIm);
+        }
+        
+        return amplitudes;
+    }
+    
+    /**
+     * Gets the number of transform lengths whose plans are cached
+     * @return number of cached plans
+     */
+    public static int getPlanCount() {return complexPlans.size() + realPlans.size();}
+    
+    /**
+     * Removes all cached plans
+     */
+    public static void clearPlans()
+    {
+        realPlans.clear();
+        complexPlans.clear();
+    }
+    
+    // Computes the amplitude spectrum of an odd FFT length as a complex
+    // transform of the full length.
+    private static double[] oddAmplitudeSpectrum(double[] samples, int offset, int length,
+        int fftLen, Scratch s)
+    {
+        ComplexPlan plan = getComplexPlan(fftLen);
+        
+        s.ensureCapacity(fftLen);
+        double[] re = s.re;
+        double[] im = s.im;
+        
+        for (int i=0; i<fftLen; i++) {
+            re[i] = (i < length) ? samples[offset+i] : 0;
+            im[i] = 0;
+        }
+        
+        plan.transform(re, im, s);
+        
+        double[] amplitudes = new double[fftLen/2+1];
+        
+        for (int k=0; k<amplitudes.length; k++)
+            amplitudes[k] = Math.sqrt(re[k]*re[k] + im[k]*im[k]);
+        
+        return amplitudes;
+    }
+    
+    private static int nextSmoothEven(int n)
+    {
+        int best = MathUtils.nextPowerOf2(n);
+        
+        for (long p5=2; p5<best; p5*=5) {
+            for (long p35=p5; p35<best; p35*=3) {
+                long p235 = p35;
+                while (p235 < n)
+                    p235 *= 2;
+                if (p235 < best)
+                    best = (int)p235;
+            }
+        }
+        
+        return best;
+    }
+    
+    private static RealPlan getRealPlan(int fftLen)
+    {
+        RealPlan plan = realPlans.get(fftLen);
+        
+        if (plan == null) {
+            if (realPlans.size() >= MAX_PLANS)
+                realPlans.clear();
+            
+            plan = new RealPlan(fftLen);
+            RealPlan prevPlan = realPlans.putIfAbsent(fftLen, plan);
+            if (prevPlan != null)
+                plan = prevPlan;
+        }
+        
+        return plan;
+    }
+    
+    private static ComplexPlan getComplexPlan(int n)
+    {
+        ComplexPlan plan = complexPlans.get(n);
+        
+        if (plan == null) {
+            if (complexPlans.size() >= MAX_PLANS)
+                complexPlans.clear();
+            
+            plan = isSmooth(n) ? new MixedRadixPlan(n) : new BluesteinPlan(n);
+            ComplexPlan prevPlan = complexPlans.putIfAbsent(n, plan);
+            if (prevPlan != null)
+                plan = prevPlan;
+        }
+        
+        return plan;
+    }
+    
+    /**
+     * Class that holds the half-length complex plan and the post-processing
+     * twiddle factors of a real transform of even length.
+     */
+    private static class RealPlan
+    {
+        private final ComplexPlan half;
+        private final double[] postCos; //cos(2*PI*k/N), k<=N/2
+        private final double[] postSin; //-sin(2*PI*k/N), k<=N/2
+        
+        RealPlan(int fftLen)
+        {
+            int m = fftLen/2;
+            
+            this.half = getComplexPlan(m);
+            this.postCos = new double[m+1];
+            this.postSin = new double[m+1];
+            
+            for (int k=0; k<=m; k++) {
+                double angle = 2*Math.PI*k/fftLen;
+                postCos[k] = Math.cos(angle);
+                postSin[k] = -Math.sin(angle);
+            }
+        }
+    }
+    
+    /**
+     * Class that defines a forward, unnormalized complex transform of a fixed
+     * length, computed in place.
+     */
+    private static abstract class ComplexPlan
+    {
+        protected final int n;
+        
+        ComplexPlan(int n) {this.n = n;}
+        
+        abstract void transform(double[] re, double[] im, Scratch s);
+    }
+    
+    /**
+     * Class that computes complex transforms whose length factors into 2, 3
+     * and 5, using a Stockham autosort algorithm with radix 4, 2, 3 and 5
+     * butterflies.
+     */
+    private static class MixedRadixPlan extends ComplexPlan
+    {
+        private final int[] factors;
+        private final double[] cos;     //cos(2*PI*j/n), j<n
+        private final double[] sin;     //-sin(2*PI*j/n), j<n
+        
+        MixedRadixPlan(int n)
+        {
+            super(n);
+            
+            ArrayList<Integer> factorList = new ArrayList<>();
+            int rest = n;
+            for (int radix : RADICES) {
+                while (rest % radix == 0) {
+                    factorList.add(radix);
+                    rest /= radix;
+                }
+            }
+            
+            this.factors = new int[factorList.size()];
+            for (int i=0; i<factors.length; i++)
+                factors[i] = factorList.get(i);
+            
+            this.cos = new double[n];
+            this.sin = new double[n];
+            for (int j=0; j<n; j++) {
+                double angle = 2*Math.PI*j/n;
+                cos[j] = Math.cos(angle);
+                sin[j] = -Math.sin(angle);
+            }
+        }
+        
+        @Override
+        void transform(double[] re, double[] im, Scratch s)
+        {
+            s.ensureWorkCapacity(n);
+            
+            double[] xRe = re, xIm = im;
+            double[] yRe = s.workRe, yIm = s.workIm;
+            
+            int stride = 1;
+            int len = n;
+            
+            for (int p : factors) {
+                int m = len/p;
+                
+                switch (p) {
+                    case 2: radix2(xRe, xIm, yRe, yIm, m, stride); break;
+                    case 3: radix3(xRe, xIm, yRe, yIm, m, stride); break;
+                    case 4: radix4(xRe, xIm, yRe, yIm, m, stride); break;
+                    default: radix5(xRe, xIm, yRe, yIm, m, stride); break;
+                }
+                
+                double[] tmp = xRe; xRe = yRe; yRe = tmp;
+                tmp = xIm; xIm = yIm; yIm = tmp;
+                
+                stride *= p;
+                len = m;
+            }
+            
+            if (xRe != re) {
+                System.arraycopy(xRe, 0, re, 0, n);
+                System.arraycopy(xIm, 0, im, 0, n);
+            }
+        }
+        
+        // Each butterfly reads x[k + stride*(q + r*m)], r<p, and writes
+        // y[k + stride*(p*q + t)], t<p, multiplied by the twiddle factor
+        // exp(-2*PI*i*q*t*stride/n).
+        
+        private void radix2(double[] xRe, double[] xIm, double[] yRe, double[] yIm,
+            int m, int stride)
+        {
+            for (int q=0; q<m; q++) {
+                int w = q*stride;
+                double w1Re = cos[w], w1Im = sin[w];
+                
+                for (int k=0; k<stride; k++) {
+                    int a0 = k + stride*q;
+                    int a1 = a0 + stride*m;
+                    int b0 = k + stride*2*q;
+                    int b1 = b0 + stride;
+                    
+                    double dRe = xRe[a0] - xRe[a1];
+                    double dIm = xIm[a0] - xIm[a1];
+                    
+                    yRe[b0] = xRe[a0] + xRe[a1];
+                    yIm[b0] = xIm[a0] + xIm[a1];
+                    yRe[b1] = w1Re*dRe - w1Im*dIm;
+                    yIm[b1] = w1Re*dIm + w1Im*dRe;
+                }
+            }
+        }
+        
+        private void radix3(double[] xRe, double[] xIm, double[] yRe, double[] yIm,
+            int m, int stride)
+        {
+            final double c = -0.5;
+            final double s = Math.sqrt(3)/2;
+            
+            for (int q=0; q<m; q++) {
+                int w = q*stride;
+                double w1Re = cos[w], w1Im = sin[w];
+                double w2Re = cos[2*w % n], w2Im = sin[2*w % n];
+                
+                for (int k=0; k<stride; k++) {
+                    int a0 = k + stride*q;
+                    int a1 = a0 + stride*m;
+                    int a2 = a1 + stride*m;
+                    int b0 = k + stride*3*q;
+                    
+                    double sRe = xRe[a1] + xRe[a2];
+                    double sIm = xIm[a1] + xIm[a2];
+                    double dRe = xRe[a1] - xRe[a2];
+                    double dIm = xIm[a1] - xIm[a2];
+                    
+                    double mRe = xRe[a0] + c*sRe;
+                    double mIm = xIm[a0] + c*sIm;
+                    
+                    // y1 = m - i*s*d, y2 = m + i*s*d
+                    double y1Re = mRe + s*dIm;
+                    double y1Im = mIm - s*dRe;
+                    double y2Re = mRe - s*dIm;
+                    double y2Im = mIm + s*dRe;
+                    
+                    yRe[b0] = xRe[a0] + sRe;
+                    yIm[b0] = xIm[a0] + sIm;
+                    yRe[b0+stride] = w1Re*y1Re - w1Im*y1Im;
+                    yIm[b0+stride] = w1Re*y1Im + w1Im*y1Re;
+                    yRe[b0+2*stride] = w2Re*y2Re - w2Im*y2Im;
+                    yIm[b0+2*stride] = w2Re*y2Im + w2Im*y2Re;
+                }
+            }
+        }
+        
+        private void radix4(double[] xRe, double[] xIm, double[] yRe, double[] yIm,
+            int m, int stride)
+        {
+            for (int q=0; q<m; q++) {
+                int w = q*stride;
+                double w1Re = cos[w], w1Im = sin[w];
+                double w2Re = cos[2*w % n], w2Im = sin[2*w % n];
+                double w3Re = cos[3*w % n], w3Im = sin[3*w % n];
+                
+                for (int k=0; k<stride; k++) {
+                    int a0 = k + stride*q;
+                    int a1 = a0 + stride*m;
+                    int a2 = a1 + stride*m;
+                    int a3 = a2 + stride*m;
+                    int b0 = k + stride*4*q;
+                    
+                    double s02Re = xRe[a0] + xRe[a2], s02Im = xIm[a0] + xIm[a2];
+                    double d02Re = xRe[a0] - xRe[a2], d02Im = xIm[a0] - xIm[a2];
+                    double s13Re = xRe[a1] + xRe[a3], s13Im = xIm[a1] + xIm[a3];
+                    double d13Re = xRe[a1] - xRe[a3], d13Im = xIm[a1] - xIm[a3];
+                    
+                    // y1 = d02 - i*d13, y2 = s02 - s13, y3 = d02 + i*d13
+                    double y1Re = d02Re + d13Im, y1Im = d02Im - d13Re;
+                    double y2Re = s02Re - s13Re, y2Im = s02Im - s13Im;
+                    double y3Re = d02Re - d13Im, y3Im = d02Im + d13Re;
+                    
+                    yRe[b0] = s02Re + s13Re;
+                    yIm[b0] = s02Im + s13Im;
+                    yRe[b0+stride] = w1Re*y1Re - w1Im*y1Im;
+                    yIm[b0+stride] = w1Re*y1Im + w1Im*y1Re;
+                    yRe[b0+2*stride] = w2Re*y2Re - w2Im*y2Im;
+                    yIm[b0+2*stride] = w2Re*y2Im + w2Im*y2Re;
+                    yRe[b0+3*stride] = w3Re*y3Re - w3Im*y3Im;
+                    yIm[b0+3*stride] = w3Re*y3Im + w3Im*y3Re;
+                }
+            }
+        }
+        
+        // Writes the product of (tRe + i*tIm) and the twiddle factor of index w.
+        private void twiddle(double[] yRe, double[] yIm, int b, double tRe, double tIm, int w)
+        {
+            yRe[b] = cos[w]*tRe - sin[w]*tIm;
+            yIm[b] = cos[w]*tIm + sin[w]*tRe;
+        }
+        
+        private void radix5(double[] xRe, double[] xIm, double[] yRe, double[] yIm,
+            int m, int stride)
+        {
+            final double c1 = Math.cos(2*Math.PI/5), s1 = Math.sin(2*Math.PI/5);
+            final double c2 = Math.cos(4*Math.PI/5), s2 = Math.sin(4*Math.PI/5);
+            
+            for (int q=0; q<m; q++) {
+                int w = q*stride;
+                
+                for (int k=0; k<stride; k++) {
+                    int a0 = k + stride*q;
+                    int a1 = a0 + stride*m;
+                    int a2 = a1 + stride*m;
+                    int a3 = a2 + stride*m;
+                    int a4 = a3 + stride*m;
+                    int b0 = k + stride*5*q;
+                    
+                    double s14Re = xRe[a1] + xRe[a4], s14Im = xIm[a1] + xIm[a4];
+                    double d14Re = xRe[a1] - xRe[a4], d14Im = xIm[a1] - xIm[a4];
+                    double s23Re = xRe[a2] + xRe[a3], s23Im = xIm[a2] + xIm[a3];
+                    double d23Re = xRe[a2] - xRe[a3], d23Im = xIm[a2] - xIm[a3];
+                    
+                    double m1Re = xRe[a0] + c1*s14Re + c2*s23Re;
+                    double m1Im = xIm[a0] + c1*s14Im + c2*s23Im;
+                    double m2Re = xRe[a0] + c2*s14Re + c1*s23Re;
+                    double m2Im = xIm[a0] + c2*s14Im + c1*s23Im;
+                    
+                    double n1Re = s1*d14Re + s2*d23Re, n1Im = s1*d14Im + s2*d23Im;
+                    double n2Re = s2*d14Re - s1*d23Re, n2Im = s2*d14Im - s1*d23Im;
+                    
+                    // y1 = m1 - i*n1, y2 = m2 - i*n2, y3 = m2 + i*n2, y4 = m1 + i*n1
+                    yRe[b0] = xRe[a0] + s14Re + s23Re;
+                    yIm[b0] = xIm[a0] + s14Im + s23Im;
+                    twiddle(yRe, yIm, b0+stride, m1Re + n1Im, m1Im - n1Re, w);
+                    twiddle(yRe, yIm, b0+2*stride, m2Re + n2Im, m2Im - n2Re, 2*w % n);
+                    twiddle(yRe, yIm, b0+3*stride, m2Re - n2Im, m2Im + n2Re, 3*w % n);
+                    twiddle(yRe, yIm, b0+4*stride, m1Re - n1Im, m1Im + n1Re, 4*w % n);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Class that computes complex transforms of any length with Bluestein's
+     * algorithm, as a circular convolution of power of 2 length with a chirp.
+     */
+    private static class BluesteinPlan extends ComplexPlan
+    {
+        private final int convLen;
+        private final ComplexPlan conv;
+        private final double[] chirpCos;    //cos(PI*k*k/n), k<n
+        private final double[] chirpSin;    //-sin(PI*k*k/n), k<n
+        private final double[] kernelRe;   //transform of the conjugate chirp
+        private final double[] kernelIm;
+        
+        BluesteinPlan(int n)
+        {
+            super(n);
+            
+            this.convLen = MathUtils.nextPowerOf2(2*n-1);
+            this.conv = getComplexPlan(convLen);
+            this.chirpCos = new double[n];
+            this.chirpSin = new double[n];
+            
+            for (int k=0; k<n; k++) {
+                // Reduce k*k modulo 2n to keep the angle accurate.
+                long kk = ((long)k*k) % (2L*n);
+                double angle = Math.PI*kk/n;
+                chirpCos[k] = Math.cos(angle);
+                chirpSin[k] = -Math.sin(angle);
+            }
+            
+            this.kernelRe = new double[convLen];
+            this.kernelIm = new double[convLen];
+            
+            for (int k=0; k<n; k++) {
+                kernelRe[k] = chirpCos[k];
+                kernelIm[k] = -chirpSin[k];
+                if (k > 0) {
+                    kernelRe[convLen-k] = chirpCos[k];
+                    kernelIm[convLen-k] = -chirpSin[k];
+                }
+            }
+            
+            conv.transform(kernelRe, kernelIm, new Scratch());
+        }
+        
+        @Override
+        void transform(double[] re, double[] im, Scratch s)
+        {
+            s.ensureConvCapacity(convLen);
+            double[] aRe = s.convRe;
+            double[] aIm = s.convIm;
+            
+            for (int k=0; k<n; k++) {
+                aRe[k] = re[k]*chirpCos[k] - im[k]*chirpSin[k];
+                aIm[k] = re[k]*chirpSin[k] + im[k]*chirpCos[k];
+            }
+            for (int k=n; k<convLen; k++) {
+                aRe[k] = 0;
+                aIm[k] = 0;
+            }
+            
+            conv.transform(aRe, aIm, s);
+            
+            // Multiply by the kernel and conjugate, so the forward transform
+            // computes the conjugate of the inverse transform.
+            for (int k=0; k<convLen; k++) {
+                double pRe = aRe[k]*kernelRe[k] - aIm[k]*kernelIm[k];
+                double pIm = aRe[k]*kernelIm[k] + aIm[k]*kernelRe[k];
+                aRe[k] = pRe;
+                aIm[k] = -pIm;
+            }
+            
+            conv.transform(aRe, aIm, s);
+            
+            for (int k=0; k<n; k++) {
+                double cRe = aRe[k]/convLen;
+                double cIm = -aIm[k]/convLen;
+                re[k] = cRe*chirpCos[k] - cIm*chirpSin[k];
+                im[k] = cRe*chirpSin[k] + cIm*chirpCos[k];
+            }
+        }
+    }
+    
+    /**
+     * Class that holds the working buffers of a thread
+     */
+    private static class Scratch
+    {
+        private double[] re = new double[0];
+        private double[] im = new double[0];
+        private double[] workRe = new double[0];
+        private double[] workIm = new double[0];
+        private double[] convRe = new double[0];
+        private double[] convIm = new double[0];
+        
+        void ensureCapacity(int n)
+        {
+            if (re.length < n) {
+                re = new double[n];
+                im = new double[n];
+            }
+        }
+        
+        void ensureWorkCapacity(int n)
+        {
+            if (workRe.length < n) {
+                workRe = new double[n];
+                workIm = new double[n];
+            }
+        }
+        
+        void ensureConvCapacity(int n)
+        {
+            if (convRe.length < n) {
+                convRe = new double[n];
+                convIm = new double[n];
+            }
+        }
+    }
+}
@@ -0,0 +1,331 @@
+/*******************************************************************************
+ * Name: Java class SmKonnoOhmachi.java
+ * Project: PRISM Review Tool
+ * Written by: Peter Ng, USGS, png@usgs.gov
+ * 
+ * This software is in the public domain because it contains materials that 
+ * originally came from the United States Geological Survey, an agency of the 
+ * United States Department of Interior. For more information, see the official 
+ * USGS copyright policy at 
+ * http://www.usgs.gov/visual-id/credit_usgs.html#copyright
+ * 
+ * Date: first release date Feb. 2015
+ ******************************************************************************/
+
+package gov.usgs.smcommon.smutilities;
+
+import gov.usgs.smcommon.smclasses.SmTaskPool;
+import gov.usgs.smcommon.smclasses.SmTrace;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * This class defines a Konno-Ohmachi smoothing engine for Fourier amplitude
+ * spectra. The smoothed amplitude at frequency fc is the average of the
+ * amplitudes at frequencies f, weighted by the window
+ * [sin(b*log10(f/fc)) / (b*log10(f/fc))]^4, where b is the bandwidth.
+ * <p>
+ * The window depends only on the distance in log frequency, so the spectrum
+ * is first accumulated onto a fine log-frequency grid, where the window
+ * becomes a fixed kernel, truncated after its third zero. The fine grid bin
+ * of each spectral frequency and the kernel weight sums of each grid bin are
+ * computed once per bandwidth and frequency grid and cached, so smoothing a
+ * spectrum costs one accumulation pass plus a short convolution per output
+ * frequency, instead of a pass over the whole spectrum per output frequency.
+ * @author png
+ */
+public class SmKonnoOhmachi {
+    
+    public static final double DEFAULT_BANDWIDTH = 40.0;
+    
+    private static final int GRID_POINTS_PER_DECADE = 1000;
+    private static final double KERNEL_CUTOFF = 3*Math.PI;
+    private static final int MAX_CACHED_TABLES = 16;
+    
+    private static final LinkedHashMap<TableKey,WeightTable> tables = 
+        new LinkedHashMap<TableKey,WeightTable>(16,0.75f,true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<TableKey,WeightTable> eldest) {
+                return size() > MAX_CACHED_TABLES;
+            }
+        };
+    
+    private SmKonnoOhmachi() {}
+    
+    /**
+     * Creates an array of log-spaced frequencies
+     * @param fMin first frequency, greater than 0
+     * @param fMax last frequency
+     * @param pointsPerDecade number of frequencies per decade
+     * @return array of frequencies from fMin to fMax
+     */
+    public static double[] createLogGrid(double fMin, double fMax, int pointsPerDecade)
+    {
+        if (fMin <= 0 || fMax < fMin || pointsPerDecade <= 0)
+            return new double[0];
+        
+        double logMin = Math.log10(fMin);
+        int count = (int)Math.floor((Math.log10(fMax) - logMin)*pointsPerDecade) + 1;
+        
+        double[] frequencies = new double[count];
+        for (int i=0; i<count; i++)
+            frequencies[i] = Math.pow(10, logMin + (double)i/pointsPerDecade);
+        
+        return frequencies;
+    }
+    
+    /**
+     * Smooths a spectrum and evaluates it at the specified frequencies.
+     * @param spectrum spectrum, with frequencies in increasing order
+     * @param bandwidth bandwidth b of the window
+     * @param frequencies frequencies at which to evaluate the smoothed spectrum
+     * @return array of smoothed amplitudes, one per frequency
+     */
+    public static double[] smooth(SmTrace spectrum, double bandwidth, double[] frequencies)
+    {
+        double[] smoothed = new double[frequencies.length];
+        
+        WeightTable table = getWeightTable(spectrum, bandwidth);
+        
+        if (table == null) {
+            Arrays.fill(smoothed, Double.NaN);
+            return smoothed;
+        }
+        
+        // Accumulate the amplitudes onto the fine grid.
+        double[] sums = new double[table.denoms.length];
+        for (int i=0; i<table.gridIndx.length; i++) {
+            if (table.gridIndx[i] >= 0)
+                sums[table.gridIndx[i]] += spectrum.getY(i);
+        }
+        
+        int k = table.kernel.length/2;
+        
+        for (int j=0; j<frequencies.length; j++) {
+            int c = (frequencies[j] > 0) ? 
+                (int)Math.round(Math.log10(frequencies[j])*GRID_POINTS_PER_DECADE) - table.gridMin : -1;
+            
+            if (c < 0 || c >= sums.length || table.denoms[c] <= 0) {
+                smoothed[j] = Double.NaN;
+                continue;
+            }
+            
+            double num = 0;
+            int from = Math.max(-k, -c);
+            int to = Math.min(k, sums.length-1-c);
+            for (int i=from; i<=to; i++)
+                num += table.kernel[i+k]*sums[c+i];
+            
+            smoothed[j] = num/table.denoms[c];
+        }
+        
+        fillGaps(smoothed);
+        
+        return smoothed;
+    }
+    
+    /**
+     * Smooths several spectra in parallel, one task per spectrum.
+     * @param spectra list of spectra
+     * @param bandwidth bandwidth b of the window
+     * @param frequencies frequencies at which to evaluate the smoothed spectra
+     * @return list of smoothed amplitude arrays, in the order of the spectra
+     * @throws InterruptedException if the calling thread is interrupted
+     * @throws ExecutionException if smoothing a spectrum fails
+     */
+    public static ArrayList<double[]> smoothAll(List<SmTrace> spectra, final double bandwidth,
+        final double[] frequencies) throws InterruptedException, ExecutionException
+    {
+        ArrayList<Callable<double[]>> tasks = new ArrayList<>();
+        
+        for (final SmTrace spectrum : spectra) {
+            tasks.add(new Callable<double[]>() {
+                @Override
+                public double[] call() {return smooth(spectrum, bandwidth, frequencies);}
+            });
+        }
+        
+        return new ArrayList<>(SmTaskPool.invokeAll(tasks));
+    }
+    
+    /**
+     * Removes all cached weight tables
+     */
+    public static void clearCache()
+    {
+        synchronized (tables) {
+            tables.clear();
+        }
+    }
+    
+    // Replaces amplitudes that could not be evaluated with the nearest
+    // preceding, or else following, amplitude.
+    private static void fillGaps(double[] values)
+    {
+        double last = Double.NaN;
+        
+        for (int i=0; i<values.length; i++) {
+            if (Double.isNaN(values[i]))
+                values[i] = last;
+            else
+                last = values[i];
+        }
+        
+        last = Double.NaN;
+        
+        for (int i=values.length-1; i>=0; i--) {
+            if (Double.isNaN(values[i]))
+                values[i] = last;
+            else
+                last = values[i];
+        }
+    }
+    
+    private static WeightTable getWeightTable(SmTrace spectrum, double bandwidth)
+    {
+        // Only spectra with implicit frequencies share a grid that can be cached.
+        if (!spectrum.hasImplicitX())
+            return WeightTable.create(spectrum, bandwidth);
+        
+        TableKey key = new TableKey(bandwidth, spectrum.getStartX(), spectrum.getDeltaX(),
+            spectrum.size());
+        
+        synchronized (tables) {
+            WeightTable table = tables.get(key);
+            if (table != null)
+                return table;
+        }
+        
+        WeightTable table = WeightTable.create(spectrum, bandwidth);
+        
+        if (table != null) {
+            synchronized (tables) {
+                tables.put(key, table);
+            }
+        }
+        
+        return table;
+    }
+    
+    /**
+     * This class defines the key of a weight table, which is the bandwidth and
+     * the frequency grid of the spectrum.
+     */
+    private static final class TableKey {
+        private final long bandwidthBits;
+        private final long startXBits;
+        private final long deltaXBits;
+        private final int size;
+        
+        TableKey(double bandwidth, double startX, double deltaX, int size)
+        {
+            this.bandwidthBits = Double.doubleToLongBits(bandwidth);
+            this.startXBits = Double.doubleToLongBits(startX);
+            this.deltaXBits = Double.doubleToLongBits(deltaX);
+            this.size = size;
+        }
+        
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (!(obj instanceof TableKey))
+                return false;
+            
+            TableKey key = (TableKey)obj;
+            
+            return bandwidthBits == key.bandwidthBits && startXBits == key.startXBits &&
+                deltaXBits == key.deltaXBits && size == key.size;
+        }
+        
+        @Override
+        public int hashCode()
+        {
+            int result = (int)(bandwidthBits ^ (bandwidthBits >>> 32));
+            result = 31*result + (int)(startXBits ^ (startXBits >>> 32));
+            result = 31*result + (int)(deltaXBits ^ (deltaXBits >>> 32));
+            result = 31*result + size;
+            return result;
+        }
+    }
+    
+    /**
+     * This class defines the precomputed weights for a bandwidth and frequency
+     * grid: the fine grid bin of each spectral frequency, the truncated kernel
+     * and, for each fine grid bin, the sum of the kernel weights of the
+     * spectral frequencies around it.
+     */
+    private static class WeightTable {
+        private final int gridMin;
+        private final int[] gridIndx;   //-1 for frequencies that are not positive
+        private final double[] kernel;
+        private final double[] denoms;
+        
+        private WeightTable(int gridMin, int[] gridIndx, double[] kernel, double[] denoms)
+        {
+            this.gridMin = gridMin;
+            this.gridIndx = gridIndx;
+            this.kernel = kernel;
+            this.denoms = denoms;
+        }
+        
+        static WeightTable create(SmTrace spectrum, double bandwidth)
+        {
+            int n = spectrum.size();
+            int[] gridIndx = new int[n];
+            int gridMin = Integer.MAX_VALUE;
+            int gridMax = Integer.MIN_VALUE;
+            
+            for (int i=0; i<n; i++) {
+                double f = spectrum.getX(i);
+                
+                if (f > 0) {
+                    gridIndx[i] = (int)Math.round(Math.log10(f)*GRID_POINTS_PER_DECADE);
+                    gridMin = Math.min(gridMin, gridIndx[i]);
+                    gridMax = Math.max(gridMax, gridIndx[i]);
+                }
+                else
+                    gridIndx[i] = Integer.MIN_VALUE;
+            }
+            
+            if (gridMin > gridMax)
+                return null;
+            
+            int[] counts = new int[gridMax - gridMin + 1];
+            
+            for (int i=0; i<n; i++) {
+                gridIndx[i] = (gridIndx[i] == Integer.MIN_VALUE) ? -1 : gridIndx[i] - gridMin;
+                if (gridIndx[i] >= 0)
+                    counts[gridIndx[i]]++;
+            }
+            
+            // Kernel weights for grid offsets -k..k, where the window argument
+            // b*log10(f/fc) is bandwidth*offset/GRID_POINTS_PER_DECADE.
+            int k = (int)Math.ceil(KERNEL_CUTOFF*GRID_POINTS_PER_DECADE/bandwidth);
+            double[] kernel = new double[2*k+1];
+            
+            for (int i=-k; i<=k; i++) {
+                double x = bandwidth*i/GRID_POINTS_PER_DECADE;
+                double w = (i == 0) ? 1.0 : Math.sin(x)/x;
+                kernel[i+k] = (Math.abs(x) <= KERNEL_CUTOFF) ? w*w*w*w : 0;
+            }
+            
+            double[] denoms = new double[counts.length];
+            
+            for (int c=0; c<counts.length; c++) {
+                int from = Math.max(-k, -c);
+                int to = Math.min(k, counts.length-1-c);
+                double sum = 0;
+                for (int i=from; i<=to; i++)
+                    sum += kernel[i+k]*counts[c+i];
+                denoms[c] = sum;
+            }
+            
+            return new WeightTable(gridMin, gridIndx, kernel, denoms);
+        }
+    }
+}
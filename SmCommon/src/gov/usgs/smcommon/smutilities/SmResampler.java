@@ -0,0 +1,269 @@
+/*******************************************************************************
+ * Name: Java class SmResampler.java
+ * Project: PRISM Review Tool
+ * Written by: Peter Ng, USGS, png@usgs.gov
+ * 
+ * This software is in the public domain because it contains materials that 
+ * originally came from the United States Geological Survey, an agency of the 
+ * United States Department of Interior. For more information, see the official 
+ * USGS copyright policy at 
+ * http://www.usgs.gov/visual-id/credit_usgs.html#copyright
+ * 
+ * Date: first release date Feb. 2015
+ ******************************************************************************/
+
+package gov.usgs.smcommon.smutilities;
+
+import gov.usgs.smcommon.smclasses.SmTrace;
+import java.util.HashMap;
+
+/**
+ * This class defines a rational-factor polyphase resampler, used to bring
+ * the records of a station that were recorded at different sample rates to
+ * a common sample interval.
+ * <p>
+ * A sample interval ratio is approximated by the fraction up/down, with both
+ * factors at most MAX_FACTOR. The samples are conceptually upsampled by up,
+ * by inserting up-1 zeros between samples, low-pass filtered, and downsampled
+ * by down. The filter is a Kaiser-windowed sinc with a cutoff just below the
+ * lower of the two Nyquist frequencies and HALF_LENGTH zero crossings on each
+ * side, at the lower of the two rates. Only the filter taps that meet nonzero
+ * samples are applied: the taps are split into up phases (the filter bank)
+ * and each output sample is the dot product of one phase with the input
+ * samples. The filter is centered, so the resampled trace is not delayed,
+ * and samples beyond the ends of the trace are taken as zero. Filter banks
+ * depend only on the factors, so they are created once per (up, down) pair
+ * and cached.
+ * @author png
+ */
+public class SmResampler {
+
+    private static final int MAX_FACTOR = 1000;
+    private static final int HALF_LENGTH = 16;          //zero crossings on each side of the filter
+    private static final double ROLLOFF = 0.9;          //cutoff as a fraction of the lower Nyquist
+    private static final double KAISER_BETA = 8.0;      //about 80 dB stopband attenuation
+    private static final double INTERVAL_TOLERANCE = 1e-9;
+    private static final int MAX_FILTER_BANKS = 32;
+
+    private static final HashMap<Long,double[][]> filterBanks = new HashMap<>();
+
+    private SmResampler() {}
+
+    /**
+     * Checks whether two sample intervals are equal, within a relative
+     * tolerance, so that no resampling is needed.
+     * @param deltaT sample interval
+     * @param targetDeltaT other sample interval, in the same units
+     * @return true if the intervals are equal
+     */
+    public static boolean isSameInterval(double deltaT, double targetDeltaT)
+    {
+        return Math.abs(deltaT - targetDeltaT) <= INTERVAL_TOLERANCE*Math.abs(targetDeltaT);
+    }
+
+    /**
+     * Gets the resampling factors for a change of sample interval, as the
+     * fraction up/down closest to deltaT/targetDeltaT with both factors at
+     * most MAX_FACTOR.
+     * @param deltaT sample interval of the trace
+     * @param targetDeltaT sample interval of the resampled trace, in the
+     * same units
+     * @return array of {up, down} factors
+     */
+    public static int[] getFactors(double deltaT, double targetDeltaT)
+    {
+        double ratio = deltaT/targetDeltaT;
+
+        if (Double.isNaN(ratio) || Double.isInfinite(ratio) || ratio <= 0)
+            throw new IllegalArgumentException("Invalid sample intervals: " + deltaT +
+                ", " + targetDeltaT);
+
+        // Continued fraction convergents of the ratio, kept while both the
+        // numerator and denominator are within range.
+        long upPrev = 1, downPrev = 0;
+        long up = (long)Math.floor(ratio), down = 1;
+        double remainder = ratio - Math.floor(ratio);
+
+        while (remainder > INTERVAL_TOLERANCE &&
+            Math.abs((double)up/down - ratio) > INTERVAL_TOLERANCE*ratio) {
+
+            double inverse = 1/remainder;
+            long term = (long)Math.floor(inverse);
+            long upNext = term*up + upPrev;
+            long downNext = term*down + downPrev;
+
+            if (upNext > MAX_FACTOR || downNext > MAX_FACTOR)
+                break;
+
+            upPrev = up;
+            downPrev = down;
+            up = upNext;
+            down = downNext;
+            remainder = inverse - term;
+        }
+
+        // A ratio below 1/MAX_FACTOR has no convergent in range.
+        if (up == 0) {
+            up = 1;
+            down = MAX_FACTOR;
+        }
+
+        if (up > MAX_FACTOR) {
+            up = MAX_FACTOR;
+            down = 1;
+        }
+
+        return new int[] {(int)up, (int)down};
+    }
+
+    /**
+     * Resamples an evenly spaced trace to another sample interval. The
+     * resampled trace starts at the same x value, and its x interval is that
+     * of the trace scaled by targetDeltaT/deltaT.
+     * @param smTrace trace to resample
+     * @param deltaT sample interval of the trace
+     * @param targetDeltaT sample interval of the resampled trace, in the
+     * same units
+     * @return resampled SmTrace object, or the trace itself if the sample
+     * intervals are equal
+     */
+    public static SmTrace resample(SmTrace smTrace, double deltaT, double targetDeltaT)
+    {
+        if (isSameInterval(deltaT, targetDeltaT))
+            return smTrace;
+
+        int[] factors = getFactors(deltaT, targetDeltaT);
+        double[] samples = resample(smTrace.getYArray(), 0, smTrace.size(),
+            factors[0], factors[1]);
+
+        return new SmTrace(samples, smTrace.getStartX(),
+            smTrace.getDeltaX()*targetDeltaT/deltaT);
+    }
+
+    /**
+     * Resamples a range of samples by the factor up/down. Output sample m is
+     * at the position of input sample m*down/up; the output ends at the last
+     * input sample.
+     * @param samples sample array
+     * @param offset index of the first sample of the range
+     * @param length number of samples in the range
+     * @param up upsampling factor
+     * @param down downsampling factor
+     * @return array of resampled samples
+     */
+    public static double[] resample(double[] samples, int offset, int length, int up, int down)
+    {
+        if (up < 1 || down < 1)
+            throw new IllegalArgumentException("Invalid factors: " + up + "/" + down);
+
+        if (length == 0)
+            return new double[0];
+
+        double[][] filterBank = getFilterBank(up, down);
+        int center = HALF_LENGTH*Math.max(up,down);
+        int outLength = (int)(((long)(length-1)*up)/down) + 1;
+        double[] resampled = new double[outLength];
+
+        for (int m=0; m<outLength; m++) {
+            // Position of the output sample in the upsampled sequence, shifted
+            // by the filter delay.
+            long pos = (long)m*down + center;
+            double[] phase = filterBank[(int)(pos % up)];
+            int last = (int)(pos / up);     //newest input sample under the filter
+
+            // Taps k meet input samples last-k; skip those beyond the ends.
+            int kFirst = Math.max(last - (length-1), 0);
+            int kLast = Math.min(phase.length-1, last);
+            double sum = 0;
+
+            for (int k=kFirst; k<=kLast; k++)
+                sum += phase[k]*samples[offset + last - k];
+
+            resampled[m] = sum;
+        }
+
+        return resampled;
+    }
+
+    /**
+     * Gets the filter bank for the factor up/down, creating and caching it
+     * on first use.
+     * @param up upsampling factor
+     * @param down downsampling factor
+     * @return array of up filter phases
+     */
+    private static synchronized double[][] getFilterBank(int up, int down)
+    {
+        Long key = ((long)up << 32) | down;
+        double[][] filterBank = filterBanks.get(key);
+
+        if (filterBank == null) {
+            if (filterBanks.size() >= MAX_FILTER_BANKS)
+                filterBanks.clear();
+
+            filterBank = createFilterBank(up, down);
+            filterBanks.put(key, filterBank);
+        }
+
+        return filterBank;
+    }
+
+    private static double[][] createFilterBank(int up, int down)
+    {
+        int maxFactor = Math.max(up,down);
+        int center = HALF_LENGTH*maxFactor;
+        int filterLength = 2*center + 1;
+
+        // Cutoff in cycles per upsampled sample.
+        double cutoff = ROLLOFF*0.5/maxFactor;
+        double i0Beta = besselI0(KAISER_BETA);
+        double[] taps = new double[filterLength];
+        double sum = 0;
+
+        for (int j=0; j<filterLength; j++) {
+            double t = j - center;
+            double sinc = (t == 0) ? 2*cutoff : Math.sin(2*Math.PI*cutoff*t)/(Math.PI*t);
+            double r = t/center;
+            double window = besselI0(KAISER_BETA*Math.sqrt(Math.max(1 - r*r, 0)))/i0Beta;
+
+            taps[j] = sinc*window;
+            sum += taps[j];
+        }
+
+        // Scale to a gain of up, which restores the amplitude lost to the
+        // inserted zeros, i.e. a DC gain of 1 for each phase.
+        double scale = up/sum;
+
+        // Phase p holds taps p, p+up, p+2*up, ...
+        double[][] filterBank = new double[up][];
+
+        for (int p=0; p<up; p++) {
+            double[] phase = new double[(filterLength - p + up - 1)/up];
+
+            for (int k=0; k<phase.length; k++)
+                phase[k] = taps[p + k*up]*scale;
+
+            filterBank[p] = phase;
+        }
+
+        return filterBank;
+    }
+
+    // Modified Bessel function of the first kind, order 0, by its power series.
+    private static double besselI0(double x)
+    {
+        double sum = 1;
+        double term = 1;
+        double halfX = x/2;
+
+        for (int k=1; k<50; k++) {
+            term *= (halfX/k)*(halfX/k);
+            sum += term;
+
+            if (term < 1e-16*sum)
+                break;
+        }
+
+        return sum;
+    }
+}
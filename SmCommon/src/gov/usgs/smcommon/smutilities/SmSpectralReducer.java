@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Name: Java class SmSpectralReducer.java
+ * Project: PRISM Review Tool
+ * Written by: Peter Ng, USGS, png@usgs.gov
+ * 
+ * This software is in the public domain because it contains materials that 
+ * originally came from the United States Geological Survey, an agency of the 
+ * United States Department of Interior. For more information, see the official 
+ * USGS copyright policy at 
+ * http://www.usgs.gov/visual-id/credit_usgs.html#copyright
+ * 
+ * Date: first release date Feb. 2015
+ ******************************************************************************/
+
+package gov.usgs.smcommon.smutilities;
+
+/**
+ * This class defines a display reducer for spectra plotted on a log frequency
+ * axis. The frequencies are divided into log-spaced bins, with a fixed number
+ * of bins per decade, and each bin that holds more than two frequencies is
+ * reduced to two points, the minimum and maximum amplitude of the bin, in the
+ * order in which they occur. The envelope of the spectrum is thus kept, while
+ * the number of points no longer grows with the FFT length. Bins with one or
+ * two frequencies, usually at the low end of the spectrum, are kept as is.
+ * <p>
+ * The spectra of a group share one frequency array, as in a GroupDataset.
+ * @author png
+ */
+public class SmSpectralReducer {
+    
+    private final double[] x;
+    private final double[][] y;
+    
+    /**
+     * Constructor
+     * @param x reduced frequency array
+     * @param y reduced amplitude arrays, one per spectrum
+     */
+    private SmSpectralReducer(double[] x, double[][] y)
+    {
+        this.x = x;
+        this.y = y;
+    }
+    
+    /**
+     * Reduces a group of spectra that share the same frequencies.
+     * @param x frequency array, in increasing order
+     * @param y amplitude arrays, one per spectrum, each the length of x
+     * @param binsPerDecade number of log-spaced bins per decade of frequency
+     * @return SmSpectralReducer object holding the reduced arrays
+     */
+    public static SmSpectralReducer reduce(double[] x, double[][] y, int binsPerDecade)
+    {
+        // Find the column ranges of the bins, keeping non-positive frequencies,
+        // which have no log bin, as single columns.
+        int[] binStarts = new int[x.length+1];
+        int binCount = 0;
+        int outLength = 0;
+        long prevBin = Long.MIN_VALUE;
+        
+        for (int col=0; col<x.length; col++) {
+            long bin = (x[col] > 0) ? (long)Math.floor(Math.log10(x[col])*binsPerDecade) : 
+                Long.MIN_VALUE;
+            
+            if (col == 0 || bin != prevBin || bin == Long.MIN_VALUE) {
+                if (binCount > 0)
+                    outLength += Math.min(col - binStarts[binCount-1], 2);
+                binStarts[binCount++] = col;
+            }
+            
+            prevBin = bin;
+        }
+        
+        if (binCount > 0)
+            outLength += Math.min(x.length - binStarts[binCount-1], 2);
+        binStarts[binCount] = x.length;
+        
+        double[] xOut = new double[outLength];
+        double[][] yOut = new double[y.length][outLength];
+        
+        int out = 0;
+        
+        for (int b=0; b<binCount; b++) {
+            int start = binStarts[b];
+            int end = binStarts[b+1];
+            
+            if (end - start <= 2) {
+                for (int col=start; col<end; col++, out++) {
+                    xOut[out] = x[col];
+                    for (int row=0; row<y.length; row++)
+                        yOut[row][out] = y[row][col];
+                }
+                continue;
+            }
+            
+            // Place the two points of the bin at its first and last frequency.
+            xOut[out] = x[start];
+            xOut[out+1] = x[end-1];
+            
+            for (int row=0; row<y.length; row++) {
+                double[] yRow = y[row];
+                int minCol = start;
+                int maxCol = start;
+                
+                for (int col=start+1; col<end; col++) {
+                    if (yRow[col] < yRow[minCol])
+                        minCol = col;
+                    if (yRow[col] > yRow[maxCol])
+                        maxCol = col;
+                }
+                
+                yOut[row][out] = yRow[Math.min(minCol, maxCol)];
+                yOut[row][out+1] = yRow[Math.max(minCol, maxCol)];
+            }
+            
+            out += 2;
+        }
+        
+        return new SmSpectralReducer(xOut, yOut);
+    }
+    
+    /**
+     * Gets the reduced frequency array
+     * @return reduced frequency array
+     */
+    public double[] getX() {return this.x;}
+    
+    /**
+     * Gets the reduced amplitude arrays
+     * @return reduced amplitude arrays, one per spectrum
+     */
+    public double[][] getY() {return this.y;}
+}
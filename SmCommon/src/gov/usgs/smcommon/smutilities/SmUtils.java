@@ -16,14 +16,16 @@ package gov.usgs.smcommon.smutilities;
 
 import gov.usgs.smcommon.smclasses.SmChannel;
 import gov.usgs.smcommon.smclasses.SmEpoch;
-import gov.usgs.smcommon.smclasses.SmFile;
-import gov.usgs.smcommon.smclasses.SmRec;
 import gov.usgs.smcommon.smclasses.SmSeries;
 import gov.usgs.smcommon.smclasses.SmStation;
+import gov.usgs.smcommon.smclasses.SmStationExtent;
 import gov.usgs.smcommon.smclasses.SmTemplate;
+import gov.usgs.smcommon.smclasses.SmTrace;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.MappedByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -93,7 +95,7 @@ public class SmUtils {
                 }
                 
                 if (!found) {
-                    outSmSeriesList.add(new SmSeries(null,dataParmCode,
+                    outSmSeriesList.add(new SmSeries((SmTrace)null,dataParmCode,
                         channel,channel,smChannel.getColor(),null));
                 }
             }
@@ -104,110 +106,22 @@ public class SmUtils {
     
     public static DateTime getEarliestStartTime(ArrayList<String> filePaths)
     {
-        DateTime earliestStartTime = null;
-        
-        for (String filePath : filePaths) {
-            File file = new File(filePath);
-            
-            if (!file.exists())
-                continue;
-                
-            SmFile smFile = new SmFile(file);
-            
-            for (SmRec smRec : smFile.getSmRecs()) {
-                DateTime startDateTime = smRec.getStartDateTime();
-            
-                if (earliestStartTime == null)
-                    earliestStartTime = startDateTime;
-                else {
-                    if (startDateTime.isBefore(earliestStartTime))
-                        earliestStartTime = startDateTime;
-                }
-            }
-        }
-        
-        return earliestStartTime;
+        return SmStationExtent.getSmStationExtent(filePaths).getEarliestStartTime();
     }
     
     public static DateTime getLatestStartTime(ArrayList<String> filePaths)
     {
-        DateTime latestStartTime = null;
-        
-        for (String filePath : filePaths) {
-            File file = new File(filePath);
-            
-            if (!file.exists())
-                continue;
-                
-            SmFile smFile = new SmFile(file);
-            
-            for (SmRec smRec : smFile.getSmRecs()) {
-                DateTime startDateTime = smRec.getStartDateTime();
-            
-                if (latestStartTime == null)
-                    latestStartTime = startDateTime;
-                else {
-                    if (startDateTime.isAfter(latestStartTime))
-                        latestStartTime = startDateTime;
-                }
-            }
-        }
-        
-        return latestStartTime;
+        return SmStationExtent.getSmStationExtent(filePaths).getLatestStartTime();
     }
     
     public static DateTime getEarliestStopTime(ArrayList<String> filePaths)
     {
-        DateTime earliestStopTime = null;
-        
-        for (String filePath : filePaths) {
-            File file = new File(filePath);
-            
-            if (!file.exists())
-                continue;
-                
-            SmFile smFile = new SmFile(file);
-            
-            for (SmRec smRec : smFile.getSmRecs()) {
-                DateTime stopDateTime = smRec.getEndDateTime();
-            
-                if (earliestStopTime == null)
-                    earliestStopTime = stopDateTime;
-                else {
-                    if (stopDateTime.isBefore(earliestStopTime))
-                        earliestStopTime = stopDateTime;
-                }
-            }
-        }
-        
-        return earliestStopTime;
+        return SmStationExtent.getSmStationExtent(filePaths).getEarliestStopTime();
     }
     
     public static DateTime getLatestStopTime(ArrayList<String> filePaths)
     {
-        DateTime latestStopTime = null;
-        
-        for (String filePath : filePaths) {
-            File file = new File(filePath);
-            
-            if (!file.exists())
-                continue;
-                
-            SmFile smFile = new SmFile(file);
-            
-            for (SmRec smRec : smFile.getSmRecs()) {
-                DateTime stopDateTime = smRec.getEndDateTime();
-            
-                if (latestStopTime == null)
-                    latestStopTime = stopDateTime;
-                else {
-                    if (stopDateTime.isAfter(latestStopTime))
-                        latestStopTime = stopDateTime;
-                }
-            }
-        }
-        
-        return latestStopTime;
+        return SmStationExtent.getSmStationExtent(filePaths).getLatestStopTime();
     }
     
     /**
@@ -217,33 +131,7 @@ public class SmUtils {
      */
     public static double getMinimumDeltaT(ArrayList<String> filePaths)
     {
-        double minDeltaT = 0;
-        
-        for (String filePath : filePaths) {
-            File file = new File(filePath);
-            
-            if (!file.exists())
-                continue;
-                
-            SmFile smFile = new SmFile(file);
-            
-            boolean first = true;
-            
-            for (SmRec smRec : smFile.getSmRecs()) {
-                double deltaT = smRec.getDeltaT();
-                
-                if (first) {
-                    minDeltaT = deltaT;
-                    first = false;
-                }
-                else {
-                    if (deltaT < minDeltaT)
-                        minDeltaT = deltaT;
-                }
-            }
-        }
-        
-        return minDeltaT;
+        return SmStationExtent.getSmStationExtent(filePaths).getMinDeltaT();
     }
     
     /**
@@ -435,4 +323,25 @@ public class SmUtils {
         else
             return "";
     }
+    
+    /**
+     * Releases a mapped buffer right away, rather than when it is garbage
+     * collected, so that the mapped file can be replaced, moved or deleted
+     * afterwards. This is done on a best-effort basis, since it relies on JDK
+     * internals. The buffer must not be read afterwards.
+     * @param buffer mapped buffer to release
+     */
+    public static void unmap(MappedByteBuffer buffer) {
+        try {
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            
+            if (cleaner != null)
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+        }
+        catch (Exception ex) {
+            // The buffer is released when it is garbage collected.
+        }
+    }
 }
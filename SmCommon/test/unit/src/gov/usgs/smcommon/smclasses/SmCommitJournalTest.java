@@ -0,0 +1,233 @@
+/*******************************************************************************
+ * Name: Java class SmCommitJournalTest.java
+ * Project: PRISM Review Tool
+ * Written by: Peter Ng, USGS, png@usgs.gov
+ * 
+ * This software is in the public domain because it contains materials that 
+ * originally came from the United States Geological Survey, an agency of the 
+ * United States Department of Interior. For more information, see the official 
+ * USGS copyright policy at 
+ * http://www.usgs.gov/visual-id/credit_usgs.html#copyright
+ * 
+ * Date: first release date Feb. 2015
+ ******************************************************************************/
+
+package gov.usgs.smcommon.smclasses;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.After;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This class defines tests of SmCommitJournal: a commit replaces its files
+ * and keeps the replaced files in the trash, and recovery rolls a committed
+ * journal forward and any other journal back, including after a crash
+ * between moving a file to the trash and renaming its temp file.
+ * @author png
+ */
+public class SmCommitJournalTest {
+    
+    private static final String OLD_CONTENTS = "old";
+    private static final String NEW_CONTENTS = "new";
+    
+    private String origLogsDir;
+    private File testDir;
+    private File dataDir;
+    private File trashDir;
+    
+    @Before
+    public void setUp() throws IOException
+    {
+        origLogsDir = SmPreferences.General.getLogsDir();
+        testDir = Files.createTempDirectory("SmCommitJournalTest").toFile();
+        dataDir = new File(testDir, "data");
+        trashDir = new File(testDir, "trash");
+        dataDir.mkdirs();
+        
+        // The journal directory is next to the logs directory.
+        SmPreferences.General.setLogsDir(new File(testDir, "logs").getPath());
+    }
+    
+    @After
+    public void tearDown()
+    {
+        SmPreferences.General.setLogsDir(origLogsDir);
+        delete(testDir);
+    }
+    
+    @Test
+    public void testCommit() throws IOException
+    {
+        File targetFile = createFile(new File(dataDir, "a.V1"), OLD_CONTENTS);
+        File tempFile = SmCommitJournal.getTempFile(targetFile);
+        
+        SmCommitJournal journal = SmCommitJournal.begin("a", Arrays.asList(tempFile));
+        createFile(tempFile, NEW_CONTENTS);
+        journal.addMove(tempFile, targetFile, getTrashFile(targetFile));
+        journal.commit(new ArrayList<String>());
+        
+        assertContents(NEW_CONTENTS, targetFile);
+        assertContents(OLD_CONTENTS, getTrashFile(targetFile));
+        assertFalse(tempFile.exists());
+        assertEquals(0, getJournalFiles().size());
+    }
+    
+    @Test
+    public void testRecoverRollsBackUncommitted() throws IOException
+    {
+        File[] targetFiles = createTargetFiles();
+        List<File> tempFiles = getTempFiles(targetFiles);
+        
+        // The temp files are written, but the journal is never committed.
+        SmCommitJournal.begin("set", tempFiles);
+        createFile(tempFiles.get(0), NEW_CONTENTS);
+        createFile(tempFiles.get(1), NEW_CONTENTS);
+        
+        ArrayList<String> logList = SmCommitJournal.recoverAll();
+        
+        assertFalse(logList.isEmpty());
+        for (int i = 0; i < targetFiles.length; i++) {
+            assertContents(OLD_CONTENTS, targetFiles[i]);
+            assertFalse(tempFiles.get(i).exists());
+            assertFalse(getTrashFile(targetFiles[i]).exists());
+        }
+        assertEquals(0, getJournalFiles().size());
+    }
+    
+    @Test
+    public void testRecoverRollsForwardCommitted() throws IOException
+    {
+        File[] targetFiles = createTargetFiles();
+        List<File> tempFiles = getTempFiles(targetFiles);
+        
+        // The journal is committed, but none of its renames is carried out.
+        SmCommitJournal.begin("set", tempFiles);
+        createFile(tempFiles.get(0), NEW_CONTENTS);
+        createFile(tempFiles.get(1), NEW_CONTENTS);
+        appendCommit(targetFiles);
+        
+        SmCommitJournal.recoverAll();
+        
+        assertRolledForward(targetFiles, tempFiles);
+    }
+    
+    @Test
+    public void testRecoverAfterCrashBetweenTrashAndRename() throws IOException
+    {
+        File[] targetFiles = createTargetFiles();
+        List<File> tempFiles = getTempFiles(targetFiles);
+        
+        SmCommitJournal.begin("set", tempFiles);
+        createFile(tempFiles.get(0), NEW_CONTENTS);
+        createFile(tempFiles.get(1), NEW_CONTENTS);
+        appendCommit(targetFiles);
+        
+        // The first file was replaced, and the second was moved to the trash
+        // when the commit was interrupted, before its temp file was renamed.
+        trashDir.mkdirs();
+        Files.move(targetFiles[0].toPath(), getTrashFile(targetFiles[0]).toPath());
+        Files.move(tempFiles.get(0).toPath(), targetFiles[0].toPath());
+        Files.move(targetFiles[1].toPath(), getTrashFile(targetFiles[1]).toPath());
+        
+        SmCommitJournal.recoverAll();
+        
+        assertRolledForward(targetFiles, tempFiles);
+        assertEquals(targetFiles.length, trashDir.list().length);
+    }
+    
+    private File[] createTargetFiles() throws IOException
+    {
+        return new File[] {
+            createFile(new File(dataDir, "a.V1"), OLD_CONTENTS),
+            createFile(new File(dataDir, "b.V1"), OLD_CONTENTS)};
+    }
+    
+    private static List<File> getTempFiles(File[] targetFiles)
+    {
+        ArrayList<File> tempFiles = new ArrayList<>();
+        
+        for (File targetFile : targetFiles)
+            tempFiles.add(SmCommitJournal.getTempFile(targetFile));
+        
+        return tempFiles;
+    }
+    
+    private File getTrashFile(File targetFile)
+    {
+        return new File(trashDir, targetFile.getName());
+    }
+    
+    // Appends the renames of the target files and the commit marker to the
+    // journal, as SmCommitJournal.commit does before carrying them out.
+    private void appendCommit(File[] targetFiles) throws IOException
+    {
+        ArrayList<String> lines = new ArrayList<>();
+        
+        for (File targetFile : targetFiles) {
+            lines.add("MOVE\t" + SmCommitJournal.getTempFile(targetFile).getPath() + "\t" +
+                targetFile.getPath() + "\t" + getTrashFile(targetFile).getPath());
+        }
+        lines.add("COMMITTED");
+        
+        List<File> journalFiles = getJournalFiles();
+        assertEquals(1, journalFiles.size());
+        
+        Files.write(journalFiles.get(0).toPath(), lines, StandardCharsets.UTF_8, 
+            StandardOpenOption.APPEND);
+    }
+    
+    private void assertRolledForward(File[] targetFiles, List<File> tempFiles)
+        throws IOException
+    {
+        for (int i = 0; i < targetFiles.length; i++) {
+            assertContents(NEW_CONTENTS, targetFiles[i]);
+            assertContents(OLD_CONTENTS, getTrashFile(targetFiles[i]));
+            assertFalse(tempFiles.get(i).exists());
+        }
+        assertEquals(0, getJournalFiles().size());
+    }
+    
+    private static List<File> getJournalFiles()
+    {
+        File[] files = SmCommitJournal.getJournalDir().listFiles();
+        
+        return (files != null) ? Arrays.asList(files) : Collections.<File>emptyList();
+    }
+    
+    private static File createFile(File file, String contents) throws IOException
+    {
+        Files.write(file.toPath(), Arrays.asList(contents), StandardCharsets.UTF_8);
+        return file;
+    }
+    
+    private static void assertContents(String contents, File file) throws IOException
+    {
+        assertTrue(file.getPath(), file.isFile());
+        assertEquals(Arrays.asList(contents), 
+            Files.readAllLines(file.toPath(), StandardCharsets.UTF_8));
+    }
+    
+    private static void delete(File file)
+    {
+        File[] files = file.listFiles();
+        
+        if (files != null) {
+            for (File child : files)
+                delete(child);
+        }
+        
+        file.delete();
+    }
+}
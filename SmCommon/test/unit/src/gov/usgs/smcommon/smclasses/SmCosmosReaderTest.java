@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Name: Java class SmCosmosReaderTest.java
+ * Project: PRISM Review Tool
+ * Written by: Peter Ng, USGS, png@usgs.gov
+ * 
+ * This software is in the public domain because it contains materials that 
+ * originally came from the United States Geological Survey, an agency of the 
+ * United States Department of Interior. For more information, see the official 
+ * USGS copyright policy at 
+ * http://www.usgs.gov/visual-id/credit_usgs.html#copyright
+ * 
+ * Date: first release date Feb. 2015
+ ******************************************************************************/
+
+package gov.usgs.smcommon.smclasses;
+
+import COSMOSformat.COSMOScontentFormat;
+import COSMOSformat.V0Component;
+import COSMOSformat.V1Component;
+import COSMOSformat.V2Component;
+import java.io.File;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * This class defines conformance tests of SmCosmosReader against the COSMOS
+ * parser in SmQueue, which it replaces for files that it can read. Both
+ * readers must produce the same headers and data for every file of the test
+ * corpus, which holds V0, V1, and V2 files with LF and CRLF line endings.
+ * @author png
+ */
+public class SmCosmosReaderTest {
+    
+    private static final String[] CORPUS = {
+        "NC.ABCD.HNE.00.V0c",           //LF
+        "NC.ABCD.HNE.00.V1c",           //LF, 2 records
+        "NC.ABCD.HNE.00.crlf.V1c",      //CRLF, same records as the LF file
+        "NC.ABCD.HNE.00.acc.V2c",       //CRLF
+        "NC.ABCD.HNE.00.vel.V2c"};      //LF
+    
+    @Test
+    public void testHeadersMatchSmQueue() throws Exception
+    {
+        for (String fileName : CORPUS) {
+            File file = getCorpusFile(fileName);
+            String fileDataType = SmFile.calcFileDataType(file);
+            
+            ArrayList<SmRecHeader> headers = 
+                SmCosmosReader.readSmRecHeaders(file,fileDataType,Integer.MAX_VALUE);
+            ArrayList<SmRecHeader> queueHeaders = 
+                SmFileHeader.readSmRecHeadersWithQueue(file,fileDataType,Integer.MAX_VALUE);
+            
+            assertEquals(fileName, queueHeaders.size(), headers.size());
+            
+            for (int i=0; i<headers.size(); i++)
+                assertHeaderEquals(fileName + " record " + i, queueHeaders.get(i), headers.get(i));
+        }
+    }
+    
+    @Test
+    public void testDataMatchesSmQueue() throws Exception
+    {
+        for (String fileName : CORPUS) {
+            File file = getCorpusFile(fileName);
+            String fileDataType = SmFile.calcFileDataType(file);
+            
+            ArrayList<SmRec> smRecs = SmCosmosReader.readSmRecs(file,fileDataType);
+            ArrayList<COSMOScontentFormat> queueRecs = SmFile.parseWithQueue(file,fileDataType);
+            
+            assertEquals(fileName, queueRecs.size(), smRecs.size());
+            
+            for (int i=0; i<smRecs.size(); i++) {
+                assertArrayEquals(fileName + " record " + i, getDataArray(queueRecs.get(i)),
+                    smRecs.get(i).getSmTrace().getYArray(), 0);
+            }
+        }
+    }
+    
+    @Test
+    public void testMaxRecs() throws Exception
+    {
+        File file = getCorpusFile("NC.ABCD.HNE.00.V1c");
+        String fileDataType = SmFile.calcFileDataType(file);
+        
+        assertEquals(1, SmCosmosReader.readSmRecHeaders(file,fileDataType,1).size());
+        assertEquals(1, SmFileHeader.readSmRecHeadersWithQueue(file,fileDataType,1).size());
+    }
+    
+    @Test
+    public void testLineEndings() throws Exception
+    {
+        File lfFile = getCorpusFile("NC.ABCD.HNE.00.V1c");
+        File crlfFile = getCorpusFile("NC.ABCD.HNE.00.crlf.V1c");
+        String fileDataType = SmFile.calcFileDataType(lfFile);
+        
+        ArrayList<SmRec> lfRecs = SmCosmosReader.readSmRecs(lfFile,fileDataType);
+        ArrayList<SmRec> crlfRecs = SmCosmosReader.readSmRecs(crlfFile,fileDataType);
+        
+        assertEquals(lfRecs.size(), crlfRecs.size());
+        
+        for (int i=0; i<lfRecs.size(); i++) {
+            assertEquals(lfRecs.get(i).getStartDateTime(), crlfRecs.get(i).getStartDateTime());
+            assertArrayEquals(lfRecs.get(i).getSmTrace().getYArray(),
+                crlfRecs.get(i).getSmTrace().getYArray(), 0);
+        }
+    }
+    
+    private static void assertHeaderEquals(String msg, SmRecHeader expected, SmRecHeader actual)
+    {
+        assertEquals(msg, expected.getProcType(), actual.getProcType());
+        assertArrayEquals(msg, expected.getTextHeader(), actual.getTextHeader());
+        assertArrayEquals(msg, expected.getComments(), actual.getComments());
+        assertEquals(msg, expected.getDataLength(), actual.getDataLength());
+        assertEquals(msg, expected.getChannel(), actual.getChannel());
+        assertEquals(msg, expected.getSensorLocation(), actual.getSensorLocation());
+        assertEquals(msg, expected.getStationCode(), actual.getStationCode());
+        assertEquals(msg, expected.getStationName(), actual.getStationName());
+        assertEquals(msg, expected.getNetworkCode(), actual.getNetworkCode());
+        assertEquals(msg, expected.getEventName(), actual.getEventName());
+        assertEquals(msg, expected.getEventDateTime(), actual.getEventDateTime());
+        assertEquals(msg, expected.getStartDateTime(), actual.getStartDateTime());
+        assertEquals(msg, expected.getEndDateTime(), actual.getEndDateTime());
+        assertEquals(msg, expected.getDeltaT(), actual.getDeltaT(), 0);
+        assertEquals(msg, expected.getDataParmCode(), actual.getDataParmCode());
+        assertEquals(msg, expected.getDataUnitCode(), actual.getDataUnitCode());
+        assertEquals(msg, expected.getRealHeaderValue(63), actual.getRealHeaderValue(63), 0);
+    }
+    
+    private static double[] getDataArray(COSMOScontentFormat rec)
+    {
+        if (rec instanceof V0Component) {
+            int[] counts = ((V0Component)rec).getDataArray();
+            double[] data = new double[counts.length];
+            
+            for (int i=0; i<counts.length; i++)
+                data[i] = counts[i];
+            
+            return data;
+        }
+        else if (rec instanceof V1Component)
+            return ((V1Component)rec).getDataArray();
+        else
+            return ((V2Component)rec).getDataArray();
+    }
+    
+    private static File getCorpusFile(String fileName) throws URISyntaxException
+    {
+        return new File(SmCosmosReaderTest.class.getResource("data/" + fileName).toURI());
+    }
+}
@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Name: Java class SmTaskPoolTest.java
+ * Project: PRISM Review Tool
+ * Written by: Peter Ng, USGS, png@usgs.gov
+ * 
+ * This software is in the public domain because it contains materials that 
+ * originally came from the United States Geological Survey, an agency of the 
+ * United States Department of Interior. For more information, see the official 
+ * USGS copyright policy at 
+ * http://www.usgs.gov/visual-id/credit_usgs.html#copyright
+ * 
+ * Date: first release date Feb. 2015
+ ******************************************************************************/
+
+package gov.usgs.smcommon.smclasses;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ * This class defines tests of SmTaskPool batches: results are returned in
+ * task order, and a failed batch returns only after its started tasks have
+ * returned.
+ * @author png
+ */
+public class SmTaskPoolTest {
+    
+    private static final long BUSY_MILLIS = 200;
+    
+    @Test
+    public void testResultsInTaskOrder() throws Exception
+    {
+        ArrayList<Callable<Integer>> tasks = new ArrayList<>();
+        
+        for (int i = 0; i < 16; i++) {
+            final int index = i;
+            tasks.add(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    return index;
+                }
+            });
+        }
+        
+        ArrayList<Integer> results = SmTaskPool.invokeAll(tasks);
+        
+        assertEquals(tasks.size(), results.size());
+        for (int i = 0; i < results.size(); i++)
+            assertEquals(i, results.get(i).intValue());
+    }
+    
+    @Test
+    public void testFailedBatchWaitsForRunningTasks() throws Exception
+    {
+        final int busyTaskCount = Math.max(SmTaskPool.getPoolSize()-1,1);
+        final CountDownLatch started = new CountDownLatch(busyTaskCount);
+        final AtomicInteger runningCount = new AtomicInteger();
+        ArrayList<Callable<Void>> tasks = new ArrayList<>();
+        
+        // The first task fails once the others are running (or after a
+        // timeout on a single thread pool, where they run after it).
+        tasks.add(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                started.await(1, TimeUnit.SECONDS);
+                throw new IllegalStateException("task failed");
+            }
+        });
+        
+        // The other tasks ignore interrupts, as a task blocked in file I/O
+        // would, so cancelling their futures does not stop them.
+        for (int i = 0; i < busyTaskCount; i++) {
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    runningCount.incrementAndGet();
+                    started.countDown();
+                    
+                    long end = System.nanoTime() + 
+                        TimeUnit.MILLISECONDS.toNanos(BUSY_MILLIS);
+                    while (System.nanoTime() < end) {}
+                    
+                    runningCount.decrementAndGet();
+                    return null;
+                }
+            });
+        }
+        
+        try {
+            SmTaskPool.invokeAll(tasks);
+            fail("Expected ExecutionException");
+        }
+        catch (ExecutionException ex) {
+            assertEquals(IllegalStateException.class, ex.getCause().getClass());
+        }
+        
+        assertEquals(0, runningCount.get());
+    }
+}
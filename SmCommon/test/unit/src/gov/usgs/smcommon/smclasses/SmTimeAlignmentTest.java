@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Name: Java class SmTimeAlignmentTest.java
+ * Project: PRISM Review Tool
+ * Written by: Peter Ng, USGS, png@usgs.gov
+ * 
+ * This software is in the public domain because it contains materials that 
+ * originally came from the United States Geological Survey, an agency of the 
+ * United States Department of Interior. For more information, see the official 
+ * USGS copyright policy at 
+ * http://www.usgs.gov/visual-id/credit_usgs.html#copyright
+ * 
+ * Date: first release date Feb. 2015
+ ******************************************************************************/
+
+package gov.usgs.smcommon.smclasses;
+
+import static gov.usgs.smcommon.smclasses.SmTimeAlignment.NANOS_PER_MILLI;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+/**
+ * This class defines tests of SmTimeAlignment: pad and cut counts for sample
+ * intervals that are not a whole number of milli-seconds, and the absence of
+ * drift over long records.
+ * @author png
+ */
+public class SmTimeAlignmentTest {
+    
+    private static final long EARLIEST_NANOS = 1422748800000L*NANOS_PER_MILLI;
+    private static final double DELTA_T_300SPS = 10.0/3;     //milli-seconds
+    private static final double DELTA_T_200SPS = 1000.0/200; //milli-seconds
+    private static final double DELTA_X_TOLERANCE = 1.0e-9;
+    
+    @Test
+    public void testPadFractionalInterval()
+    {
+        SmTrace smTrace = new SmTrace(createSamples(300), 0, DELTA_T_300SPS/1000);
+        
+        // The trace starts 30 samples after the earliest start time and the 
+        // latest stop time is 630 samples after it.
+        SmTrace aligned = SmTimeAlignment.alignPadded(smTrace, 
+            EARLIEST_NANOS + 100*NANOS_PER_MILLI, DELTA_T_300SPS,
+            EARLIEST_NANOS, EARLIEST_NANOS + 2100*NANOS_PER_MILLI);
+        
+        assertEquals(631, aligned.size());
+        assertPadded(aligned, smTrace, 30);
+        assertEquals(DELTA_T_300SPS/1000, aligned.getDeltaX(), DELTA_X_TOLERANCE);
+    }
+    
+    @Test
+    public void testPadStartBetweenSamples()
+    {
+        SmTrace smTrace = new SmTrace(createSamples(300), 0, DELTA_T_300SPS/1000);
+        
+        // The trace starts 30.3 samples after the earliest start time, so 31
+        // samples are added before it.
+        SmTrace aligned = SmTimeAlignment.alignPadded(smTrace, 
+            EARLIEST_NANOS + 101*NANOS_PER_MILLI, DELTA_T_300SPS,
+            EARLIEST_NANOS, EARLIEST_NANOS + 2100*NANOS_PER_MILLI);
+        
+        assertEquals(631, aligned.size());
+        assertPadded(aligned, smTrace, 31);
+    }
+    
+    @Test
+    public void testCutFractionalInterval()
+    {
+        SmTrace smTrace = new SmTrace(createSamples(600), 0, DELTA_T_300SPS/1000);
+        
+        // The range starts 30 samples and stops 180 samples after the first 
+        // trace sample.
+        SmTrace aligned = SmTimeAlignment.alignUnpadded(smTrace, EARLIEST_NANOS,
+            DELTA_T_300SPS, EARLIEST_NANOS + 100*NANOS_PER_MILLI, 
+            EARLIEST_NANOS + 600*NANOS_PER_MILLI);
+        
+        assertEquals(150, aligned.size());
+        assertSame(smTrace.getSamples(), aligned.getSamples());
+        assertEquals(30, aligned.getOffset());
+        assertEquals(0, aligned.getStartX(), DELTA_X_TOLERANCE);
+    }
+    
+    @Test
+    public void testNoDriftAt200Sps()
+    {
+        int numPts = 200*3600;
+        
+        for (int i = 0; i < numPts; i += 7) {
+            long toNanos = EARLIEST_NANOS + (long)(i*DELTA_T_200SPS*NANOS_PER_MILLI);
+            
+            assertEquals(i, SmTimeAlignment.floorIntervals(EARLIEST_NANOS, toNanos, DELTA_T_200SPS));
+            assertEquals(i, SmTimeAlignment.ceilIntervals(EARLIEST_NANOS, toNanos, DELTA_T_200SPS));
+        }
+        
+        // An hour long trace that spans the range exactly is not padded.
+        SmTrace smTrace = new SmTrace(createSamples(numPts), 0, DELTA_T_200SPS/1000);
+        long stopNanos = EARLIEST_NANOS + 
+            (long)((numPts-1)*DELTA_T_200SPS*NANOS_PER_MILLI);
+        
+        SmTrace padded = SmTimeAlignment.alignPadded(smTrace, EARLIEST_NANOS, 
+            DELTA_T_200SPS, EARLIEST_NANOS, stopNanos);
+        
+        assertEquals(numPts, padded.size());
+        assertSame(smTrace.getSamples(), padded.getSamples());
+        
+        // Cutting the first half hour leaves the second half hour.
+        SmTrace cut = SmTimeAlignment.alignUnpadded(smTrace, EARLIEST_NANOS, 
+            DELTA_T_200SPS, EARLIEST_NANOS + 1800000L*NANOS_PER_MILLI, stopNanos);
+        
+        assertEquals(numPts/2, cut.size());
+        assertEquals(numPts/2, cut.getOffset());
+        assertEquals(0, cut.getStartX(), DELTA_X_TOLERANCE);
+    }
+    
+    private static double[] createSamples(int numPts)
+    {
+        double[] samples = new double[numPts];
+        
+        for (int i = 0; i < numPts; i++)
+            samples[i] = i + 1;
+        
+        return samples;
+    }
+    
+    private static void assertPadded(SmTrace aligned, SmTrace smTrace, int numPtsBefore)
+    {
+        int size = smTrace.size();
+        
+        for (int i = 0; i < numPtsBefore; i++)
+            assertEquals(smTrace.getY(0), aligned.getY(i), 0);
+        for (int i = 0; i < size; i++)
+            assertEquals(smTrace.getY(i), aligned.getY(numPtsBefore + i), 0);
+        for (int i = numPtsBefore + size; i < aligned.size(); i++)
+            assertEquals(smTrace.getY(size-1), aligned.getY(i), 0);
+    }
+}
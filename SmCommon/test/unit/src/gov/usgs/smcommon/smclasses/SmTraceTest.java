@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Name: Java class SmTraceTest.java
+ * Project: PRISM Review Tool
+ * Written by: Peter Ng, USGS, png@usgs.gov
+ * 
+ * This software is in the public domain because it contains materials that 
+ * originally came from the United States Geological Survey, an agency of the 
+ * United States Department of Interior. For more information, see the official 
+ * USGS copyright policy at 
+ * http://www.usgs.gov/visual-id/credit_usgs.html#copyright
+ * 
+ * Date: first release date Feb. 2015
+ ******************************************************************************/
+
+package gov.usgs.smcommon.smclasses;
+
+import java.awt.Color;
+import java.io.File;
+import java.util.ArrayList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+/**
+ * This class defines tests of the copy-on-write sharing of SmTrace sample
+ * arrays: copies of traces, records, series, and files share the samples of
+ * their source, and editing a copy never changes the original.
+ * @author png
+ */
+public class SmTraceTest {
+    
+    private static final double[] SAMPLES = {0.5, -1.25, 2.0, 3.75, -4.5, 5.0};
+    
+    @Test
+    public void testCopySharesSamples()
+    {
+        SmTrace smTrace = new SmTrace(SAMPLES.clone(), 0, 0.01);
+        SmTrace copy = new SmTrace(smTrace);
+        
+        assertSame(smTrace.getSamples(), copy.getSamples());
+        assertArrayEquals(smTrace.getYArray(), copy.getYArray(), 0);
+    }
+    
+    @Test
+    public void testYArrayIsCopy()
+    {
+        SmTrace smTrace = new SmTrace(SAMPLES.clone(), 0, 0.01);
+        
+        double[] y = smTrace.getYArray();
+        y[0] = 100;
+        
+        assertNotSame(smTrace.getSamples(), y);
+        assertArrayEquals(SAMPLES, smTrace.getYArray(), 0);
+    }
+    
+    @Test
+    public void testSubTraceIsView()
+    {
+        SmTrace smTrace = new SmTrace(SAMPLES.clone(), 1.0, 0.01);
+        SmTrace subTrace = smTrace.subTrace(2, 3);
+        
+        assertSame(smTrace.getSamples(), subTrace.getSamples());
+        assertEquals(3, subTrace.size());
+        assertEquals(SAMPLES[2], subTrace.getY(0), 0);
+        assertEquals(smTrace.getX(2), subTrace.getX(0), 0);
+        assertArrayEquals(new double[] {SAMPLES[2], SAMPLES[3], SAMPLES[4]},
+            subTrace.getYArray(), 0);
+    }
+    
+    @Test
+    public void testDisplayPrecisionCopy()
+    {
+        SmTrace smTrace = new SmTrace(SAMPLES.clone(), 0, 0.01).toDisplayPrecision();
+        SmTrace copy = new SmTrace(smTrace);
+        
+        assertTrue(smTrace.hasDisplayPrecision());
+        assertFalse(copy.hasDisplayPrecision());
+        assertArrayEquals(smTrace.getYArray(), copy.getYArray(), 0);
+    }
+    
+    @Test
+    public void testEditingRecCopyKeepsOriginal()
+    {
+        SmRec smRec = createSmRec();
+        SmRec copy = new SmRec(smRec);
+        
+        assertSame(smRec.getSmTrace().getSamples(), copy.getSmTrace().getSamples());
+        
+        copy.setSmTrace(new SmTrace(new double[] {1, 2, 3}, 0, 0.01));
+        assertArrayEquals(SAMPLES, smRec.getSmTrace().getYArray(), 0);
+        
+        ArrayList<SmPoint> smPoints = copy.getSmPoints();
+        smPoints.set(0, new SmPoint(0, 100));
+        copy.setSmPoints(smPoints);
+        assertArrayEquals(SAMPLES, smRec.getSmTrace().getYArray(), 0);
+        assertEquals(100, copy.getSmTrace().getY(0), 0);
+    }
+    
+    @Test
+    public void testEditingSeriesPointsKeepsOriginal()
+    {
+        SmSeries smSeries = new SmSeries(new SmTrace(SAMPLES.clone(), 0, 0.01), 1,
+            "title", "description", Color.BLACK, null);
+        SmSeries copy = new SmSeries(smSeries);
+        
+        assertSame(smSeries.getSmTrace(), copy.getSmTrace());
+        
+        ArrayList<SmPoint> smPoints = copy.getSmPoints();
+        smPoints.set(0, new SmPoint(0, 100));
+        assertArrayEquals(SAMPLES, smSeries.getSmTrace().getYArray(), 0);
+    }
+    
+    @Test
+    public void testEditingFileCopyKeepsOriginal() throws Exception
+    {
+        File file = new File(SmTraceTest.class.getResource("data/NC.ABCD.HNE.00.V1c").toURI());
+        SmFile smFile = new SmFile(file);
+        SmFile copy = new SmFile(smFile);
+        double[] samples = smFile.getSmRecs().get(0).getSmTrace().getYArray();
+        
+        assertSame(smFile.getSmRecs().get(0).getSmTrace().getSamples(),
+            copy.getSmRecs().get(0).getSmTrace().getSamples());
+        
+        SmTrace smTrace = copy.getSmRecs().get(0).getSmTrace();
+        copy.getSmRecs().get(0).setSmTrace(smTrace.subTrace(1, smTrace.size()-1));
+        assertArrayEquals(samples, smFile.getSmRecs().get(0).getSmTrace().getYArray(), 0);
+    }
+    
+    private static SmRec createSmRec()
+    {
+        return new SmRec(new SmTrace(SAMPLES.clone(), 0, 0.01), "HNE.00", "00", "ABCD",
+            "Test Station", "NC", new DateTime(2015,1,2,3,4,5,0), 10.0, 0.001, 5.0,
+            "Test Event", "Jan 02, 2015 03:04", 1, 4);
+    }
+}
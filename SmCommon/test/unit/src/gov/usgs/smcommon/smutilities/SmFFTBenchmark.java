@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Name: Java class SmFFTBenchmark.java
+ * Project: PRISM Review Tool
+ * Written by: Peter Ng, USGS, png@usgs.gov
+ * 
+ * This software is in the public domain because it contains materials that 
+ * originally came from the United States Geological Survey, an agency of the 
+ * United States Department of Interior. For more information, see the official 
+ * USGS copyright policy at 
+ * http://www.usgs.gov/visual-id/credit_usgs.html#copyright
+ * 
+ * Date: first release date Feb. 2015
+ ******************************************************************************/
+
+package gov.usgs.smcommon.smutilities;
+
+import java.util.Random;
+import org.apache.commons.math3.complex.Complex;
+import org.apache.commons.math3.transform.DftNormalization;
+import org.apache.commons.math3.transform.FastFourierTransformer;
+import org.apache.commons.math3.transform.TransformType;
+
+/**
+ * This class defines a timing harness that compares the SmFFT amplitude
+ * spectrum with the commons-math FFT path it replaced, which zero pads the
+ * samples to a power of 2, transforms them as complex values and takes the
+ * magnitudes. It is run by hand rather than as a unit test:
+ * <pre>
+ * java gov.usgs.smcommon.smutilities.SmFFTBenchmark [iterations]
+ * </pre>
+ * Each record length is timed after a warm-up, and the mean time per
+ * spectrum is printed for commons-math and for SmFFT with each padding
+ * policy.
+ * @author png
+ */
+public class SmFFTBenchmark {
+    
+    private static final int[] LENGTHS = {4000, 16384, 16500, 36000, 100000};
+    private static final int WARMUP_ITERATIONS = 20;
+    
+    private static double sink = 0;     //keeps results from being optimized away
+    
+    public static void main(String[] args)
+    {
+        int iterations = (args.length > 0) ? Integer.parseInt(args[0]) : 50;
+        
+        System.out.println(String.format("%8s %14s %14s %14s %14s", "length",
+            "commons-math", "POWER_OF_2", "SMOOTH", "EXACT"));
+        
+        for (int length : LENGTHS) {
+            double[] samples = createSamples(length);
+            
+            double commonsMs = time(new CommonsMathSpectrum(samples), iterations);
+            double pow2Ms = time(new SmFFTSpectrum(samples, SmFFT.PaddingPolicy.POWER_OF_2), 
+                iterations);
+            double smoothMs = time(new SmFFTSpectrum(samples, SmFFT.PaddingPolicy.SMOOTH),
+                iterations);
+            double exactMs = time(new SmFFTSpectrum(samples, SmFFT.PaddingPolicy.EXACT),
+                iterations);
+            
+            System.out.println(String.format("%8d %11.3f ms %11.3f ms %11.3f ms %11.3f ms",
+                length, commonsMs, pow2Ms, smoothMs, exactMs));
+        }
+        
+        if (sink == 0)
+            System.out.println();
+    }
+    
+    // Returns the mean time of a run, in milliseconds, after a warm-up.
+    private static double time(Runnable run, int iterations)
+    {
+        for (int i=0; i<WARMUP_ITERATIONS; i++)
+            run.run();
+        
+        long start = System.nanoTime();
+        
+        for (int i=0; i<iterations; i++)
+            run.run();
+        
+        return (System.nanoTime() - start)/1e6/iterations;
+    }
+    
+    private static double[] createSamples(int length)
+    {
+        Random random = new Random(length);
+        double[] samples = new double[length];
+        
+        for (int i=0; i<length; i++)
+            samples[i] = random.nextGaussian();
+        
+        return samples;
+    }
+    
+    private static class CommonsMathSpectrum implements Runnable {
+        private final double[] samples;
+        private final FastFourierTransformer transformer = 
+            new FastFourierTransformer(DftNormalization.STANDARD);
+        
+        private CommonsMathSpectrum(double[] samples) {this.samples = samples;}
+        
+        @Override
+        public void run() {
+            int fftLen = MathUtils.nextPowerOf2(samples.length);
+            double[] padded = new double[fftLen];
+            System.arraycopy(samples, 0, padded, 0, samples.length);
+            
+            Complex[] spectrum = transformer.transform(padded, TransformType.FORWARD);
+            double[] amplitudes = new double[fftLen/2+1];
+            
+            for (int k=0; k<amplitudes.length; k++)
+                amplitudes[k] = spectrum[k].abs();
+            
+            sink += amplitudes[1];
+        }
+    }
+    
+    private static class SmFFTSpectrum implements Runnable {
+        private final double[] samples;
+        private final int fftLen;
+        
+        private SmFFTSpectrum(double[] samples, SmFFT.PaddingPolicy policy) {
+            this.samples = samples;
+            this.fftLen = SmFFT.getFFTLength(samples.length, policy);
+        }
+        
+        @Override
+        public void run() {
+            sink += SmFFT.amplitudeSpectrum(samples, 0, samples.length, fftLen)[1];
+        }
+    }
+}
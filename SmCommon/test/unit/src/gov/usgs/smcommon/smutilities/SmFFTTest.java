@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * Name: Java class SmFFTTest.java
+ * Project: PRISM Review Tool
+ * Written by: Peter Ng, USGS, png@usgs.gov
+ * 
+ * This software is in the public domain because it contains materials that 
+ * originally came from the United States Geological Survey, an agency of the 
+ * United States Department of Interior. For more information, see the official 
+ * USGS copyright policy at 
+ * http://www.usgs.gov/visual-id/credit_usgs.html#copyright
+ * 
+ * Date: first release date Feb. 2015
+ ******************************************************************************/
+
+package gov.usgs.smcommon.smutilities;
+
+import java.util.Random;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.apache.commons.math3.complex.Complex;
+import org.apache.commons.math3.transform.DftNormalization;
+import org.apache.commons.math3.transform.FastFourierTransformer;
+import org.apache.commons.math3.transform.TransformType;
+import org.junit.Test;
+
+/**
+ * This class defines tests of the SmFFT amplitude spectra. Power of 2 lengths
+ * are checked against the commons-math FFT, and smooth, Bluestein and odd
+ * lengths against a direct DFT.
+ * @author png
+ */
+public class SmFFTTest {
+    
+    private static final double TOLERANCE = 1e-9;
+    
+    @Test
+    public void testPowerOf2MatchesCommonsMath()
+    {
+        FastFourierTransformer transformer = 
+            new FastFourierTransformer(DftNormalization.STANDARD);
+        
+        for (int fftLen=1; fftLen<=8192; fftLen*=2) {
+            double[] samples = createSamples(fftLen, fftLen);
+            Complex[] expected = transformer.transform(samples, TransformType.FORWARD);
+            double[] amplitudes = SmFFT.amplitudeSpectrum(samples, 0, fftLen, fftLen);
+            
+            assertEquals("length " + fftLen, fftLen/2+1, amplitudes.length);
+            
+            for (int k=0; k<amplitudes.length; k++)
+                assertEquals("length " + fftLen + ", bin " + k, expected[k].abs(),
+                    amplitudes[k], TOLERANCE*(1 + expected[k].abs()));
+        }
+    }
+    
+    @Test
+    public void testZeroPaddingMatchesCommonsMath()
+    {
+        FastFourierTransformer transformer = 
+            new FastFourierTransformer(DftNormalization.STANDARD);
+        
+        for (int length : new int[] {3, 100, 1000, 4097}) {
+            int fftLen = SmFFT.getFFTLength(length, SmFFT.PaddingPolicy.POWER_OF_2);
+            double[] samples = createSamples(length, length);
+            double[] padded = new double[fftLen];
+            System.arraycopy(samples, 0, padded, 0, length);
+            
+            Complex[] expected = transformer.transform(padded, TransformType.FORWARD);
+            double[] amplitudes = SmFFT.amplitudeSpectrum(samples, 0, length, fftLen);
+            
+            for (int k=0; k<amplitudes.length; k++)
+                assertEquals("length " + length + ", bin " + k, expected[k].abs(),
+                    amplitudes[k], TOLERANCE*(1 + expected[k].abs()));
+        }
+    }
+    
+    @Test
+    public void testSmoothLengthsMatchDft()
+    {
+        for (int fftLen : new int[] {6, 10, 12, 18, 30, 60, 90, 250, 360, 1000})
+            assertMatchesDft(fftLen, fftLen);
+    }
+    
+    @Test
+    public void testBluesteinLengthsMatchDft()
+    {
+        for (int fftLen : new int[] {14, 22, 26, 202, 998})
+            assertMatchesDft(fftLen, fftLen);
+    }
+    
+    @Test
+    public void testOddLengthsMatchDft()
+    {
+        for (int fftLen : new int[] {1, 3, 5, 7, 9, 11, 15, 25, 45, 101, 127, 225, 999})
+            assertMatchesDft(fftLen, fftLen);
+    }
+    
+    @Test
+    public void testPaddedLengthsMatchDft()
+    {
+        for (int length : new int[] {7, 97, 361}) {
+            assertMatchesDft(length, SmFFT.getFFTLength(length, SmFFT.PaddingPolicy.SMOOTH));
+            assertMatchesDft(length, SmFFT.getFFTLength(length, SmFFT.PaddingPolicy.EXACT));
+        }
+    }
+    
+    @Test
+    public void testOffset()
+    {
+        double[] samples = createSamples(300, 1);
+        double[] range = new double[200];
+        System.arraycopy(samples, 50, range, 0, range.length);
+        
+        assertArrayEquals(SmFFT.amplitudeSpectrum(range, 0, 200, 256),
+            SmFFT.amplitudeSpectrum(samples, 50, 200, 256), 0);
+    }
+    
+    @Test
+    public void testPlanCacheIsBounded()
+    {
+        SmFFT.clearPlans();
+        
+        for (int fftLen=1000; fftLen<1300; fftLen++)
+            SmFFT.amplitudeSpectrum(createSamples(fftLen, fftLen), 0, fftLen, fftLen);
+        
+        assertTrue("plan count " + SmFFT.getPlanCount(), SmFFT.getPlanCount() < 300);
+        
+        // Plans created again after the caches are cleared give the same results.
+        assertMatchesDft(1000, 1000);
+        assertMatchesDft(1001, 1001);
+    }
+    
+    @Test
+    public void testFFTLength()
+    {
+        assertEquals(1, SmFFT.getFFTLength(1, SmFFT.PaddingPolicy.POWER_OF_2));
+        assertEquals(1024, SmFFT.getFFTLength(1000, SmFFT.PaddingPolicy.POWER_OF_2));
+        assertEquals(1000, SmFFT.getFFTLength(1000, SmFFT.PaddingPolicy.SMOOTH));
+        assertEquals(1000, SmFFT.getFFTLength(999, SmFFT.PaddingPolicy.SMOOTH));
+        assertEquals(999, SmFFT.getFFTLength(999, SmFFT.PaddingPolicy.EXACT));
+        
+        for (int length=2; length<=5000; length++) {
+            int fftLen = SmFFT.getFFTLength(length, SmFFT.PaddingPolicy.SMOOTH);
+            
+            assertTrue("length " + length, fftLen >= length && fftLen % 2 == 0 && 
+                SmFFT.isSmooth(fftLen));
+            assertTrue("length " + length, 
+                fftLen <= SmFFT.getFFTLength(length, SmFFT.PaddingPolicy.POWER_OF_2));
+        }
+    }
+    
+    // Checks the amplitude spectrum of a number of samples, zero padded to
+    // the FFT length, against a direct DFT.
+    private static void assertMatchesDft(int length, int fftLen)
+    {
+        double[] samples = createSamples(length, fftLen);
+        double[] expected = dftAmplitudes(samples, fftLen);
+        double[] amplitudes = SmFFT.amplitudeSpectrum(samples, 0, length, fftLen);
+        
+        assertEquals("length " + fftLen, expected.length, amplitudes.length);
+        
+        for (int k=0; k<amplitudes.length; k++)
+            assertEquals("length " + fftLen + ", bin " + k, expected[k], amplitudes[k],
+                TOLERANCE*(1 + expected[k]));
+    }
+    
+    private static double[] dftAmplitudes(double[] samples, int fftLen)
+    {
+        double[] amplitudes = new double[fftLen/2+1];
+        
+        for (int k=0; k<amplitudes.length; k++) {
+            double re = 0;
+            double im = 0;
+            
+            for (int i=0; i<samples.length; i++) {
+                // Reduce k*i modulo fftLen to keep the angle accurate.
+                double angle = -2*Math.PI*(((long)k*i) % fftLen)/fftLen;
+                re += samples[i]*Math.cos(angle);
+                im += samples[i]*Math.sin(angle);
+            }
+            
+            amplitudes[k] = Math.sqrt(re*re + im*im);
+        }
+        
+        return amplitudes;
+    }
+    
+    private static double[] createSamples(int length, long seed)
+    {
+        Random random = new Random(seed);
+        double[] samples = new double[length];
+        
+        for (int i=0; i<length; i++)
+            samples[i] = random.nextGaussian();
+        
+        return samples;
+    }
+}
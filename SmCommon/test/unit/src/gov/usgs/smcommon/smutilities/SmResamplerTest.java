@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Name: Java class SmResamplerTest.java
+ * Project: PRISM Review Tool
+ * Written by: Peter Ng, USGS, png@usgs.gov
+ * 
+ * This software is in the public domain because it contains materials that 
+ * originally came from the United States Geological Survey, an agency of the 
+ * United States Department of Interior. For more information, see the official 
+ * USGS copyright policy at 
+ * http://www.usgs.gov/visual-id/credit_usgs.html#copyright
+ * 
+ * Date: first release date Feb. 2015
+ ******************************************************************************/
+
+package gov.usgs.smcommon.smutilities;
+
+import java.util.Arrays;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ * This class defines tests of the SmResampler polyphase resampler: the
+ * resampling factors, the DC gain, and round trips of a sine between
+ * 200 and 100 Hz and between 200 and 250 Hz. Samples near the ends of a
+ * trace, where the filter meets the zeros beyond the trace, are not checked.
+ * @author png
+ */
+public class SmResamplerTest {
+    
+    private static final int NUM_PTS = 4000;
+    private static final int EDGE_PTS = 100;
+    private static final double DC_TOLERANCE = 1e-4;
+    private static final double SINE_TOLERANCE = 1e-3;
+    private static final double SINE_FREQ = 5;     //Hz
+    
+    @Test
+    public void testGetFactors()
+    {
+        assertArrayEquals(new int[] {1,2}, SmResampler.getFactors(5, 10));
+        assertArrayEquals(new int[] {2,1}, SmResampler.getFactors(10, 5));
+        assertArrayEquals(new int[] {5,4}, SmResampler.getFactors(5, 4));
+        assertArrayEquals(new int[] {4,5}, SmResampler.getFactors(4, 5));
+        assertArrayEquals(new int[] {25,16}, SmResampler.getFactors(1000.0/128, 5));
+        
+        // Irrational ratios are approximated with factors of at most 1000.
+        assertArrayEquals(new int[] {355,113}, SmResampler.getFactors(Math.PI, 1));
+        
+        try {
+            SmResampler.getFactors(5, 0);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException ex) {
+        }
+    }
+    
+    @Test
+    public void testDCGain()
+    {
+        int[][] factors = {{1,2}, {2,1}, {5,4}, {4,5}};
+        double[] samples = new double[NUM_PTS];
+        Arrays.fill(samples, 1.0);
+        
+        for (int[] upDown : factors) {
+            double[] resampled = SmResampler.resample(samples, 0, NUM_PTS, 
+                upDown[0], upDown[1]);
+            
+            assertEquals((NUM_PTS-1)*upDown[0]/upDown[1] + 1, resampled.length);
+            for (int i = EDGE_PTS; i < resampled.length - EDGE_PTS; i++)
+                assertEquals(1.0, resampled[i], DC_TOLERANCE);
+        }
+    }
+    
+    @Test
+    public void testSineRoundTrip200To100()
+    {
+        assertSineRoundTrip(200, 100);
+    }
+    
+    @Test
+    public void testSineRoundTrip200To250()
+    {
+        assertSineRoundTrip(200, 250);
+    }
+    
+    // Resamples a sine from one sample rate to another and back, checking the
+    // resampled sine against the sine sampled at the other rate and the round
+    // trip against the original samples.
+    private static void assertSineRoundTrip(double sampleRate, double otherSampleRate)
+    {
+        double deltaT = 1/sampleRate;
+        double otherDeltaT = 1/otherSampleRate;
+        double[] samples = createSine(NUM_PTS, sampleRate);
+        
+        int[] factors = SmResampler.getFactors(deltaT, otherDeltaT);
+        double[] resampled = SmResampler.resample(samples, 0, samples.length, 
+            factors[0], factors[1]);
+        assertNear(createSine(resampled.length, otherSampleRate), resampled);
+        
+        int[] backFactors = SmResampler.getFactors(otherDeltaT, deltaT);
+        double[] roundTrip = SmResampler.resample(resampled, 0, resampled.length, 
+            backFactors[0], backFactors[1]);
+        assertNear(Arrays.copyOf(samples, roundTrip.length), roundTrip);
+    }
+    
+    private static double[] createSine(int numPts, double sampleRate)
+    {
+        double[] samples = new double[numPts];
+        
+        for (int i = 0; i < numPts; i++)
+            samples[i] = Math.sin(2*Math.PI*SINE_FREQ*i/sampleRate);
+        
+        return samples;
+    }
+    
+    private static void assertNear(double[] expected, double[] actual)
+    {
+        assertEquals(expected.length, actual.length);
+        
+        for (int i = EDGE_PTS; i < actual.length - EDGE_PTS; i++)
+            assertEquals("sample " + i, expected[i], actual[i], SINE_TOLERANCE);
+    }
+}